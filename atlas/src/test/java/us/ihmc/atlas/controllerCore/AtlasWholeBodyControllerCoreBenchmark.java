@@ -0,0 +1,19 @@
+package us.ihmc.atlas.controllerCore;
+
+import us.ihmc.atlas.AtlasRobotModel;
+import us.ihmc.atlas.AtlasRobotVersion;
+import us.ihmc.avatar.controllerCore.AvatarWholeBodyControllerCoreBenchmark;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+
+public class AtlasWholeBodyControllerCoreBenchmark extends AvatarWholeBodyControllerCoreBenchmark
+{
+   public AtlasWholeBodyControllerCoreBenchmark()
+   {
+      super(new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_FOREARMS, RobotTarget.SCS, true));
+   }
+
+   public static void main(String[] args)
+   {
+      new AtlasWholeBodyControllerCoreBenchmark().runBenchmark();
+   }
+}
@@ -0,0 +1,65 @@
+package us.ihmc.atlas.controllerCore;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import us.ihmc.atlas.AtlasRobotModel;
+import us.ihmc.atlas.AtlasRobotVersion;
+import us.ihmc.avatar.controllerCore.WholeBodyControllerCoreBenchmarkFixture;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.QPInput;
+
+/**
+ * JMH benchmarks of a single controller core tick and of the QP assembly by the {@code MotionQPInputCalculator} for Atlas, on a
+ * frozen mid-step state. See {@link AtlasWholeBodyControllerCoreBenchmark} for the latency distribution over a closed-loop scenario.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AtlasWholeBodyControllerCoreJMHBenchmark
+{
+   private WholeBodyControllerCoreBenchmarkFixture fixture;
+
+   @Setup
+   public void setup()
+   {
+      fixture = new WholeBodyControllerCoreBenchmarkFixture(new AtlasRobotModel(AtlasRobotVersion.ATLAS_UNPLUGGED_V5_NO_FOREARMS, RobotTarget.SCS, true));
+      fixture.setup();
+   }
+
+   @Benchmark
+   public WholeBodyControllerCore controllerCoreTick()
+   {
+      return fixture.computeControllerCore();
+   }
+
+   @Benchmark
+   public QPInput motionQPInputCalculator()
+   {
+      return fixture.convertSpatialAccelerationCommands();
+   }
+
+   public static void main(String[] args) throws RunnerException
+   {
+      Options options = new OptionsBuilder().include(AtlasWholeBodyControllerCoreJMHBenchmark.class.getSimpleName()).build();
+      new Runner(options).run();
+   }
+}
@@ -61,6 +61,7 @@ public class FootstepPlanningToolboxController extends ToolboxController
 {
    private final YoEnum<FootstepPlannerType> activePlanner = new YoEnum<>("activePlanner", registry, FootstepPlannerType.class);
    private final EnumMap<FootstepPlannerType, BodyPathAndFootstepPlanner> plannerMap = new EnumMap<>(FootstepPlannerType.class);
+   private final AStarFootstepPlanner aStarPlanner;
 
    private final AtomicReference<FootstepPlanningRequestPacket> latestRequestReference = new AtomicReference<>(null);
    private final AtomicReference<FootstepPlannerParametersPacket> latestFootstepPlannerParametersReference = new AtomicReference<>(null);
@@ -100,7 +101,8 @@ public class FootstepPlanningToolboxController extends ToolboxController
 
       plannerMap.put(FootstepPlannerType.PLANAR_REGION_BIPEDAL, createPlanarRegionBipedalPlanner(contactPointsInSoleFrame));
       plannerMap.put(FootstepPlannerType.PLAN_THEN_SNAP, new PlanThenSnapPlanner(new TurnWalkTurnPlanner(), contactPointsInSoleFrame));
-      plannerMap.put(FootstepPlannerType.A_STAR, createAStarPlanner(contactPointsInSoleFrame));
+      aStarPlanner = createAStarPlanner(contactPointsInSoleFrame);
+      plannerMap.put(FootstepPlannerType.A_STAR, aStarPlanner);
       plannerMap
             .put(FootstepPlannerType.SIMPLE_BODY_PATH, new SplinePathWithAStarPlanner(footstepPlanningParameters, contactPointsInSoleFrame, parentRegistry, null));
       plannerMap.put(FootstepPlannerType.VIS_GRAPH_WITH_A_STAR,
@@ -146,6 +148,8 @@ public class FootstepPlanningToolboxController extends ToolboxController
 
       AStarFootstepPlanner planner = new AStarFootstepPlanner(footstepPlanningParameters, nodeChecker, heuristics, expansion, footstepCost, postProcessingSnapper, plannerListener,
                                                               registry);
+      // Consecutive requests usually come with updated planar regions of the same environment
+      planner.setIncrementalReplanning(true);
 
       return planner;
    }
@@ -249,7 +253,10 @@ public class FootstepPlanningToolboxController extends ToolboxController
 
       FootstepPlannerParametersPacket footstepPlannerParameters = latestFootstepPlannerParametersReference.getAndSet(null);
       if (footstepPlannerParameters != null)
+      {
          footstepPlanningParameters.set(footstepPlannerParameters);
+         aStarPlanner.clearReplanningCaches();
+      }
 
       VisibilityGraphsParametersPacket visibilityGraphParameters = latestVisibilityGraphsParametersReference.getAndSet(null);
       if (visibilityGraphParameters != null)
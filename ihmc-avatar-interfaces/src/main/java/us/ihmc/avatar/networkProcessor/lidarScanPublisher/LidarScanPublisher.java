@@ -1,9 +1,9 @@
 package us.ihmc.avatar.networkProcessor.lidarScanPublisher;
 
 import java.net.URI;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -32,7 +32,7 @@ import us.ihmc.euclid.tuple4D.Quaternion32;
 import us.ihmc.humanoidRobotics.kryo.PPSTimestampOffsetProvider;
 import us.ihmc.ihmcPerception.depthData.CollisionBoxProvider;
 import us.ihmc.ihmcPerception.depthData.CollisionShapeTester;
-import us.ihmc.ihmcPerception.depthData.RosPointCloudReceiver;
+import us.ihmc.robotEnvironmentAwareness.geometry.PointCloudCullingFilter;
 import us.ihmc.robotModels.FullHumanoidRobotModel;
 import us.ihmc.robotModels.FullHumanoidRobotModelFactory;
 import us.ihmc.robotics.lidar.LidarScan;
@@ -42,7 +42,6 @@ import us.ihmc.sensorProcessing.communication.producers.RobotConfigurationDataBu
 import us.ihmc.utilities.ros.RosMainNode;
 import us.ihmc.utilities.ros.subscriber.AbstractRosTopicSubscriber;
 import us.ihmc.utilities.ros.subscriber.RosPointCloudSubscriber;
-import us.ihmc.utilities.ros.subscriber.RosPointCloudSubscriber.UnpackedPointCloud;
 import us.ihmc.utilities.ros.subscriber.RosTopicSubscriberInterface;
 
 public class LidarScanPublisher
@@ -55,6 +54,8 @@ public class LidarScanPublisher
    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(ThreadTools.getNamedThreadFactory(name));
 
    private final AtomicReference<ScanData> scanDataToPublish = new AtomicReference<>(null);
+   /** Scans that have been published or dropped, reused for the next scans to avoid allocating the point buffers for each scan. */
+   private final ConcurrentLinkedQueue<ScanData> freeScanData = new ConcurrentLinkedQueue<>();
 
    private final String robotName;
    private final FullHumanoidRobotModel fullRobotModel;
@@ -69,6 +70,8 @@ public class LidarScanPublisher
    private final IHMCROS2Publisher<LidarScanMessage> lidarScanPublisher;
 
    private double shadowAngleThreshold = DEFAULT_SHADOW_ANGLE_THRESHOLD;
+   private double minRange = 0.0;
+   private double maxRange = Double.POSITIVE_INFINITY;
 
    public LidarScanPublisher(String lidarName, FullHumanoidRobotModelFactory modelFactory, Ros2Node ros2Node, String robotConfigurationDataTopicName)
    {
@@ -150,6 +153,16 @@ public class LidarScanPublisher
       shadowAngleThreshold = angleThreshold;
    }
 
+   /**
+    * Removes the points that are closer than {@code minRange} or farther than {@code maxRange} from
+    * the lidar. By default, no point is removed.
+    */
+   public void setRangeFilter(double minRange, double maxRange)
+   {
+      this.minRange = minRange;
+      this.maxRange = maxRange;
+   }
+
    public void setPPSTimestampOffsetProvider(PPSTimestampOffsetProvider ppsTimestampOffsetProvider)
    {
       this.ppsTimestampOffsetProvider = ppsTimestampOffsetProvider;
@@ -162,11 +175,9 @@ public class LidarScanPublisher
          @Override
          public void onNewMessage(PointCloud2 pointCloud)
          {
-            UnpackedPointCloud pointCloudData = unpackPointsAndIntensities(pointCloud);
-            Point3D[] scanPoints = pointCloudData.getPoints();
-            long timestamp = pointCloud.getHeader().getStamp().totalNsecs();
-
-            scanDataToPublish.set(new ScanData(timestamp, scanPoints));
+            ScanData scanData = pollFreeScanData();
+            scanData.set(pointCloud);
+            submitScanData(scanData);
          }
       };
    }
@@ -178,12 +189,9 @@ public class LidarScanPublisher
          @Override
          public void onNewMessage(PointCloud2WithSource pointCloud)
          {
-            PointCloud2 cloud = pointCloud.getCloud();
-            UnpackedPointCloud pointCloudData = RosPointCloudReceiver.unpackPointsAndIntensities(cloud);
-            Point3D[] scanPoints = pointCloudData.getPoints();
-            long timestamp = cloud.getHeader().getStamp().totalNsecs();
-
-            scanDataToPublish.set(new ScanData(timestamp, scanPoints));
+            ScanData scanData = pollFreeScanData();
+            scanData.set(pointCloud.getCloud());
+            submitScanData(scanData);
          }
       };
    }
@@ -206,11 +214,26 @@ public class LidarScanPublisher
             List<Point3D> scanPoints = scan.getAllPoints();
             long timestamp = packet.getLidarScanParameters().getTimestamp();
 
-            scanDataToPublish.set(new ScanData(timestamp, scanPoints));
+            ScanData scanData = pollFreeScanData();
+            scanData.set(timestamp, scanPoints);
+            submitScanData(scanData);
          }
       };
    }
 
+   private ScanData pollFreeScanData()
+   {
+      ScanData scanData = freeScanData.poll();
+      return scanData == null ? new ScanData() : scanData;
+   }
+
+   private void submitScanData(ScanData scanData)
+   {
+      ScanData previousScanData = scanDataToPublish.getAndSet(scanData);
+      if (previousScanData != null)
+         freeScanData.offer(previousScanData);
+   }
+
    // Temporary variables used to find shadows
    private final Point3D lidarPosition = new Point3D();
 
@@ -219,6 +242,10 @@ public class LidarScanPublisher
       return new Runnable()
       {
          private final RigidBodyTransform transformToWorld = new RigidBodyTransform();
+         private final Point3D32 lidarPosition32 = new Point3D32();
+         private final Quaternion32 lidarOrientation32 = new Quaternion32();
+         private final LidarScanMessage message = new LidarScanMessage();
+         private final PointCloudCullingFilter cullingFilter = new PointCloudCullingFilter();
 
          @Override
          public void run()
@@ -227,6 +254,18 @@ public class LidarScanPublisher
             if (scanData == null)
                return;
 
+            try
+            {
+               publish(scanData);
+            }
+            finally
+            {
+               freeScanData.offer(scanData);
+            }
+         }
+
+         private void publish(ScanData scanData)
+         {
             long robotTimestamp;
 
             if (ppsTimestampOffsetProvider == null)
@@ -250,68 +289,77 @@ public class LidarScanPublisher
                scanData.transform(transformToWorld);
             }
 
-            collisionBoxNode.update();
-            lidarSensorFrame.getTransformToRoot().getTranslation(lidarPosition);
-
-            List<Integer> shadowRemovalIndices = scanData.computeShadowPointIndices(lidarPosition, shadowAngleThreshold);
-            List<Integer> selfCollisionRemovalIndices = scanData.computeCollidingPointIndices(collisionBoxNode);
+            if (collisionBoxNode != null)
+               collisionBoxNode.update();
+            lidarSensorFrame.getTransformToDesiredFrame(transformToWorld, worldFrame);
+            transformToWorld.getTranslation(lidarPosition);
 
-            Point3D32 lidarPosition;
-            Quaternion32 lidarOrientation;
-
-            if (lidarSensorFrame != null)
+            scanData.clearPointsToRemove();
+            if (minRange > 0.0 || maxRange < Double.POSITIVE_INFINITY)
             {
-               lidarPosition = new Point3D32();
-               lidarOrientation = new Quaternion32();
-               lidarSensorFrame.getTransformToDesiredFrame(transformToWorld, worldFrame);
-               transformToWorld.get(lidarOrientation, lidarPosition);
+               cullingFilter.setSensorPose(transformToWorld);
+               cullingFilter.setRange(minRange, maxRange);
+               scanData.markCulledPoints(cullingFilter);
             }
-            else
-            {
-               lidarPosition = null;
-               lidarOrientation = null;
-            }
-
-            lidarPosition = lidarPosition == null ? null : new Point3D32(lidarPosition);
-            lidarOrientation = lidarOrientation == null ? null : new Quaternion32(lidarOrientation);
-
-            PriorityQueue<Integer> indicesToRemove = new PriorityQueue<>();
-
             //            if (requestLidarScanMessage.getRemoveSelfCollisions())
             {
-               indicesToRemove.addAll(selfCollisionRemovalIndices);
+               scanData.markCollidingPoints(collisionBoxNode);
             }
-
             //            if (requestLidarScanMessage.getRemoveShadows())
             {
-               indicesToRemove.addAll(shadowRemovalIndices);
+               scanData.markShadowPoints(lidarPosition, shadowAngleThreshold);
             }
 
-            float[] scanPointBuffer = scanData.getScanBuffer(indicesToRemove);
+            transformToWorld.get(lidarOrientation32, lidarPosition32);
 
-            LidarScanMessage message = MessageTools.createLidarScanMessage(robotTimestamp, lidarPosition, lidarOrientation, scanPointBuffer);
+            // The message is serialized when published, it can be reused for the next scan.
+            message.setRobotTimestamp(robotTimestamp);
+            message.getLidarPosition().set(lidarPosition32);
+            message.getLidarOrientation().set(lidarOrientation32);
+            scanData.getScanBuffer(message.getScan());
             lidarScanPublisher.publish(message);
          }
       };
    }
 
+   /**
+    * The points of a scan stored as a flat array of coordinates, such that a scan can be reused for the next one without allocating
+    * an object per point.
+    */
    private class ScanData
    {
-      private final long timestamp;
-      private final Point3D[] scanPoints;
-      private final int numberOfScanPoints;
-
-      public ScanData(long timestamp, Point3D[] scanPoints)
+      private long timestamp;
+      /** The coordinates of the points as x, y, z. */
+      private final TFloatArrayList scanPoints = new TFloatArrayList();
+      private int numberOfScanPoints;
+      private boolean[] pointsToRemove = new boolean[0];
+
+      private final Point3D currentScanPoint = new Point3D();
+      private final Point3D previousScanPoint = new Point3D();
+      private final Point3D nextScanPoint = new Point3D();
+      private final Vector3D fromLidarToScanPoint = new Vector3D();
+      private final Vector3D currentToNextScanPoint = new Vector3D();
+      private final Vector3D previousToCurrentScanPoint = new Vector3D();
+
+      public void set(PointCloud2 pointCloud)
       {
-         this.timestamp = timestamp;
-         this.scanPoints = scanPoints;
-         numberOfScanPoints = scanPoints.length;
+         timestamp = pointCloud.getHeader().getStamp().totalNsecs();
+         numberOfScanPoints = RosPointCloudSubscriber.unpackPoints(pointCloud, scanPoints, null);
       }
 
-      public ScanData(long timestamp, List<Point3D> scanPoints)
+      public void set(long timestamp, List<Point3D> scanPoints)
       {
          this.timestamp = timestamp;
-         this.scanPoints = scanPoints.toArray(new Point3D[0]);
+         this.scanPoints.resetQuick();
+
+         for (int i = 0; i < scanPoints.size(); i++)
+         {
+            Point3D scanPoint = scanPoints.get(i);
+            this.scanPoints.add((float) scanPoint.getX());
+            this.scanPoints.add((float) scanPoint.getY());
+            this.scanPoints.add((float) scanPoint.getZ());
+         }
+
          numberOfScanPoints = scanPoints.size();
       }
 
@@ -323,22 +371,48 @@ public class LidarScanPublisher
       public void transform(RigidBodyTransform transform)
       {
          for (int i = 0; i < numberOfScanPoints; i++)
-            transform.transform(scanPoints[i]);
+         {
+            getScanPoint(i, currentScanPoint);
+            transform.transform(currentScanPoint);
+            scanPoints.setQuick(3 * i, (float) currentScanPoint.getX());
+            scanPoints.setQuick(3 * i + 1, (float) currentScanPoint.getY());
+            scanPoints.setQuick(3 * i + 2, (float) currentScanPoint.getZ());
+         }
       }
 
-      public List<Integer> computeCollidingPointIndices(CollisionShapeTester collisionShapeTester)
+      private void getScanPoint(int index, Point3D scanPointToPack)
       {
-         List<Integer> collidingPointIndices = new ArrayList<>();
+         scanPointToPack.set(scanPoints.getQuick(3 * index), scanPoints.getQuick(3 * index + 1), scanPoints.getQuick(3 * index + 2));
+      }
 
-         if (collisionShapeTester != null)
+      public void clearPointsToRemove()
+      {
+         if (pointsToRemove.length < numberOfScanPoints)
+            pointsToRemove = new boolean[numberOfScanPoints];
+         else
+            Arrays.fill(pointsToRemove, 0, numberOfScanPoints, false);
+      }
+
+      public void markCulledPoints(PointCloudCullingFilter cullingFilter)
+      {
+         for (int i = 0; i < numberOfScanPoints; i++)
          {
-            for (int i = 0; i < numberOfScanPoints; i++)
-            {
-               if (collisionShapeTester.contains(scanPoints[i]))
-                  collidingPointIndices.add(i);
-            }
+            if (!cullingFilter.isInside(scanPoints.getQuick(3 * i), scanPoints.getQuick(3 * i + 1), scanPoints.getQuick(3 * i + 2)))
+               pointsToRemove[i] = true;
+         }
+      }
+
+      public void markCollidingPoints(CollisionShapeTester collisionShapeTester)
+      {
+         if (collisionShapeTester == null)
+            return;
+
+         for (int i = 0; i < numberOfScanPoints; i++)
+         {
+            getScanPoint(i, currentScanPoint);
+            if (collisionShapeTester.contains(currentScanPoint))
+               pointsToRemove[i] = true;
          }
-         return collidingPointIndices;
       }
 
       /**
@@ -359,61 +433,56 @@ public class LidarScanPublisher
        * Marion master thesis, section 2.2.1, page 25.</a>
        * </p>
        */
-      public List<Integer> computeShadowPointIndices(Tuple3DReadOnly lidarPosition, double shadowAngleThreshold)
+      public void markShadowPoints(Tuple3DReadOnly lidarPosition, double shadowAngleThreshold)
       {
-         List<Integer> shadowPointIndices = new ArrayList<>();
-         Vector3D fromLidarToScanPoint = new Vector3D();
-         Vector3D currentToNextScanPoint = new Vector3D();
-         Vector3D previousToCurrentScanPoint = new Vector3D();
+         if (numberOfScanPoints < 3)
+            return;
+
+         getScanPoint(0, previousScanPoint);
+         getScanPoint(1, currentScanPoint);
 
          for (int i = 1; i < numberOfScanPoints - 1; i++)
          {
-            Point3D currentScanPoint = scanPoints[i];
-            Point3D previousScanPoint = scanPoints[i - 1];
+            getScanPoint(i + 1, nextScanPoint);
             fromLidarToScanPoint.sub(currentScanPoint, lidarPosition);
             previousToCurrentScanPoint.sub(currentScanPoint, previousScanPoint);
 
             if (fromLidarToScanPoint.dot(previousToCurrentScanPoint) < 0.0)
                previousToCurrentScanPoint.negate();
+
             if (fromLidarToScanPoint.angle(previousToCurrentScanPoint) < shadowAngleThreshold)
             {
-               shadowPointIndices.add(i);
-               continue;
+               pointsToRemove[i] = true;
             }
+            else
+            {
+               currentToNextScanPoint.sub(nextScanPoint, currentScanPoint);
 
-            Point3D nextScanPoint = scanPoints[i + 1];
-            currentToNextScanPoint.sub(nextScanPoint, currentScanPoint);
+               if (fromLidarToScanPoint.dot(currentToNextScanPoint) < 0.0)
+                  currentToNextScanPoint.negate();
+               if (fromLidarToScanPoint.angle(currentToNextScanPoint) < shadowAngleThreshold)
+                  pointsToRemove[i] = true;
+            }
 
-            if (fromLidarToScanPoint.dot(currentToNextScanPoint) < 0.0)
-               currentToNextScanPoint.negate();
-            if (fromLidarToScanPoint.angle(currentToNextScanPoint) < shadowAngleThreshold)
-               shadowPointIndices.add(i);
+            previousScanPoint.set(currentScanPoint);
+            currentScanPoint.set(nextScanPoint);
          }
-
-         return shadowPointIndices;
       }
 
-      public float[] getScanBuffer(PriorityQueue<Integer> indicesToRemove)
+      public void getScanBuffer(TFloatArrayList scanBufferToPack)
       {
-         TFloatArrayList scanPointBuffer = new TFloatArrayList();
-         Integer nextIndexToIgnore = indicesToRemove.poll();
+         scanBufferToPack.resetQuick();
+         scanBufferToPack.ensureCapacity(3 * numberOfScanPoints);
 
          for (int i = 0; i < numberOfScanPoints; i++)
          {
-            if (nextIndexToIgnore == null || i < nextIndexToIgnore)
-            {
-               Point3D scanPoint = scanPoints[i];
-               scanPointBuffer.add((float) scanPoint.getX());
-               scanPointBuffer.add((float) scanPoint.getY());
-               scanPointBuffer.add((float) scanPoint.getZ());
-            }
-            else
-            {
-               nextIndexToIgnore = indicesToRemove.poll();
-            }
-         }
+            if (pointsToRemove[i])
+               continue;
 
-         return scanPointBuffer.toArray();
+            scanBufferToPack.add(scanPoints.getQuick(3 * i));
+            scanBufferToPack.add(scanPoints.getQuick(3 * i + 1));
+            scanBufferToPack.add(scanPoints.getQuick(3 * i + 2));
+         }
       }
    }
 }
@@ -1,16 +1,12 @@
 package us.ihmc.avatar.networkProcessor.stereoPointCloudPublisher;
 
-import java.awt.Color;
 import java.net.URI;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
 import controller_msgs.msg.dds.RobotConfigurationData;
 import controller_msgs.msg.dds.StereoVisionPointCloudMessage;
@@ -20,10 +16,10 @@ import sensor_msgs.PointCloud2;
 import us.ihmc.commons.thread.ThreadTools;
 import us.ihmc.communication.IHMCROS2Publisher;
 import us.ihmc.communication.ROS2Tools;
-import us.ihmc.communication.packets.MessageTools;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.humanoidRobotics.kryo.PPSTimestampOffsetProvider;
+import us.ihmc.robotEnvironmentAwareness.geometry.VoxelGridDownsampler;
 import us.ihmc.robotModels.FullHumanoidRobotModel;
 import us.ihmc.robotModels.FullHumanoidRobotModelFactory;
 import us.ihmc.ros2.Ros2Node;
@@ -39,12 +35,15 @@ public class StereoVisionPointCloudPublisher
    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(ThreadTools.getNamedThreadFactory(name));
 
    private final AtomicReference<ColorPointCloudData> pointCloudDataToPublish = new AtomicReference<>(null);
+   /** Clouds that have been published or dropped, reused for the next clouds to avoid allocating the point buffers for each cloud. */
+   private final ConcurrentLinkedQueue<ColorPointCloudData> freePointCloudData = new ConcurrentLinkedQueue<>();
 
    private final String robotName;
    private final FullHumanoidRobotModel fullRobotModel;
    private final RobotConfigurationDataBuffer robotConfigurationDataBuffer = new RobotConfigurationDataBuffer();
 
    private PPSTimestampOffsetProvider ppsTimestampOffsetProvider = null;
+   private double voxelGridResolution = Double.NaN;
 
    private final IHMCROS2Publisher<StereoVisionPointCloudMessage> pointcloudPublisher;
 
@@ -85,6 +84,19 @@ public class StereoVisionPointCloudPublisher
       this.ppsTimestampOffsetProvider = ppsTimestampOffsetProvider;
    }
 
+   /**
+    * Enables the downsampling of the point clouds, keeping the centroid of the points in each voxel
+    * of a grid of the given resolution. The downsampling is done before the clouds are trimmed to
+    * {@link #MAX_NUMBER_OF_POINTS}.
+    *
+    * @param resolution the size of the voxels, {@link Double#NaN} to disable the downsampling which
+    *           is the default.
+    */
+   public void setVoxelGridResolution(double resolution)
+   {
+      voxelGridResolution = resolution;
+   }
+
    private RosPointCloudSubscriber createROSPointCloud2Subscriber()
    {
       return new RosPointCloudSubscriber()
@@ -92,12 +104,15 @@ public class StereoVisionPointCloudPublisher
          @Override
          public void onNewMessage(PointCloud2 pointCloud)
          {
-            UnpackedPointCloud pointCloudData = unpackPointsAndIntensities(pointCloud);
-            Point3D[] scanPoints = pointCloudData.getPoints();
-            Color[] colors = pointCloudData.getPointColors();
-            long timestamp = pointCloud.getHeader().getStamp().totalNsecs();
+            ColorPointCloudData pointCloudData = freePointCloudData.poll();
+            if (pointCloudData == null)
+               pointCloudData = new ColorPointCloudData();
 
-            pointCloudDataToPublish.set(new ColorPointCloudData(timestamp, scanPoints, colors));
+            pointCloudData.set(pointCloud);
+
+            ColorPointCloudData previousPointCloudData = pointCloudDataToPublish.getAndSet(pointCloudData);
+            if (previousPointCloudData != null)
+               freePointCloudData.offer(previousPointCloudData);
          }
       };
    }
@@ -106,6 +121,10 @@ public class StereoVisionPointCloudPublisher
    {
       return new Runnable()
       {
+         private final Random random = new Random();
+         private final StereoVisionPointCloudMessage message = new StereoVisionPointCloudMessage();
+         private VoxelGridDownsampler downsampler = null;
+
          @Override
          public void run()
          {
@@ -113,6 +132,18 @@ public class StereoVisionPointCloudPublisher
             if (pointCloudData == null)
                return;
 
+            try
+            {
+               publish(pointCloudData);
+            }
+            finally
+            {
+               freePointCloudData.offer(pointCloudData);
+            }
+         }
+
+         private void publish(ColorPointCloudData pointCloudData)
+         {
             long robotTimestamp;
 
             if (ppsTimestampOffsetProvider == null)
@@ -130,46 +161,52 @@ public class StereoVisionPointCloudPublisher
                   return;
             }
 
-            if (pointCloudData.numberOfPoints > MAX_NUMBER_OF_POINTS)
-               pointCloudData = pointCloudData.trim(MAX_NUMBER_OF_POINTS);
+            double resolution = voxelGridResolution;
+            if (resolution > 0.0)
+            {
+               if (downsampler == null)
+                  downsampler = new VoxelGridDownsampler(resolution);
+               else if (downsampler.getResolution() != resolution)
+                  downsampler.setResolution(resolution);
+               pointCloudData.downsample(downsampler);
+            }
 
-            float[] scanPointBuffer = pointCloudData.getPointCloudBuffer();
+            if (pointCloudData.getNumberOfPoints() > MAX_NUMBER_OF_POINTS)
+               pointCloudData.trim(MAX_NUMBER_OF_POINTS, random);
 
-            int[] colors = pointCloudData.getColors();
-            StereoVisionPointCloudMessage message = MessageTools.createStereoVisionPointCloudMessage(robotTimestamp, scanPointBuffer, colors);
+            // The message is serialized when published, it can be reused for the next cloud.
+            message.setRobotTimestamp(robotTimestamp);
+            pointCloudData.getPointCloudBuffer(message.getPointCloud(), message.getColors());
             pointcloudPublisher.publish(message);
          }
       };
    }
 
+   /**
+    * The points of a cloud stored as flat arrays of coordinates and colors, such that a cloud can be reused for the next one without
+    * allocating an object per point.
+    */
    private class ColorPointCloudData
    {
-      private final long timestamp;
-      private final Point3D[] pointCloud;
-      private final int numberOfPoints;
-      private final int[] colors;
+      private long timestamp;
+      /** The coordinates of the points as x, y, z. */
+      private final TFloatArrayList pointCloud = new TFloatArrayList();
+      private final TIntArrayList colors = new TIntArrayList();
+      private int numberOfPoints;
 
-      public ColorPointCloudData(long timestamp, Point3D[] pointCloud, int[] colors)
-      {
-         this.timestamp = timestamp;
-         this.pointCloud = pointCloud;
-         this.colors = new int[colors.length];
-         System.arraycopy(colors, 0, this.colors, 0, colors.length);
-         numberOfPoints = pointCloud.length;
-      }
+      private final Point3D point = new Point3D();
 
-      public ColorPointCloudData(long timestamp, Point3D[] pointCloud, Color[] colors)
+      public void set(PointCloud2 rosPointCloud)
       {
-         this.timestamp = timestamp;
-         this.pointCloud = pointCloud;
-         this.colors = new int[colors.length];
+         timestamp = rosPointCloud.getHeader().getStamp().totalNsecs();
+         numberOfPoints = RosPointCloudSubscriber.unpackPoints(rosPointCloud, pointCloud, colors);
 
-         for (int i = 0; i < colors.length; i++)
+         // Only XYZRGB clouds have colors
+         if (colors.size() != numberOfPoints)
          {
-            this.getColors()[i] = colors[i].getRGB();
+            colors.resetQuick();
+            colors.fill(0, numberOfPoints, 0);
          }
-
-         numberOfPoints = pointCloud.length;
       }
 
       public long getTimestamp()
@@ -177,49 +214,70 @@ public class StereoVisionPointCloudPublisher
          return timestamp;
       }
 
-      public void transform(RigidBodyTransform transform)
+      public int getNumberOfPoints()
       {
-         for (int i = 0; i < numberOfPoints; i++)
-            transform.transform(pointCloud[i]);
+         return numberOfPoints;
       }
 
-      public float[] getPointCloudBuffer()
+      public void transform(RigidBodyTransform transform)
       {
-         TFloatArrayList pointCloudBuffer = new TFloatArrayList();
-
          for (int i = 0; i < numberOfPoints; i++)
          {
-            Point3D scanPoint = pointCloud[i];
-
-            pointCloudBuffer.add((float) scanPoint.getX());
-            pointCloudBuffer.add((float) scanPoint.getY());
-            pointCloudBuffer.add((float) scanPoint.getZ());
+            point.set(pointCloud.getQuick(3 * i), pointCloud.getQuick(3 * i + 1), pointCloud.getQuick(3 * i + 2));
+            transform.transform(point);
+            pointCloud.setQuick(3 * i, (float) point.getX());
+            pointCloud.setQuick(3 * i + 1, (float) point.getY());
+            pointCloud.setQuick(3 * i + 2, (float) point.getZ());
          }
+      }
 
-         return pointCloudBuffer.toArray();
+      public void downsample(VoxelGridDownsampler downsampler)
+      {
+         numberOfPoints = downsampler.downsample(pointCloud, colors);
       }
 
-      public int[] getColors()
+      public void getPointCloudBuffer(TFloatArrayList pointCloudToPack, TIntArrayList colorsToPack)
       {
-         return colors;
+         pointCloudToPack.resetQuick();
+         pointCloudToPack.ensureCapacity(3 * numberOfPoints);
+         for (int i = 0; i < 3 * numberOfPoints; i++)
+            pointCloudToPack.add(pointCloud.getQuick(i));
+
+         colorsToPack.resetQuick();
+         colorsToPack.ensureCapacity(numberOfPoints);
+         for (int i = 0; i < numberOfPoints; i++)
+            colorsToPack.add(colors.getQuick(i));
       }
 
-      public ColorPointCloudData trim(int size)
+      /**
+       * Keeps a random subset of the points, in place.
+       */
+      public void trim(int size, Random random)
       {
-         Random random = new Random();
-         List<Point3D> trimmedPoints = Arrays.stream(pointCloud).collect(Collectors.toList());
-         TIntArrayList trimmedColors = new TIntArrayList(colors);
+         // Partial Fisher-Yates shuffle: the first points are swapped with a random one among the remaining points.
+         for (int i = 0; i < size; i++)
+         {
+            int j = i + random.nextInt(numberOfPoints - i);
+            swap(i, j);
+         }
+
+         numberOfPoints = size;
+         pointCloud.remove(3 * size, pointCloud.size() - 3 * size);
+         colors.remove(size, colors.size() - size);
+      }
 
-         while (trimmedColors.size() > size)
+      private void swap(int i, int j)
+      {
+         for (int axis = 0; axis < 3; axis++)
          {
-            int indexToRemove = random.nextInt(trimmedColors.size());
-            int lastIndex = trimmedPoints.size() - 1;
-            Collections.swap(trimmedPoints, indexToRemove, lastIndex);
-            trimmedPoints.remove(lastIndex);
-            trimmedColors.removeAt(indexToRemove);
+            float coordinate = pointCloud.getQuick(3 * i + axis);
+            pointCloud.setQuick(3 * i + axis, pointCloud.getQuick(3 * j + axis));
+            pointCloud.setQuick(3 * j + axis, coordinate);
          }
 
-         return new ColorPointCloudData(size, trimmedPoints.toArray(new Point3D[size]), trimmedColors.toArray());
+         int color = colors.getQuick(i);
+         colors.setQuick(i, colors.getQuick(j));
+         colors.setQuick(j, color);
       }
    }
 }
@@ -0,0 +1,139 @@
+package us.ihmc.avatar.networkProcessor.wholeBodyTrajectoryToolboxModule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+import controller_msgs.msg.dds.KinematicsToolboxOutputStatus;
+import controller_msgs.msg.dds.KinematicsToolboxRigidBodyMessage;
+import us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.HumanoidKinematicsSolver;
+import us.ihmc.graphicsDescription.yoGraphics.YoGraphicsListRegistry;
+import us.ihmc.manipulation.planning.exploringSpatial.SpatialNode;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.robotModels.FullHumanoidRobotModelFactory;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+/**
+ * Validates batches of {@link SpatialNode}s concurrently.
+ * <p>
+ * Each worker owns a {@link HumanoidKinematicsSolver}, and thus its own copy of the robot model.
+ * The nodes are assigned to the workers by index and the solver is re-initialized for every node,
+ * such that the outcome of a batch does not depend on the number of workers or on their
+ * scheduling.
+ * </p>
+ */
+class SpatialNodeBatchValidator
+{
+   private final FullHumanoidRobotModelFactory fullRobotModelFactory;
+   private final int numberOfWorkers;
+   private final ToDoubleFunction<FullHumanoidRobotModel> validNodeScoreCalculator;
+
+   private final List<HumanoidKinematicsSolver> solvers = new ArrayList<>();
+   private final ForkJoinPool workerPool;
+
+   private double[] scores = new double[0];
+
+   /**
+    * @param fullRobotModelFactory used to create the robot model of each worker.
+    * @param numberOfWorkers the maximum number of nodes solved concurrently.
+    * @param validNodeScoreCalculator evaluated on the solver robot model for each valid node.
+    */
+   public SpatialNodeBatchValidator(FullHumanoidRobotModelFactory fullRobotModelFactory, int numberOfWorkers,
+                                    ToDoubleFunction<FullHumanoidRobotModel> validNodeScoreCalculator)
+   {
+      this.fullRobotModelFactory = fullRobotModelFactory;
+      this.numberOfWorkers = Math.max(1, numberOfWorkers);
+      this.validNodeScoreCalculator = validNodeScoreCalculator;
+      workerPool = new ForkJoinPool(this.numberOfWorkers);
+   }
+
+   /**
+    * Solves the whole-body configuration of each node and updates its configuration and validity.
+    * <p>
+    * The solver is initialized with the configuration of the parent of the node when available, or
+    * with the given default configuration otherwise.
+    * </p>
+    *
+    * @param nodes the nodes to validate.
+    * @param nodeMessages the messages to submit to the solver for each node.
+    * @param defaultInitialConfiguration the initial configuration for the nodes without parent.
+    */
+   public void validate(List<SpatialNode> nodes, List<List<KinematicsToolboxRigidBodyMessage>> nodeMessages,
+                        KinematicsToolboxOutputStatus defaultInitialConfiguration)
+         throws InterruptedException, ExecutionException
+   {
+      int numberOfNodes = nodes.size();
+
+      if (scores.length < numberOfNodes)
+         scores = new double[numberOfNodes];
+
+      int numberOfActiveWorkers = Math.min(numberOfWorkers, numberOfNodes);
+
+      while (solvers.size() < numberOfActiveWorkers)
+      {
+         // Not attached to the toolbox registry, the variables of the workers would conflict with each other.
+         YoVariableRegistry workerRegistry = new YoVariableRegistry("CandidateSolver" + solvers.size());
+         solvers.add(new HumanoidKinematicsSolver(fullRobotModelFactory, new YoGraphicsListRegistry(), workerRegistry));
+      }
+
+      if (numberOfActiveWorkers <= 1)
+      {
+         for (int nodeIndex = 0; nodeIndex < numberOfNodes; nodeIndex++)
+            validate(solvers.get(0), nodeIndex, nodes, nodeMessages, defaultInitialConfiguration);
+         return;
+      }
+
+      workerPool.submit(() -> IntStream.range(0, numberOfActiveWorkers).parallel().forEach(workerIndex ->
+      {
+         HumanoidKinematicsSolver solver = solvers.get(workerIndex);
+
+         for (int nodeIndex = workerIndex; nodeIndex < numberOfNodes; nodeIndex += numberOfActiveWorkers)
+            validate(solver, nodeIndex, nodes, nodeMessages, defaultInitialConfiguration);
+      })).get();
+   }
+
+   private void validate(HumanoidKinematicsSolver solver, int nodeIndex, List<SpatialNode> nodes, List<List<KinematicsToolboxRigidBodyMessage>> nodeMessages,
+                         KinematicsToolboxOutputStatus defaultInitialConfiguration)
+   {
+      SpatialNode node = nodes.get(nodeIndex);
+
+      if (node.getParent() != null && node.getParent().getConfiguration() != null)
+         solver.setInitialConfiguration(node.getParent().getConfiguration());
+      else
+         solver.setInitialConfiguration(defaultInitialConfiguration);
+
+      solver.initialize();
+      solver.submit(nodeMessages.get(nodeIndex));
+      boolean success = solver.solve();
+
+      node.setConfiguration(solver.getSolution());
+      node.setValidity(success);
+
+      scores[nodeIndex] = success ? validNodeScoreCalculator.applyAsDouble(solver.getDesiredFullRobotModel()) : 0.0;
+   }
+
+   /**
+    * @param nodeIndex the index of the node in the last batch validated.
+    * @return the score of the node, or {@code 0.0} if it is invalid.
+    */
+   public double getScore(int nodeIndex)
+   {
+      return scores[nodeIndex];
+   }
+
+   public int getNumberOfWorkers()
+   {
+      return numberOfWorkers;
+   }
+
+   /**
+    * Stops the worker threads, this validator cannot be used afterward.
+    */
+   public void shutdown()
+   {
+      workerPool.shutdown();
+   }
+}
@@ -7,6 +7,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import controller_msgs.msg.dds.KinematicsToolboxOutputStatus;
+import controller_msgs.msg.dds.KinematicsToolboxRigidBodyMessage;
 import controller_msgs.msg.dds.RobotConfigurationData;
 import controller_msgs.msg.dds.WholeBodyTrajectoryToolboxOutputStatus;
 import us.ihmc.avatar.drcRobot.DRCRobotModel;
@@ -52,12 +53,18 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
    private static final int DEFAULT_MAXIMUM_EXPANSION_SIZE_VALUE = 1000;
    private static final int DEFAULT_NUMBER_OF_INITIAL_GUESSES_VALUE = 200;
    private static final int TERMINAL_CONDITION_NUMBER_OF_VALID_INITIAL_GUESSES = 20;
+   private static final int DEFAULT_NUMBER_OF_CANDIDATES_PER_UPDATE = 4;
+   private static final int MAXIMUM_NUMBER_OF_SAMPLING_ATTEMPTS = 1000;
 
    private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
 
    private final Random randomManager = new Random(1);
 
    private final HumanoidKinematicsSolver humanoidKinematicsSolver;
+   private final DRCRobotModel drcRobotModel;
+   private SpatialNodeBatchValidator candidateValidator;
+   private final List<SpatialNode> candidates = new ArrayList<>();
+   private final List<List<KinematicsToolboxRigidBodyMessage>> candidateMessages = new ArrayList<>();
 
    private final WholeBodyTrajectoryToolboxOutputStatus toolboxSolution;
 
@@ -73,6 +80,8 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
    private final YoInteger maximumNumberOfIterations = new YoInteger("maximumNumberOfIterations", registry);
    private final YoInteger currentNumberOfIterations = new YoInteger("currentNumberOfIterations", registry);
    private final YoInteger terminalConditionNumberOfValidInitialGuesses = new YoInteger("terminalConditionNumberOfValidInitialGuesses", registry);
+   // number of nodes sampled and validated in parallel for each update, 1 grows the tree one node at a time.
+   private final YoInteger numberOfCandidatesPerUpdate = new YoInteger("numberOfCandidatesPerUpdate", registry);
 
    // check the tree reaching the normalized time from 0.0 to 1.0.
    private final YoDouble currentTrajectoryTime = new YoDouble("currentNormalizedTime", registry);
@@ -157,6 +166,7 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
                                                YoGraphicsListRegistry yoGraphicsListRegistry, boolean visualize)
    {
       super(statusOutputManager, registry);
+      this.drcRobotModel = drcRobotModel;
       this.commandInputManager = commandInputManager;
 
       visualizedFullRobotModel = fullRobotModel;
@@ -185,8 +195,11 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       numberOfIterationForShortcutOptimization.set(DEFAULT_NUMBER_OF_ITERATIONS_FOR_SHORTCUT_OPTIMIZATION);
       maximumNumberOfIterations.set(DEFAULT_MAXIMUM_NUMBER_OF_ITERATIONS);
       terminalConditionNumberOfValidInitialGuesses.set(TERMINAL_CONDITION_NUMBER_OF_VALID_INITIAL_GUESSES);
+      numberOfCandidatesPerUpdate.set(DEFAULT_NUMBER_OF_CANDIDATES_PER_UPDATE);
 
       humanoidKinematicsSolver = new HumanoidKinematicsSolver(drcRobotModel, yoGraphicsListRegistry, registry);
+      int numberOfWorkers = Math.min(DEFAULT_NUMBER_OF_CANDIDATES_PER_UPDATE, Runtime.getRuntime().availableProcessors());
+      candidateValidator = new SpatialNodeBatchValidator(drcRobotModel, numberOfWorkers, this::computeArmJointsLimitScore);
 
       toolboxSolution = new WholeBodyTrajectoryToolboxOutputStatus();
       toolboxSolution.setDestination(-1);
@@ -384,87 +397,87 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
    /**
     * state == EXPAND_TREE
     */
-   private void expandingTree()
+   private void expandingTree() throws InterruptedException, ExecutionException
    {
-      currentExpansionSize.increment();
       boolean isExpandingTerminalCondition = false;
 
-      boolean randomNodeHasParentNode = false;
-      int maximumPatientCounter = 1000;
-      while (!randomNodeHasParentNode)
+      int remainingExpansionSize = maximumExpansionSize.getIntegerValue() - currentExpansionSize.getIntegerValue();
+      int batchSize = Math.max(1, Math.min(numberOfCandidatesPerUpdate.getIntegerValue(), remainingExpansionSize));
+
+      // sampling stays sequential to keep the random sequence reproducible, only the solver runs in parallel.
+      candidates.clear();
+      candidateMessages.clear();
+      for (int i = 0; i < batchSize; i++)
       {
-         SpatialNode randomNode;
+         SpatialNode candidate = sampleCandidate();
+         if (candidate == null)
+            break;
+         candidates.add(candidate);
+         candidateMessages.add(toolboxData.createMessages(candidate));
+      }
 
-         SpatialData randomData = toolboxData.createRandomSpatialData();
-         double nextDouble = WholeBodyTrajectoryToolboxSettings.randomManager.nextDouble();
-         double randomTime = nextDouble * (1.0 + WholeBodyTrajectoryToolboxSettings.timeCoefficient * tree.getMostAdvancedTime());
+      if (candidates.isEmpty())
+         currentExpansionSize.increment();
 
-         randomNode = new SpatialNode(randomTime, randomData);
+      candidateValidator.validate(candidates, candidateMessages, initialConfiguration);
 
-         tree.setRandomNode(randomNode);
-         if (trajectoryCommands != null)
-            randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(true);
-         if (manifoldCommands != null)
-            randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(false);
+      // merging in sampling order, the tree does not depend on the scheduling of the workers.
+      for (int i = 0; i < candidates.size(); i++)
+      {
+         currentExpansionSize.increment();
+         SpatialNode candidate = candidates.get(i);
 
-         if (randomNodeHasParentNode)
-         {
-            tree.limitCandidateDistanceFromParent(toolboxData.getTrajectoryTime());
-            SpatialNode candidate = tree.getCandidate();
-            updateValidity(candidate);
+         /*
+          * visualize
+          */
+         visualizedNode = new SpatialNode(candidate);
+         nodePlotter.update(candidate, 1);
 
-            /*
-             * visualize
-             */
-            visualizedNode = new SpatialNode(candidate);
-            nodePlotter.update(candidate, 1);
+         if (candidate.isValid())
+         {
+            tree.attachCandidate(candidate);
+            numberOfValidPosture++;
 
-            if (candidate.isValid())
+            // TODO: generic terminal conditions.
+            if (trajectoryCommands != null)
             {
-               tree.attachCandidate();
-               numberOfValidPosture++;
-
-               // TODO: generic terminal conditions.
-               if (trajectoryCommands != null)
-               {
-                  if (tree.getMostAdvancedTime() >= toolboxData.getTrajectoryTime())
-                     isExpandingTerminalCondition = true;
-               }
-               else if (manifoldCommands != null)
-               {  
-                  Pose3D testFrame = toolboxData.getTestFrame(tree.getLastNodeAdded());
-
-                  testFramePose.setPosition(testFrame.getPosition());
-                  testFramePose.setOrientation(testFrame.getOrientation());
-                  testFrameViz.setVisible(true);
-                  testFrameViz.update();
-
-                  // TODO : terminal condition for manifold command.
-                  double maximumDistanceFromManifolds = toolboxData.getMaximumDistanceFromManifolds(tree.getLastNodeAdded());
-                  minimumDistanceFromManifold.set(maximumDistanceFromManifolds);
-                  if(maximumDistanceFromManifolds < 0.05)
-                     isExpandingTerminalCondition = true;
-               }
-               else
-               {
-                  if (VERBOSE)
-                     PrintTools.warn("any command is available");
-               }
+               if (tree.getMostAdvancedTime() >= toolboxData.getTrajectoryTime())
+                  isExpandingTerminalCondition = true;
+            }
+            else if (manifoldCommands != null)
+            {  
+               Pose3D testFrame = toolboxData.getTestFrame(tree.getLastNodeAdded());
+
+               testFramePose.setPosition(testFrame.getPosition());
+               testFramePose.setOrientation(testFrame.getOrientation());
+               testFrameViz.setVisible(true);
+               testFrameViz.update();
+
+               // TODO : terminal condition for manifold command.
+               double maximumDistanceFromManifolds = toolboxData.getMaximumDistanceFromManifolds(tree.getLastNodeAdded());
+               minimumDistanceFromManifold.set(maximumDistanceFromManifolds);
+               if(maximumDistanceFromManifolds < 0.05)
+                  isExpandingTerminalCondition = true;
             }
             else
             {
-               tree.dismissCandidate();
-               numberOfInvalidPosture++;
+               if (VERBOSE)
+                  PrintTools.warn("any command is available");
             }
+
+            // the last node added is the goal of the path.
+            if (isExpandingTerminalCondition)
+               break;
          }
          else
          {
-            maximumPatientCounter--;
-            if (maximumPatientCounter == 0)
-               continue;
+            tree.dismissCandidate(candidate);
+            numberOfInvalidPosture++;
          }
       }
 
+      updateSolverRobotConfiguration();
+
       /*
        * terminate expanding tree.
        */
@@ -488,6 +501,39 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       shortcutStartTime = updateTimer(treeExpansionComputationTime, treeExpansionStartTime);
    }
 
+   /**
+    * create a random node and bring it close to its nearest valid node in the tree.
+    * 
+    * @return the candidate whose parent is set, or {@code null} if no valid node was found close to
+    *         the random nodes.
+    */
+   private SpatialNode sampleCandidate()
+   {
+      for (int i = 0; i < MAXIMUM_NUMBER_OF_SAMPLING_ATTEMPTS; i++)
+      {
+         SpatialData randomData = toolboxData.createRandomSpatialData();
+         double nextDouble = WholeBodyTrajectoryToolboxSettings.randomManager.nextDouble();
+         double randomTime = nextDouble * (1.0 + WholeBodyTrajectoryToolboxSettings.timeCoefficient * tree.getMostAdvancedTime());
+
+         SpatialNode randomNode = new SpatialNode(randomTime, randomData);
+
+         boolean randomNodeHasParentNode = false;
+         tree.setRandomNode(randomNode);
+         if (trajectoryCommands != null)
+            randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(true);
+         if (manifoldCommands != null)
+            randomNodeHasParentNode = tree.findNearestValidNodeToCandidate(false);
+
+         if (randomNodeHasParentNode)
+         {
+            tree.limitCandidateDistanceFromParent(toolboxData.getTrajectoryTime());
+            return tree.getCandidate();
+         }
+      }
+
+      return null;
+   }
+
    /**
     * state == FIND_INITIAL_GUESS
     */
@@ -554,31 +600,49 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       treeExpansionStartTime = updateTimer(initialGuessComputationTime, initialGuessStartTime);
    }
 
-   private void findInitialGuess()
+   private void findInitialGuess() throws InterruptedException, ExecutionException
    {
-      SpatialData initialGuessData = toolboxData.createRandomSpatialData();
+      int remainingNumberOfInitialGuesses = desiredNumberOfInitialGuesses.getIntegerValue() - currentNumberOfInitialGuesses.getIntegerValue();
+      int batchSize = Math.max(1, Math.min(numberOfCandidatesPerUpdate.getIntegerValue(), remainingNumberOfInitialGuesses));
 
-      SpatialNode initialGuessNode = new SpatialNode(initialGuessData);
-      updateValidity(initialGuessNode);
+      candidates.clear();
+      candidateMessages.clear();
+      for (int i = 0; i < batchSize; i++)
+      {
+         SpatialNode initialGuessNode = new SpatialNode(toolboxData.createRandomSpatialData());
+         candidates.add(initialGuessNode);
+         candidateMessages.add(toolboxData.createMessages(initialGuessNode));
+      }
 
-      visualizedNode = initialGuessNode;
+      candidateValidator.validate(candidates, candidateMessages, initialConfiguration);
 
-      double jointScore = 0.0;
-      if (initialGuessNode.isValid())
+      for (int i = 0; i < candidates.size(); i++)
       {
-         tree.addInitialNode(initialGuessNode);
-         currentNumberOfValidInitialGuesses.increment();
-         jointScore = computeArmJointsLimitScore(humanoidKinematicsSolver.getDesiredFullRobotModel());
+         SpatialNode initialGuessNode = candidates.get(i);
+         visualizedNode = initialGuessNode;
+
+         double jointScore = 0.0;
+         if (initialGuessNode.isValid())
+         {
+            tree.addInitialNode(initialGuessNode);
+            currentNumberOfValidInitialGuesses.increment();
+            jointScore = candidateValidator.getScore(i);
+         }
+         jointlimitScore.set(jointScore);
+
+         nodePlotter.update(initialGuessNode, 1);
+
+         currentNumberOfInitialGuesses.increment();
+
+         if (currentNumberOfValidInitialGuesses.getIntegerValue() >= terminalConditionNumberOfValidInitialGuesses.getIntegerValue())
+            break;
       }
-      jointlimitScore.set(jointScore);
 
-      nodePlotter.update(initialGuessNode, 1);
+      updateSolverRobotConfiguration();
 
       /*
        * terminate finding initial guess.
        */
-      currentNumberOfInitialGuesses.increment();
-
       if (currentNumberOfInitialGuesses.getIntegerValue() >= desiredNumberOfInitialGuesses.getIntegerValue()
             || currentNumberOfValidInitialGuesses.getIntegerValue() >= terminalConditionNumberOfValidInitialGuesses.getIntegerValue())
       {
@@ -844,6 +908,21 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
       MessageTools.unpackDesiredJointState(visualizedNode.getConfiguration(), visualizedFullRobotModel.getRootJoint(), FullRobotModelUtils.getAllJointsExcludingHands(visualizedFullRobotModel));
    }
 
+   /**
+    * The candidates are solved by the workers of {@link #candidateValidator}, this puts the solver
+    * robot model in the configuration of the last candidate merged such that it follows the
+    * exploration as when the candidates were solved one at a time.
+    */
+   private void updateSolverRobotConfiguration()
+   {
+      if (visualizedNode == null || visualizedNode.getConfiguration() == null)
+         return;
+
+      FullHumanoidRobotModel solverFullRobotModel = humanoidKinematicsSolver.getDesiredFullRobotModel();
+      MessageTools.unpackDesiredJointState(visualizedNode.getConfiguration(), solverFullRobotModel.getRootJoint(), FullRobotModelUtils.getAllJointsExcludingHands(solverFullRobotModel));
+      solverFullRobotModel.updateFrames();
+   }
+
    /**
     * update visualizers.
     */
@@ -954,4 +1033,21 @@ public class WholeBodyTrajectoryToolboxController extends ToolboxController
    {
       return humanoidKinematicsSolver.getDesiredFullRobotModel();
    }
+
+   /**
+    * Replaces the workers validating the candidates, the solution does not depend on their number.
+    */
+   void setNumberOfCandidateValidationWorkers(int numberOfWorkers)
+   {
+      candidateValidator.shutdown();
+      candidateValidator = new SpatialNodeBatchValidator(drcRobotModel, numberOfWorkers, this::computeArmJointsLimitScore);
+   }
+
+   /**
+    * Stops the workers validating the candidates, this controller cannot be used afterward.
+    */
+   public void destroy()
+   {
+      candidateValidator.shutdown();
+   }
 }
\ No newline at end of file
@@ -50,6 +50,13 @@ public class WholeBodyTrajectoryToolboxModule extends ToolboxModule
       commandInputManager.registerConversionHelper(new WholeBodyTrajectoryToolboxCommandConverter(fullRobotModel));
    }
 
+   @Override
+   public void destroy()
+   {
+      super.destroy();
+      wholeBodyTrajectoryToolboxController.destroy();
+   }
+
    @Override
    public ToolboxController getToolboxController()
    {
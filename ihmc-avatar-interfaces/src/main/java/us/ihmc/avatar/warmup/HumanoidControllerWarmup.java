@@ -144,8 +144,7 @@ public abstract class HumanoidControllerWarmup
       controllerToolbox.update();
       walkingController.doAction();
       ControllerCoreCommand coreCommand = walkingController.getControllerCoreCommand();
-      controllerCore.submitControllerCoreCommand(coreCommand);
-      controllerCore.compute();
+      submitAndComputeControllerCore(controllerCore, coreCommand);
 
       // (2) integrate accelerations in full robot model
       integrate();
@@ -156,6 +155,15 @@ public abstract class HumanoidControllerWarmup
       yoTime.add(robotModel.getControllerDT());
    }
 
+   /**
+    * Runs the controller core for one tick. Can be overridden to instrument the controller core, e.g. for benchmarking.
+    */
+   protected void submitAndComputeControllerCore(WholeBodyControllerCore controllerCore, ControllerCoreCommand coreCommand)
+   {
+      controllerCore.submitControllerCoreCommand(coreCommand);
+      controllerCore.compute();
+   }
+
    private final Quaternion newOrientation = new Quaternion();
    private final Quaternion orientation = new Quaternion();
    private final Vector3D newAngularVelocity = new Vector3D();
@@ -380,6 +388,24 @@ public abstract class HumanoidControllerWarmup
       return ret;
    }
 
+   protected DRCRobotModel getRobotModel()
+   {
+      return robotModel;
+   }
+
+   protected List<ContactablePlaneBody> getContactableBodies()
+   {
+      return contactableBodies;
+   }
+
+   /**
+    * Creates a new template with all the feedback controllers the walking controller may use.
+    */
+   protected FeedbackControlCommandList createFeedbackControlTemplate()
+   {
+      return managerFactory.createFeedbackControlTemplate();
+   }
+
    public DoubleProvider getTimeProvider()
    {
       return yoTime;
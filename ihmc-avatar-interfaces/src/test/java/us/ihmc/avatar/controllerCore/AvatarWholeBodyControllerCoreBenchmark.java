@@ -0,0 +1,200 @@
+package us.ihmc.avatar.controllerCore;
+
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.warmup.HumanoidControllerWarmup;
+import us.ihmc.avatar.warmup.HumanoidControllerWarumupTools;
+import us.ihmc.commonWalkingControlModules.configurations.WalkingControllerParameters;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCoreMode;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommandList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.virtualModelControl.VirtualModelControlCommand;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.HighLevelHumanoidControllerToolbox;
+import us.ihmc.humanoidRobotics.frames.HumanoidReferenceFrames;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.time.TickStatistics;
+import us.ihmc.wholeBodyController.DRCControllerThread;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+
+/**
+ * Measures the per tick latency and allocations of the {@link WholeBodyControllerCore} while the walking controller steps in place
+ * and moves the chest and arms.
+ *
+ * The walking controller runs the controller core in inverse dynamics mode and its output is used to integrate the robot state. Every
+ * tick the same feedback commands are also given to a controller core in inverse kinematics mode and one in virtual model control
+ * mode, whose outputs are discarded. For inverse dynamics the time spent in the {@code WholeBodyFeedbackController} and in the
+ * {@code InverseDynamicsQPSolver} is reported separately, the rest being mostly the assembly of the QP by the
+ * {@code MotionQPInputCalculator}.
+ *
+ * The scenario is run once to let the JIT compile the controller before measuring. Run with a fixed heap and no other load on the
+ * machine to get stable numbers.
+ */
+public abstract class AvatarWholeBodyControllerCoreBenchmark extends HumanoidControllerWarmup
+{
+   private static final double gravityZ = 9.81;
+   private static final int maximumNumberOfTicks = 100000;
+   private static final int numberOfStepsInPlace = 5;
+
+   private final YoVariableRegistry inverseKinematicsRegistry = new YoVariableRegistry("InverseKinematicsBenchmark");
+   private final YoVariableRegistry virtualModelControlRegistry = new YoVariableRegistry("VirtualModelControlBenchmark");
+
+   private final WholeBodyControllerCore inverseKinematicsControllerCore;
+   private final WholeBodyControllerCore virtualModelControlControllerCore;
+   private final ControllerCoreCommand inverseKinematicsCommand = new ControllerCoreCommand(WholeBodyControllerCoreMode.INVERSE_KINEMATICS);
+   private final ControllerCoreCommand virtualModelControlCommand = new ControllerCoreCommand(WholeBodyControllerCoreMode.VIRTUAL_MODEL);
+
+   private final YoDouble feedbackControllerTime;
+   private final YoDouble qpSolverTime;
+
+   private final TickStatistics inverseDynamicsStatistics = new TickStatistics("Inverse dynamics", maximumNumberOfTicks);
+   private final TickStatistics feedbackControllerStatistics = new TickStatistics("  WholeBodyFeedbackController", maximumNumberOfTicks);
+   private final TickStatistics qpSolverStatistics = new TickStatistics("  InverseDynamicsQPSolver", maximumNumberOfTicks);
+   private final TickStatistics inverseKinematicsStatistics = new TickStatistics("Inverse kinematics", maximumNumberOfTicks);
+   private final TickStatistics virtualModelControlStatistics = new TickStatistics("Virtual model control", maximumNumberOfTicks);
+
+   private boolean recording = false;
+
+   public AvatarWholeBodyControllerCoreBenchmark(DRCRobotModel robotModel)
+   {
+      super(robotModel);
+
+      WholeBodyControlCoreToolbox inverseKinematicsToolbox = createToolbox(inverseKinematicsRegistry);
+      inverseKinematicsToolbox.setupForInverseKinematicsSolver();
+      inverseKinematicsControllerCore = new WholeBodyControllerCore(inverseKinematicsToolbox, createFeedbackControlTemplate(), inverseKinematicsRegistry);
+
+      WholeBodyControlCoreToolbox virtualModelControlToolbox = createToolbox(virtualModelControlRegistry);
+      virtualModelControlToolbox.setupForVirtualModelControlSolver(getFullRobotModel().getPelvis(), getContactableBodies());
+      virtualModelControlControllerCore = new WholeBodyControllerCore(virtualModelControlToolbox, createFeedbackControlTemplate(),
+                                                                      virtualModelControlRegistry);
+
+      inverseKinematicsControllerCore.initialize();
+      virtualModelControlControllerCore.initialize();
+
+      feedbackControllerTime = (YoDouble) getRegistry().getVariable("WholeBodyFeedbackController", "wholeBodyFeedbackControllerTimerCurrent");
+      qpSolverTime = (YoDouble) getRegistry().getVariable("InverseDynamicsQPSolver", "qpSolverTimerCurrent");
+   }
+
+   private WholeBodyControlCoreToolbox createToolbox(YoVariableRegistry registry)
+   {
+      DRCRobotModel robotModel = getRobotModel();
+      FullHumanoidRobotModel fullRobotModel = getFullRobotModel();
+      WalkingControllerParameters walkingControllerParameters = robotModel.getWalkingControllerParameters();
+
+      JointBasics[] jointsToIgnore = DRCControllerThread.createListOfJointsToIgnore(fullRobotModel, robotModel, robotModel.getSensorInformation());
+      JointBasics[] jointsToOptimizeFor = HighLevelHumanoidControllerToolbox.computeJointsToOptimizeFor(fullRobotModel, jointsToIgnore);
+
+      WholeBodyControlCoreToolbox toolbox = new WholeBodyControlCoreToolbox(robotModel.getControllerDT(), gravityZ, fullRobotModel.getRootJoint(),
+                                                                            jointsToOptimizeFor, getReferenceFrames().getCenterOfMassFrame(),
+                                                                            walkingControllerParameters.getMomentumOptimizationSettings(), null,
+                                                                            registry);
+      toolbox.setJointPrivilegedConfigurationParameters(walkingControllerParameters.getJointPrivilegedConfigurationParameters());
+      return toolbox;
+   }
+
+   /**
+    * Runs the scenario once to warm up, then again while recording, and prints the results.
+    */
+   public void runBenchmark()
+   {
+      recording = false;
+      runWarmup();
+
+      recording = true;
+      runWarmup();
+      recording = false;
+
+      System.out.println(getRobotModel().getSimpleRobotName() + " controller core, " + inverseDynamicsStatistics.getNumberOfTicks() + " ticks:");
+      System.out.println(inverseDynamicsStatistics);
+      System.out.println(feedbackControllerStatistics);
+      System.out.println(qpSolverStatistics);
+      System.out.println(inverseKinematicsStatistics);
+      System.out.println(virtualModelControlStatistics);
+   }
+
+   @Override
+   protected void runWarmup()
+   {
+      HumanoidReferenceFrames referenceFrames = getReferenceFrames();
+      FullHumanoidRobotModel fullRobotModel = getFullRobotModel();
+
+      getYoVariable("maxICPErrorBeforeSingleSupportX").setValueFromDouble(Double.POSITIVE_INFINITY);
+      getYoVariable("maxICPErrorBeforeSingleSupportY").setValueFromDouble(Double.POSITIVE_INFINITY);
+
+      simulate(1.0);
+      for (int i = 0; i < numberOfStepsInPlace; i++)
+      {
+         submitMessage(HumanoidControllerWarumupTools.createStepsInPlace(referenceFrames));
+         simulate(1.5);
+
+         for (RobotSide side : RobotSide.values)
+            submitMessage(HumanoidControllerWarumupTools.createArmMessage(fullRobotModel, side));
+         submitMessage(HumanoidControllerWarumupTools.createChestMessage(referenceFrames));
+         simulate(1.0);
+      }
+   }
+
+   @Override
+   protected void submitAndComputeControllerCore(WholeBodyControllerCore controllerCore, ControllerCoreCommand coreCommand)
+   {
+      inverseKinematicsCommand.clear();
+      inverseKinematicsCommand.getFeedbackControlCommandList().set(coreCommand.getFeedbackControlCommandList());
+      inverseKinematicsControllerCore.submitControllerCoreCommand(inverseKinematicsCommand);
+      startTick(inverseKinematicsStatistics);
+      inverseKinematicsControllerCore.compute();
+      stopTick(inverseKinematicsStatistics);
+
+      // clear() does not clear the virtual model control commands
+      virtualModelControlCommand.clear();
+      virtualModelControlCommand.getVirtualModelControlCommandList().clear();
+      virtualModelControlCommand.getFeedbackControlCommandList().set(coreCommand.getFeedbackControlCommandList());
+      addVirtualModelControlCommands(coreCommand.getInverseDynamicsCommandList(), virtualModelControlCommand);
+      virtualModelControlControllerCore.submitControllerCoreCommand(virtualModelControlCommand);
+      startTick(virtualModelControlStatistics);
+      virtualModelControlControllerCore.compute();
+      stopTick(virtualModelControlStatistics);
+
+      // Last so its output is the one used to integrate the robot state
+      controllerCore.submitControllerCoreCommand(coreCommand);
+      startTick(inverseDynamicsStatistics);
+      controllerCore.compute();
+      stopTick(inverseDynamicsStatistics);
+
+      if (recording)
+      {
+         feedbackControllerStatistics.addTick((long) (1.0e9 * feedbackControllerTime.getDoubleValue()));
+         qpSolverStatistics.addTick((long) (1.0e9 * qpSolverTime.getDoubleValue()));
+      }
+   }
+
+   /**
+    * Contact states and momentum rate commands are used by both the inverse dynamics and the virtual model control solvers.
+    */
+   private static void addVirtualModelControlCommands(InverseDynamicsCommandList commandList, ControllerCoreCommand commandToPack)
+   {
+      for (int i = 0; i < commandList.getNumberOfCommands(); i++)
+      {
+         InverseDynamicsCommand<?> command = commandList.getCommand(i);
+         if (command instanceof InverseDynamicsCommandList)
+            addVirtualModelControlCommands((InverseDynamicsCommandList) command, commandToPack);
+         else if (command instanceof VirtualModelControlCommand)
+            commandToPack.addVirtualModelControlCommand((VirtualModelControlCommand<?>) command);
+      }
+   }
+
+   private void startTick(TickStatistics statistics)
+   {
+      if (recording)
+         statistics.startTick();
+   }
+
+   private void stopTick(TickStatistics statistics)
+   {
+      if (recording)
+         statistics.stopTick();
+   }
+}
@@ -0,0 +1,143 @@
+package us.ihmc.avatar.controllerCore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import us.ihmc.avatar.drcRobot.DRCRobotModel;
+import us.ihmc.avatar.warmup.HumanoidControllerWarmup;
+import us.ihmc.avatar.warmup.HumanoidControllerWarumupTools;
+import us.ihmc.commonWalkingControlModules.configurations.WalkingControllerParameters;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControlCoreToolbox;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ControllerCoreCommand;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.SpatialAccelerationCommand;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.HighLevelHumanoidControllerToolbox;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.MotionQPInputCalculator;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.QPInput;
+import us.ihmc.mecano.multiBodySystem.interfaces.JointBasics;
+import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.wholeBodyController.DRCControllerThread;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+/**
+ * Freezes the walking controller in a representative state, in swing with arm and chest trajectories, so single controller core ticks
+ * can be measured in isolation, e.g. by JMH.
+ *
+ * {@link #setup()} runs the walking controller like {@link AvatarWholeBodyControllerCoreBenchmark} and stops in the middle of a step.
+ * Afterward, {@link #computeControllerCore()} runs the inverse dynamics controller core again on the last command of the walking
+ * controller and {@link #convertSpatialAccelerationCommands()} converts spatial acceleration commands for the end effectors into QP
+ * tasks. The robot state is not changed by either, so every invocation solves the same problem.
+ */
+public class WholeBodyControllerCoreBenchmarkFixture extends HumanoidControllerWarmup
+{
+   private static final double gravityZ = 9.81;
+
+   private WholeBodyControllerCore controllerCore;
+   private ControllerCoreCommand controllerCoreCommand;
+
+   private final MotionQPInputCalculator motionQPInputCalculator;
+   private final QPInput motionQPInput;
+   private final List<SpatialAccelerationCommand> spatialAccelerationCommands = new ArrayList<>();
+
+   public WholeBodyControllerCoreBenchmarkFixture(DRCRobotModel robotModel)
+   {
+      super(robotModel);
+
+      WholeBodyControlCoreToolbox toolbox = createToolbox(new YoVariableRegistry("MotionQPInputCalculatorBenchmark"));
+      toolbox.setupForInverseDynamicsSolver(getContactableBodies());
+      motionQPInputCalculator = toolbox.getMotionQPInputCalculator();
+      motionQPInput = new QPInput(toolbox.getJointIndexHandler().getNumberOfDoFs());
+
+      FullHumanoidRobotModel fullRobotModel = getFullRobotModel();
+      addSpatialAccelerationCommand(fullRobotModel.getPelvis());
+      addSpatialAccelerationCommand(fullRobotModel.getChest());
+      for (RobotSide robotSide : RobotSide.values)
+      {
+         addSpatialAccelerationCommand(fullRobotModel.getFoot(robotSide));
+         addSpatialAccelerationCommand(fullRobotModel.getHand(robotSide));
+      }
+   }
+
+   private WholeBodyControlCoreToolbox createToolbox(YoVariableRegistry registry)
+   {
+      DRCRobotModel robotModel = getRobotModel();
+      FullHumanoidRobotModel fullRobotModel = getFullRobotModel();
+      WalkingControllerParameters walkingControllerParameters = robotModel.getWalkingControllerParameters();
+
+      JointBasics[] jointsToIgnore = DRCControllerThread.createListOfJointsToIgnore(fullRobotModel, robotModel, robotModel.getSensorInformation());
+      JointBasics[] jointsToOptimizeFor = HighLevelHumanoidControllerToolbox.computeJointsToOptimizeFor(fullRobotModel, jointsToIgnore);
+
+      WholeBodyControlCoreToolbox toolbox = new WholeBodyControlCoreToolbox(robotModel.getControllerDT(), gravityZ, fullRobotModel.getRootJoint(),
+                                                                            jointsToOptimizeFor, getReferenceFrames().getCenterOfMassFrame(),
+                                                                            walkingControllerParameters.getMomentumOptimizationSettings(), null,
+                                                                            registry);
+      toolbox.setJointPrivilegedConfigurationParameters(walkingControllerParameters.getJointPrivilegedConfigurationParameters());
+      return toolbox;
+   }
+
+   private void addSpatialAccelerationCommand(RigidBodyBasics endEffector)
+   {
+      // Robots without forearms have no hands
+      if (endEffector == null)
+         return;
+
+      SpatialAccelerationCommand command = new SpatialAccelerationCommand();
+      command.set(getFullRobotModel().getElevator(), endEffector);
+      command.setSpatialAccelerationToZero(endEffector.getBodyFixedFrame());
+      command.setWeight(1.0);
+      spatialAccelerationCommands.add(command);
+   }
+
+   /**
+    * Runs the walking controller until it is in the middle of a step. Must be called once before benchmarking.
+    */
+   public void setup()
+   {
+      runWarmup();
+   }
+
+   @Override
+   protected void runWarmup()
+   {
+      getYoVariable("maxICPErrorBeforeSingleSupportX").setValueFromDouble(Double.POSITIVE_INFINITY);
+      getYoVariable("maxICPErrorBeforeSingleSupportY").setValueFromDouble(Double.POSITIVE_INFINITY);
+
+      simulate(1.0);
+      submitMessage(HumanoidControllerWarumupTools.createStepsInPlace(getReferenceFrames()));
+      for (RobotSide side : RobotSide.values)
+         submitMessage(HumanoidControllerWarumupTools.createArmMessage(getFullRobotModel(), side));
+      submitMessage(HumanoidControllerWarumupTools.createChestMessage(getReferenceFrames()));
+      simulate(1.0);
+   }
+
+   @Override
+   protected void submitAndComputeControllerCore(WholeBodyControllerCore controllerCore, ControllerCoreCommand coreCommand)
+   {
+      this.controllerCore = controllerCore;
+      this.controllerCoreCommand = coreCommand;
+      super.submitAndComputeControllerCore(controllerCore, coreCommand);
+   }
+
+   /**
+    * One tick of the inverse dynamics controller core: feedback controllers, QP assembly and QP solver.
+    */
+   public WholeBodyControllerCore computeControllerCore()
+   {
+      controllerCore.submitControllerCoreCommand(controllerCoreCommand);
+      controllerCore.compute();
+      return controllerCore;
+   }
+
+   /**
+    * Converts the spatial acceleration commands of the pelvis, chest, feet and hands into motion tasks.
+    */
+   public QPInput convertSpatialAccelerationCommands()
+   {
+      motionQPInputCalculator.initialize();
+      for (int i = 0; i < spatialAccelerationCommands.size(); i++)
+         motionQPInputCalculator.convertSpatialAccelerationCommand(spatialAccelerationCommands.get(i), motionQPInput);
+      return motionQPInput;
+   }
+}
@@ -1,6 +1,8 @@
 package us.ihmc.avatar.networkProcessor.wholeBodyTrajectoryToolboxModule;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.AvatarHumanoidKinematicsToolboxControllerTest.createCapturabilityBasedStatus;
 import static us.ihmc.avatar.networkProcessor.kinematicsToolboxModule.AvatarHumanoidKinematicsToolboxControllerTest.extractRobotConfigurationData;
@@ -61,6 +63,7 @@ import us.ihmc.humanoidRobotics.communication.packets.KinematicsToolboxOutputCon
 import us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.ConfigurationSpaceName;
 import us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.WholeBodyTrajectoryToolboxMessageTools;
 import us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.WholeBodyTrajectoryToolboxMessageTools.FunctionTrajectory;
+import us.ihmc.humanoidRobotics.communication.packets.manipulation.wholeBodyTrajectory.WholeBodyTrajectoryToolboxSettings;
 import us.ihmc.mecano.multiBodySystem.interfaces.FloatingJointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
@@ -207,7 +210,11 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
       commandInputManager = null;
       statusOutputManager = null;
 
-      toolboxController = null;
+      if (toolboxController != null)
+      {
+         toolboxController.destroy();
+         toolboxController = null;
+      }
 
       robot = null;
       toolboxUpdater = null;
@@ -222,6 +229,67 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
    @ContinuousIntegrationTest(estimatedDuration = 20.0)
    @Test(timeout = 100000)
    public void testOneBigCircle() throws Exception, UnreasonableAccelerationException
+   {
+      // run toolbox
+      runTrajectoryTest(createOneBigCircleMessage(), 100000);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 20.0)
+   @Test(timeout = 100000)
+   public void testOneBigCircleWithOneCandidatePerUpdate() throws Exception, UnreasonableAccelerationException
+   {
+      setNumberOfCandidatesPerUpdate(1);
+      runTrajectoryTest(createOneBigCircleMessage(), 100000);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 20.0)
+   @Test(timeout = 100000)
+   public void testOneBigCircleWithSeveralCandidatesPerUpdate() throws Exception, UnreasonableAccelerationException
+   {
+      setNumberOfCandidatesPerUpdate(8);
+      runTrajectoryTest(createOneBigCircleMessage(), 100000);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 40.0)
+   @Test(timeout = 200000)
+   public void testNumberOfCandidateValidationWorkersDoesNotChangeTheSolution() throws Exception, UnreasonableAccelerationException
+   {
+      int numberOfCandidatesPerUpdate = 4;
+
+      setNumberOfCandidatesPerUpdate(numberOfCandidatesPerUpdate);
+      WholeBodyTrajectoryToolboxOutputStatus expectedSolution = computeOneBigCircleSolution(1);
+
+      // The toolbox controller is done, a new one is needed to plan again.
+      tearDown();
+      setup();
+
+      setNumberOfCandidatesPerUpdate(numberOfCandidatesPerUpdate);
+      WholeBodyTrajectoryToolboxOutputStatus actualSolution = computeOneBigCircleSolution(numberOfCandidatesPerUpdate);
+
+      assertTrue("The solution depends on the number of workers.", expectedSolution.epsilonEquals(actualSolution, 0.0));
+   }
+
+   private void setNumberOfCandidatesPerUpdate(int numberOfCandidatesPerUpdate)
+   {
+      YoInteger variable = (YoInteger) mainRegistry.getVariable(WholeBodyTrajectoryToolboxController.class.getSimpleName(), "numberOfCandidatesPerUpdate");
+      variable.set(numberOfCandidatesPerUpdate);
+   }
+
+   private WholeBodyTrajectoryToolboxOutputStatus computeOneBigCircleSolution(int numberOfCandidateValidationWorkers) throws UnreasonableAccelerationException
+   {
+      toolboxController.setNumberOfCandidateValidationWorkers(numberOfCandidateValidationWorkers);
+      // The samples are drawn from a random generator shared by all the toolbox controllers.
+      WholeBodyTrajectoryToolboxSettings.randomManager.setSeed(1);
+
+      commandInputManager.submitMessage(createOneBigCircleMessage());
+      WholeBodyTrajectoryToolboxOutputStatus solution = runToolboxController(100000);
+
+      assertNotNull("The toolbox is done but did not report a solution.", solution);
+      assertEquals("planning result", 4, solution.getPlanningResult());
+      return solution;
+   }
+
+   private WholeBodyTrajectoryToolboxMessage createOneBigCircleMessage()
    {
       // Trajectory parameters
       double trajectoryTime = 10.0;
@@ -279,11 +347,7 @@ public abstract class AvatarWholeBodyTrajectoryToolboxControllerTest implements
          }
       }
 
-      WholeBodyTrajectoryToolboxMessage message = HumanoidMessageTools.createWholeBodyTrajectoryToolboxMessage(configuration, handTrajectories, null,
-                                                                                                               rigidBodyConfigurations);
-
-      // run toolbox
-      runTrajectoryTest(message, 100000);
+      return HumanoidMessageTools.createWholeBodyTrajectoryToolboxMessage(configuration, handTrajectories, null, rigidBodyConfigurations);
    }
 
    @ContinuousIntegrationTest(estimatedDuration = 20.0)
@@ -38,7 +38,7 @@ public class LIPMDDPCalculator
       this.mass = mass;
       this.gravityZ = gravityZ;
 
-      ddpSolver = new SimpleDDPSolver<>(dynamics, true);
+      ddpSolver = new SimpleDDPSolver<>(dynamics, false);
       lqrSolver = new DiscreteTimeVaryingTrackingLQRSolver<>(dynamics, costFunction, terminalCostFunction);
 
       int stateSize = dynamics.getStateVectorSize();
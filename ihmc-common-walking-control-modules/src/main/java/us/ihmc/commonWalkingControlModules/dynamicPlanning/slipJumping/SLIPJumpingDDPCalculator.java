@@ -50,7 +50,7 @@ public class SLIPJumpingDDPCalculator
       this.nominalHeight = nominalHeight;
       this.gravityZ = gravityZ;
 
-      ddpSolver = new SimpleDDPSolver<>(dynamics, true);
+      ddpSolver = new SimpleDDPSolver<>(dynamics, false);
 
       LQCostFunction<SLIPState> slipModelTrackingCost = new SLIPModelForceTrackingCost(mass, gravityZ);
       LQCostFunction<SLIPState> slipRegularizationCost = new SLIPRegularizationCost();
@@ -95,6 +95,13 @@ public class SLIPJumpingDDPCalculator
       double modifiedDeltaT = firstStanceDuration / numberOfInitialTimeSteps;
       dynamics.setTimeStepSize(modifiedDeltaT);
 
+      // the segments are recreated every time so the calculator can be initialized again at every control tick
+      dynamicStates.clear();
+      startIndices.resetQuick();
+      endIndices.resetQuick();
+      costFunctions.clear();
+      terminalCostFunctions.clear();
+
       dynamicStates.add(SLIPState.STANCE);
       startIndices.add(0);
       endIndices.add(numberOfInitialTimeSteps - 1);
@@ -3,6 +3,7 @@ package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
 
+import gnu.trove.list.array.TIntArrayList;
 import us.ihmc.convexOptimization.quadraticProgram.ActiveSetQPSolverWithInactiveVariablesInterface;
 import us.ihmc.mecano.spatial.Wrench;
 import us.ihmc.robotics.linearAlgebra.MatrixTools;
@@ -62,6 +63,11 @@ public class InverseDynamicsQPSolver
 
    private final DenseMatrix64F tempJtW;
 
+   private final TIntArrayList tempNonZeroColumns;
+   private final DenseMatrix64F tempCompactJacobian;
+   private final DenseMatrix64F tempCompactH;
+   private final DenseMatrix64F tempCompactF;
+
    private final int numberOfDoFs;
    private final int rhoSize;
    private final int problemSize;
@@ -115,6 +121,11 @@ public class InverseDynamicsQPSolver
 
       tempJtW = new DenseMatrix64F(problemSize, problemSize);
 
+      tempNonZeroColumns = new TIntArrayList(problemSize);
+      tempCompactJacobian = new DenseMatrix64F(problemSize, problemSize);
+      tempCompactH = new DenseMatrix64F(problemSize, problemSize);
+      tempCompactF = new DenseMatrix64F(problemSize, 1);
+
       jointAccelerationRegularization.set(0.005);
       jointJerkRegularization.set(0.1);
       jointTorqueWeight.set(0.001);
@@ -229,9 +240,9 @@ public class InverseDynamicsQPSolver
       {
       case OBJECTIVE:
          if (input.useWeightScalar())
-            addMotionTask(input.taskJacobian, input.taskObjective, input.getWeightScalar());
+            addMotionTask(input.taskJacobian, input.taskObjective, input.getWeightScalar(), getNonZeroColumns(input));
          else
-            addMotionTask(input.taskJacobian, input.taskObjective, input.taskWeightMatrix);
+            addMotionTask(input.taskJacobian, input.taskObjective, input.taskWeightMatrix, getNonZeroColumns(input));
          break;
       case EQUALITY:
          addMotionEqualityConstraint(input.taskJacobian, input.taskObjective);
@@ -254,11 +265,11 @@ public class InverseDynamicsQPSolver
       case OBJECTIVE:
          if (input.useWeightScalar())
          {
-            addRhoTask(input.getTaskJacobian(), input.getTaskObjective(), input.getWeightScalar());
+            addRhoTask(input.getTaskJacobian(), input.getTaskObjective(), input.getWeightScalar(), getNonZeroColumns(input));
          }
          else
          {
-            addRhoTask(input.getTaskJacobian(), input.getTaskObjective(), input.getTaskWeightMatrix());
+            addRhoTask(input.getTaskJacobian(), input.getTaskObjective(), input.getTaskWeightMatrix(), getNonZeroColumns(input));
          }
          break;
       case EQUALITY:
@@ -275,22 +286,37 @@ public class InverseDynamicsQPSolver
       }
    }
 
+   private static TIntArrayList getNonZeroColumns(QPInput input)
+   {
+      return input.hasNonZeroColumns() ? input.getNonZeroColumns() : null;
+   }
+
    public void addMotionTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, double taskWeight)
+   {
+      addMotionTask(taskJacobian, taskObjective, taskWeight, null);
+   }
+
+   private void addMotionTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, double taskWeight, TIntArrayList nonZeroColumns)
    {
       if (taskJacobian.getNumCols() != numberOfDoFs)
       {
          throw new RuntimeException("Motion task needs to have size macthing the DoFs of the robot.");
       }
-      addTaskInternal(taskJacobian, taskObjective, taskWeight, 0);
+      addTaskInternal(taskJacobian, taskObjective, taskWeight, 0, nonZeroColumns);
    }
 
    public void addRhoTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, double taskWeight)
+   {
+      addRhoTask(taskJacobian, taskObjective, taskWeight, null);
+   }
+
+   private void addRhoTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, double taskWeight, TIntArrayList nonZeroColumns)
    {
       if (taskJacobian.getNumCols() != rhoSize)
       {
          throw new RuntimeException("Rho task needs to have size macthing the number of rhos of the robot.");
       }
-      addTaskInternal(taskJacobian, taskObjective, taskWeight, numberOfDoFs);
+      addTaskInternal(taskJacobian, taskObjective, taskWeight, numberOfDoFs, nonZeroColumns);
    }
 
    /**
@@ -303,12 +329,17 @@ public class InverseDynamicsQPSolver
     * @param taskWeight weight for the desired objective. W in the above equation. Assumed to be diagonal.
     */
    public void addMotionTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, DenseMatrix64F taskWeight)
+   {
+      addMotionTask(taskJacobian, taskObjective, taskWeight, null);
+   }
+
+   private void addMotionTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, DenseMatrix64F taskWeight, TIntArrayList nonZeroColumns)
    {
       if (taskJacobian.getNumCols() != numberOfDoFs)
       {
          throw new RuntimeException("Motion task needs to have size macthing the DoFs of the robot.");
       }
-      addTaskInternal(taskJacobian, taskObjective, taskWeight, 0);
+      addTaskInternal(taskJacobian, taskObjective, taskWeight, 0, nonZeroColumns);
    }
 
    /**
@@ -321,12 +352,17 @@ public class InverseDynamicsQPSolver
     * @param taskWeight weight for the desired objective. W in the above equation. Assumed to be diagonal.
     */
    public void addRhoTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, DenseMatrix64F taskWeight)
+   {
+      addRhoTask(taskJacobian, taskObjective, taskWeight, null);
+   }
+
+   private void addRhoTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, DenseMatrix64F taskWeight, TIntArrayList nonZeroColumns)
    {
       if (taskJacobian.getNumCols() != rhoSize)
       {
          throw new RuntimeException("Rho task needs to have size macthing the number of rhos of the robot.");
       }
-      addTaskInternal(taskJacobian, taskObjective, taskWeight, numberOfDoFs);
+      addTaskInternal(taskJacobian, taskObjective, taskWeight, numberOfDoFs, nonZeroColumns);
    }
 
    /**
@@ -358,7 +394,19 @@ public class InverseDynamicsQPSolver
       MatrixTools.multAddBlock(-1.0, taskWeight, taskObjective, solverInput_f, offset, 0);
    }
 
-   private void addTaskInternal(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, DenseMatrix64F taskWeight, int offset)
+   /**
+    * Adds the task to the cost function only considering the non-zero columns of the task Jacobian.
+    * <p>
+    * Most tasks only involve a few joints or a single contactable body such that their contribution
+    * to H is a small block. The product J<sup>T</sup> W J is computed on the non-zero columns only
+    * and the result is scattered into H and f.
+    * </p>
+    *
+    * @param nonZeroColumns the columns of the task Jacobian that may be non-zero, or {@code null} to
+    *           search the task Jacobian for them.
+    */
+   private void addTaskInternal(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, DenseMatrix64F taskWeight, int offset,
+                                TIntArrayList nonZeroColumns)
    {
       int taskSize = taskJacobian.getNumRows();
       int variables = taskJacobian.getNumCols();
@@ -367,19 +415,44 @@ public class InverseDynamicsQPSolver
          throw new RuntimeException("This task does not fit.");
       }
 
-      tempJtW.reshape(variables, taskSize);
+      if (nonZeroColumns == null)
+         nonZeroColumns = findNonZeroColumns(taskJacobian);
+
+      int numberOfColumns = nonZeroColumns.size();
+
+      if (numberOfColumns == variables)
+      {
+         tempJtW.reshape(variables, taskSize);
+
+         // J^T W
+         CommonOps.multTransA(taskJacobian, taskWeight, tempJtW);
+
+         // Compute: H += J^T W J
+         MatrixTools.multAddBlock(tempJtW, taskJacobian, solverInput_H, offset, offset);
+
+         // Compute: f += - J^T W Objective
+         MatrixTools.multAddBlock(-1.0, tempJtW, taskObjective, solverInput_f, offset, 0);
+         return;
+      }
+
+      extractCompactJacobian(taskJacobian, nonZeroColumns);
+      tempJtW.reshape(numberOfColumns, taskSize);
+      tempCompactH.reshape(numberOfColumns, numberOfColumns);
+      tempCompactF.reshape(numberOfColumns, 1);
 
       // J^T W
-      CommonOps.multTransA(taskJacobian, taskWeight, tempJtW);
+      CommonOps.multTransA(tempCompactJacobian, taskWeight, tempJtW);
 
       // Compute: H += J^T W J
-      MatrixTools.multAddBlock(tempJtW, taskJacobian, solverInput_H, offset, offset);
+      CommonOps.mult(tempJtW, tempCompactJacobian, tempCompactH);
 
       // Compute: f += - J^T W Objective
-      MatrixTools.multAddBlock(-1.0, tempJtW, taskObjective, solverInput_f, offset, 0);
+      CommonOps.mult(-1.0, tempJtW, taskObjective, tempCompactF);
+
+      addCompactTask(nonZeroColumns, offset);
    }
 
-   private void addTaskInternal(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, double taskWeight, int offset)
+   private void addTaskInternal(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, double taskWeight, int offset, TIntArrayList nonZeroColumns)
    {
       int variables = taskJacobian.getNumCols();
       if (offset + variables > problemSize)
@@ -387,11 +460,78 @@ public class InverseDynamicsQPSolver
          throw new RuntimeException("This task does not fit.");
       }
 
+      if (nonZeroColumns == null)
+         nonZeroColumns = findNonZeroColumns(taskJacobian);
+
+      int numberOfColumns = nonZeroColumns.size();
+
+      if (numberOfColumns == variables)
+      {
+         // Compute: H += J^T W J
+         MatrixTools.multAddBlockInner(taskWeight, taskJacobian, solverInput_H, offset, offset);
+
+         // Compute: f += - J^T W Objective
+         MatrixTools.multAddBlockTransA(-taskWeight, taskJacobian, taskObjective, solverInput_f, offset, 0);
+         return;
+      }
+
+      extractCompactJacobian(taskJacobian, nonZeroColumns);
+      tempCompactH.reshape(numberOfColumns, numberOfColumns);
+      tempCompactH.zero();
+      tempCompactF.reshape(numberOfColumns, 1);
+
       // Compute: H += J^T W J
-      MatrixTools.multAddBlockInner(taskWeight, taskJacobian, solverInput_H, offset, offset);
+      MatrixTools.multAddInner(taskWeight, tempCompactJacobian, tempCompactH);
 
       // Compute: f += - J^T W Objective
-      MatrixTools.multAddBlockTransA(-taskWeight, taskJacobian, taskObjective, solverInput_f, offset, 0);
+      CommonOps.multTransA(-taskWeight, tempCompactJacobian, taskObjective, tempCompactF);
+
+      addCompactTask(nonZeroColumns, offset);
+   }
+
+   private TIntArrayList findNonZeroColumns(DenseMatrix64F taskJacobian)
+   {
+      tempNonZeroColumns.reset();
+
+      for (int col = 0; col < taskJacobian.getNumCols(); col++)
+      {
+         for (int row = 0; row < taskJacobian.getNumRows(); row++)
+         {
+            if (taskJacobian.unsafe_get(row, col) != 0.0)
+            {
+               tempNonZeroColumns.add(col);
+               break;
+            }
+         }
+      }
+
+      return tempNonZeroColumns;
+   }
+
+   private void extractCompactJacobian(DenseMatrix64F taskJacobian, TIntArrayList nonZeroColumns)
+   {
+      tempCompactJacobian.reshape(taskJacobian.getNumRows(), nonZeroColumns.size());
+      MatrixTools.extractColumns(taskJacobian, nonZeroColumns, tempCompactJacobian, 0);
+   }
+
+   /**
+    * Adds {@code tempCompactH} and {@code tempCompactF} to the rows and columns of H and f given by
+    * the non-zero columns of the task Jacobian.
+    */
+   private void addCompactTask(TIntArrayList nonZeroColumns, int offset)
+   {
+      int numberOfColumns = nonZeroColumns.size();
+
+      for (int i = 0; i < numberOfColumns; i++)
+      {
+         int row = offset + nonZeroColumns.get(i);
+         solverInput_f.add(row, 0, tempCompactF.get(i, 0));
+
+         for (int j = 0; j < numberOfColumns; j++)
+         {
+            solverInput_H.add(row, offset + nonZeroColumns.get(j), tempCompactH.get(i, j));
+         }
+      }
    }
 
    public void addMotionEqualityConstraint(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective)
@@ -542,9 +682,8 @@ public class InverseDynamicsQPSolver
          CommonOps.insert(rhoJacobian, tempWrenchConstraint_J, 0, numberOfDoFs);
 
          double weight = 150.0;
-         MatrixTools.multAddInner(weight, tempWrenchConstraint_J, solverInput_H);
-
-         CommonOps.multAddTransA(-weight, tempWrenchConstraint_J, tempWrenchConstraint_RHS, solverInput_f);
+         // The rhos of the contacts that are not in use have zero columns.
+         addTaskInternal(tempWrenchConstraint_J, tempWrenchConstraint_RHS, weight, 0, null);
       }
       else
       {
@@ -636,6 +775,18 @@ public class InverseDynamicsQPSolver
       return true;
    }
 
+   /** The Hessian H of the cost function assembled so far, for testing. */
+   DenseMatrix64F getCostFunctionHessian()
+   {
+      return solverInput_H;
+   }
+
+   /** The gradient f of the cost function assembled so far, for testing. */
+   DenseMatrix64F getCostFunctionGradient()
+   {
+      return solverInput_f;
+   }
+
    private void printForJerry()
    {
       MatrixTools.printJavaForConstruction("H", solverInput_H);
@@ -270,6 +270,8 @@ public class MotionQPInputCalculator
 
       // Step 2: The small Jacobian matrix into the full Jacobian matrix. Proper indexing has to be ensured, so it is handled by the jointIndexHandler.
       jointIndexHandler.compactBlockToFullBlockIgnoreUnindexedJoints(jointsUsedInTask, tempTaskJacobian, motionQPInputToPack.taskJacobian);
+      // Only the columns of the joints in the kinematic chain can be non-zero, telling the solver allows it to skip the rest.
+      setNonZeroColumns(jointsUsedInTask, motionQPInputToPack);
 
       if (primaryBase == null)
       { // No primary base provided for this task.
@@ -386,6 +388,8 @@ public class MotionQPInputCalculator
 
       // Step 2: The small Jacobian matrix into the full Jacobian matrix. Proper indexing has to be ensured, so it is handled by the jointIndexHandler.
       jointIndexHandler.compactBlockToFullBlockIgnoreUnindexedJoints(jointsUsedInTask, tempTaskJacobian, motionQPInputToPack.taskJacobian);
+      // Only the columns of the joints in the kinematic chain can be non-zero, telling the solver allows it to skip the rest.
+      setNonZeroColumns(jointsUsedInTask, motionQPInputToPack);
 
       if (primaryBase == null)
       { // No primary base provided for this task.
@@ -537,6 +541,7 @@ public class MotionQPInputCalculator
       motionQPInputToPack.taskJacobian.zero();
       motionQPInputToPack.taskWeightMatrix.zero();
       motionQPInputToPack.setUseWeightScalar(false);
+      motionQPInputToPack.clearNonZeroColumns();
 
       int row = 0;
       for (int jointIndex = 0; jointIndex < commandToConvert.getNumberOfJoints(); jointIndex++)
@@ -550,6 +555,7 @@ public class MotionQPInputCalculator
          CommonOps.insert(commandToConvert.getDesiredAcceleration(jointIndex), motionQPInputToPack.taskObjective, row, 0);
          for (int column : columns)
          {
+            motionQPInputToPack.addNonZeroColumn(column);
             motionQPInputToPack.taskJacobian.set(row, column, 1.0);
             motionQPInputToPack.taskWeightMatrix.set(row, row, weight);
             row++;
@@ -577,6 +583,7 @@ public class MotionQPInputCalculator
       motionQPInputToPack.taskJacobian.zero();
       motionQPInputToPack.taskWeightMatrix.zero();
       motionQPInputToPack.setUseWeightScalar(false);
+      motionQPInputToPack.clearNonZeroColumns();
 
       int row = 0;
       for (int jointIndex = 0; jointIndex < commandToConvert.getNumberOfJoints(); jointIndex++)
@@ -590,6 +597,7 @@ public class MotionQPInputCalculator
          CommonOps.insert(commandToConvert.getDesiredVelocity(jointIndex), motionQPInputToPack.taskObjective, row, 0);
          for (int column : columns)
          {
+            motionQPInputToPack.addNonZeroColumn(column);
             motionQPInputToPack.taskJacobian.set(row, column, 1.0);
             motionQPInputToPack.taskWeightMatrix.set(row, row, weight);
             row++;
@@ -600,6 +608,21 @@ public class MotionQPInputCalculator
       return true;
    }
 
+   private void setNonZeroColumns(List<JointReadOnly> joints, QPInput motionQPInputToPack)
+   {
+      motionQPInputToPack.clearNonZeroColumns();
+
+      for (int i = 0; i < joints.size(); i++)
+      {
+         int[] jointIndices = jointIndexHandler.getJointIndices(joints.get(i));
+         if (jointIndices == null)
+            continue;
+
+         for (int dofIndex : jointIndices)
+            motionQPInputToPack.addNonZeroColumn(dofIndex);
+      }
+   }
+
    private void recordTaskJacobian(DenseMatrix64F taskJacobian)
    {
       int taskSize = taskJacobian.getNumRows();
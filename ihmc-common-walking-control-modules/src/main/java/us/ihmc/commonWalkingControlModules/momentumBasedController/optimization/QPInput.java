@@ -2,6 +2,7 @@ package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization
 
 import org.ejml.data.DenseMatrix64F;
 
+import gnu.trove.list.array.TIntArrayList;
 import us.ihmc.commonWalkingControlModules.controllerCore.command.ConstraintType;
 
 public class QPInput
@@ -19,6 +20,11 @@ public class QPInput
 
    private ConstraintType constraintType = ConstraintType.OBJECTIVE;
 
+   private final TIntArrayList nonZeroColumns = new TIntArrayList();
+   /** Whether a column is in {@link #nonZeroColumns}, so adding a column is constant time. */
+   private final boolean[] isNonZeroColumn;
+   private boolean hasNonZeroColumns = false;
+
    /**
     * <p>
     * Input into the QP solver. Must be in the form
@@ -38,6 +44,7 @@ public class QPInput
    public QPInput(int numberOfVariables)
    {
       this.numberOfVariables = numberOfVariables;
+      isNonZeroColumn = new boolean[numberOfVariables];
       reshape(initialTaskSize);
    }
 
@@ -46,11 +53,59 @@ public class QPInput
       taskJacobian.reshape(taskSize, numberOfVariables);
       taskObjective.reshape(taskSize, 1);
       taskWeightMatrix.reshape(taskSize, taskSize);
+      hasNonZeroColumns = false;
    }
 
    public void setTaskJacobian(DenseMatrix64F taskJacobian)
    {
       this.taskJacobian.set(taskJacobian);
+      hasNonZeroColumns = false;
+   }
+
+   /**
+    * Declares that the task Jacobian is zero except for the columns given with
+    * {@link #addNonZeroColumn(int)} and {@link #addNonZeroColumns(int, int)}. The solver then only
+    * assembles the corresponding blocks of the problem.
+    * <p>
+    * Has to be called after {@link #reshape(int)} which resets the task Jacobian to be considered
+    * dense.
+    * </p>
+    */
+   public void clearNonZeroColumns()
+   {
+      for (int i = 0; i < nonZeroColumns.size(); i++)
+         isNonZeroColumn[nonZeroColumns.get(i)] = false;
+      nonZeroColumns.reset();
+      hasNonZeroColumns = true;
+   }
+
+   public void addNonZeroColumn(int column)
+   {
+      if (!isNonZeroColumn[column])
+      {
+         isNonZeroColumn[column] = true;
+         nonZeroColumns.add(column);
+      }
+   }
+
+   public void addNonZeroColumns(int startColumn, int numberOfColumns)
+   {
+      for (int column = startColumn; column < startColumn + numberOfColumns; column++)
+         addNonZeroColumn(column);
+   }
+
+   /**
+    * @return whether the non-zero columns of the task Jacobian are known, see
+    *         {@link #clearNonZeroColumns()}.
+    */
+   public boolean hasNonZeroColumns()
+   {
+      return hasNonZeroColumns;
+   }
+
+   public TIntArrayList getNonZeroColumns()
+   {
+      return nonZeroColumns;
    }
 
    public DenseMatrix64F getTaskJacobian()
@@ -202,6 +202,9 @@ public class WrenchMatrixCalculator
       // wrench = J * rho
       ReferenceFrame planeFrame = desiredCoP.getReferenceFrame();
       fullWrenchJacobian.zero();
+      inputToPack.reshape(2);
+      inputToPack.setConstraintType(command.getConstraintType());
+      inputToPack.clearNonZeroColumns();
       int rhoStartIndex = 0;
 
       for (int i = 0; i < rigidBodies.size(); i++)
@@ -213,14 +216,12 @@ public class WrenchMatrixCalculator
          {
             helper.computeWrenchJacobianInFrame(planeFrame, bodyWrenchJacobian);
             CommonOps.insert(bodyWrenchJacobian, fullWrenchJacobian, 0, rhoStartIndex);
+            inputToPack.addNonZeroColumns(rhoStartIndex, helper.getRhoSize());
          }
 
          rhoStartIndex += helper.getRhoSize();
       }
 
-      inputToPack.reshape(2);
-      inputToPack.setConstraintType(command.getConstraintType());
-
       int fzIndex = 5;
       CommonOps.extractRow(fullWrenchJacobian, fzIndex, fzRow);
 
@@ -290,6 +291,8 @@ public class WrenchMatrixCalculator
       DenseMatrix64F fullJacobian = inputToPack.getTaskJacobian();
       fullJacobian.zero();
       CommonOps.insert(rigidBodyRhoTaskJacobian, fullJacobian, 0, rhoOffset);
+      inputToPack.clearNonZeroColumns();
+      inputToPack.addNonZeroColumns(rhoOffset, rigidBodyRhoTaskJacobian.getNumCols());
 
       contactWrenchCommands.remove(commands - 1);
       return true;
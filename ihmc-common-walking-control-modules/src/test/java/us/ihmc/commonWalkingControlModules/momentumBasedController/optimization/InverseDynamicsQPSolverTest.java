@@ -0,0 +1,259 @@
+package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.ejml.ops.RandomMatrices;
+import org.junit.Test;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.ConstraintType;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolverWithInactiveVariables;
+import us.ihmc.mecano.spatial.Wrench;
+import us.ihmc.robotics.testing.JUnitTools;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class InverseDynamicsQPSolverTest
+{
+   private static final int ITERATIONS = 100;
+   private static final double EPSILON = 1.0e-10;
+
+   private static final int numberOfDoFs = 20;
+   private static final int numberOfContacts = 4;
+   private static final int rhosPerContact = 4;
+   private static final int rhoSize = numberOfContacts * rhosPerContact;
+   private static final int problemSize = numberOfDoFs + rhoSize;
+   /** Weight used by the solver for the wrench equilibrium when it is set up as an objective. */
+   private static final double wrenchEquilibriumWeight = 150.0;
+
+   /**
+    * Tasks given with their non-zero columns, and tasks for which the solver searches the non-zero
+    * columns, have to add the same J<sup>T</sup> W J and -J<sup>T</sup> W b to the cost function as
+    * the dense formulation.
+    */
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testCompactTasksMatchDenseTasks()
+   {
+      Random random = new Random(4561L);
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         InverseDynamicsQPSolver compactSolver = createSolver();
+         InverseDynamicsQPSolver searchingSolver = createSolver();
+         DenseMatrix64F expectedH = new DenseMatrix64F(problemSize, problemSize);
+         DenseMatrix64F expectedF = new DenseMatrix64F(problemSize, 1);
+
+         // Spatial acceleration task on the floating base and a few joints
+         QPInput spatialTask = nextSparseInput(random, 6, numberOfDoFs, nextColumns(random, numberOfDoFs, 6 + random.nextInt(6)), false);
+         addMotionInput(spatialTask, compactSolver, searchingSolver, expectedH, expectedF);
+
+         // Jointspace task
+         QPInput jointspaceTask = nextSparseInput(random, 3, numberOfDoFs, nextColumns(random, numberOfDoFs, 3), true);
+         addMotionInput(jointspaceTask, compactSolver, searchingSolver, expectedH, expectedF);
+
+         // Momentum task, all columns are non-zero
+         QPInput momentumTask = nextSparseInput(random, 6, numberOfDoFs, nextColumns(random, numberOfDoFs, numberOfDoFs), false);
+         addMotionInput(momentumTask, compactSolver, searchingSolver, expectedH, expectedF);
+
+         // Rho task on a single contact
+         int contact = random.nextInt(numberOfContacts);
+         QPInput rhoTask = nextSparseInput(random, 6, rhoSize, contactColumns(contact), true);
+         addRhoInput(rhoTask, compactSolver, searchingSolver, expectedH, expectedF);
+
+         // Center of pressure task on another contact, columns are added twice like overlapping commands do
+         contact = (contact + 1 + random.nextInt(numberOfContacts - 1)) % numberOfContacts;
+         QPInput copTask = nextSparseInput(random, 2, rhoSize, contactColumns(contact), false);
+         copTask.addNonZeroColumns(contact * rhosPerContact, rhosPerContact);
+         addRhoInput(copTask, compactSolver, searchingSolver, expectedH, expectedF);
+
+         // Wrench equilibrium, the rhos of an unused contact are zero
+         DenseMatrix64F centroidalMomentumMatrix = RandomMatrices.createRandom(Wrench.SIZE, numberOfDoFs, -1.0, 1.0, random);
+         DenseMatrix64F rhoJacobian = RandomMatrices.createRandom(Wrench.SIZE, rhoSize, -1.0, 1.0, random);
+         int unusedContact = random.nextInt(numberOfContacts);
+         for (int row = 0; row < Wrench.SIZE; row++)
+         {
+            for (int column = unusedContact * rhosPerContact; column < (unusedContact + 1) * rhosPerContact; column++)
+               rhoJacobian.set(row, column, 0.0);
+         }
+         DenseMatrix64F convectiveTerm = RandomMatrices.createRandom(Wrench.SIZE, 1, -1.0, 1.0, random);
+         DenseMatrix64F additionalExternalWrench = RandomMatrices.createRandom(Wrench.SIZE, 1, -1.0, 1.0, random);
+         DenseMatrix64F gravityWrench = RandomMatrices.createRandom(Wrench.SIZE, 1, -1.0, 1.0, random);
+
+         compactSolver.setupWrenchesEquilibriumConstraint(centroidalMomentumMatrix, rhoJacobian, convectiveTerm, additionalExternalWrench, gravityWrench);
+         searchingSolver.setupWrenchesEquilibriumConstraint(centroidalMomentumMatrix, rhoJacobian, convectiveTerm, additionalExternalWrench, gravityWrench);
+
+         DenseMatrix64F wrenchJacobian = new DenseMatrix64F(Wrench.SIZE, problemSize);
+         CommonOps.insert(centroidalMomentumMatrix, wrenchJacobian, 0, 0);
+         CommonOps.scale(-1.0, wrenchJacobian);
+         CommonOps.insert(rhoJacobian, wrenchJacobian, 0, numberOfDoFs);
+         DenseMatrix64F wrenchObjective = new DenseMatrix64F(convectiveTerm);
+         CommonOps.subtractEquals(wrenchObjective, additionalExternalWrench);
+         CommonOps.subtractEquals(wrenchObjective, gravityWrench);
+         DenseMatrix64F wrenchWeight = CommonOps.identity(Wrench.SIZE);
+         CommonOps.scale(wrenchEquilibriumWeight, wrenchWeight);
+         addExpectedTask(wrenchJacobian, wrenchObjective, wrenchWeight, expectedH, expectedF);
+
+         JUnitTools.assertMatrixEquals(expectedH, compactSolver.getCostFunctionHessian(), EPSILON);
+         JUnitTools.assertMatrixEquals(expectedF, compactSolver.getCostFunctionGradient(), EPSILON);
+         JUnitTools.assertMatrixEquals(expectedH, searchingSolver.getCostFunctionHessian(), EPSILON);
+         JUnitTools.assertMatrixEquals(expectedF, searchingSolver.getCostFunctionGradient(), EPSILON);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testNonZeroColumns()
+   {
+      QPInput input = new QPInput(10);
+      assertFalse(input.hasNonZeroColumns());
+
+      input.clearNonZeroColumns();
+      input.addNonZeroColumn(7);
+      input.addNonZeroColumn(1);
+      input.addNonZeroColumn(7);
+      input.addNonZeroColumns(0, 3);
+      assertTrue(input.hasNonZeroColumns());
+      assertArrayEquals(new int[] {7, 1, 0, 2}, input.getNonZeroColumns().toArray());
+
+      input.clearNonZeroColumns();
+      assertTrue(input.getNonZeroColumns().isEmpty());
+      input.addNonZeroColumn(1);
+      assertArrayEquals(new int[] {1}, input.getNonZeroColumns().toArray());
+
+      input.reshape(3);
+      assertFalse(input.hasNonZeroColumns());
+   }
+
+   private static InverseDynamicsQPSolver createSolver()
+   {
+      InverseDynamicsQPSolver solver = new InverseDynamicsQPSolver(new SimpleEfficientActiveSetQPSolverWithInactiveVariables(), numberOfDoFs, rhoSize, true,
+                                                                   0.001, new YoVariableRegistry("test"));
+      solver.reset();
+      return solver;
+   }
+
+   private static void addMotionInput(QPInput sparseInput, InverseDynamicsQPSolver compactSolver, InverseDynamicsQPSolver searchingSolver,
+                                      DenseMatrix64F expectedH, DenseMatrix64F expectedF)
+   {
+      compactSolver.addMotionInput(sparseInput);
+      searchingSolver.addMotionInput(copyWithoutNonZeroColumns(sparseInput, numberOfDoFs));
+      addExpectedTask(sparseInput, 0, expectedH, expectedF);
+   }
+
+   private static void addRhoInput(QPInput sparseInput, InverseDynamicsQPSolver compactSolver, InverseDynamicsQPSolver searchingSolver,
+                                   DenseMatrix64F expectedH, DenseMatrix64F expectedF)
+   {
+      compactSolver.addRhoInput(sparseInput);
+      searchingSolver.addRhoInput(copyWithoutNonZeroColumns(sparseInput, rhoSize));
+      addExpectedTask(sparseInput, numberOfDoFs, expectedH, expectedF);
+   }
+
+   private static void addExpectedTask(QPInput input, int offset, DenseMatrix64F expectedH, DenseMatrix64F expectedF)
+   {
+      DenseMatrix64F taskJacobian = new DenseMatrix64F(input.getTaskJacobian().getNumRows(), problemSize);
+      CommonOps.insert(input.getTaskJacobian(), taskJacobian, 0, offset);
+
+      DenseMatrix64F taskWeight;
+      if (input.useWeightScalar())
+      {
+         taskWeight = CommonOps.identity(taskJacobian.getNumRows());
+         CommonOps.scale(input.getWeightScalar(), taskWeight);
+      }
+      else
+      {
+         taskWeight = input.getTaskWeightMatrix();
+      }
+
+      addExpectedTask(taskJacobian, input.getTaskObjective(), taskWeight, expectedH, expectedF);
+   }
+
+   /**
+    * H += J<sup>T</sup> W J and f += -J<sup>T</sup> W b computed with the dense Jacobian of the whole problem.
+    */
+   private static void addExpectedTask(DenseMatrix64F taskJacobian, DenseMatrix64F taskObjective, DenseMatrix64F taskWeight, DenseMatrix64F expectedH,
+                                       DenseMatrix64F expectedF)
+   {
+      DenseMatrix64F jacobianTransposeWeight = new DenseMatrix64F(problemSize, taskJacobian.getNumRows());
+      CommonOps.multTransA(taskJacobian, taskWeight, jacobianTransposeWeight);
+      CommonOps.multAdd(jacobianTransposeWeight, taskJacobian, expectedH);
+      CommonOps.multAdd(-1.0, jacobianTransposeWeight, taskObjective, expectedF);
+   }
+
+   /**
+    * Creates a task whose Jacobian is zero except for the given columns, which are declared as the
+    * non-zero columns of the task.
+    */
+   private static QPInput nextSparseInput(Random random, int taskSize, int numberOfVariables, TIntArrayList nonZeroColumns, boolean useWeightScalar)
+   {
+      QPInput input = new QPInput(numberOfVariables);
+      input.reshape(taskSize);
+      input.setConstraintType(ConstraintType.OBJECTIVE);
+
+      input.clearNonZeroColumns();
+      input.taskJacobian.zero();
+      for (int i = 0; i < nonZeroColumns.size(); i++)
+      {
+         int column = nonZeroColumns.get(i);
+         input.addNonZeroColumn(column);
+         for (int row = 0; row < taskSize; row++)
+            input.taskJacobian.set(row, column, 2.0 * random.nextDouble() - 1.0);
+      }
+
+      RandomMatrices.setRandom(input.taskObjective, -1.0, 1.0, random);
+
+      input.setUseWeightScalar(useWeightScalar);
+      if (useWeightScalar)
+      {
+         input.setWeight(10.0 * random.nextDouble());
+      }
+      else
+      {
+         input.taskWeightMatrix.zero();
+         for (int i = 0; i < taskSize; i++)
+            input.taskWeightMatrix.set(i, i, 10.0 * random.nextDouble());
+      }
+
+      return input;
+   }
+
+   private static QPInput copyWithoutNonZeroColumns(QPInput input, int numberOfVariables)
+   {
+      QPInput copy = new QPInput(numberOfVariables);
+      copy.reshape(input.getTaskJacobian().getNumRows());
+      copy.setConstraintType(input.getConstraintType());
+      copy.setTaskJacobian(input.getTaskJacobian());
+      copy.setTaskObjective(input.getTaskObjective());
+      copy.setTaskWeightMatrix(input.getTaskWeightMatrix());
+      copy.setUseWeightScalar(input.useWeightScalar());
+      copy.setWeight(input.getWeightScalar());
+      return copy;
+   }
+
+   /**
+    * Picks distinct columns in random order.
+    */
+   private static TIntArrayList nextColumns(Random random, int numberOfVariables, int numberOfColumns)
+   {
+      TIntArrayList columns = new TIntArrayList(numberOfVariables);
+      for (int column = 0; column < numberOfVariables; column++)
+         columns.add(column);
+      columns.shuffle(random);
+      columns.remove(numberOfColumns, numberOfVariables - numberOfColumns);
+      return columns;
+   }
+
+   private static TIntArrayList contactColumns(int contact)
+   {
+      TIntArrayList columns = new TIntArrayList(rhosPerContact);
+      for (int i = 0; i < rhosPerContact; i++)
+         columns.add(contact * rhosPerContact + i);
+      return columns;
+   }
+}
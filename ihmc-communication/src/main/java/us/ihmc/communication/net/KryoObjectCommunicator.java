@@ -4,8 +4,6 @@ import java.awt.Container;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JFrame;
@@ -19,12 +17,13 @@ import com.esotericsoftware.kryonet.FrameworkMessage.KeepAlive;
 import com.esotericsoftware.kryonet.Listener;
 
 import us.ihmc.commons.FormattingTools;
-import us.ihmc.commons.thread.ThreadTools;
 
 public abstract class KryoObjectCommunicator implements NetworkedObjectCommunicator
 {
+   private static final int NUMBER_OF_DISPATCH_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
    private final AtomicBoolean throwExceptionForUnregisteredPackets = new AtomicBoolean(true);
-   private final LinkedHashMap<Class<?>, ExecutorService> listenerExecutors = new LinkedHashMap<Class<?>, ExecutorService>();
+   private final KryoObjectDispatcher dispatcher = new KryoObjectDispatcher("Kryo", NUMBER_OF_DISPATCH_THREADS, this::notifyListeners);
    private final LinkedHashMap<Class<?>, ArrayList<ObjectConsumer<?>>> listeners = new LinkedHashMap<Class<?>, ArrayList<ObjectConsumer<?>>>();
 
    private final ArrayList<TcpNetStateListener> tcpStateListeners = new ArrayList<TcpNetStateListener>();
@@ -78,7 +77,7 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
 	   for(Class<?> clazz : classList.getPacketClassList())
 	   {
 		   listeners.put(clazz, new ArrayList<ObjectConsumer<?>>());
-		   listenerExecutors.put(clazz, Executors.newFixedThreadPool(1, ThreadTools.getNamedThreadFactory("Kryo" + clazz.getSimpleName() + "Listener")));
+		   dispatcher.registerClass(clazz);
 	   }
    }
    
@@ -120,6 +119,25 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       }
    }
    
+   /**
+    * By default, the objects received are consumed by a pool of worker threads. This allows the
+    * objects of the given class to be consumed directly by the thread receiving them, saving the hop
+    * to a worker. The listeners of this class should then return quickly.
+    */
+   public void setInlineDispatch(Class<?> clazz, boolean inline)
+   {
+      dispatcher.setInlineDispatch(clazz, inline);
+   }
+
+   /**
+    * @return the dispatcher of the objects received, which reports the queue depth and dispatch
+    *         latency of each class.
+    */
+   public KryoObjectDispatcher getDispatcher()
+   {
+      return dispatcher;
+   }
+
    @Override
    public void attachGlobalListener(GlobalObjectConsumer listener)
    {
@@ -184,41 +202,11 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       Listener listener = new Listener()
       {
          @Override
-         @SuppressWarnings("unchecked")
          public void received(Connection connection, final Object object)
          {
-            final Class<? extends Object> classType = object.getClass();
-            ExecutorService executorService = listenerExecutors.get(classType);
-            if(executorService != null)
+            if (!dispatcher.dispatch(object) && !(object instanceof KeepAlive))
             {
-               executorService.execute(new Runnable()
-               {
-                  
-                  @Override
-                  public void run()
-                  {
-                     for(int i = 0; i < globalListeners.size(); i++)
-                     {
-                        globalListeners.get(i).consumeObject(object);
-                     }
-                     
-                     ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(classType);
-                     if (objectListeners != null)
-                     {
-                        for (int i = 0; i < objectListeners.size(); i++)
-                        {
-                           @SuppressWarnings("rawtypes")
-                           ObjectConsumer listener = objectListeners.get(i);
-                           listener.consumeObject(object);
-                        }
-                     }
-                  }
-               });
-            }
-            
-            else if (!(object instanceof KeepAlive))
-            {
-               System.err.println("Received unkown object of class " + classType);
+               System.err.println("Received unkown object of class " + object.getClass());
             }
          }
          
@@ -265,12 +253,28 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    public final void disconnect()
    {
       closeConnection();
-      for(ExecutorService executor : listenerExecutors.values())
+      dispatcher.shutdown();
+   }
+   
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private void notifyListeners(Object object)
+   {
+      for(int i = 0; i < globalListeners.size(); i++)
       {
-         executor.shutdownNow();
+         globalListeners.get(i).consumeObject(object);
+      }
+
+      ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(object.getClass());
+      if (objectListeners != null)
+      {
+         for (int i = 0; i < objectListeners.size(); i++)
+         {
+            ObjectConsumer listener = objectListeners.get(i);
+            listener.consumeObject(object);
+         }
       }
    }
-   
+
    protected abstract void openConnection() throws IOException;
    
    protected abstract int sendUDP(Object object);
@@ -0,0 +1,314 @@
+package us.ihmc.communication.net;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.commons.thread.ThreadTools;
+
+/**
+ * Dispatches the received objects to their consumers using a bounded number of worker threads.
+ * <p>
+ * Each registered class has its own lock-free queue. A class is processed by at most one worker at a
+ * time such that the objects of a class are consumed in the order they were received, while
+ * objects of different classes are consumed concurrently. A worker processes at most
+ * {@link #MAX_BATCH_SIZE} objects of a class before giving the other classes a chance.
+ * </p>
+ * <p>
+ * A class can be dispatched inline, in which case its objects are consumed directly by the thread
+ * that received them. This skips the hop to a worker for latency-critical consumers, which then have
+ * to return quickly to not delay the reception of the other objects.
+ * </p>
+ * <p>
+ * The queue and the pending count of a class are only ever consumed by the thread owning the class,
+ * which is the worker running it or the thread that scheduled it. {@link #shutdown()} does not clear
+ * them, it starts a new generation instead and the owner discards the objects of the previous
+ * generations.
+ * </p>
+ */
+public class KryoObjectDispatcher
+{
+   private static final int MAX_BATCH_SIZE = 64;
+
+   private final String name;
+   private final int numberOfWorkers;
+   private final Consumer<Object> objectConsumer;
+   private final Map<Class<?>, ClassDispatcher> classDispatchers = new ConcurrentHashMap<>();
+
+   private ExecutorService workers = null;
+   /** Incremented on shutdown, the objects dispatched in a previous generation are discarded. */
+   private volatile int generation = 0;
+
+   /**
+    * @param name used to name the worker threads.
+    * @param numberOfWorkers the maximum number of threads consuming the objects concurrently.
+    * @param objectConsumer called with every object dispatched.
+    */
+   public KryoObjectDispatcher(String name, int numberOfWorkers, Consumer<Object> objectConsumer)
+   {
+      this.name = name;
+      this.numberOfWorkers = numberOfWorkers;
+      this.objectConsumer = objectConsumer;
+   }
+
+   public void registerClass(Class<?> clazz)
+   {
+      classDispatchers.putIfAbsent(clazz, new ClassDispatcher(clazz));
+   }
+
+   public boolean isRegistered(Class<?> clazz)
+   {
+      return classDispatchers.containsKey(clazz);
+   }
+
+   /**
+    * @param inline whether the objects of this class should be consumed directly by the thread that
+    *           received them instead of a worker.
+    */
+   public void setInlineDispatch(Class<?> clazz, boolean inline)
+   {
+      getClassDispatcher(clazz).inline = inline;
+   }
+
+   /**
+    * Queues the object to be consumed, or consumes it right away if its class is dispatched inline.
+    *
+    * @return {@code false} if the class of the object is not registered, {@code true} otherwise.
+    */
+   public boolean dispatch(Object object)
+   {
+      ClassDispatcher classDispatcher = classDispatchers.get(object.getClass());
+
+      if (classDispatcher == null)
+         return false;
+
+      classDispatcher.submit(object);
+      return true;
+   }
+
+   /**
+    * Stops the workers and drops the objects that have not been consumed yet. The workers are
+    * restarted when objects are dispatched again.
+    */
+   public synchronized void shutdown()
+   {
+      generation++;
+
+      if (workers != null)
+      {
+         List<Runnable> classesNotStarted = workers.shutdownNow();
+         workers = null;
+
+         // Nobody else will run these classes, this thread owns them now.
+         for (Runnable classNotStarted : classesNotStarted)
+            ((ClassDispatcher) classNotStarted).discardPreviousGenerations();
+      }
+   }
+
+   /**
+    * @return the number of objects of the given class waiting to be consumed, or to be discarded after
+    *         a shutdown.
+    */
+   public int getQueueDepth(Class<?> clazz)
+   {
+      return getClassDispatcher(clazz).pendingObjects.get();
+   }
+
+   /**
+    * @return the largest number of objects of the given class that were waiting to be consumed since
+    *         the last reset.
+    */
+   public int getMaxQueueDepth(Class<?> clazz)
+   {
+      return getClassDispatcher(clazz).maxQueueDepth.get();
+   }
+
+   public long getNumberOfDispatchedObjects(Class<?> clazz)
+   {
+      return getClassDispatcher(clazz).numberOfDispatchedObjects.get();
+   }
+
+   /**
+    * @return the average time in seconds from the reception of an object of the given class until its
+    *         consumers have returned, since the last reset.
+    */
+   public double getAverageDispatchLatency(Class<?> clazz)
+   {
+      ClassDispatcher classDispatcher = getClassDispatcher(clazz);
+      long numberOfDispatchedObjects = classDispatcher.numberOfDispatchedObjects.get();
+      if (numberOfDispatchedObjects == 0)
+         return Double.NaN;
+      return Conversions.nanosecondsToSeconds(classDispatcher.totalLatency.get()) / numberOfDispatchedObjects;
+   }
+
+   /**
+    * @return the longest time in seconds from the reception of an object of the given class until its
+    *         consumers have returned, since the last reset.
+    */
+   public double getMaxDispatchLatency(Class<?> clazz)
+   {
+      return Conversions.nanosecondsToSeconds(getClassDispatcher(clazz).maxLatency.get());
+   }
+
+   public void resetStatistics()
+   {
+      for (ClassDispatcher classDispatcher : classDispatchers.values())
+         classDispatcher.resetStatistics();
+   }
+
+   private ClassDispatcher getClassDispatcher(Class<?> clazz)
+   {
+      ClassDispatcher classDispatcher = classDispatchers.get(clazz);
+      if (classDispatcher == null)
+         throw new RuntimeException("Class " + clazz.getSimpleName() + " is not registered with " + getClass().getSimpleName());
+      return classDispatcher;
+   }
+
+   /**
+    * Synchronized with {@link #shutdown()} such that the workers cannot be shut down between getting
+    * them and executing the class.
+    */
+   private synchronized void schedule(ClassDispatcher classDispatcher)
+   {
+      if (workers == null)
+         workers = Executors.newFixedThreadPool(numberOfWorkers, ThreadTools.getNamedThreadFactory(name + "Dispatcher"));
+      workers.execute(classDispatcher);
+   }
+
+   private class ClassDispatcher implements Runnable
+   {
+      private final Class<?> clazz;
+      private volatile boolean inline = false;
+
+      private final ConcurrentLinkedQueue<QueuedObject> queue = new ConcurrentLinkedQueue<>();
+      /**
+       * The number of objects queued, the class is scheduled on a worker whenever this is not zero
+       * such that only one worker processes this class at a time. Only the owner of the class polls
+       * the queue and decrements this count.
+       */
+      private final AtomicInteger pendingObjects = new AtomicInteger(0);
+
+      private final AtomicInteger maxQueueDepth = new AtomicInteger(0);
+      private final AtomicLong numberOfDispatchedObjects = new AtomicLong(0);
+      private final AtomicLong totalLatency = new AtomicLong(0);
+      private final AtomicLong maxLatency = new AtomicLong(0);
+
+      public ClassDispatcher(Class<?> clazz)
+      {
+         this.clazz = clazz;
+      }
+
+      public void submit(Object object)
+      {
+         if (inline)
+         {
+            consume(object, System.nanoTime());
+            return;
+         }
+
+         queue.offer(new QueuedObject(object, System.nanoTime(), generation));
+         int queueDepth = pendingObjects.incrementAndGet();
+         maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+
+         if (queueDepth == 1)
+            schedule(this);
+      }
+
+      @Override
+      public void run()
+      {
+         int runGeneration = generation;
+         int numberOfConsumedObjects = 0;
+
+         while (numberOfConsumedObjects < MAX_BATCH_SIZE)
+         {
+            // Not null, the pending count is incremented after the object is queued.
+            QueuedObject queuedObject = queue.peek();
+            int currentGeneration = generation;
+
+            if (queuedObject.generation == currentGeneration)
+            {
+               // Shut down since this run started, the new workers take over.
+               if (runGeneration != currentGeneration)
+                  break;
+
+               try
+               {
+                  consume(queuedObject.object, queuedObject.receptionTime);
+               }
+               catch (RuntimeException e)
+               {
+                  System.err.println("Exception while consuming object of class " + clazz.getSimpleName() + ":");
+                  e.printStackTrace();
+               }
+
+               numberOfConsumedObjects++;
+            }
+
+            queue.poll();
+
+            if (pendingObjects.decrementAndGet() == 0)
+               return;
+         }
+
+         // Other objects are still pending, going to the back of the line.
+         schedule(this);
+      }
+
+      /**
+       * Called by the owner of this class instead of {@link #run()} when the workers were shut down
+       * before running it. The objects dispatched since are left to the new workers.
+       */
+      private void discardPreviousGenerations()
+      {
+         while (queue.peek().generation != generation)
+         {
+            queue.poll();
+
+            if (pendingObjects.decrementAndGet() == 0)
+               return;
+         }
+
+         schedule(this);
+      }
+
+      private void consume(Object object, long receptionTime)
+      {
+         objectConsumer.accept(object);
+
+         long latency = System.nanoTime() - receptionTime;
+         numberOfDispatchedObjects.incrementAndGet();
+         totalLatency.addAndGet(latency);
+         maxLatency.accumulateAndGet(latency, Math::max);
+      }
+
+      public void resetStatistics()
+      {
+         maxQueueDepth.set(0);
+         numberOfDispatchedObjects.set(0);
+         totalLatency.set(0);
+         maxLatency.set(0);
+      }
+   }
+
+   private static class QueuedObject
+   {
+      private final Object object;
+      private final long receptionTime;
+      private final int generation;
+
+      public QueuedObject(Object object, long receptionTime, int generation)
+      {
+         this.object = object;
+         this.receptionTime = receptionTime;
+         this.generation = generation;
+      }
+   }
+}
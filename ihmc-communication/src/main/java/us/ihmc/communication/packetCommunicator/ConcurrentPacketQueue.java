@@ -1,23 +1,48 @@
 package us.ihmc.communication.packetCommunicator;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import us.ihmc.commons.PrintTools;
 import us.ihmc.communication.net.PacketConsumer;
 import us.ihmc.communication.packets.Packet;
 
 /**
- * 
+ *
  * Make sure you need this. Do you want to keep all packets? Or do you just need the latest.
- * 
+ *
  * Remeber, this interface generates garbage
- * 
+ *
+ * The queue is unbounded by default. When created with a capacity, the packets received while it
+ * is full are dropped, with at most one warning per second. The packets are not copied, the
+ * consumer gets the instances that were put in the queue.
+ *
  */
 public class ConcurrentPacketQueue<T extends Packet> implements PacketConsumer<T>
 {
+   private static final long DROP_WARNING_PERIOD_NANOS = 1000000000L;
+
    private final ConcurrentLinkedQueue<T> packetQueue = new ConcurrentLinkedQueue<T>();
+   private final int capacity;
+   private final AtomicInteger size = new AtomicInteger(0);
+   private final AtomicInteger numberOfDroppedPackets = new AtomicInteger(0);
+   private final AtomicLong lastDropWarningTime = new AtomicLong(System.nanoTime() - DROP_WARNING_PERIOD_NANOS);
 
    public ConcurrentPacketQueue()
    {
+      this(Integer.MAX_VALUE);
+   }
+
+   /**
+    * @param capacity the maximum number of packets in the queue, the packets received while it is
+    *           full are dropped.
+    */
+   public ConcurrentPacketQueue(int capacity)
+   {
+      if (capacity < 1)
+         throw new IllegalArgumentException("The capacity must be positive, was: " + capacity);
+      this.capacity = capacity;
    }
 
    public boolean isNewPacketAvailable()
@@ -27,27 +52,58 @@ public class ConcurrentPacketQueue<T extends Packet> implements PacketConsumer<T
 
    public T getPacket()
    {
-      return packetQueue.poll();
+      T packet = packetQueue.poll();
+      if (packet != null)
+         size.decrementAndGet();
+      return packet;
    }
-   
+
    public void put(T object)
    {
+      // Reserve the room first such that concurrent producers cannot exceed the capacity
+      if (size.incrementAndGet() > capacity)
+      {
+         size.decrementAndGet();
+         packetDropped(object);
+         return;
+      }
+
       packetQueue.add(object);
    }
 
+   private void packetDropped(T object)
+   {
+      int numberOfDroppedPacketsSinceWarning = numberOfDroppedPackets.incrementAndGet();
+      long now = System.nanoTime();
+      long lastWarningTime = lastDropWarningTime.get();
+
+      if (now - lastWarningTime >= DROP_WARNING_PERIOD_NANOS && lastDropWarningTime.compareAndSet(lastWarningTime, now))
+      {
+         numberOfDroppedPackets.addAndGet(-numberOfDroppedPacketsSinceWarning);
+         PrintTools.warn(this, "The queue is full, dropped " + numberOfDroppedPacketsSinceWarning + " packet(s), last: " + object.getClass().getSimpleName());
+      }
+   }
+
    public void clear()
    {
-      packetQueue.clear();
+      while (getPacket() != null)
+      {
+      }
    }
 
    @Override
    public void receivedPacket(T packet)
    {
-      packetQueue.add(packet);
+      put(packet);
    }
-   
+
    public int size()
    {
-      return packetQueue.size();
+      return size.get();
+   }
+
+   public int getCapacity()
+   {
+      return capacity;
    }
 }
@@ -0,0 +1,124 @@
+package us.ihmc.communication.net;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class KryoObjectDispatcherTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testOrderPerClass() throws InterruptedException
+   {
+      int objectsToSend = 10000;
+      List<Integer> receivedIntegers = new CopyOnWriteArrayList<>();
+      List<Long> receivedLongs = new CopyOnWriteArrayList<>();
+
+      KryoObjectDispatcher dispatcher = new KryoObjectDispatcher("Test", 4, object ->
+      {
+         if (object instanceof Integer)
+            receivedIntegers.add((Integer) object);
+         else
+            receivedLongs.add((Long) object);
+      });
+      dispatcher.registerClass(Integer.class);
+      dispatcher.registerClass(Long.class);
+
+      assertFalse(dispatcher.dispatch("unregistered"));
+
+      for (int i = 0; i < objectsToSend; i++)
+      {
+         assertTrue(dispatcher.dispatch(i));
+         assertTrue(dispatcher.dispatch((long) i));
+      }
+
+      // The statistics are updated after the consumer returns, the pending count after the statistics.
+      waitUntilConsumed(dispatcher, Integer.class);
+      waitUntilConsumed(dispatcher, Long.class);
+
+      for (int i = 0; i < objectsToSend; i++)
+      {
+         assertEquals(i, receivedIntegers.get(i).intValue());
+         assertEquals(i, receivedLongs.get(i).longValue());
+      }
+
+      assertEquals(objectsToSend, dispatcher.getNumberOfDispatchedObjects(Integer.class));
+      assertEquals(0, dispatcher.getQueueDepth(Integer.class));
+      assertTrue(dispatcher.getMaxQueueDepth(Integer.class) >= 1);
+      assertTrue(dispatcher.getAverageDispatchLatency(Integer.class) <= dispatcher.getMaxDispatchLatency(Integer.class));
+
+      dispatcher.shutdown();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testDispatchAfterShutdown() throws InterruptedException
+   {
+      int numberOfShutdowns = 20;
+      int objectsToSend = 2000;
+      List<Integer> receivedIntegers = new CopyOnWriteArrayList<>();
+
+      KryoObjectDispatcher dispatcher = new KryoObjectDispatcher("Test", 2, object ->
+      {
+         receivedIntegers.add((Integer) object);
+         if ((Integer) object % 100 == 0)
+            Thread.yield();
+      });
+      dispatcher.registerClass(Integer.class);
+
+      for (int i = 0; i < numberOfShutdowns; i++)
+      {
+         // Shut down while the worker is consuming, some objects are dropped
+         for (int j = 0; j < objectsToSend; j++)
+            dispatcher.dispatch(j);
+         dispatcher.shutdown();
+
+         waitUntilConsumed(dispatcher, Integer.class);
+         receivedIntegers.clear();
+
+         // The objects dispatched after the shutdown are all consumed, in order
+         for (int j = 0; j < objectsToSend; j++)
+            dispatcher.dispatch(j);
+
+         waitUntilConsumed(dispatcher, Integer.class);
+         assertEquals(objectsToSend, receivedIntegers.size());
+         for (int j = 0; j < objectsToSend; j++)
+            assertEquals(j, receivedIntegers.get(j).intValue());
+         receivedIntegers.clear();
+      }
+
+      dispatcher.shutdown();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testInlineDispatch()
+   {
+      Thread callingThread = Thread.currentThread();
+      List<Thread> consumingThreads = new CopyOnWriteArrayList<>();
+
+      KryoObjectDispatcher dispatcher = new KryoObjectDispatcher("Test", 1, object -> consumingThreads.add(Thread.currentThread()));
+      dispatcher.registerClass(Integer.class);
+      dispatcher.setInlineDispatch(Integer.class, true);
+
+      for (int i = 0; i < 10; i++)
+         assertTrue(dispatcher.dispatch(i));
+
+      assertEquals(10, consumingThreads.size());
+      for (Thread consumingThread : consumingThreads)
+         assertTrue(consumingThread == callingThread);
+
+      dispatcher.shutdown();
+   }
+
+   private static void waitUntilConsumed(KryoObjectDispatcher dispatcher, Class<?> clazz) throws InterruptedException
+   {
+      while (dispatcher.getQueueDepth(clazz) != 0)
+         Thread.sleep(1);
+   }
+}
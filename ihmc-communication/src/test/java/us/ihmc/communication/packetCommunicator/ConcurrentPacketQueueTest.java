@@ -0,0 +1,101 @@
+package us.ihmc.communication.packetCommunicator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import us.ihmc.communication.packets.Packet;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class ConcurrentPacketQueueTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testFirstInFirstOut()
+   {
+      ConcurrentPacketQueue<TestPacket> queue = new ConcurrentPacketQueue<>();
+      assertFalse(queue.isNewPacketAvailable());
+      assertNull(queue.getPacket());
+
+      // The queue is unbounded by default
+      TestPacket[] packets = new TestPacket[5000];
+      for (int i = 0; i < packets.length; i++)
+      {
+         packets[i] = new TestPacket(i);
+         queue.put(packets[i]);
+      }
+      assertEquals(packets.length, queue.size());
+
+      for (int i = 0; i < packets.length; i++)
+      {
+         assertTrue(queue.isNewPacketAvailable());
+         // The packets are not copied
+         assertTrue(packets[i] == queue.getPacket());
+      }
+      assertFalse(queue.isNewPacketAvailable());
+      assertNull(queue.getPacket());
+      assertEquals(0, queue.size());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testDropsPacketsWhenFull()
+   {
+      int capacity = 64;
+      ConcurrentPacketQueue<TestPacket> queue = new ConcurrentPacketQueue<>(capacity);
+      assertEquals(capacity, queue.getCapacity());
+
+      for (int i = 0; i < capacity + 10; i++)
+         queue.put(new TestPacket(i));
+      assertEquals(capacity, queue.size());
+
+      // The oldest packets are kept, the newest are dropped
+      for (int i = 0; i < capacity / 2; i++)
+         assertEquals(i, queue.getPacket().value);
+
+      // Room was made for new packets
+      for (int i = 0; i < capacity; i++)
+         queue.put(new TestPacket(capacity + 10 + i));
+      assertEquals(capacity, queue.size());
+
+      for (int i = capacity / 2; i < capacity; i++)
+         assertEquals(i, queue.getPacket().value);
+      for (int i = 0; i < capacity / 2; i++)
+         assertEquals(capacity + 10 + i, queue.getPacket().value);
+      assertNull(queue.getPacket());
+
+      queue.put(new TestPacket(0));
+      queue.clear();
+      assertEquals(0, queue.size());
+      assertNull(queue.getPacket());
+   }
+
+   private static class TestPacket extends Packet<TestPacket>
+   {
+      public int value;
+
+      public TestPacket()
+      {
+      }
+
+      public TestPacket(int value)
+      {
+         this.value = value;
+      }
+
+      @Override
+      public boolean epsilonEquals(TestPacket other, double epsilon)
+      {
+         return other.value == value;
+      }
+
+      @Override
+      public void set(TestPacket other)
+      {
+         value = other.value;
+      }
+   }
+}
@@ -1,5 +1,6 @@
 package us.ihmc.convexOptimization.quadraticProgram;
 
+import org.ejml.alg.dense.linsol.LinearSolverSafe;
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.factory.LinearSolverFactory;
 import org.ejml.interfaces.linsol.LinearSolver;
@@ -21,6 +22,10 @@ import us.ihmc.robotics.linearAlgebra.MatrixTools;
  * "An efficiently solvable quadratic program for stabilizing dynamic locomotion"
  * by Scott Kuindersma, Frank Permenter, and Russ Tedrake.
  *
+ * The inverse of the quadratic cost matrix is computed once per solve, using a Cholesky decomposition,
+ * and shared by all the iterations over the active set. The active variable bounds are handled by
+ * extracting rows and columns of the inverse instead of multiplying by the bound constraint matrix.
+ *
  * @author JerryPratt
  *
  */
@@ -90,6 +95,7 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
    protected final DenseMatrix64F computedObjectiveFunctionValue = new DenseMatrix64F(1, 1);
 
    private final LinearSolver<DenseMatrix64F> solver = LinearSolverFactory.linear(0);
+   private final LinearSolver<DenseMatrix64F> choleskySolver = new LinearSolverSafe<>(LinearSolverFactory.symmPosDef(0));
 
    private final DenseMatrix64F lowerBoundViolations = new DenseMatrix64F(0, 0);
    private final DenseMatrix64F upperBoundViolations = new DenseMatrix64F(0, 0);
@@ -430,8 +436,16 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
 
       QInverse.reshape(numberOfVariables, numberOfVariables);
 
-      solver.setA(quadraticCostQMatrix);
-      solver.invert(QInverse);
+      // Q is symmetric and positive definite for all well posed problems, fall back to LU otherwise.
+      if (choleskySolver.setA(quadraticCostQMatrix))
+      {
+         choleskySolver.invert(QInverse);
+      }
+      else
+      {
+         solver.setA(quadraticCostQMatrix);
+         solver.invert(QInverse);
+      }
 
       AQInverse.reshape(numberOfEqualityConstraints, numberOfVariables);
       QInverseATranspose.reshape(numberOfVariables, numberOfEqualityConstraints);
@@ -474,32 +488,56 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
       }
    }
 
+   /**
+    * CHat has a single non-zero element per row, -1.0 for lower bounds and 1.0 for upper bounds, so
+    * all the products with CHat are signed rows or columns of the other matrices.
+    */
    private void computeCHatTempMatrices()
    {
-      if (CHat.getNumRows() > 0)
+      int numberOfActiveBounds = CHat.getNumRows();
+
+      if (numberOfActiveBounds > 0)
       {
-         AQInverseCHatTranspose.reshape(AQInverse.getNumRows(), CHat.getNumRows());
-         CommonOps.multTransB(AQInverse, CHat, AQInverseCHatTranspose);
+         int numberOfVariables = QInverse.getNumRows();
+         int numberOfEqualityConstraints = AQInverse.getNumRows();
+         int numberOfActiveInequalityConstraints = CBar.getNumRows();
 
-         CHatQInverseATranspose.reshape(CHat.getNumRows(), QInverseATranspose.getNumCols());
-         CommonOps.mult(CHat, QInverseATranspose, CHatQInverseATranspose);
+         AQInverseCHatTranspose.reshape(numberOfEqualityConstraints, numberOfActiveBounds);
+         CHatQInverseATranspose.reshape(numberOfActiveBounds, numberOfEqualityConstraints);
+         CHatQInverse.reshape(numberOfActiveBounds, numberOfVariables);
+         QInverseCHatTranspose.reshape(numberOfVariables, numberOfActiveBounds);
+         CHatQInverseCHatTranspose.reshape(numberOfActiveBounds, numberOfActiveBounds);
+         CBarQInverseCHatTranspose.reshape(numberOfActiveInequalityConstraints, numberOfActiveBounds);
+         CHatQInverseCBarTranspose.reshape(numberOfActiveBounds, numberOfActiveInequalityConstraints);
 
-         CHatQInverse.reshape(CHat.getNumRows(), QInverse.getNumCols());
-         CommonOps.mult(CHat, QInverse, CHatQInverse);
+         for (int row = 0; row < numberOfActiveBounds; row++)
+         {
+            int variableIndex = getActiveBoundVariableIndex(row);
+            double sign = getActiveBoundSign(row);
 
-         QInverseCHatTranspose.reshape(QInverse.getNumRows(), CHat.getNumRows());
-         CommonOps.multTransB(QInverse, CHat, QInverseCHatTranspose);
+            for (int i = 0; i < numberOfEqualityConstraints; i++)
+            {
+               AQInverseCHatTranspose.unsafe_set(i, row, sign * AQInverse.unsafe_get(i, variableIndex));
+               CHatQInverseATranspose.unsafe_set(row, i, sign * QInverseATranspose.unsafe_get(variableIndex, i));
+            }
 
-         CHatQInverseCHatTranspose.reshape(CHat.getNumRows(), QInverseCHatTranspose.getNumCols());
-         CommonOps.mult(CHat, QInverseCHatTranspose, CHatQInverseCHatTranspose);
+            for (int i = 0; i < numberOfVariables; i++)
+            {
+               CHatQInverse.unsafe_set(row, i, sign * QInverse.unsafe_get(variableIndex, i));
+               QInverseCHatTranspose.unsafe_set(i, row, sign * QInverse.unsafe_get(i, variableIndex));
+            }
 
-         CBarQInverseCHatTranspose.reshape(CBar.getNumRows(), CHat.getNumRows());
-         CHatQInverseCBarTranspose.reshape(CHat.getNumRows(), CBar.getNumRows());
+            for (int col = 0; col < numberOfActiveBounds; col++)
+            {
+               double value = sign * getActiveBoundSign(col) * QInverse.unsafe_get(variableIndex, getActiveBoundVariableIndex(col));
+               CHatQInverseCHatTranspose.unsafe_set(row, col, value);
+            }
 
-         if (CBar.getNumRows() > 0)
-         {
-            CommonOps.mult(CBar, QInverseCHatTranspose, CBarQInverseCHatTranspose);
-            CommonOps.mult(CHat, QInverseCBarTranspose, CHatQInverseCBarTranspose);
+            for (int i = 0; i < numberOfActiveInequalityConstraints; i++)
+            {
+               CBarQInverseCHatTranspose.unsafe_set(i, row, sign * CBarQInverse.unsafe_get(i, variableIndex));
+               CHatQInverseCBarTranspose.unsafe_set(row, i, sign * QInverseCBarTranspose.unsafe_get(variableIndex, i));
+            }
          }
       }
       else
@@ -514,6 +552,23 @@ public class SimpleEfficientActiveSetQPSolver extends AbstractSimpleActiveSetQPS
       }
    }
 
+   /**
+    * @param row the row in CHat, active lower bounds come first and then active upper bounds.
+    */
+   private int getActiveBoundVariableIndex(int row)
+   {
+      int numberOfActiveLowerBounds = activeLowerBoundIndices.size();
+      if (row < numberOfActiveLowerBounds)
+         return activeLowerBoundIndices.get(row);
+      else
+         return activeUpperBoundIndices.get(row - numberOfActiveLowerBounds);
+   }
+
+   private double getActiveBoundSign(int row)
+   {
+      return row < activeLowerBoundIndices.size() ? -1.0 : 1.0;
+   }
+
    private boolean modifyActiveSetAndTryAgain(DenseMatrix64F solutionToPack, DenseMatrix64F lagrangeEqualityConstraintMultipliersToPack,
                                               DenseMatrix64F lagrangeInequalityConstraintMultipliersToPack,
                                               DenseMatrix64F lagrangeLowerBoundConstraintMultipliersToPack,
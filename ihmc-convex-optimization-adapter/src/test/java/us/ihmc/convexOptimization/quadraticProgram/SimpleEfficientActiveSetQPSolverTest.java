@@ -162,4 +162,49 @@ public class SimpleEfficientActiveSetQPSolverTest extends AbstractSimpleActiveSe
 
       assertTrue(numberOfIterationsWithWarmStart < numberOfIterationsWithoutWarmStart);
    }
+
+   /**
+    * Re-solving with a new linear cost or a new cost matrix has to give the same result as a new
+    * solver.
+    */
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testResolvingWithModifiedCostForKiwiDataset20170712()
+   {
+      ActualDatasetFromKiwi20170712 dataset = new ActualDatasetFromKiwi20170712();
+      SimpleActiveSetQPSolverInterface solver = createSolverToTest();
+      DenseMatrix64F solution = new DenseMatrix64F(dataset.getProblemSize(), 1);
+      DenseMatrix64F expectedSolution = new DenseMatrix64F(dataset.getProblemSize(), 1);
+
+      solver.clear();
+      solver.setQuadraticCostFunction(dataset.getCostQuadraticMatrix(), dataset.getCostLinearVector(), 0.0);
+      solver.setVariableBounds(dataset.getVariableLowerBounds(), dataset.getVariableUpperBounds());
+      solver.solve(solution);
+
+      DenseMatrix64F modifiedLinearVector = new DenseMatrix64F(dataset.getCostLinearVector());
+      for (int i = 0; i < modifiedLinearVector.getNumRows(); i++)
+         modifiedLinearVector.add(i, 0, 0.1 * Math.sin(i));
+      DenseMatrix64F modifiedQuadraticMatrix = new DenseMatrix64F(dataset.getCostQuadraticMatrix());
+      for (int i = 0; i < modifiedQuadraticMatrix.getNumRows(); i++)
+         modifiedQuadraticMatrix.add(i, i, 0.01);
+
+      DenseMatrix64F[] quadraticMatrices = {dataset.getCostQuadraticMatrix(), modifiedQuadraticMatrix};
+      for (DenseMatrix64F quadraticMatrix : quadraticMatrices)
+      {
+         solver.clear();
+         solver.setQuadraticCostFunction(quadraticMatrix, modifiedLinearVector, 0.0);
+         solver.setVariableBounds(dataset.getVariableLowerBounds(), dataset.getVariableUpperBounds());
+         solver.solve(solution);
+
+         SimpleActiveSetQPSolverInterface newSolver = createSolverToTest();
+         newSolver.clear();
+         newSolver.setQuadraticCostFunction(quadraticMatrix, modifiedLinearVector, 0.0);
+         newSolver.setVariableBounds(dataset.getVariableLowerBounds(), dataset.getVariableUpperBounds());
+         newSolver.solve(expectedSolution);
+
+         assertFalse(MatrixTools.containsNaN(solution));
+         for (int i = 0; i < dataset.getProblemSize(); i++)
+            assertEquals(expectedSolution.get(i, 0), solution.get(i, 0), 1.0e-10);
+      }
+   }
 }
@@ -3,6 +3,7 @@ package us.ihmc.footstepPlanning.graphSearch.footstepSnapping;
 import java.util.ArrayList;
 import java.util.List;
 
+import gnu.trove.map.hash.TLongObjectHashMap;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
@@ -22,11 +23,10 @@ import us.ihmc.robotics.robotSide.SideDependentList;
 public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
 {
    private final List<BipedalFootstepPlannerListener> listeners = new ArrayList<>();
+   /** Rejections found by {@link #snapInternal(FootstepNode)}, reported to the listeners on the thread that requested the snap. */
+   private final TLongObjectHashMap<BipedalFootstepPlannerNodeRejectionReason> pendingRejections = new TLongObjectHashMap<>();
    private final SideDependentList<ConvexPolygon2D> footPolygonsInSoleFrame;
 
-   private final WiggleParameters wiggleParameters = new WiggleParameters();
-   private final PlanarRegion planarRegionToPack = new PlanarRegion();
-   private final ConvexPolygon2D footPolygon = new ConvexPolygon2D();
 
    public FootstepNodeSnapAndWiggler(SideDependentList<ConvexPolygon2D> footPolygonsInSoleFrame, FootstepPlannerParameters parameters)
    {
@@ -47,6 +47,10 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
          return FootstepNodeSnapData.identityData();
       }
 
+      // Allocated per call, nodes can be snapped concurrently
+      PlanarRegion planarRegionToPack = new PlanarRegion();
+      ConvexPolygon2D footPolygon = new ConvexPolygon2D();
+
       FootstepNodeTools.getFootPolygon(footstepNode, footPolygonsInSoleFrame.get(footstepNode.getRobotSide()), footPolygon);
       List<PlanarRegion> planarRegionsList = getOrCreateSteppableRegions(footstepNode.getRoundedX(), footstepNode.getRoundedY());
       RigidBodyTransform snapTransform = PlanarRegionsListPolygonSnapper.snapPolygonToPlanarRegionsList(footPolygon, planarRegionsList, planarRegionToPack);
@@ -59,7 +63,7 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
       if (footholdPolygonInLocalFrame.isEmpty())
          return FootstepNodeSnapData.emptyData();
 
-      RigidBodyTransform wiggleTransformLocalToLocal = getWiggleTransformInPlanarRegionFrame(footholdPolygonInLocalFrame);
+      RigidBodyTransform wiggleTransformLocalToLocal = getWiggleTransformInPlanarRegionFrame(footholdPolygonInLocalFrame, planarRegionToPack);
 
       if (wiggleTransformLocalToLocal == null)
       {
@@ -75,7 +79,7 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
          }
       }
 
-      RigidBodyTransform wiggleTransformWorldToWorld = getWiggleTransformInWorldFrame(wiggleTransformLocalToLocal);
+      RigidBodyTransform wiggleTransformWorldToWorld = getWiggleTransformInWorldFrame(wiggleTransformLocalToLocal, planarRegionToPack);
       RigidBodyTransform snapAndWiggleTransform = new RigidBodyTransform(wiggleTransformWorldToWorld);
       snapAndWiggleTransform.multiply(snapTransform);
 
@@ -96,9 +100,9 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
       return new FootstepNodeSnapData(snapAndWiggleTransform, wiggledFootholdPolygonInLocalFrame);
    }
 
-   private RigidBodyTransform getWiggleTransformInPlanarRegionFrame(ConvexPolygon2D footholdPolygon)
+   private RigidBodyTransform getWiggleTransformInPlanarRegionFrame(ConvexPolygon2D footholdPolygon, PlanarRegion planarRegionToPack)
    {
-      updateWiggleParameters();
+      WiggleParameters wiggleParameters = createWiggleParameters();
 
       if (parameters.getWiggleIntoConvexHullOfPlanarRegions())
          return PolygonWiggler.wigglePolygonIntoConvexHullOfRegion(footholdPolygon, planarRegionToPack, wiggleParameters);
@@ -106,15 +110,17 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
          return PolygonWiggler.wigglePolygonIntoRegion(footholdPolygon, planarRegionToPack, wiggleParameters);
    }
 
-   private void updateWiggleParameters()
+   private WiggleParameters createWiggleParameters()
    {
+      WiggleParameters wiggleParameters = new WiggleParameters();
       wiggleParameters.deltaInside = parameters.getWiggleInsideDelta();
       wiggleParameters.maxX = parameters.getMaximumXYWiggleDistance();
       wiggleParameters.maxY = parameters.getMaximumXYWiggleDistance();
       wiggleParameters.maxYaw = parameters.getMaximumYawWiggle();
+      return wiggleParameters;
    }
 
-   private RigidBodyTransform getWiggleTransformInWorldFrame(RigidBodyTransform wiggleTransformLocalToLocal)
+   private RigidBodyTransform getWiggleTransformInWorldFrame(RigidBodyTransform wiggleTransformLocalToLocal, PlanarRegion planarRegionToPack)
    {
       RigidBodyTransform wiggleTransformWorldToWorld = new RigidBodyTransform();
       RigidBodyTransform localToWorld = new RigidBodyTransform();
@@ -172,7 +178,25 @@ public class FootstepNodeSnapAndWiggler extends FootstepNodeSnapper
 
    private void rejectNode(FootstepNode nodeToExpand, BipedalFootstepPlannerNodeRejectionReason reason)
    {
+      synchronized (pendingRejections)
+      {
+         pendingRejections.put(nodeToExpand.getLongKey(), reason);
+      }
+   }
+
+   @Override
+   protected void footstepNodeSnapped(FootstepNode footstepNode)
+   {
+      BipedalFootstepPlannerNodeRejectionReason reason;
+      synchronized (pendingRejections)
+      {
+         reason = pendingRejections.remove(footstepNode.getLongKey());
+      }
+
+      if (reason == null)
+         return;
+
       for (BipedalFootstepPlannerListener listener : listeners)
-         listener.rejectNode(nodeToExpand, null, reason);
+         listener.rejectNode(footstepNode, null, reason);
    }
 }
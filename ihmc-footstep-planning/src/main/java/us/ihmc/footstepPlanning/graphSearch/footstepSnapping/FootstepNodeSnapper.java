@@ -1,11 +1,15 @@
 package us.ihmc.footstepPlanning.graphSearch.footstepSnapping;
 
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.tuple2D.Point2D;
 import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
 import us.ihmc.footstepPlanning.filters.BodyCollisionRegionFilter;
@@ -15,19 +19,45 @@ import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParameters
 import us.ihmc.pathPlanning.visibilityGraphs.tools.PlanarRegionTools;
 import us.ihmc.robotics.geometry.PlanarRegion;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
-
+import us.ihmc.robotics.geometry.PlanarRegionsSpatialIndex;
+
+/**
+ * Snaps footstep nodes to planar regions and caches the result per node.
+ *
+ * {@link #snapFootstepNode(FootstepNode)} and the region queries can be called from multiple threads, as long as the planar regions
+ * are not changed at the same time. The caches are guarded by a lock that is not held while snapping, so {@link #snapInternal(FootstepNode)}
+ * must not use shared scratch objects. Sibling nodes often land on the same {@link PlanarRegion} and query it concurrently, which
+ * relies on the region queries not using shared scratch objects, {@link PlanarRegion} intersects polygons with a per-thread
+ * {@code ConvexPolygonTools}. If two threads snap the same node, the first result is kept. Listeners are only notified from
+ * {@link #footstepNodeSnapped(FootstepNode)}, which runs on the thread that requested the snap.
+ *
+ * Nearby regions are looked up in a {@link PlanarRegionsSpatialIndex} that is updated incrementally with every new list, so the cost
+ * of a lookup depends on the number of regions close to the node rather than on the size of the list.
+ *
+ * {@link #updatePlanarRegions(PlanarRegionsList)} can be used instead of {@link #setPlanarRegions(PlanarRegionsList)} when the new list
+ * is an update of the previous one, in which case only the snap data of nodes close to regions that changed is discarded. The snap data
+ * of nodes that a search did not reach is discarded by {@link #evictSnapDataOutsideOfLastSearch()}.
+ */
 public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
 {
    private static final double proximityForPlanarRegionsNearby = 2.0;
+   /** Snap data of nodes further than this from all changed regions is kept on update. Covers the foot polygon and wiggling. */
+   private static final double snapDataInvalidationDistance = 0.5;
 
-   private final HashMap<FootstepNode, FootstepNodeSnapData> snapDataHolder = new HashMap<>();
+   private final TLongObjectHashMap<FootstepNodeSnapData> snapDataHolder = new TLongObjectHashMap<>();
+   private final TLongHashSet addedSnapDataKeys = new TLongHashSet();
+   /** Nodes snapped since the last call to {@link #evictSnapDataOutsideOfLastSearch()}. */
+   private final TLongHashSet snapDataKeysInUse = new TLongHashSet();
    protected PlanarRegionsList planarRegionsList;
+   private final PlanarRegionsSpatialIndex planarRegionsIndex = new PlanarRegionsSpatialIndex();
    private final TIntObjectMap<List<PlanarRegion>> nearbyPlanarRegions = new TIntObjectHashMap<>();
    private final TIntObjectMap<List<PlanarRegion>> bodyCollisionPlanarRegions = new TIntObjectHashMap<>();
    private final TIntObjectMap<List<PlanarRegion>> nearbyNavigablePlanarRegions = new TIntObjectHashMap<>();
 
    protected final FootstepPlannerParameters parameters;
 
+   private final Object cacheLock = new Object();
+
    public FootstepNodeSnapper()
    {
       this(null);
@@ -40,14 +70,85 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
 
    public void setPlanarRegions(PlanarRegionsList planarRegionsList)
    {
-      this.planarRegionsList = planarRegionsList;
+      synchronized (cacheLock)
+      {
+         this.planarRegionsList = planarRegionsList;
+         planarRegionsIndex.update(planarRegionsList);
+
+         snapDataHolder.clear();
+         addedSnapDataKeys.clear();
+         snapDataKeysInUse.clear();
+         clearRegionCaches();
+      }
+   }
+
+   /**
+    * Sets the planar regions but keeps the snap data of nodes that are far from all regions that were added, removed or modified
+    * since the last call. Regions are compared using {@link PlanarRegionsSpatialIndex#update(PlanarRegionsList)}, so a region
+    * that was modified in place without changing its bounding box is not detected.
+    *
+    * Snap data that was added manually with {@link #addSnapData(FootstepNode, FootstepNodeSnapData)} is always discarded.
+    */
+   public void updatePlanarRegions(PlanarRegionsList planarRegionsList)
+   {
+      synchronized (cacheLock)
+      {
+         this.planarRegionsList = planarRegionsList;
+         planarRegionsIndex.update(planarRegionsList);
+
+         List<PlanarRegion> changedRegions = planarRegionsIndex.getRegionsChangedByLastUpdate();
+         if (!changedRegions.isEmpty())
+         {
+            snapDataHolder.retainEntries((key, snapData) -> !isCloseToAnyRegion(FootstepNode.getXFromLongKey(key), FootstepNode.getYFromLongKey(key),
+                                                                                 snapDataInvalidationDistance, changedRegions));
+         }
+         addedSnapDataKeys.forEach(key ->
+         {
+            snapDataHolder.remove(key);
+            return true;
+         });
+         addedSnapDataKeys.clear();
+
+         // region lists are keyed by a hash that can't be mapped back to a position, they are cheap to rebuild using the index
+         clearRegionCaches();
+      }
+   }
+
+   /**
+    * Only keeps the snap data of the nodes snapped since the last call and the snap data that was added manually, so the cache does
+    * not grow with every replan while walking. Meant to be called when a new search starts.
+    */
+   public void evictSnapDataOutsideOfLastSearch()
+   {
+      synchronized (cacheLock)
+      {
+         snapDataHolder.retainEntries((key, snapData) -> snapDataKeysInUse.contains(key) || addedSnapDataKeys.contains(key));
+         snapDataKeysInUse.clear();
+      }
+   }
 
-      snapDataHolder.clear();
+   private void clearRegionCaches()
+   {
       nearbyPlanarRegions.clear();
       bodyCollisionPlanarRegions.clear();
       nearbyNavigablePlanarRegions.clear();
    }
 
+   /**
+    * Whether the point is within the given distance of the bounding box of one of the regions, ignoring z.
+    */
+   public static boolean isCloseToAnyRegion(double x, double y, double distance, List<PlanarRegion> planarRegions)
+   {
+      for (int i = 0; i < planarRegions.size(); i++)
+      {
+         BoundingBox3D boundingBox = planarRegions.get(i).getBoundingBox3dInWorld();
+         if (x >= boundingBox.getMinX() - distance && x <= boundingBox.getMaxX() + distance && y >= boundingBox.getMinY() - distance
+               && y <= boundingBox.getMaxY() + distance)
+            return true;
+      }
+      return false;
+   }
+
    public boolean hasPlanarRegions()
    {
       return planarRegionsList != null && !planarRegionsList.isEmpty();
@@ -55,9 +156,23 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
 
    public FootstepNodeSnapData snapFootstepNode(FootstepNode footstepNode)
    {
-      if (snapDataHolder.containsKey(footstepNode))
+      FootstepNodeSnapData snapData = snapAndCacheFootstepNode(footstepNode);
+      footstepNodeSnapped(footstepNode);
+      return snapData;
+   }
+
+   private FootstepNodeSnapData snapAndCacheFootstepNode(FootstepNode footstepNode)
+   {
+      FootstepNodeSnapData snapData;
+      synchronized (cacheLock)
       {
-         return snapDataHolder.get(footstepNode);
+         snapDataKeysInUse.add(footstepNode.getLongKey());
+         snapData = snapDataHolder.get(footstepNode.getLongKey());
+      }
+
+      if (snapData != null)
+      {
+         return snapData;
       }
       else if (planarRegionsList == null || planarRegionsList.isEmpty())
       {
@@ -65,32 +180,34 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
       }
       else
       {
-         FootstepNodeSnapData snapData = snapInternal(footstepNode);
-         addSnapData(footstepNode, snapData);
-         return snapData;
+         snapData = snapInternal(footstepNode);
+         synchronized (cacheLock)
+         {
+            FootstepNodeSnapData existingSnapData = snapDataHolder.putIfAbsent(footstepNode.getLongKey(), snapData);
+            return existingSnapData == null ? snapData : existingSnapData;
+         }
       }
    }
 
    public List<PlanarRegion> getOrCreateNearbyRegions(double roundedX, double roundedY)
    {
       int hashCode = FootstepNode.computePlanarRegionsHashCode(roundedX, roundedY);
-      if (nearbyPlanarRegions.containsKey(hashCode))
-         return nearbyPlanarRegions.get(hashCode);
+      List<PlanarRegion> cachedRegions = getCachedRegions(nearbyPlanarRegions, hashCode);
+      if (cachedRegions != null)
+         return cachedRegions;
 
       Point2DReadOnly centerPoint = new Point2D(roundedX, roundedY);
-      List<PlanarRegion> nearbyRegions = PlanarRegionTools
-            .filterPlanarRegionsWithBoundingCircle(centerPoint, proximityForPlanarRegionsNearby, planarRegionsList.getPlanarRegionsAsList());
-      nearbyPlanarRegions.put(hashCode, nearbyRegions);
-
-      return nearbyRegions;
+      List<PlanarRegion> nearbyRegions = PlanarRegionTools.filterPlanarRegionsWithBoundingCircle(centerPoint, proximityForPlanarRegionsNearby, planarRegionsIndex);
+      return cacheRegions(nearbyPlanarRegions, hashCode, nearbyRegions);
    }
 
    public List<PlanarRegion> getOrCreateSteppableRegions(double roundedX, double roundedY)
    {
       int hashcode = FootstepNode.computePlanarRegionsHashCode(roundedX, roundedY);
 
-      if (nearbyNavigablePlanarRegions.containsKey(hashcode))
-         return nearbyNavigablePlanarRegions.get(hashcode);
+      List<PlanarRegion> cachedRegions = getCachedRegions(nearbyNavigablePlanarRegions, hashcode);
+      if (cachedRegions != null)
+         return cachedRegions;
 
       List<PlanarRegion> nearbyRegions = getOrCreateNearbyRegions(roundedX, roundedY);
 
@@ -99,9 +216,7 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
 
       List<PlanarRegion> navigableRegions = nearbyRegions.stream().filter(region -> parameters.getSteppableRegionFilter().isPlanarRegionSteppable(region))
                                                          .collect(Collectors.toList());
-      nearbyNavigablePlanarRegions.put(hashcode, navigableRegions);
-
-      return navigableRegions;
+      return cacheRegions(nearbyNavigablePlanarRegions, hashcode, navigableRegions);
    }
 
    public List<PlanarRegion> getOrCreateBodyCollisionRegions(double unroundedX, double unroundedY, double groundHeight)
@@ -110,8 +225,9 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
       double roundedY = FootstepNode.round(unroundedY);
       int hashcode = FootstepNode.computePlanarRegionsHashCode(roundedX, roundedY);
 
-      if (bodyCollisionPlanarRegions.containsKey(hashcode))
-         return bodyCollisionPlanarRegions.get(hashcode);
+      List<PlanarRegion> cachedRegions = getCachedRegions(bodyCollisionPlanarRegions, hashcode);
+      if (cachedRegions != null)
+         return cachedRegions;
 
       List<PlanarRegion> nearbyRegions = getOrCreateNearbyRegions(roundedX, roundedY);
 
@@ -133,9 +249,44 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
             region -> parameters.getBodyCollisionRegionFilter().isPlanarRegionCollidable(region, groundHeight, minHeight, maxHeight))
                                                                     .collect(Collectors.toList());
 
-      bodyCollisionPlanarRegions.put(FootstepNode.computePlanarRegionsHashCode(roundedX, roundedY), bodyCollisionRegions);
+      return cacheRegions(bodyCollisionPlanarRegions, hashcode, bodyCollisionRegions);
+   }
 
-      return bodyCollisionRegions;
+   /**
+    * Index of the current planar regions. Must not be used while the planar regions are being set.
+    */
+   public PlanarRegionsSpatialIndex getPlanarRegionsIndex()
+   {
+      return planarRegionsIndex;
+   }
+
+   private List<PlanarRegion> getCachedRegions(TIntObjectMap<List<PlanarRegion>> cache, int hashCode)
+   {
+      synchronized (cacheLock)
+      {
+         return cache.get(hashCode);
+      }
+   }
+
+   private List<PlanarRegion> cacheRegions(TIntObjectMap<List<PlanarRegion>> cache, int hashCode, List<PlanarRegion> regions)
+   {
+      synchronized (cacheLock)
+      {
+         List<PlanarRegion> existingRegions = cache.putIfAbsent(hashCode, regions);
+         return existingRegions == null ? regions : existingRegions;
+      }
+   }
+
+   /**
+    * Snaps all nodes that are not cached yet using the given pool. Blocks until all nodes are snapped, then calls
+    * {@link #footstepNodeSnapped(FootstepNode)} for each node on the calling thread in the iteration order of the collection.
+    */
+   public void snapFootstepNodes(Collection<FootstepNode> footstepNodes, ForkJoinPool pool)
+   {
+      pool.submit(() -> footstepNodes.parallelStream().forEach(this::snapAndCacheFootstepNode)).join();
+
+      for (FootstepNode footstepNode : footstepNodes)
+         footstepNodeSnapped(footstepNode);
    }
 
    /**
@@ -143,14 +294,30 @@ public abstract class FootstepNodeSnapper implements FootstepNodeSnapperReadOnly
     */
    public void addSnapData(FootstepNode footstepNode, FootstepNodeSnapData snapData)
    {
-      snapDataHolder.put(footstepNode, snapData);
+      synchronized (cacheLock)
+      {
+         snapDataHolder.put(footstepNode.getLongKey(), snapData);
+         addedSnapDataKeys.add(footstepNode.getLongKey());
+      }
    }
 
    @Override
    public FootstepNodeSnapData getSnapData(FootstepNode node)
    {
-      return snapDataHolder.get(node);
+      synchronized (cacheLock)
+      {
+         return snapDataHolder.get(node.getLongKey());
+      }
    }
 
    protected abstract FootstepNodeSnapData snapInternal(FootstepNode footstepNode);
+
+   /**
+    * Called after the node was snapped, always on the thread that requested the snap, also when the node was snapped by a pool
+    * thread in {@link #snapFootstepNodes(Collection, ForkJoinPool)}. Listeners must be notified from here and not from
+    * {@link #snapInternal(FootstepNode)}.
+    */
+   protected void footstepNodeSnapped(FootstepNode footstepNode)
+   {
+   }
 }
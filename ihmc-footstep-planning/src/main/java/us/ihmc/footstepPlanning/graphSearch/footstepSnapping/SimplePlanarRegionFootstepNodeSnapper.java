@@ -16,9 +16,6 @@ public class SimplePlanarRegionFootstepNodeSnapper extends FootstepNodeSnapper
 {
    private final SideDependentList<ConvexPolygon2D> footPolygonsInSoleFrame;
 
-   private final PlanarRegion planarRegionToPack = new PlanarRegion();
-   private final ConvexPolygon2D footPolygon = new ConvexPolygon2D();
-
    public SimplePlanarRegionFootstepNodeSnapper(SideDependentList<ConvexPolygon2D> footPolygonsInSoleFrame)
    {
       this(footPolygonsInSoleFrame, new DefaultFootstepPlanningParameters());
@@ -34,6 +31,10 @@ public class SimplePlanarRegionFootstepNodeSnapper extends FootstepNodeSnapper
    @Override
    public FootstepNodeSnapData snapInternal(FootstepNode footstepNode)
    {
+      // Allocated per call, nodes can be snapped concurrently
+      PlanarRegion planarRegionToPack = new PlanarRegion();
+      ConvexPolygon2D footPolygon = new ConvexPolygon2D();
+
       FootstepNodeTools.getFootPolygon(footstepNode, footPolygonsInSoleFrame.get(footstepNode.getRobotSide()), footPolygon);
 
       List<PlanarRegion> planarRegionsList = getOrCreateSteppableRegions(footstepNode.getRoundedX(), footstepNode.getRoundedY());
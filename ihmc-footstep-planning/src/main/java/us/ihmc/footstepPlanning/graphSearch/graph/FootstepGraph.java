@@ -2,9 +2,14 @@ package us.ihmc.footstepPlanning.graphSearch.graph;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
+import java.util.function.Consumer;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongDoubleHashMap;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 
 /**
  * Class that maintains a directed graph of FootstepNodes.
@@ -13,15 +18,31 @@ import java.util.List;
  * edges must start at known nodes. The class is initialized with a start node and maintains
  * shortest paths and costs to reach all nodes in the graph efficiently.
  *
+ * Nodes are stored by {@link FootstepNode#getLongKey()} in open addressing primitive maps. The
+ * outgoing edge lists are recycled when the graph is initialized again, so replanning does not
+ * allocate new edge storage once the graph has grown to the size of a typical plan.
+ *
  * @author Georg
  */
 public class FootstepGraph
 {
-   private final HashMap<FootstepEdge, EdgeCost> edgeCostMap = new HashMap<>();
-   private final HashMap<FootstepNode, NodeCost> nodeCostMap = new HashMap<>();
+   private final TLongObjectHashMap<FootstepNode> nodes = new TLongObjectHashMap<>();
+   private final TLongDoubleHashMap nodeCosts = new TLongDoubleHashMap();
+   private final TLongLongHashMap bestParents = new TLongLongHashMap(64, 0.5f, FootstepNode.NO_KEY, FootstepNode.NO_KEY);
+   private final TLongObjectHashMap<OutgoingEdges> outgoingEdges = new TLongObjectHashMap<>();
+
+   private final ArrayList<OutgoingEdges> edgeListPool = new ArrayList<>();
 
-   private final HashMap<FootstepNode, HashSet<FootstepEdge>> outgoingEdges = new HashMap<>();
-   private final HashMap<FootstepNode, FootstepEdge> incomingBestEdge = new HashMap<>();
+   private Consumer<FootstepNode> costDecreaseListener = null;
+
+   /**
+    * Sets a listener that is notified when adding an edge lowers the cost of nodes further down the graph than the end of the
+    * edge, so that a search can update these nodes if they are queued. The end node of the edge itself is not reported.
+    */
+   public void setCostDecreaseListener(Consumer<FootstepNode> costDecreaseListener)
+   {
+      this.costDecreaseListener = costDecreaseListener;
+   }
 
    /**
     * Removes all nodes and edges stored in the graph and
@@ -31,14 +52,20 @@ public class FootstepGraph
     */
    public void initialize(FootstepNode startNode)
    {
-      edgeCostMap.clear();
-      nodeCostMap.clear();
+      outgoingEdges.forEachValue(edges ->
+      {
+         edges.clear();
+         edgeListPool.add(edges);
+         return true;
+      });
+
+      nodes.clear();
+      nodeCosts.clear();
+      bestParents.clear();
       outgoingEdges.clear();
-      incomingBestEdge.clear();
 
-      nodeCostMap.put(startNode, new NodeCost(0.0));
-      FootstepEdge edgeToStart = new FootstepEdge(null, startNode);
-      incomingBestEdge.put(startNode, edgeToStart);
+      nodes.put(startNode.getLongKey(), startNode);
+      nodeCosts.put(startNode.getLongKey(), 0.0);
    }
 
    /**
@@ -53,31 +80,37 @@ public class FootstepGraph
    {
       checkNodeExists(startNode);
 
-      FootstepEdge edge = new FootstepEdge(startNode, endNode);
-      if (edgeCostMap.containsKey(edge))
-         throw new RuntimeException("Edge exists already.");
+      long startKey = startNode.getLongKey();
+      long endKey = endNode.getLongKey();
 
-      if (!outgoingEdges.containsKey(startNode))
-         outgoingEdges.put(startNode, new HashSet<FootstepEdge>());
-      EdgeCost cost = new EdgeCost(transitionCost);
-      edgeCostMap.put(edge, cost);
-      outgoingEdges.get(startNode).add(edge);
+      OutgoingEdges edges = outgoingEdges.get(startKey);
+      if (edges == null)
+      {
+         edges = edgeListPool.isEmpty() ? new OutgoingEdges() : edgeListPool.remove(edgeListPool.size() - 1);
+         outgoingEdges.put(startKey, edges);
+      }
+      else if (edges.endNodes.contains(endKey))
+      {
+         throw new RuntimeException("Edge exists already.");
+      }
+      edges.add(endKey, transitionCost);
 
-      double newNodeCost = nodeCostMap.get(startNode).getNodeCost() + transitionCost;
-      if (nodeCostMap.containsKey(endNode))
+      double newNodeCost = nodeCosts.get(startKey) + transitionCost;
+      if (nodes.containsKey(endKey))
       {
-         double oldNodeCost = nodeCostMap.get(endNode).getNodeCost();
+         double oldNodeCost = nodeCosts.get(endKey);
          if (newNodeCost >= oldNodeCost)
             return;
 
-         nodeCostMap.put(endNode, new NodeCost(newNodeCost));
-         incomingBestEdge.put(endNode, edge);
-         updateChildCostsRecursively(endNode);
+         nodeCosts.put(endKey, newNodeCost);
+         bestParents.put(endKey, startKey);
+         updateChildCostsRecursively(endKey);
       }
       else
       {
-         nodeCostMap.put(endNode, new NodeCost(newNodeCost));
-         incomingBestEdge.put(endNode, edge);
+         nodes.put(endKey, endNode);
+         nodeCosts.put(endKey, newNodeCost);
+         bestParents.put(endKey, startKey);
       }
    }
 
@@ -88,7 +121,7 @@ public class FootstepGraph
    {
       checkNodeExists(node);
 
-      return nodeCostMap.get(node).getNodeCost();
+      return nodeCosts.get(node.getLongKey());
    }
 
    /**
@@ -102,51 +135,102 @@ public class FootstepGraph
       ArrayList<FootstepNode> path = new ArrayList<>();
       path.add(node);
 
-      FootstepEdge edgeFromParent = incomingBestEdge.get(node);
-      while (edgeFromParent.getStartNode() != null)
+      long parentKey = bestParents.get(node.getLongKey());
+      while (parentKey != FootstepNode.NO_KEY)
       {
-         FootstepNode parentNode = edgeFromParent.getStartNode();
-         path.add(parentNode);
-         edgeFromParent = incomingBestEdge.get(parentNode);
+         path.add(nodes.get(parentKey));
+         parentKey = bestParents.get(parentKey);
       }
 
       Collections.reverse(path);
       return path;
    }
 
+   /**
+    * Returns the number of steps from the start node to the given node, without creating the path.
+    */
+   public int getNumberOfStepsFromStart(FootstepNode node)
+   {
+      checkNodeExists(node);
+
+      int steps = 0;
+      long parentKey = bestParents.get(node.getLongKey());
+      while (parentKey != FootstepNode.NO_KEY)
+      {
+         steps++;
+         parentKey = bestParents.get(parentKey);
+      }
+      return steps;
+   }
+
    /**
     * Will check if a node exists in the graph.
     * @param node
     */
    public boolean doesNodeExist(FootstepNode node)
    {
-      return nodeCostMap.containsKey(node);
+      return nodes.containsKey(node.getLongKey());
+   }
+
+   /**
+    * Will check if an edge between the two nodes has been added to the graph.
+    */
+   public boolean doesEdgeExist(FootstepNode startNode, FootstepNode endNode)
+   {
+      OutgoingEdges edges = outgoingEdges.get(startNode.getLongKey());
+      return edges != null && edges.endNodes.contains(endNode.getLongKey());
    }
 
-   private void updateChildCostsRecursively(FootstepNode node)
+   private void updateChildCostsRecursively(long nodeKey)
    {
-      if (!outgoingEdges.containsKey(node))
+      OutgoingEdges edges = outgoingEdges.get(nodeKey);
+      if (edges == null)
          return;
 
-      double parentNodeCost = nodeCostMap.get(node).getNodeCost();
-      for (FootstepEdge outgoingEdge : outgoingEdges.get(node))
+      double parentNodeCost = nodeCosts.get(nodeKey);
+      for (int i = 0; i < edges.size(); i++)
       {
-         double newCost = parentNodeCost + edgeCostMap.get(outgoingEdge).getEdgeCost();
-         FootstepNode childNode = outgoingEdge.getEndNode();
+         double newCost = parentNodeCost + edges.edgeCosts.get(i);
+         long childKey = edges.endNodes.get(i);
 
-         double oldCost = nodeCostMap.get(childNode).getNodeCost();
+         double oldCost = nodeCosts.get(childKey);
          if (oldCost <= newCost)
             continue;
 
-         nodeCostMap.put(childNode, new NodeCost(newCost));
-         incomingBestEdge.put(childNode, outgoingEdge);
-         updateChildCostsRecursively(childNode);
+         nodeCosts.put(childKey, newCost);
+         bestParents.put(childKey, nodeKey);
+         if (costDecreaseListener != null)
+            costDecreaseListener.accept(nodes.get(childKey));
+         updateChildCostsRecursively(childKey);
       }
    }
 
    private void checkNodeExists(FootstepNode node)
    {
-      if (!nodeCostMap.containsKey(node))
+      if (!nodes.containsKey(node.getLongKey()))
          throw new RuntimeException("Node has not been added to graph yet.");
    }
+
+   private static class OutgoingEdges
+   {
+      private final TLongArrayList endNodes = new TLongArrayList();
+      private final TDoubleArrayList edgeCosts = new TDoubleArrayList();
+
+      private void add(long endNode, double edgeCost)
+      {
+         endNodes.add(endNode);
+         edgeCosts.add(edgeCost);
+      }
+
+      private int size()
+      {
+         return endNodes.size();
+      }
+
+      private void clear()
+      {
+         endNodes.resetQuick();
+         edgeCosts.resetQuick();
+      }
+   }
 }
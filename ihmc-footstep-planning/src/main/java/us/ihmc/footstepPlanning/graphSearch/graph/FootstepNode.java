@@ -16,6 +16,14 @@ public class FootstepNode
    public static final double PRECISION     = 0.05;
    public static final double INV_PRECISION = 1.0 / PRECISION;
 
+   private static final int XY_INDEX_BITS = 27;
+   private static final int YAW_INDEX_BITS = 8;
+   private static final long XY_INDEX_MASK = (1L << XY_INDEX_BITS) - 1;
+   private static final long YAW_INDEX_MASK = (1L << YAW_INDEX_BITS) - 1;
+
+   /** Key that is never returned by {@link #getLongKey()}, can be used as no entry value in primitive maps. */
+   public static final long NO_KEY = -1L;
+
    private final int xIndex;
    private final int yIndex;
    private final int yawIndex;
@@ -24,6 +32,7 @@ public class FootstepNode
    private Point2D midFootPoint;
 
    private final int hashCode;
+   private final long longKey;
    private final int planarRegionsHashCode;
 
    public FootstepNode(double x, double y)
@@ -39,6 +48,7 @@ public class FootstepNode
       this.robotSide = robotSide;
 
       hashCode = computeHashCode(this);
+      longKey = computeLongKey(xIndex, yIndex, yawIndex, robotSide);
       planarRegionsHashCode = computePlanarRegionsHashCode(this);
    }
 
@@ -113,6 +123,50 @@ public class FootstepNode
       return hashCode;
    }
 
+   /**
+    * Unique key of this node on the lattice, equal for two nodes if and only if they are equal.
+    * Use this instead of the node itself to key primitive collections.
+    */
+   public long getLongKey()
+   {
+      return longKey;
+   }
+
+   /**
+    * Packs the lattice indices and the side into a non-negative long. The x and y indices are
+    * stored in 27 bits each, which covers more than 3 km around the origin at the current grid size.
+    */
+   public static long computeLongKey(int xIndex, int yIndex, int yawIndex, RobotSide robotSide)
+   {
+      long key = xIndex & XY_INDEX_MASK;
+      key = (key << XY_INDEX_BITS) | (yIndex & XY_INDEX_MASK);
+      key = (key << YAW_INDEX_BITS) | (yawIndex & YAW_INDEX_MASK);
+      key = (key << 1) | (robotSide == RobotSide.RIGHT ? 1L : 0L);
+      return key;
+   }
+
+   /**
+    * Recovers the x coordinate of a node from its key as computed by {@link #computeLongKey(int, int, int, RobotSide)}.
+    */
+   public static double getXFromLongKey(long key)
+   {
+      return gridSizeXY * unpackXYIndex(key >>> (XY_INDEX_BITS + YAW_INDEX_BITS + 1));
+   }
+
+   /**
+    * Recovers the y coordinate of a node from its key as computed by {@link #computeLongKey(int, int, int, RobotSide)}.
+    */
+   public static double getYFromLongKey(long key)
+   {
+      return gridSizeXY * unpackXYIndex(key >>> (YAW_INDEX_BITS + 1));
+   }
+
+   private static int unpackXYIndex(long shiftedKey)
+   {
+      int shift = Integer.SIZE - XY_INDEX_BITS;
+      return ((int) ((shiftedKey & XY_INDEX_MASK) << shift)) >> shift;
+   }
+
    public int getPlanarRegionsHashCode()
    {
       return planarRegionsHashCode;
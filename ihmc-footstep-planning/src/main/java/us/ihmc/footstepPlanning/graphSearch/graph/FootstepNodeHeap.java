@@ -0,0 +1,214 @@
+package us.ihmc.footstepPlanning.graphSearch.graph;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+
+/**
+ * Binary min-heap of FootstepNodes with a cost stored next to each node.
+ *
+ * The heap position of every node is tracked in a primitive map keyed by {@link FootstepNode#getLongKey()}, so updating the
+ * cost of a queued node moves it in place instead of adding a duplicate entry. The cost is evaluated once when a node is
+ * added, not on every comparison. Storage grows as needed and is reused after {@link #clear()}.
+ */
+public class FootstepNodeHeap
+{
+   private static final int NO_INDEX = -1;
+   private static final int DEFAULT_CAPACITY = 1024;
+
+   private FootstepNode[] nodes;
+   private double[] costs;
+   private int size = 0;
+
+   private final TLongIntHashMap heapIndices;
+
+   public FootstepNodeHeap()
+   {
+      this(DEFAULT_CAPACITY);
+   }
+
+   public FootstepNodeHeap(int initialCapacity)
+   {
+      nodes = new FootstepNode[initialCapacity];
+      costs = new double[initialCapacity];
+      heapIndices = new TLongIntHashMap(initialCapacity, 0.5f, FootstepNode.NO_KEY, NO_INDEX);
+   }
+
+   /**
+    * Adds the node, or changes its cost if it is already queued.
+    */
+   public void addOrUpdate(FootstepNode node, double cost)
+   {
+      int index = heapIndices.get(node.getLongKey());
+      if (index == NO_INDEX)
+      {
+         ensureCapacity(size + 1);
+         index = size++;
+         nodes[index] = node;
+         costs[index] = cost;
+         heapIndices.put(node.getLongKey(), index);
+         siftUp(index);
+      }
+      else if (cost < costs[index])
+      {
+         costs[index] = cost;
+         siftUp(index);
+      }
+      else if (cost > costs[index])
+      {
+         costs[index] = cost;
+         siftDown(index);
+      }
+   }
+
+   /**
+    * Removes and returns the node with the lowest cost.
+    */
+   public FootstepNode poll()
+   {
+      if (size == 0)
+         return null;
+
+      FootstepNode first = nodes[0];
+      heapIndices.remove(first.getLongKey());
+
+      size--;
+      if (size > 0)
+      {
+         move(size, 0);
+         siftDown(0);
+      }
+      nodes[size] = null;
+
+      return first;
+   }
+
+   public FootstepNode peek()
+   {
+      return size == 0 ? null : nodes[0];
+   }
+
+   /**
+    * Cost of the node returned by {@link #peek()}, positive infinity if the heap is empty.
+    */
+   public double peekCost()
+   {
+      return size == 0 ? Double.POSITIVE_INFINITY : costs[0];
+   }
+
+   /**
+    * Cost the node was queued with, NaN if the node is not queued.
+    */
+   public double getCost(FootstepNode node)
+   {
+      int index = heapIndices.get(node.getLongKey());
+      return index == NO_INDEX ? Double.NaN : costs[index];
+   }
+
+   /**
+    * Returns the queued node at the given position of the heap array. Positions are in no particular order apart from the
+    * first one holding the node returned by {@link #peek()}, so this is meant for iterating over all queued nodes.
+    */
+   public FootstepNode get(int index)
+   {
+      if (index < 0 || index >= size)
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      return nodes[index];
+   }
+
+   /**
+    * Evaluates the cost of every queued node again and restores the heap order in linear time. Use this when the cost function
+    * changed for all nodes at once instead of updating them one by one.
+    */
+   public void recomputeCosts(ToDoubleFunction<FootstepNode> costFunction)
+   {
+      for (int i = 0; i < size; i++)
+         costs[i] = costFunction.applyAsDouble(nodes[i]);
+
+      for (int i = (size >>> 1) - 1; i >= 0; i--)
+         siftDown(i);
+   }
+
+   public boolean contains(FootstepNode node)
+   {
+      return heapIndices.containsKey(node.getLongKey());
+   }
+
+   public boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public void clear()
+   {
+      Arrays.fill(nodes, 0, size, null);
+      size = 0;
+      heapIndices.clear();
+   }
+
+   private void siftUp(int index)
+   {
+      FootstepNode node = nodes[index];
+      double cost = costs[index];
+
+      while (index > 0)
+      {
+         int parent = (index - 1) >>> 1;
+         if (costs[parent] <= cost)
+            break;
+         move(parent, index);
+         index = parent;
+      }
+
+      set(index, node, cost);
+   }
+
+   private void siftDown(int index)
+   {
+      FootstepNode node = nodes[index];
+      double cost = costs[index];
+
+      int half = size >>> 1;
+      while (index < half)
+      {
+         int child = 2 * index + 1;
+         int right = child + 1;
+         if (right < size && costs[right] < costs[child])
+            child = right;
+         if (cost <= costs[child])
+            break;
+         move(child, index);
+         index = child;
+      }
+
+      set(index, node, cost);
+   }
+
+   private void move(int from, int to)
+   {
+      set(to, nodes[from], costs[from]);
+   }
+
+   private void set(int index, FootstepNode node, double cost)
+   {
+      nodes[index] = node;
+      costs[index] = cost;
+      heapIndices.put(node.getLongKey(), index);
+   }
+
+   private void ensureCapacity(int capacity)
+   {
+      if (capacity <= nodes.length)
+         return;
+
+      int newCapacity = Math.max(capacity, 2 * nodes.length);
+      nodes = Arrays.copyOf(nodes, newCapacity);
+      costs = Arrays.copyOf(costs, newCapacity);
+   }
+}
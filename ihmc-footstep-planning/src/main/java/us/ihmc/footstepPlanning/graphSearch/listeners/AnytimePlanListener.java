@@ -0,0 +1,14 @@
+package us.ihmc.footstepPlanning.graphSearch.listeners;
+
+import us.ihmc.footstepPlanning.FootstepPlan;
+
+public interface AnytimePlanListener
+{
+   /**
+    * Called on the planning thread every time anytime planning finds a plan that is better than the previous one.
+    *
+    * @param plan the improved plan
+    * @param suboptimalityBound the cost of the plan is at most this factor times the cost of the best plan the heuristic allows for
+    */
+   void planImproved(FootstepPlan plan, double suboptimalityBound);
+}
@@ -25,7 +25,7 @@ import us.ihmc.robotics.geometry.PlanarRegionsList;
 import us.ihmc.robotics.referenceFrames.PoseReferenceFrame;
 import us.ihmc.robotics.referenceFrames.TranslationReferenceFrame;
 
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 public class BodyCollisionNodeChecker extends FootstepNodeChecker
@@ -38,13 +38,14 @@ public class BodyCollisionNodeChecker extends FootstepNodeChecker
 
    private final GilbertJohnsonKeerthiCollisionDetector collisionDetector = new GilbertJohnsonKeerthiCollisionDetector();
 
-   private final HashMap<PlanarRegion, ConvexPolytope> planarRegionPolytopes = new HashMap<>();
+   private final IdentityHashMap<PlanarRegion, ConvexPolytope> planarRegionPolytopes = new IdentityHashMap<>();
 
    private final FootstepPlannerParameters parameters;
    private final FootstepNodeSnapper snapper;
    private final Vector3D bodyBoxDimensions = new Vector3D();
 
    private final FramePoint3D tempPoint = new FramePoint3D();
+   private final Point3D tempVertex = new Point3D();
    private final RigidBodyTransform tempTransform = new RigidBodyTransform();
 
    public BodyCollisionNodeChecker(FootstepPlannerParameters parameters, FootstepNodeSnapper snapper)
@@ -63,26 +64,29 @@ public class BodyCollisionNodeChecker extends FootstepNodeChecker
    public void setPlanarRegions(PlanarRegionsList planarRegions)
    {
       super.setPlanarRegions(planarRegions);
-      if (!hasPlanarRegions())
-         return;
 
+      // Polytopes are created the first time a region is close to the body, most regions of a large environment never are
       planarRegionPolytopes.clear();
+   }
 
-      for (PlanarRegion planarRegion : planarRegions.getPlanarRegionsAsList())
+   private ConvexPolytope getOrCreatePolytope(PlanarRegion planarRegion)
+   {
+      ConvexPolytope planarRegionPolytope = planarRegionPolytopes.get(planarRegion);
+      if (planarRegionPolytope != null)
+         return planarRegionPolytope;
+
+      planarRegionPolytope = new ConvexPolytope();
+      List<? extends Point2DReadOnly> pointsInPlanarRegion = planarRegion.getConvexHull().getVertexBufferView();
+      planarRegion.getTransformToWorld(tempTransform);
+      for (Point2DReadOnly point : pointsInPlanarRegion)
       {
-         ConvexPolytope planarRegionPolytope = new ConvexPolytope();
-         List<? extends Point2DReadOnly> pointsInPlanarRegion = planarRegion.getConvexHull().getVertexBufferView();
-         planarRegion.getTransformToWorld(tempTransform);
-         for (Point2DReadOnly point : pointsInPlanarRegion)
-         {
-            tempPoint.setToZero();
-            tempPoint.set(point.getX(), point.getY(), 0.0);
-            tempPoint.applyTransform(tempTransform);
-            planarRegionPolytope.addVertex(tempPoint.getX(), tempPoint.getY(), tempPoint.getZ());
-         }
-
-         planarRegionPolytopes.put(planarRegion, planarRegionPolytope);
+         tempVertex.set(point.getX(), point.getY(), 0.0);
+         tempVertex.applyTransform(tempTransform);
+         planarRegionPolytope.addVertex(tempVertex.getX(), tempVertex.getY(), tempVertex.getZ());
       }
+
+      planarRegionPolytopes.put(planarRegion, planarRegionPolytope);
+      return planarRegionPolytope;
    }
 
    private final Point3D pointToThrowAway1 = new Point3D();
@@ -142,7 +146,7 @@ public class BodyCollisionNodeChecker extends FootstepNodeChecker
 
       for (PlanarRegion planarRegion : planarRegionList)
       {
-         ConvexPolytope planarRegionPolytope = planarRegionPolytopes.get(planarRegion);
+         ConvexPolytope planarRegionPolytope = getOrCreatePolytope(planarRegion);
          if (collisionDetector.arePolytopesColliding(bodyCollisionPolytope, planarRegionPolytope, pointToThrowAway1, pointToThrowAway2))
          {
             return false;
@@ -7,6 +7,8 @@ import us.ihmc.footstepPlanning.graphSearch.listeners.BipedalFootstepPlannerList
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
 
 public abstract class FootstepNodeChecker
 {
@@ -18,6 +20,15 @@ public abstract class FootstepNodeChecker
       this.planarRegionsList = planarRegions;
    }
 
+   /**
+    * Called instead of {@link #setPlanarRegions(PlanarRegionsList)} when the new regions are an update of the previous ones. Checkers
+    * that cache data per node may keep the data of nodes that are far from the regions that changed. By default all data is discarded.
+    */
+   public void updatePlanarRegions(PlanarRegionsList planarRegions)
+   {
+      setPlanarRegions(planarRegions);
+   }
+
    protected void rejectNode(FootstepNode node, FootstepNode parentNode, BipedalFootstepPlannerNodeRejectionReason rejectionReason)
    {
       for (BipedalFootstepPlannerListener listener : listeners)
@@ -35,6 +46,15 @@ public abstract class FootstepNodeChecker
          listeners.add(listener);
    }
 
+   /**
+    * Called with all children of a node before they are checked one at a time with {@link #isNodeValid(FootstepNode, FootstepNode)}.
+    * Checkers can use the pool to compute expensive data, such as snapping, for all nodes concurrently. The result of
+    * isNodeValid must not depend on whether this was called.
+    */
+   public void prepareNodes(Collection<FootstepNode> nodes, FootstepNode previousNode, ForkJoinPool pool)
+   {
+   }
+
    public abstract boolean isNodeValid(FootstepNode node, FootstepNode previousNode);
 
    public abstract void addStartNode(FootstepNode startNode, RigidBodyTransform startNodeTransform);
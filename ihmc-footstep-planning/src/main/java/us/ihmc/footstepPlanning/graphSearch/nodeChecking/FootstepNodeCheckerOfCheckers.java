@@ -5,7 +5,9 @@ import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
 import us.ihmc.footstepPlanning.graphSearch.listeners.BipedalFootstepPlannerListener;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class FootstepNodeCheckerOfCheckers extends FootstepNodeChecker
 {
@@ -22,6 +24,19 @@ public class FootstepNodeCheckerOfCheckers extends FootstepNodeChecker
       nodeCheckers.forEach(checker -> checker.setPlanarRegions(planarRegions));
    }
 
+   @Override
+   public void updatePlanarRegions(PlanarRegionsList planarRegions)
+   {
+      nodeCheckers.forEach(checker -> checker.updatePlanarRegions(planarRegions));
+   }
+
+   @Override
+   public void prepareNodes(Collection<FootstepNode> nodes, FootstepNode previousNode, ForkJoinPool pool)
+   {
+      for (FootstepNodeChecker checker : nodeCheckers)
+         checker.prepareNodes(nodes, previousNode, pool);
+   }
+
    @Override
    public boolean isNodeValid(FootstepNode node, FootstepNode previousNode)
    {
@@ -15,17 +15,20 @@ import us.ihmc.footstepPlanning.graphSearch.graph.visualization.BipedalFootstepP
 import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParameters;
 import us.ihmc.robotics.geometry.PlanarRegion;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.geometry.PlanarRegionsSpatialIndex;
 import us.ihmc.robotics.robotSide.SideDependentList;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public class PlanarRegionBaseOfCliffAvoider extends FootstepNodeChecker
 {
    private final FootstepPlannerParameters parameters;
    private final SideDependentList<ConvexPolygon2D> footPolygons;
    private final FootstepNodeSnapperReadOnly snapper;
+   private final PlanarRegionsSpatialIndex planarRegionsIndex = new PlanarRegionsSpatialIndex();
 
    private FootstepNode startNode;
 
@@ -36,6 +39,13 @@ public class PlanarRegionBaseOfCliffAvoider extends FootstepNodeChecker
       this.snapper = snapper;
    }
 
+   @Override
+   public void setPlanarRegions(PlanarRegionsList planarRegions)
+   {
+      super.setPlanarRegions(planarRegions);
+      planarRegionsIndex.update(planarRegions);
+   }
+
    @Override
    public void addStartNode(FootstepNode startNode, RigidBodyTransform startNodeTransform)
    {
@@ -78,7 +88,7 @@ public class PlanarRegionBaseOfCliffAvoider extends FootstepNodeChecker
       Point3D highestPointInSoleFrame = new Point3D();
       LineSegment2D highestLineSegmentInSoleFrame = new LineSegment2D();
 
-      double maximumCliffZInSoleFrame = findHighestPointInFrame(planarRegionsList, soleTransform, lineSegmentsInSoleFrame, highestPointInSoleFrame, highestLineSegmentInSoleFrame, new Point3D());
+      double maximumCliffZInSoleFrame = findHighestPointInFrame(planarRegionsIndex, soleTransform, lineSegmentsInSoleFrame, highestPointInSoleFrame, highestLineSegmentInSoleFrame, new Point3D());
 
       boolean tooCloseToCliff = maximumCliffZInSoleFrame < cliffHeightToAvoid;
       if(tooCloseToCliff)
@@ -88,6 +98,22 @@ public class PlanarRegionBaseOfCliffAvoider extends FootstepNodeChecker
    
    public static double findHighestPointInFrame(PlanarRegionsList planarRegionsList, RigidBodyTransform soleTransform, ArrayList<LineSegment2D> lineSegmentsInSoleFrame,
                                                       Point3D highestPointInSoleFrameToPack, LineSegment2D highestLineSegmentInSoleFrameToPack, Point3D closestCliffPointToPack)
+   {
+      return findHighestPointInFrame(planarRegionsList::findPlanarRegionsIntersectingLineSegment, soleTransform, lineSegmentsInSoleFrame,
+                                     highestPointInSoleFrameToPack, highestLineSegmentInSoleFrameToPack, closestCliffPointToPack);
+   }
+
+   public static double findHighestPointInFrame(PlanarRegionsSpatialIndex planarRegionsIndex, RigidBodyTransform soleTransform,
+                                                ArrayList<LineSegment2D> lineSegmentsInSoleFrame, Point3D highestPointInSoleFrameToPack,
+                                                LineSegment2D highestLineSegmentInSoleFrameToPack, Point3D closestCliffPointToPack)
+   {
+      return findHighestPointInFrame(planarRegionsIndex::findPlanarRegionsIntersectingLineSegment, soleTransform, lineSegmentsInSoleFrame,
+                                     highestPointInSoleFrameToPack, highestLineSegmentInSoleFrameToPack, closestCliffPointToPack);
+   }
+
+   private static double findHighestPointInFrame(BiConsumer<LineSegment2D, ArrayList<PlanarRegion>> intersectingRegionsFinder, RigidBodyTransform soleTransform,
+                                                 ArrayList<LineSegment2D> lineSegmentsInSoleFrame, Point3D highestPointInSoleFrameToPack,
+                                                 LineSegment2D highestLineSegmentInSoleFrameToPack, Point3D closestCliffPointToPack)
      {
         double maxZInSoleFrame = Double.NEGATIVE_INFINITY;
         double closestCliffPointDistance = Double.POSITIVE_INFINITY;
@@ -107,7 +133,7 @@ public class PlanarRegionBaseOfCliffAvoider extends FootstepNodeChecker
            lineSegmentInWorldFrame.set(pointOneInWorldFrame.getX(), pointOneInWorldFrame.getY(), pointTwoInWorldFrame.getX(), pointTwoInWorldFrame.getY());
 
            ArrayList<PlanarRegion> intersectingRegionsToPack = new ArrayList<>();
-           planarRegionsList.findPlanarRegionsIntersectingLineSegment(lineSegmentInWorldFrame, intersectingRegionsToPack);
+           intersectingRegionsFinder.accept(lineSegmentInWorldFrame, intersectingRegionsToPack);
            for (PlanarRegion intersectingRegion : intersectingRegionsToPack)
            {
               List<Point2DBasics[]> intersectionsInPlaneFrameToPack = new ArrayList<>();
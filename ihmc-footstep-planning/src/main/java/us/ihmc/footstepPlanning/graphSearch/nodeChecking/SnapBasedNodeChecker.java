@@ -16,7 +16,9 @@ import us.ihmc.robotics.geometry.PlanarRegion;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 import us.ihmc.robotics.robotSide.SideDependentList;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class SnapBasedNodeChecker extends FootstepNodeChecker
 {
@@ -40,6 +42,19 @@ public class SnapBasedNodeChecker extends FootstepNodeChecker
       snapper.setPlanarRegions(planarRegions);
    }
 
+   @Override
+   public void updatePlanarRegions(PlanarRegionsList planarRegions)
+   {
+      super.setPlanarRegions(planarRegions);
+      snapper.updatePlanarRegions(planarRegions);
+   }
+
+   @Override
+   public void prepareNodes(Collection<FootstepNode> nodes, FootstepNode previousNode, ForkJoinPool pool)
+   {
+      snapper.snapFootstepNodes(nodes, pool);
+   }
+
    // TODO make this faster
    @Override
    public boolean isNodeValid(FootstepNode node, FootstepNode previousNode)
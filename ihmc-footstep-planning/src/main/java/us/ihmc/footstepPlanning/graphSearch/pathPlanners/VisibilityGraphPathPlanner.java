@@ -41,6 +41,7 @@ public class VisibilityGraphPathPlanner extends AbstractWaypointsForFootstepsPla
       super(prefix, footstepPlannerParameters, parentRegistry);
 
       this.navigableRegionsManager = new NavigableRegionsManager(visibilityGraphsParameters);
+      navigableRegionsManager.setParallelComputation(true);
    }
 
    public FootstepPlanningResult planWaypoints()
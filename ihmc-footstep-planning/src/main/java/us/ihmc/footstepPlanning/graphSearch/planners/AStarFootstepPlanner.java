@@ -1,5 +1,8 @@
 package us.ihmc.footstepPlanning.graphSearch.planners;
 
+import gnu.trove.map.hash.TLongDoubleHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
 import org.apache.commons.math3.util.Precision;
 import us.ihmc.commons.Conversions;
 import us.ihmc.commons.PrintTools;
@@ -7,6 +10,7 @@ import us.ihmc.euclid.axisAngle.AxisAngle;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.referenceFrame.FramePose3D;
 import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.euclid.tools.EuclidCoreTools;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Vector3D;
@@ -15,9 +19,9 @@ import us.ihmc.footstepPlanning.*;
 import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.*;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepGraph;
 import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNodeHeap;
 import us.ihmc.footstepPlanning.graphSearch.heuristics.CostToGoHeuristics;
 import us.ihmc.footstepPlanning.graphSearch.heuristics.DistanceAndYawBasedHeuristics;
-import us.ihmc.footstepPlanning.graphSearch.heuristics.NodeComparator;
 import us.ihmc.footstepPlanning.graphSearch.listeners.*;
 import us.ihmc.footstepPlanning.graphSearch.nodeChecking.*;
 import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.FootstepNodeExpansion;
@@ -36,6 +40,7 @@ import us.ihmc.yoVariables.variable.YoDouble;
 import us.ihmc.yoVariables.variable.YoLong;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
 {
@@ -48,9 +53,10 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
    private final FootstepPlannerParameters parameters;
 
    private SideDependentList<FootstepNode> goalNodes;
-   private HashSet<FootstepNode> expandedNodes;
-   private PriorityQueue<FootstepNode> stack;
+   private final TLongHashSet expandedNodes = new TLongHashSet();
+   private final FootstepNodeHeap stack = new FootstepNodeHeap();
    private FootstepNode startNode;
+   private RigidBodyTransform startNodeSnapTransform;
    private FootstepNode endNode;
 
    private PlanarRegionsList planarRegionsList;
@@ -66,6 +72,20 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
    private final FootstepNodeSnapper snapper;
 
    private final ArrayList<StartAndGoalListener> startAndGoalListeners = new ArrayList<>();
+   private final ArrayList<AnytimePlanListener> anytimePlanListeners = new ArrayList<>();
+
+   private final TLongObjectHashMap<FootstepNode> inconsistentNodes = new TLongObjectHashMap<>();
+
+   /**
+    * Cost of the valid edges checked by previous plans by parent and child key. Rejected children are checked again, so the
+    * planner listeners are told why they are rejected in every plan.
+    */
+   private final TLongObjectHashMap<TLongDoubleHashMap> edgeCostCache = new TLongObjectHashMap<>();
+   /** Parents of the cached edges used by the current plan, the edges of other parents are evicted by the next plan. */
+   private final TLongHashSet edgeCostCacheParentsInUse = new TLongHashSet();
+   private FootstepNode previousStartNode;
+
+   private ForkJoinPool expansionPool = null;
 
    private final YoDouble timeout = new YoDouble("footstepPlannerTimeout", registry);
    private final YoDouble planningTime = new YoDouble("PlanningTime", registry);
@@ -78,6 +98,15 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
    private final YoBoolean validGoalNode = new YoBoolean("validGoalNode", registry);
    private final YoBoolean abortPlanning = new YoBoolean("abortPlanning", registry);
 
+   private final YoDouble anytimeInitialInflation = new YoDouble("anytimeInitialInflation", registry);
+   private final YoDouble anytimeInflationDecrement = new YoDouble("anytimeInflationDecrement", registry);
+   private final YoDouble heuristicInflation = new YoDouble("heuristicInflation", registry);
+   private final YoDouble suboptimalityBound = new YoDouble("suboptimalityBound", registry);
+   private final YoDouble reportedPlanCost = new YoDouble("reportedPlanCost", registry);
+
+   private final YoBoolean incrementalReplanning = new YoBoolean("incrementalReplanning", registry);
+   private final YoLong numberOfReusedEdges = new YoLong("NumberOfReusedEdges", registry);
+
    public AStarFootstepPlanner(FootstepPlannerParameters parameters, FootstepNodeChecker nodeChecker, CostToGoHeuristics heuristics,
                                FootstepNodeExpansion expansion, FootstepCost stepCostCalculator, FootstepNodeSnapper snapper, YoVariableRegistry parentRegistry)
    {
@@ -96,7 +125,10 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
       this.listener = listener;
       this.snapper = snapper;
       this.graph = new FootstepGraph();
+      this.graph.setCostDecreaseListener(this::updateNodeWithDecreasedCost);
       timeout.set(Double.POSITIVE_INFINITY);
+      anytimeInitialInflation.set(1.0);
+      anytimeInflationDecrement.set(0.5);
       this.initialize.set(true);
 
       parentRegistry.addChild(registry);
@@ -107,6 +139,83 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
       startAndGoalListeners.add(startAndGoalListener);
    }
 
+   public void addAnytimePlanListener(AnytimePlanListener anytimePlanListener)
+   {
+      anytimePlanListeners.add(anytimePlanListener);
+   }
+
+   /**
+    * Enables anytime planning in the style of ARA*. The heuristic is first inflated by the given factor so a plan is found
+    * quickly. Every time the goal is reached the plan is reported to the {@link AnytimePlanListener}s together with a bound on
+    * its suboptimality, the inflation is lowered by the decrement and the search continues from the nodes it already has,
+    * until the inflation reaches one or the timeout expires. The best plan found so far is returned in either case.
+    *
+    * The bound is relative to the heuristic as configured, so it only holds for the true plan cost if the heuristic weight
+    * is at most one.
+    *
+    * @param initialInflation factor applied to the heuristic for the first search, 1 to disable anytime planning
+    * @param inflationDecrement amount the inflation is lowered by after each plan
+    */
+   public void setAnytimePlanning(double initialInflation, double inflationDecrement)
+   {
+      if (initialInflation < 1.0)
+         throw new IllegalArgumentException("The heuristic inflation must be at least one, got " + initialInflation);
+      if (inflationDecrement <= 0.0)
+         throw new IllegalArgumentException("The inflation decrement must be positive, got " + inflationDecrement);
+
+      anytimeInitialInflation.set(initialInflation);
+      anytimeInflationDecrement.set(inflationDecrement);
+   }
+
+   /**
+    * Bound on the suboptimality of the last plan found in anytime mode, NaN if no plan was found.
+    */
+   public double getSuboptimalityBound()
+   {
+      return suboptimalityBound.getDoubleValue();
+   }
+
+   /**
+    * Enables incremental replanning for consecutive plans on changing planar regions, e.g. while walking with perception
+    * updating the regions. The cost of the valid edges checked by the last plan is kept for the next plan and new planar regions
+    * only invalidate the edges and snap data close to the regions that were added, removed or modified. Edges that are still
+    * valid are reused without running the node checker again.
+    *
+    * The cached edges do not account for changes of the planner parameters, {@link #clearReplanningCaches()} must be called
+    * when they change.
+    */
+   public void setIncrementalReplanning(boolean incrementalReplanning)
+   {
+      this.incrementalReplanning.set(incrementalReplanning);
+      if (!incrementalReplanning)
+         edgeCostCache.clear();
+   }
+
+   /**
+    * Discards all data kept for incremental replanning, so the next plan is computed from scratch.
+    */
+   public void clearReplanningCaches()
+   {
+      edgeCostCache.clear();
+      nodeChecker.setPlanarRegions(planarRegionsList);
+      snapper.setPlanarRegions(planarRegionsList);
+   }
+
+   /**
+    * Sets the number of threads used to prepare the children of an expanded node, e.g. to snap them to the planar regions.
+    * The children are still checked, costed and added to the graph in the order of the expansion, so the resulting plan does
+    * not depend on the number of threads.
+    *
+    * @param numberOfThreads 1 to prepare nodes on the planning thread
+    */
+   public void setNumberOfThreads(int numberOfThreads)
+   {
+      if (expansionPool != null)
+         expansionPool.shutdown();
+
+      expansionPool = numberOfThreads > 1 ? new ForkJoinPool(numberOfThreads) : null;
+   }
+
    @Override
    public void setTimeout(double timeoutInSeconds)
    {
@@ -124,7 +233,7 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
          side = defaultStartNodeSide;
       }
       startNode = new FootstepNode(stanceFootPose.getX(), stanceFootPose.getY(), stanceFootPose.getYaw(), side);
-      RigidBodyTransform startNodeSnapTransform = FootstepNodeSnappingTools.computeSnapTransform(startNode, stanceFootPose);
+      startNodeSnapTransform = FootstepNodeSnappingTools.computeSnapTransform(startNode, stanceFootPose);
       snapper.addSnapData(startNode, new FootstepNodeSnapData(startNodeSnapTransform));
       nodeChecker.addStartNode(startNode, startNodeSnapTransform);
 
@@ -178,9 +287,76 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
    @Override
    public void setPlanarRegions(PlanarRegionsList planarRegionsList)
    {
-      nodeChecker.setPlanarRegions(planarRegionsList);
-      snapper.setPlanarRegions(planarRegionsList);
+      boolean hadPlanarRegions = hasPlanarRegions(this.planarRegionsList);
       this.planarRegionsList = planarRegionsList;
+
+      // Without regions every node is valid, so going from or to no regions changes the validity of all nodes
+      if (!incrementalReplanning.getBooleanValue() || hadPlanarRegions != hasPlanarRegions(planarRegionsList))
+      {
+         edgeCostCache.clear();
+         nodeChecker.setPlanarRegions(planarRegionsList);
+         snapper.setPlanarRegions(planarRegionsList);
+         return;
+      }
+
+      nodeChecker.updatePlanarRegions(planarRegionsList);
+      snapper.updatePlanarRegions(planarRegionsList);
+      invalidateEdgesNearRegions(snapper.getPlanarRegionsIndex().getRegionsChangedByLastUpdate());
+   }
+
+   private static boolean hasPlanarRegions(PlanarRegionsList planarRegionsList)
+   {
+      return planarRegionsList != null && !planarRegionsList.isEmpty();
+   }
+
+   private void invalidateEdgesNearRegions(List<PlanarRegion> changedRegions)
+   {
+      if (changedRegions.isEmpty())
+         return;
+
+      // An edge is checked using the regions around both nodes and the body at mid stance
+      double bodyDiagonal = EuclidCoreTools.norm(parameters.getBodyBoxDepth(), parameters.getBodyBoxWidth());
+      double distance = 0.5 + Math.max(parameters.getMinimumDistanceFromCliffBottoms(), 0.5 * parameters.getMaximumStepReach() + 1.25 * bodyDiagonal);
+
+      edgeCostCache.retainEntries((parentKey, childCosts) ->
+      {
+         if (isKeyCloseToRegions(parentKey, distance, changedRegions))
+            return false;
+         childCosts.retainEntries((childKey, cost) -> !isKeyCloseToRegions(childKey, distance, changedRegions));
+         return !childCosts.isEmpty();
+      });
+   }
+
+   private static boolean isKeyCloseToRegions(long nodeKey, double distance, List<PlanarRegion> planarRegions)
+   {
+      return FootstepNodeSnapper.isCloseToAnyRegion(FootstepNode.getXFromLongKey(nodeKey), FootstepNode.getYFromLongKey(nodeKey), distance, planarRegions);
+   }
+
+   /**
+    * Only keeps the edges of the nodes expanded by the last plan, so the cache does not grow with every replan while walking.
+    */
+   private void evictEdgesOutsideOfLastSearch()
+   {
+      edgeCostCache.retainEntries((parentKey, childCosts) -> edgeCostCacheParentsInUse.contains(parentKey));
+      edgeCostCacheParentsInUse.clear();
+   }
+
+   /**
+    * The start node is snapped using the actual stance foot pose, so the edges to and from a start node are not reused.
+    */
+   private void invalidateEdgesOfStartNodes()
+   {
+      long startKey = startNode.getLongKey();
+      long previousStartKey = previousStartNode == null ? FootstepNode.NO_KEY : previousStartNode.getLongKey();
+      edgeCostCache.remove(startKey);
+      edgeCostCache.remove(previousStartKey);
+      edgeCostCache.retainEntries((parentKey, childCosts) ->
+      {
+         childCosts.remove(startKey);
+         childCosts.remove(previousStartKey);
+         return !childCosts.isEmpty();
+      });
+      previousStartNode = startNode;
    }
 
    @Override
@@ -274,9 +450,19 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
       if (planarRegionsList != null)
          checkStartHasPlanarRegion();
 
+      if (incrementalReplanning.getBooleanValue())
+      {
+         evictEdgesOutsideOfLastSearch();
+         snapper.evictSnapDataOutsideOfLastSearch();
+         invalidateEdgesOfStartNodes();
+      }
+
       graph.initialize(startNode);
-      NodeComparator nodeComparator = new NodeComparator(graph, goalNodes, heuristics);
-      stack = new PriorityQueue<>(nodeComparator);
+      stack.clear();
+      inconsistentNodes.clear();
+      heuristicInflation.set(anytimeInitialInflation.getDoubleValue());
+      suboptimalityBound.set(Double.NaN);
+      reportedPlanCost.set(Double.POSITIVE_INFINITY);
 
       validGoalNode.set(true);
       for (RobotSide robotSide : RobotSide.values)
@@ -293,8 +479,8 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
          this.validGoalNode.set(validGoalNode && this.validGoalNode.getBooleanValue());
       }
 
-      stack.add(startNode);
-      expandedNodes = new HashSet<>();
+      stack.addOrUpdate(startNode, computeNodeCost(startNode));
+      expandedNodes.clear();
       endNode = null;
 
       if (listener != null)
@@ -317,6 +503,11 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
          if (debug)
             PrintTools.info("adding plane at start foot");
          addPlanarRegionAtZeroHeight(startNode.getX(), startNode.getY());
+
+         // Let the snapper and checkers index the new region, this drops their caches so the start node is added again
+         setPlanarRegions(planarRegionsList);
+         snapper.addSnapData(startNode, new FootstepNodeSnapData(startNodeSnapTransform));
+         nodeChecker.addStartNode(startNode, startNodeSnapTransform);
       }
    }
 
@@ -353,6 +544,7 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
       long rejectedNodesCount = 0;
       long expandedNodesCount = 0;
       long iterations = 0;
+      long reusedEdgesCount = 0;
 
       while (!stack.isEmpty())
       {
@@ -361,6 +553,7 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
             boolean success = initialize();
             rejectedNodesCount = 0;
             expandedNodesCount = 0;
+            reusedEdgesCount = 0;
             iterations = 0;
             initialize.set(false);
             if (!success)
@@ -370,34 +563,71 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
          iterations++;
 
          FootstepNode nodeToExpand = stack.poll();
-         if (expandedNodes.contains(nodeToExpand))
+         if (!expandedNodes.add(nodeToExpand.getLongKey()))
             continue;
-         expandedNodes.add(nodeToExpand);
 
          if (checkAndHandleNodeAtGoal(nodeToExpand))
-            break;
+         {
+            if (!isAnytimePlanning() || !improvePlan(nodeToExpand))
+               break;
+            continue;
+         }
 
          checkAndHandleBestEffortNode(nodeToExpand);
 
          HashSet<FootstepNode> neighbors = nodeExpansion.expandNode(nodeToExpand);
          expandedNodesCount += neighbors.size();
+
+         TLongDoubleHashMap cachedEdgeCosts = incrementalReplanning.getBooleanValue() ? getOrCreateCachedEdgeCosts(nodeToExpand) : null;
+
+         if (expansionPool != null)
+            nodeChecker.prepareNodes(neighbors, nodeToExpand, expansionPool);
+
          for (FootstepNode neighbor : neighbors)
          {
             if (listener != null)
                listener.addNode(neighbor, nodeToExpand);
 
+            double cost;
+            if (cachedEdgeCosts != null && cachedEdgeCosts.containsKey(neighbor.getLongKey()))
+            {
+               cost = cachedEdgeCosts.get(neighbor.getLongKey());
+               reusedEdgesCount++;
+            }
             // Checks if the footstep (center of the foot) is on a planar region
-            if (!nodeChecker.isNodeValid(neighbor, nodeToExpand))
+            else if (nodeChecker.isNodeValid(neighbor, nodeToExpand))
+            {
+               cost = stepCostCalculator.compute(nodeToExpand, neighbor);
+               if (cachedEdgeCosts != null)
+                  cachedEdgeCosts.put(neighbor.getLongKey(), cost);
+            }
+            else
+            {
+               cost = Double.POSITIVE_INFINITY;
+            }
+
+            if (Double.isInfinite(cost))
             {
                rejectedNodesCount++;
                continue;
             }
 
-            double cost = stepCostCalculator.compute(nodeToExpand, neighbor);
+            boolean expanded = expandedNodes.contains(neighbor.getLongKey());
+            double previousCostFromStart = expanded ? graph.getCostFromStart(neighbor) : Double.NaN;
+
             graph.checkAndSetEdge(nodeToExpand, neighbor, cost);
 
-            if (!parameters.getReturnBestEffortPlan() || endNode == null || stack.comparator().compare(neighbor, endNode) < 0)
-               stack.add(neighbor);
+            if (expanded)
+            {
+               // In anytime mode nodes that got cheaper after their expansion are queued again in the next search
+               if (isAnytimePlanning() && graph.getCostFromStart(neighbor) < previousCostFromStart)
+                  inconsistentNodes.put(neighbor.getLongKey(), neighbor);
+               continue;
+            }
+
+            double nodeCost = computeNodeCost(neighbor);
+            if (!parameters.getReturnBestEffortPlan() || endNode == null || nodeCost < computeNodeCost(endNode))
+               stack.addOrUpdate(neighbor, nodeCost);
          }
 
          if (listener != null)
@@ -418,6 +648,94 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
       percentRejectedNodes.set(100.0 * rejectedNodesCount / expandedNodesCount);
       itarationCount.set(iterations);
       numberOfExpandedNodes.set(expandedNodesCount / Math.max(iterations, 1));
+      numberOfReusedEdges.set(reusedEdgesCount);
+
+      return true;
+   }
+
+   private TLongDoubleHashMap getOrCreateCachedEdgeCosts(FootstepNode parentNode)
+   {
+      edgeCostCacheParentsInUse.add(parentNode.getLongKey());
+      TLongDoubleHashMap cachedEdgeCosts = edgeCostCache.get(parentNode.getLongKey());
+      if (cachedEdgeCosts == null)
+      {
+         cachedEdgeCosts = new TLongDoubleHashMap();
+         edgeCostCache.put(parentNode.getLongKey(), cachedEdgeCosts);
+      }
+      return cachedEdgeCosts;
+   }
+
+   /**
+    * Called by the graph when a new edge lowers the cost of a node below the end of the edge. A queued node is moved up in the
+    * heap, and in anytime mode an expanded node is queued again in the next search.
+    */
+   private void updateNodeWithDecreasedCost(FootstepNode node)
+   {
+      if (stack.contains(node))
+         stack.addOrUpdate(node, computeNodeCost(node));
+      else if (isAnytimePlanning() && expandedNodes.contains(node.getLongKey()))
+         inconsistentNodes.put(node.getLongKey(), node);
+   }
+
+   private double computeNodeCost(FootstepNode node)
+   {
+      return graph.getCostFromStart(node) + heuristicInflation.getDoubleValue() * heuristics.compute(node, goalNodes.get(node.getRobotSide()));
+   }
+
+   private double computeUninflatedNodeCost(FootstepNode node)
+   {
+      return graph.getCostFromStart(node) + heuristics.compute(node, goalNodes.get(node.getRobotSide()));
+   }
+
+   private boolean isAnytimePlanning()
+   {
+      return anytimeInitialInflation.getDoubleValue() > 1.0;
+   }
+
+   /**
+    * Reports the plan through the goal node and prepares the search for the next, less inflated, iteration.
+    *
+    * @return whether the plan can still be improved
+    */
+   private boolean improvePlan(FootstepNode goalNode)
+   {
+      // The goal stays a candidate of the next search, like in ARA* where it is never expanded
+      expandedNodes.remove(goalNode.getLongKey());
+      inconsistentNodes.put(goalNode.getLongKey(), goalNode);
+
+      double lowerBound = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < stack.size(); i++)
+         lowerBound = Math.min(lowerBound, computeUninflatedNodeCost(stack.get(i)));
+      for (FootstepNode node : inconsistentNodes.valueCollection())
+         lowerBound = Math.min(lowerBound, computeUninflatedNodeCost(node));
+
+      double planCost = graph.getCostFromStart(endNode);
+      double bound = Math.min(heuristicInflation.getDoubleValue(), planCost / lowerBound);
+      suboptimalityBound.set(Math.max(bound, 1.0));
+
+      // A less inflated search often ends with the same plan, only report the ones that are cheaper
+      if (planCost < reportedPlanCost.getDoubleValue())
+      {
+         reportedPlanCost.set(planCost);
+
+         if (!anytimePlanListeners.isEmpty())
+         {
+            FootstepPlan plan = getPlan();
+            for (int i = 0; i < anytimePlanListeners.size(); i++)
+               anytimePlanListeners.get(i).planImproved(plan, suboptimalityBound.getDoubleValue());
+         }
+      }
+
+      if (suboptimalityBound.getDoubleValue() <= 1.0)
+         return false;
+
+      heuristicInflation.set(Math.max(heuristicInflation.getDoubleValue() - anytimeInflationDecrement.getDoubleValue(), 1.0));
+
+      for (FootstepNode node : inconsistentNodes.valueCollection())
+         stack.addOrUpdate(node, 0.0);
+      inconsistentNodes.clear();
+      stack.recomputeCosts(this::computeNodeCost);
+      expandedNodes.clear();
 
       return true;
    }
@@ -431,7 +749,8 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
       if (goalNodes.get(nodeSide).equals(nodeToExpand))
       {
          endNode = goalNodes.get(nodeSide.getOppositeSide());
-         graph.checkAndSetEdge(nodeToExpand, endNode, 0.0);
+         if (!graph.doesEdgeExist(nodeToExpand, endNode))
+            graph.checkAndSetEdge(nodeToExpand, endNode, 0.0);
          return true;
       }
 
@@ -443,7 +762,7 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
       if (!parameters.getReturnBestEffortPlan())
          return;
 
-      if (graph.getPathFromStart(nodeToExpand).size() - 1 < parameters.getMinimumStepsForBestEffortPlan())
+      if (graph.getNumberOfStepsFromStart(nodeToExpand) < parameters.getMinimumStepsForBestEffortPlan())
          return;
 
       if (endNode == null || heuristics.compute(nodeToExpand, goalNodes.get(nodeToExpand.getRobotSide())) < heuristics
@@ -462,6 +781,9 @@ public class AStarFootstepPlanner implements BodyPathAndFootstepPlanner
       if (!graph.doesNodeExist(endNode))
          return FootstepPlanningResult.TIMED_OUT_BEFORE_SOLUTION;
 
+      if (isAnytimePlanning() && suboptimalityBound.getDoubleValue() > 1.0)
+         return FootstepPlanningResult.SUB_OPTIMAL_SOLUTION;
+
       if (heuristics.getWeight() <= 1.0)
          return FootstepPlanningResult.OPTIMAL_SOLUTION;
 
@@ -10,6 +10,7 @@ import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnapAnd
 import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.FootstepNodeSnapper;
 import us.ihmc.footstepPlanning.graphSearch.footstepSnapping.SimplePlanarRegionFootstepNodeSnapper;
 import us.ihmc.footstepPlanning.graphSearch.heuristics.BodyPathHeuristics;
+import us.ihmc.footstepPlanning.graphSearch.listeners.AnytimePlanListener;
 import us.ihmc.footstepPlanning.graphSearch.nodeChecking.FootstepNodeChecker;
 import us.ihmc.footstepPlanning.graphSearch.nodeChecking.SnapBasedNodeChecker;
 import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.FootstepNodeExpansion;
@@ -32,7 +33,7 @@ public class BodyPathBasedAStarPlanner implements FootstepPlanner
    private static final RobotSide defaultStartNodeSide = RobotSide.LEFT;
 
    private final BodyPathPlanner bodyPathPlanner;
-   private final FootstepPlanner footstepPlanner;
+   private final AStarFootstepPlanner footstepPlanner;
 
    private final BodyPathHeuristics heuristics;
    private final YoDouble planningHorizonLength;
@@ -68,6 +69,19 @@ public class BodyPathBasedAStarPlanner implements FootstepPlanner
       parentRegistry.addChild(registry);
    }
 
+   /**
+    * See {@link AStarFootstepPlanner#setAnytimePlanning(double, double)}.
+    */
+   public void setAnytimePlanning(double initialInflation, double inflationDecrement)
+   {
+      footstepPlanner.setAnytimePlanning(initialInflation, inflationDecrement);
+   }
+
+   public void addAnytimePlanListener(AnytimePlanListener anytimePlanListener)
+   {
+      footstepPlanner.addAnytimePlanListener(anytimePlanListener);
+   }
+
    @Override
    public void setInitialStanceFoot(FramePose3D stanceFootPose, RobotSide side)
    {
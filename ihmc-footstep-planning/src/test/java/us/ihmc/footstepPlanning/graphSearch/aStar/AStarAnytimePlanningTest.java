@@ -0,0 +1,80 @@
+package us.ihmc.footstepPlanning.graphSearch.aStar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Test;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.ParameterBasedNodeExpansion;
+import us.ihmc.footstepPlanning.graphSearch.parameters.DefaultFootstepPlanningParameters;
+import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParameters;
+import us.ihmc.footstepPlanning.graphSearch.planners.AStarFootstepPlanner;
+import us.ihmc.footstepPlanning.testTools.PlannerTestEnvironments;
+import us.ihmc.footstepPlanning.testTools.PlannerTestEnvironments.PlannerTestData;
+import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.robotics.robotSide.SideDependentList;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+
+public class AStarAnytimePlanningTest
+{
+   @After
+   public void tearDown()
+   {
+      ReferenceFrameTools.clearWorldFrameTree();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 5.0)
+   @Test(timeout = 60000)
+   public void testPlansImproveUntilBoundIsOne()
+   {
+      PlannerTestData testData = PlannerTestEnvironments.getTestData(PlannerTestEnvironments.staircase);
+
+      FootstepPlannerParameters parameters = new DefaultFootstepPlanningParameters();
+      SideDependentList<ConvexPolygon2D> footPolygons = PlannerTools.createDefaultFootPolygons();
+      ParameterBasedNodeExpansion expansion = new ParameterBasedNodeExpansion(parameters);
+      YoVariableRegistry registry = new YoVariableRegistry("testRegistry");
+      AStarFootstepPlanner planner = AStarFootstepPlanner.createPlanner(parameters, null, footPolygons, expansion, registry);
+      planner.setAnytimePlanning(3.0, 0.5);
+
+      ArrayList<FootstepPlan> plans = new ArrayList<>();
+      TDoubleArrayList bounds = new TDoubleArrayList();
+      TDoubleArrayList costs = new TDoubleArrayList();
+      YoDouble reportedPlanCost = (YoDouble) registry.getVariable(AStarFootstepPlanner.class.getSimpleName(), "reportedPlanCost");
+      planner.addAnytimePlanListener((plan, suboptimalityBound) ->
+      {
+         plans.add(plan);
+         bounds.add(suboptimalityBound);
+         costs.add(reportedPlanCost.getDoubleValue());
+      });
+
+      FootstepPlan plan = PlannerTools.runPlanner(planner, testData.getStartPose(), testData.getStartSide(), testData.getGoalPose(),
+                                                  testData.getPlanarRegionsList(), true);
+
+      assertNotNull(plan);
+      assertFalse(plans.isEmpty());
+      assertEquals(plan.getNumberOfSteps(), plans.get(plans.size() - 1).getNumberOfSteps());
+
+      for (int i = 0; i < bounds.size(); i++)
+      {
+         assertTrue(bounds.get(i) >= 1.0);
+         assertTrue(bounds.get(i) <= 3.0);
+      }
+      // Only cheaper plans are reported
+      for (int i = 1; i < costs.size(); i++)
+      {
+         assertTrue(costs.get(i) < costs.get(i - 1));
+      }
+      assertEquals(1.0, planner.getSuboptimalityBound(), 1.0e-10);
+   }
+}
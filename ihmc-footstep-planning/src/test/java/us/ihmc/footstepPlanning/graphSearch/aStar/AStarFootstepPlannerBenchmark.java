@@ -0,0 +1,127 @@
+package us.ihmc.footstepPlanning.graphSearch.aStar;
+
+import java.util.HashSet;
+import java.util.List;
+
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.referenceFrame.ReferenceFrame;
+import us.ihmc.footstepPlanning.FootstepPlanningResult;
+import us.ihmc.footstepPlanning.FootstepPlannerGoal;
+import us.ihmc.footstepPlanning.FootstepPlannerGoalType;
+import us.ihmc.footstepPlanning.FootstepPlannerType;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.FootstepNodeExpansion;
+import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.ParameterBasedNodeExpansion;
+import us.ihmc.footstepPlanning.graphSearch.parameters.DefaultFootstepPlanningParameters;
+import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParameters;
+import us.ihmc.footstepPlanning.graphSearch.planners.AStarFootstepPlanner;
+import us.ihmc.footstepPlanning.tools.FootstepPlannerDataExporter;
+import us.ihmc.footstepPlanning.tools.FootstepPlannerIOTools;
+import us.ihmc.footstepPlanning.tools.FootstepPlannerIOTools.FootstepPlannerUnitTestDataset;
+import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.robotSide.SideDependentList;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+/**
+ * Plans every A* dataset of the footstep planner data set tests a number of times and prints the node expansion rate.
+ *
+ * Run before and after changes to the planner internals to compare. The first iterations are not reported to let the JIT warm up.
+ * The optional first argument is the number of threads used to prepare the children of expanded nodes.
+ */
+public class AStarFootstepPlannerBenchmark
+{
+   private static final int WARMUP_ITERATIONS = 3;
+   private static final int ITERATIONS = 10;
+
+   public static void main(String[] args)
+   {
+      int numberOfThreads = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+      List<FootstepPlannerUnitTestDataset> datasets = FootstepPlannerIOTools.loadAllFootstepPlannerDatasetsWithoutOcclusions(FootstepPlannerDataExporter.class);
+
+      FootstepPlannerParameters parameters = new DefaultFootstepPlanningParameters();
+      SideDependentList<ConvexPolygon2D> footPolygons = PlannerTools.createDefaultFootPolygons();
+
+      long totalExpansions = 0;
+      double totalTime = 0.0;
+
+      for (FootstepPlannerUnitTestDataset dataset : datasets)
+      {
+         if (!dataset.getTypes().contains(FootstepPlannerType.A_STAR))
+            continue;
+
+         CountingExpansion expansion = new CountingExpansion(new ParameterBasedNodeExpansion(parameters));
+         AStarFootstepPlanner planner = AStarFootstepPlanner.createPlanner(parameters, null, footPolygons, expansion, new YoVariableRegistry("benchmark"));
+         planner.setTimeout(dataset.getTimeout(FootstepPlannerType.A_STAR));
+         planner.setNumberOfThreads(numberOfThreads);
+
+         long datasetExpansions = 0;
+         double datasetTime = 0.0;
+         FootstepPlanningResult result = null;
+
+         for (int i = 0; i < WARMUP_ITERATIONS + ITERATIONS; i++)
+         {
+            setupPlanner(planner, dataset);
+
+            expansion.expansions = 0;
+            long startTime = System.nanoTime();
+            result = planner.plan();
+            double time = (System.nanoTime() - startTime) * 1.0e-9;
+
+            if (i >= WARMUP_ITERATIONS)
+            {
+               datasetExpansions += expansion.expansions;
+               datasetTime += time;
+            }
+         }
+
+         totalExpansions += datasetExpansions;
+         totalTime += datasetTime;
+
+         System.out.println(String.format("%-60s %-25s %8d expansions %8.3f s/plan %12.0f expansions/s", dataset.getDatasetName(), result,
+                                          datasetExpansions / ITERATIONS, datasetTime / ITERATIONS, datasetExpansions / datasetTime));
+         planner.setNumberOfThreads(1);
+      }
+
+      System.out.println(String.format("Total: %d expansions in %.3f s, %.0f expansions/s", totalExpansions, totalTime, totalExpansions / totalTime));
+   }
+
+   private static void setupPlanner(AStarFootstepPlanner planner, FootstepPlannerUnitTestDataset dataset)
+   {
+      planner.setPlanarRegions(dataset.getPlanarRegionsList());
+
+      FramePose3D startPose = new FramePose3D(ReferenceFrame.getWorldFrame());
+      startPose.setPosition(dataset.getStart());
+      if (dataset.hasStartOrientation())
+         startPose.setOrientation(dataset.getStartOrientation());
+      planner.setInitialStanceFoot(startPose, RobotSide.LEFT);
+
+      FramePose3D goalPose = new FramePose3D(ReferenceFrame.getWorldFrame());
+      goalPose.setPosition(dataset.getGoal());
+      if (dataset.hasGoalOrientation())
+         goalPose.setOrientation(dataset.getGoalOrientation());
+      FootstepPlannerGoal goal = new FootstepPlannerGoal();
+      goal.setFootstepPlannerGoalType(FootstepPlannerGoalType.POSE_BETWEEN_FEET);
+      goal.setGoalPoseBetweenFeet(goalPose);
+      planner.setGoal(goal);
+   }
+
+   private static class CountingExpansion implements FootstepNodeExpansion
+   {
+      private final FootstepNodeExpansion expansion;
+      private long expansions = 0;
+
+      private CountingExpansion(FootstepNodeExpansion expansion)
+      {
+         this.expansion = expansion;
+      }
+
+      @Override
+      public HashSet<FootstepNode> expandNode(FootstepNode node)
+      {
+         expansions++;
+         return expansion.expandNode(node);
+      }
+   }
+}
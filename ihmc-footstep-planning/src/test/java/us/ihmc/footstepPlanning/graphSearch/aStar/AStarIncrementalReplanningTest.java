@@ -0,0 +1,162 @@
+package us.ihmc.footstepPlanning.graphSearch.aStar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.axisAngle.AxisAngle;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.graph.visualization.BipedalFootstepPlannerNodeRejectionReason;
+import us.ihmc.footstepPlanning.graphSearch.listeners.BipedalFootstepPlannerListener;
+import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.ParameterBasedNodeExpansion;
+import us.ihmc.footstepPlanning.graphSearch.parameters.DefaultFootstepPlanningParameters;
+import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParameters;
+import us.ihmc.footstepPlanning.graphSearch.planners.AStarFootstepPlanner;
+import us.ihmc.footstepPlanning.testTools.PlannerTestEnvironments;
+import us.ihmc.footstepPlanning.testTools.PlannerTestEnvironments.PlannerTestData;
+import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.robotSide.SideDependentList;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class AStarIncrementalReplanningTest
+{
+   private static final double EPSILON = 1.0e-10;
+
+   @After
+   public void tearDown()
+   {
+      ReferenceFrameTools.clearWorldFrameTree();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 5.0)
+   @Test(timeout = 60000)
+   public void testReplanningMatchesPlanningFromScratch()
+   {
+      PlannerTestData testData = PlannerTestEnvironments.getTestData(PlannerTestEnvironments.staircase);
+      PlanarRegionsList planarRegionsList = testData.getPlanarRegionsList();
+
+      AStarFootstepPlanner incrementalPlanner = createPlanner();
+      incrementalPlanner.setIncrementalReplanning(true);
+
+      FootstepPlan firstPlan = runPlanner(incrementalPlanner, testData, planarRegionsList.copy());
+      assertNotNull(firstPlan);
+
+      // Same regions again, e.g. from a new message
+      FootstepPlan secondPlan = runPlanner(incrementalPlanner, testData, planarRegionsList.copy());
+      assertPlansEqual(firstPlan, secondPlan);
+
+      // One region is moved, the plan has to match the one of a planner that starts from scratch
+      PlanarRegionsList modifiedRegions = planarRegionsList.copy();
+      PlanarRegion movedRegion = modifiedRegions.getPlanarRegion(modifiedRegions.getNumberOfPlanarRegions() / 2);
+      movedRegion.transform(new RigidBodyTransform(new AxisAngle(), new Vector3D(0.0, 0.0, 0.05)));
+
+      FootstepPlan replannedPlan = runPlanner(incrementalPlanner, testData, modifiedRegions.copy());
+      FootstepPlan expectedPlan = runPlanner(createPlanner(), testData, modifiedRegions.copy());
+      assertPlansEqual(expectedPlan, replannedPlan);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 5.0)
+   @Test(timeout = 60000)
+   public void testRejectionsAreReportedWhenReplanning()
+   {
+      PlannerTestData testData = PlannerTestEnvironments.getTestData(PlannerTestEnvironments.staircase);
+      PlanarRegionsList planarRegionsList = testData.getPlanarRegionsList();
+
+      RejectionCounter rejectionCounter = new RejectionCounter();
+      AStarFootstepPlanner incrementalPlanner = createPlanner(rejectionCounter);
+      incrementalPlanner.setIncrementalReplanning(true);
+
+      assertNotNull(runPlanner(incrementalPlanner, testData, planarRegionsList.copy()));
+      int numberOfRejections = rejectionCounter.numberOfRejections;
+      assertTrue(numberOfRejections > 0);
+
+      // The valid edges are reused, the rejected nodes are checked and reported again
+      rejectionCounter.numberOfRejections = 0;
+      assertNotNull(runPlanner(incrementalPlanner, testData, planarRegionsList.copy()));
+      assertEquals(numberOfRejections, rejectionCounter.numberOfRejections);
+   }
+
+   private static AStarFootstepPlanner createPlanner()
+   {
+      return createPlanner(null);
+   }
+
+   private static AStarFootstepPlanner createPlanner(BipedalFootstepPlannerListener listener)
+   {
+      FootstepPlannerParameters parameters = new DefaultFootstepPlanningParameters();
+      SideDependentList<ConvexPolygon2D> footPolygons = PlannerTools.createDefaultFootPolygons();
+      ParameterBasedNodeExpansion expansion = new ParameterBasedNodeExpansion(parameters);
+      return AStarFootstepPlanner.createPlanner(parameters, listener, footPolygons, expansion, new YoVariableRegistry("testRegistry"));
+   }
+
+   private static FootstepPlan runPlanner(AStarFootstepPlanner planner, PlannerTestData testData, PlanarRegionsList planarRegionsList)
+   {
+      return PlannerTools.runPlanner(planner, testData.getStartPose(), testData.getStartSide(), testData.getGoalPose(), planarRegionsList, false);
+   }
+
+   private static void assertPlansEqual(FootstepPlan expectedPlan, FootstepPlan actualPlan)
+   {
+      if (expectedPlan == null || actualPlan == null)
+      {
+         assertTrue(expectedPlan == actualPlan);
+         return;
+      }
+
+      assertEquals(expectedPlan.getNumberOfSteps(), actualPlan.getNumberOfSteps());
+
+      FramePose3D expectedPose = new FramePose3D();
+      FramePose3D actualPose = new FramePose3D();
+      for (int i = 0; i < expectedPlan.getNumberOfSteps(); i++)
+      {
+         assertEquals(expectedPlan.getFootstep(i).getRobotSide(), actualPlan.getFootstep(i).getRobotSide());
+         expectedPlan.getFootstep(i).getSoleFramePose(expectedPose);
+         actualPlan.getFootstep(i).getSoleFramePose(actualPose);
+         assertTrue(expectedPose.epsilonEquals(actualPose, EPSILON));
+      }
+   }
+
+   private static class RejectionCounter implements BipedalFootstepPlannerListener
+   {
+      private int numberOfRejections = 0;
+
+      @Override
+      public void addNode(FootstepNode node, FootstepNode previousNode)
+      {
+      }
+
+      @Override
+      public void rejectNode(FootstepNode rejectedNode, FootstepNode parentNode, BipedalFootstepPlannerNodeRejectionReason reason)
+      {
+         numberOfRejections++;
+      }
+
+      @Override
+      public void plannerFinished(List<FootstepNode> plan)
+      {
+      }
+
+      @Override
+      public void reportLowestCostNodeList(List<FootstepNode> plan)
+      {
+      }
+
+      @Override
+      public void tickAndUpdate()
+      {
+      }
+   }
+}
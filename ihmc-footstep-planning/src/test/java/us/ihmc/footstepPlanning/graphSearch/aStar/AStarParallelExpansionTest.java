@@ -0,0 +1,70 @@
+package us.ihmc.footstepPlanning.graphSearch.aStar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.referenceFrame.FramePose3D;
+import us.ihmc.euclid.referenceFrame.tools.ReferenceFrameTools;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.graphSearch.nodeExpansion.ParameterBasedNodeExpansion;
+import us.ihmc.footstepPlanning.graphSearch.parameters.DefaultFootstepPlanningParameters;
+import us.ihmc.footstepPlanning.graphSearch.parameters.FootstepPlannerParameters;
+import us.ihmc.footstepPlanning.graphSearch.planners.AStarFootstepPlanner;
+import us.ihmc.footstepPlanning.testTools.PlannerTestEnvironments;
+import us.ihmc.footstepPlanning.testTools.PlannerTestEnvironments.PlannerTestData;
+import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.robotics.robotSide.SideDependentList;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+
+public class AStarParallelExpansionTest
+{
+   @After
+   public void tearDown()
+   {
+      ReferenceFrameTools.clearWorldFrameTree();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 5.0)
+   @Test(timeout = 60000)
+   public void testParallelPlanMatchesSerialPlan()
+   {
+      PlannerTestData testData = PlannerTestEnvironments.getTestData(PlannerTestEnvironments.staircase);
+
+      FootstepPlan serialPlan = plan(testData, 1);
+      FootstepPlan parallelPlan = plan(testData, 4);
+
+      assertNotNull(serialPlan);
+      assertNotNull(parallelPlan);
+      assertEquals(serialPlan.getNumberOfSteps(), parallelPlan.getNumberOfSteps());
+
+      FramePose3D serialPose = new FramePose3D();
+      FramePose3D parallelPose = new FramePose3D();
+      for (int i = 0; i < serialPlan.getNumberOfSteps(); i++)
+      {
+         assertEquals(serialPlan.getFootstep(i).getRobotSide(), parallelPlan.getFootstep(i).getRobotSide());
+         serialPlan.getFootstep(i).getSoleFramePose(serialPose);
+         parallelPlan.getFootstep(i).getSoleFramePose(parallelPose);
+         assertTrue(serialPose.epsilonEquals(parallelPose, 1.0e-10));
+      }
+   }
+
+   private static FootstepPlan plan(PlannerTestData testData, int numberOfThreads)
+   {
+      FootstepPlannerParameters parameters = new DefaultFootstepPlanningParameters();
+      SideDependentList<ConvexPolygon2D> footPolygons = PlannerTools.createDefaultFootPolygons();
+      ParameterBasedNodeExpansion expansion = new ParameterBasedNodeExpansion(parameters);
+      AStarFootstepPlanner planner = AStarFootstepPlanner.createPlanner(parameters, null, footPolygons, expansion, new YoVariableRegistry("testRegistry"));
+      planner.setNumberOfThreads(numberOfThreads);
+
+      FootstepPlan plan = PlannerTools.runPlanner(planner, testData.getStartPose(), testData.getStartSide(), testData.getGoalPose(),
+                                                  testData.getPlanarRegionsList(), false);
+      planner.setNumberOfThreads(1);
+      return plan;
+   }
+}
@@ -0,0 +1,79 @@
+package us.ihmc.footstepPlanning.graphSearch.footstepSnapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.footstepPlanning.graphSearch.graph.FootstepNode;
+import us.ihmc.footstepPlanning.graphSearch.parameters.DefaultFootstepPlanningParameters;
+import us.ihmc.footstepPlanning.tools.PlannerTools;
+import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+
+/**
+ * Snaps random nodes on environments of increasing size with a constant density of regions and prints the time per snap.
+ *
+ * With the spatial index the time per snap should stay roughly constant as the number of regions grows.
+ */
+public class FootstepNodeSnapperBenchmark
+{
+   private static final int NODES_PER_ENVIRONMENT = 20000;
+   private static final double REGION_SIZE = 0.8;
+   private static final double REGION_SPACING = 1.0;
+
+   public static void main(String[] args)
+   {
+      Random random = new Random(3901L);
+      SimplePlanarRegionFootstepNodeSnapper snapper = new SimplePlanarRegionFootstepNodeSnapper(PlannerTools.createDefaultFootPolygons(),
+                                                                                                new DefaultFootstepPlanningParameters());
+
+      for (int regionsPerSide = 5; regionsPerSide <= 80; regionsPerSide *= 2)
+      {
+         PlanarRegionsList planarRegionsList = createSteppingStones(random, regionsPerSide);
+         double size = regionsPerSide * REGION_SPACING;
+
+         for (int warmup = 0; warmup < 2; warmup++)
+            snapRandomNodes(snapper, planarRegionsList, random, size);
+         double time = snapRandomNodes(snapper, planarRegionsList, random, size);
+
+         System.out.println(String.format("%6d regions: %8.2f us/snap", planarRegionsList.getNumberOfPlanarRegions(), 1.0e6 * time / NODES_PER_ENVIRONMENT));
+      }
+   }
+
+   private static double snapRandomNodes(FootstepNodeSnapper snapper, PlanarRegionsList planarRegionsList, Random random, double size)
+   {
+      snapper.setPlanarRegions(planarRegionsList);
+
+      long startTime = System.nanoTime();
+      for (int i = 0; i < NODES_PER_ENVIRONMENT; i++)
+      {
+         FootstepNode node = new FootstepNode(size * random.nextDouble(), size * random.nextDouble());
+         snapper.snapFootstepNode(node);
+      }
+      return (System.nanoTime() - startTime) * 1.0e-9;
+   }
+
+   private static PlanarRegionsList createSteppingStones(Random random, int regionsPerSide)
+   {
+      List<PlanarRegion> regions = new ArrayList<>();
+      for (int i = 0; i < regionsPerSide; i++)
+      {
+         for (int j = 0; j < regionsPerSide; j++)
+         {
+            ConvexPolygon2D polygon = new ConvexPolygon2D();
+            polygon.addVertex(0.5 * REGION_SIZE, 0.5 * REGION_SIZE);
+            polygon.addVertex(-0.5 * REGION_SIZE, 0.5 * REGION_SIZE);
+            polygon.addVertex(-0.5 * REGION_SIZE, -0.5 * REGION_SIZE);
+            polygon.addVertex(0.5 * REGION_SIZE, -0.5 * REGION_SIZE);
+            polygon.update();
+
+            RigidBodyTransform transform = new RigidBodyTransform();
+            transform.setTranslation((i + 0.5) * REGION_SPACING, (j + 0.5) * REGION_SPACING, 0.2 * random.nextDouble());
+            regions.add(new PlanarRegion(transform, polygon));
+         }
+      }
+      return new PlanarRegionsList(regions);
+   }
+}
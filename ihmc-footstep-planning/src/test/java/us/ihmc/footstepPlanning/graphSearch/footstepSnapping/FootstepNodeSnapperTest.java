@@ -74,6 +74,36 @@ public class FootstepNodeSnapperTest
       }
    }
 
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testEvictSnapDataOutsideOfLastSearch()
+   {
+      TestSnapper testSnapper = new TestSnapper();
+      testSnapper.setPlanarRegions(new PlanarRegionsList(new PlanarRegion()));
+
+      FootstepNode reachedTwice = new FootstepNode(1, 2, 0, RobotSide.LEFT);
+      FootstepNode reachedOnce = new FootstepNode(3, 4, 0, RobotSide.RIGHT);
+      FootstepNode added = new FootstepNode(5, 6, 0, RobotSide.LEFT);
+
+      testSnapper.snapFootstepNode(reachedTwice);
+      testSnapper.snapFootstepNode(reachedOnce);
+      testSnapper.addSnapData(added, FootstepNodeSnapData.identityData());
+
+      // new search only reaches one of the nodes
+      testSnapper.evictSnapDataOutsideOfLastSearch();
+      testSnapper.dirtyBit = false;
+      testSnapper.snapFootstepNode(reachedTwice);
+      assertTrue(!testSnapper.dirtyBit);
+
+      testSnapper.evictSnapDataOutsideOfLastSearch();
+      assertTrue(testSnapper.getSnapData(reachedTwice) != null);
+      assertTrue(testSnapper.getSnapData(reachedOnce) == null);
+      assertTrue(testSnapper.getSnapData(added) != null);
+
+      testSnapper.evictSnapDataOutsideOfLastSearch();
+      assertTrue(testSnapper.getSnapData(reachedTwice) == null);
+   }
+
    private class TestSnapper extends FootstepNodeSnapper
    {
       boolean dirtyBit = false;
@@ -26,9 +26,13 @@ import us.ihmc.robotics.robotSide.RobotSide;
 import us.ihmc.robotics.robotSide.SideDependentList;
 import us.ihmc.commons.thread.ThreadTools;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @ContinuousIntegrationAnnotations.ContinuousIntegrationPlan(categories = IntegrationCategory.FAST)
 public class SimplePlanarRegionFootstepNodeSnapperTest
@@ -169,6 +173,65 @@ public class SimplePlanarRegionFootstepNodeSnapperTest
       }
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 2.0)
+   @Test(timeout = 60000)
+   public void testConcurrentSnappingOnSharedRegion()
+   {
+      // A single tilted region made of several convex polygons, most footholds are partial
+      RigidBodyTransform regionToWorld = new RigidBodyTransform();
+      regionToWorld.setRotationEuler(0.1, -0.15, 0.3);
+      regionToWorld.setTranslationZ(0.4);
+      List<ConvexPolygon2D> convexPolygons = new ArrayList<>();
+      for (int i = 0; i < 4; i++)
+      {
+         ConvexPolygon2D polygon = new ConvexPolygon2D(unitSquare);
+         polygon.scale(0.3 + 0.1 * i);
+         polygon.translate(0.6 * i - 0.9, 0.25 * (i % 2));
+         convexPolygons.add(polygon);
+      }
+      PlanarRegionsList planarRegionsList = new PlanarRegionsList(new PlanarRegion(regionToWorld, convexPolygons));
+
+      List<FootstepNode> nodes = new ArrayList<>();
+      for (double x = -1.5; x <= 1.5; x += FootstepNode.gridSizeXY)
+      {
+         for (double y = -0.6; y <= 0.8; y += 2.0 * FootstepNode.gridSizeXY)
+         {
+            RobotSide robotSide = random.nextBoolean() ? RobotSide.LEFT : RobotSide.RIGHT;
+            nodes.add(new FootstepNode(x, y, EuclidCoreRandomTools.nextDouble(random, Math.PI), robotSide));
+         }
+      }
+
+      SimplePlanarRegionFootstepNodeSnapper serialSnapper = new SimplePlanarRegionFootstepNodeSnapper(footPolygons, new DefaultFootstepPlanningParameters());
+      serialSnapper.setPlanarRegions(planarRegionsList);
+      for (FootstepNode node : nodes)
+         serialSnapper.snapFootstepNode(node);
+
+      ForkJoinPool pool = new ForkJoinPool(8);
+
+      for (int iteration = 0; iteration < 10; iteration++)
+      {
+         SimplePlanarRegionFootstepNodeSnapper parallelSnapper = new SimplePlanarRegionFootstepNodeSnapper(footPolygons,
+                                                                                                           new DefaultFootstepPlanningParameters());
+         parallelSnapper.setPlanarRegions(planarRegionsList);
+         parallelSnapper.snapFootstepNodes(nodes, pool);
+
+         for (FootstepNode node : nodes)
+         {
+            FootstepNodeSnapData expected = serialSnapper.getSnapData(node);
+            FootstepNodeSnapData actual = parallelSnapper.getSnapData(node);
+            if (expected == FootstepNodeSnapData.emptyData())
+            {
+               assertTrue(actual == FootstepNodeSnapData.emptyData());
+               continue;
+            }
+            assertTrue(expected.getSnapTransform().epsilonEquals(actual.getSnapTransform(), epsilon));
+            assertTrue(expected.getCroppedFoothold().epsilonEquals(actual.getCroppedFoothold(), epsilon));
+         }
+      }
+
+      pool.shutdown();
+   }
+
    private void doAFullFootholdTest(RigidBodyTransform regionToWorldFrameTransform, FootstepNode nodeToSnap)
    {
       RigidBodyTransform nodeTransform = new RigidBodyTransform();
@@ -0,0 +1,71 @@
+package us.ihmc.footstepPlanning.graphSearch.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+@ContinuousIntegrationAnnotations.ContinuousIntegrationPlan(categories = {IntegrationCategory.FAST})
+public class FootstepGraphTest
+{
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testCostDecreaseOfQueuedNodes()
+   {
+      FootstepNode start = new FootstepNode(0.0, 0.0, 0.0, RobotSide.LEFT);
+      FootstepNode a = new FootstepNode(0.5, 0.0, 0.0, RobotSide.RIGHT);
+      FootstepNode b = new FootstepNode(1.0, 0.0, 0.0, RobotSide.LEFT);
+      FootstepNode c = new FootstepNode(1.5, 0.0, 0.0, RobotSide.RIGHT);
+      FootstepNode shortcut = new FootstepNode(0.5, 0.5, 0.0, RobotSide.RIGHT);
+
+      FootstepGraph graph = new FootstepGraph();
+      FootstepNodeHeap heap = new FootstepNodeHeap();
+      List<FootstepNode> decreasedNodes = new ArrayList<>();
+      graph.setCostDecreaseListener(node ->
+      {
+         decreasedNodes.add(node);
+         if (heap.contains(node))
+            heap.addOrUpdate(node, graph.getCostFromStart(node));
+      });
+
+      graph.initialize(start);
+      graph.checkAndSetEdge(start, a, 5.0);
+      graph.checkAndSetEdge(a, b, 1.0);
+      graph.checkAndSetEdge(b, c, 1.0);
+      graph.checkAndSetEdge(start, shortcut, 1.0);
+
+      // b was expanded, c is queued
+      heap.addOrUpdate(c, graph.getCostFromStart(c));
+      heap.addOrUpdate(shortcut, graph.getCostFromStart(shortcut));
+      assertEquals(7.0, heap.getCost(c), 0.0);
+      assertTrue(decreasedNodes.isEmpty());
+
+      // Lowers the cost of a, and of b and c through it
+      graph.checkAndSetEdge(shortcut, a, 1.0);
+
+      assertEquals(2, decreasedNodes.size());
+      assertEquals(b, decreasedNodes.get(0));
+      assertEquals(c, decreasedNodes.get(1));
+      assertEquals(3.0, graph.getCostFromStart(b), 0.0);
+      assertEquals(4.0, graph.getCostFromStart(c), 0.0);
+
+      // The queued node was moved with its new cost, there is no stale entry
+      assertEquals(4.0, heap.getCost(c), 0.0);
+      assertEquals(2, heap.size());
+      assertEquals(shortcut, heap.poll());
+      assertEquals(c, heap.poll());
+      assertTrue(heap.isEmpty());
+
+      // A more expensive path does not report anything
+      decreasedNodes.clear();
+      graph.checkAndSetEdge(c, b, 10.0);
+      assertTrue(decreasedNodes.isEmpty());
+   }
+}
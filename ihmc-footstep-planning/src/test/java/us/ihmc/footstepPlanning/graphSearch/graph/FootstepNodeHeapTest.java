@@ -0,0 +1,85 @@
+package us.ihmc.footstepPlanning.graphSearch.graph;
+
+import org.junit.Test;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@ContinuousIntegrationAnnotations.ContinuousIntegrationPlan(categories = {IntegrationCategory.FAST})
+public class FootstepNodeHeapTest
+{
+   private final Random random = new Random(2389147L);
+
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testLongKey()
+   {
+      HashMap<Long, FootstepNode> nodesByKey = new HashMap<>();
+      for (int i = 0; i < 10000; i++)
+      {
+         FootstepNode node = FootstepNode.generateRandomFootstepNode(random, 100.0);
+         assertTrue(node.getLongKey() >= 0);
+         assertNotEquals(FootstepNode.NO_KEY, node.getLongKey());
+
+         FootstepNode other = nodesByKey.put(node.getLongKey(), node);
+         if (other != null)
+            assertEquals(other, node);
+      }
+
+      FootstepNode node = new FootstepNode(-0.05, 0.05, 0.0, RobotSide.LEFT);
+      assertNotEquals(node.getLongKey(), new FootstepNode(0.05, -0.05, 0.0, RobotSide.LEFT).getLongKey());
+      assertNotEquals(node.getLongKey(), new FootstepNode(-0.05, 0.05, 0.0, RobotSide.RIGHT).getLongKey());
+      assertEquals(node.getLongKey(), new FootstepNode(-0.05, 0.05, 0.0, RobotSide.LEFT).getLongKey());
+   }
+
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testOrderingWithUpdates()
+   {
+      FootstepNodeHeap heap = new FootstepNodeHeap(4);
+      HashMap<FootstepNode, Double> costs = new HashMap<>();
+      ArrayList<FootstepNode> nodes = new ArrayList<>();
+
+      for (int i = 0; i < 2000; i++)
+      {
+         FootstepNode node = FootstepNode.generateRandomFootstepNode(random, 10.0);
+         double cost = random.nextDouble();
+         heap.addOrUpdate(node, cost);
+         costs.put(node, cost);
+         nodes.add(node);
+      }
+
+      for (int i = 0; i < 2000; i++)
+      {
+         FootstepNode node = nodes.get(random.nextInt(nodes.size()));
+         double cost = random.nextDouble();
+         heap.addOrUpdate(node, cost);
+         costs.put(node, cost);
+      }
+
+      assertEquals(costs.size(), heap.size());
+
+      double previousCost = Double.NEGATIVE_INFINITY;
+      while (!heap.isEmpty())
+      {
+         double cost = heap.peekCost();
+         FootstepNode node = heap.poll();
+         assertEquals(costs.remove(node), cost, 0.0);
+         assertTrue(cost >= previousCost);
+         assertFalse(heap.contains(node));
+         previousCost = cost;
+      }
+
+      assertTrue(costs.isEmpty());
+      assertEquals(null, heap.poll());
+   }
+}
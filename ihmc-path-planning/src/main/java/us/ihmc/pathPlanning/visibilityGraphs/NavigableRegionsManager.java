@@ -3,8 +3,19 @@ package us.ihmc.pathPlanning.visibilityGraphs;
 import static us.ihmc.pathPlanning.visibilityGraphs.tools.VisibilityTools.isPointVisibleForStaticMaps;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import us.ihmc.commons.PrintTools;
 import us.ihmc.euclid.tuple3D.Point3D;
@@ -15,6 +26,10 @@ import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.ConnectionPoint3D;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.InterRegionVisibilityMap;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.NavigableRegion;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.SingleSourceVisibilityMap;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.InterRegionConnectionFilter;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.NavigableRegionFilter;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.ObstacleRegionFilter;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityGraphPathPlanner;
 import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityGraphsParameters;
 import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityMapHolder;
 import us.ihmc.pathPlanning.visibilityGraphs.tools.ClusterTools;
@@ -22,6 +37,16 @@ import us.ihmc.pathPlanning.visibilityGraphs.tools.OcclusionTools;
 import us.ihmc.pathPlanning.visibilityGraphs.tools.PlanarRegionTools;
 import us.ihmc.robotics.geometry.PlanarRegion;
 
+/**
+ * Computes body paths using visibility graphs built on the navigable regions.
+ * <p>
+ * The navigable regions and the inter-region connections of the last call to
+ * {@link #calculateBodyPath(Point3DReadOnly, Point3DReadOnly)} are kept. On the next call, a
+ * navigable region is reused when its home region and its obstacle regions are unchanged, and the
+ * connections between two reused navigable regions are reused too. Regions are matched using their
+ * id, regions without an id are always recomputed.
+ * </p>
+ */
 public class NavigableRegionsManager
 {
    final static boolean debug = false;
@@ -29,14 +54,25 @@ public class NavigableRegionsManager
 
    final static int START_GOAL_ID = 0;
 
+   private static final double REGION_EQUALITY_EPSILON = 1.0e-7;
+
    private List<PlanarRegion> regions;
    private SingleSourceVisibilityMap startMap, goalMap;
    private List<NavigableRegion> navigableRegions;
 
    private final VisibilityGraphsParameters parameters;
+   private final VisibilityGraphPathPlanner pathPlanner;
 
    private InterRegionVisibilityMap interRegionVisibilityMap;
 
+   private Map<Integer, CachedNavigableRegion> navigableRegionCache = new HashMap<>();
+   private Map<NavigableRegion, Map<NavigableRegion, List<Connection>>> interRegionConnectionsCache = new HashMap<>();
+   private List<NavigableRegion> interRegionVisibilityMapRegions = null;
+   private int interRegionVisibilityMapSize = -1;
+   private double[] cachedParameterValues = null;
+
+   private ForkJoinPool pool = null;
+
    public NavigableRegionsManager()
    {
       this(null, null);
@@ -55,9 +91,24 @@ public class NavigableRegionsManager
    public NavigableRegionsManager(VisibilityGraphsParameters parameters, List<PlanarRegion> regions)
    {
       this.parameters = parameters == null ? new DefaultVisibilityGraphParameters() : parameters;
+      // Kept so the planner can reuse its graph between queries
+      pathPlanner = this.parameters.getPathPlanner();
       setPlanarRegions(regions);
    }
 
+   /**
+    * Sets whether the navigable regions and the connections between them are created concurrently
+    * on the {@link ForkJoinPool#commonPool() common pool}. The resulting path is the same either
+    * way. The filters and calculators provided by the parameters have to be safe to call from
+    * several threads.
+    *
+    * @param parallelComputation {@code false} to do everything on the calling thread.
+    */
+   public void setParallelComputation(boolean parallelComputation)
+   {
+      pool = parallelComputation ? ForkJoinPool.commonPool() : null;
+   }
+
    public void setPlanarRegions(List<PlanarRegion> regions)
    {
       if (regions != null)
@@ -90,8 +141,8 @@ public class NavigableRegionsManager
 
       long startBodyPathComputation = System.currentTimeMillis();
 
-      navigableRegions = VisibilityGraphsFactory.createNavigableRegions(regions, parameters);
-      interRegionVisibilityMap = VisibilityGraphsFactory.createInterRegionVisibilityMap(navigableRegions, parameters.getInterRegionConnectionFilter());
+      navigableRegions = createNavigableRegions(regions);
+      interRegionVisibilityMap = createInterRegionVisibilityMap(navigableRegions);
       double searchHostEpsilon = parameters.getSearchHostRegionEpsilon();
       startMap = VisibilityGraphsFactory.createSingleSourceVisibilityMap(start, navigableRegions, searchHostEpsilon,
                                                                          interRegionVisibilityMap.getVisibilityMapInLocal());
@@ -133,7 +184,7 @@ public class NavigableRegionsManager
       ConnectionPoint3D startConnection = new ConnectionPoint3D(start, START_GOAL_ID);
       ConnectionPoint3D goalConnection = new ConnectionPoint3D(goal, START_GOAL_ID);
 
-      List<Point3DReadOnly> path = parameters.getPathPlanner().calculatePath(startConnection, goalConnection, visibilityMapHolders);
+      List<Point3DReadOnly> path = pathPlanner.calculatePath(startConnection, goalConnection, visibilityMapHolders);
 
       if (debug)
       {
@@ -150,6 +201,236 @@ public class NavigableRegionsManager
       return path;
    }
 
+   /**
+    * Discards the navigable regions and connections kept from the last call. Only needed when the
+    * parameters are implemented such that their filters or extrusion calculators change without
+    * any change of their scalar values.
+    */
+   public void clearCache()
+   {
+      navigableRegionCache.clear();
+      interRegionConnectionsCache.clear();
+      interRegionVisibilityMapRegions = null;
+      cachedParameterValues = null;
+   }
+
+   private List<NavigableRegion> createNavigableRegions(List<PlanarRegion> allRegions)
+   {
+      if (allRegions.isEmpty())
+         return null;
+
+      double[] parameterValues = getParameterValues();
+      if (!Arrays.equals(parameterValues, cachedParameterValues))
+      {
+         clearCache();
+         cachedParameterValues = parameterValues;
+      }
+
+      NavigableRegionFilter navigableRegionFilter = parameters.getNavigableRegionFilter();
+      ObstacleRegionFilter obstacleRegionFilter = parameters.getObstacleRegionFilter();
+
+      IntFunction<NavigableRegionCandidate> candidateCreator = candidateIndex ->
+      {
+         PlanarRegion candidate = allRegions.get(candidateIndex);
+
+         List<PlanarRegion> otherRegions = new ArrayList<>(allRegions);
+         Collections.swap(otherRegions, candidateIndex, otherRegions.size() - 1);
+         otherRegions.remove(otherRegions.size() - 1);
+
+         if (!navigableRegionFilter.isPlanarRegionNavigable(candidate, otherRegions))
+            return null;
+
+         List<PlanarRegion> obstacleRegions = otherRegions.stream().filter(other -> obstacleRegionFilter.isRegionValidObstacle(other, candidate))
+                                                          .collect(Collectors.toList());
+         return new NavigableRegionCandidate(candidate, obstacleRegions);
+      };
+
+      List<NavigableRegionCandidate> candidates;
+      if (pool == null)
+         candidates = IntStream.range(0, allRegions.size()).mapToObj(candidateCreator).filter(Objects::nonNull).collect(Collectors.toList());
+      else
+         candidates = pool.submit(() -> IntStream.range(0, allRegions.size()).parallel().mapToObj(candidateCreator).filter(Objects::nonNull)
+                                                 .collect(Collectors.toList())).join();
+
+      List<NavigableRegionCandidate> candidatesToCreate = new ArrayList<>();
+      Set<Integer> cacheableRegionIds = new HashSet<>();
+
+      for (NavigableRegionCandidate candidate : candidates)
+      {
+         // Only the first region with a given id is cached
+         candidate.isCacheable = candidate.region.hasARegionId() && cacheableRegionIds.add(candidate.region.getRegionId());
+
+         if (candidate.isCacheable)
+         {
+            CachedNavigableRegion cachedNavigableRegion = navigableRegionCache.get(candidate.region.getRegionId());
+            if (cachedNavigableRegion != null && cachedNavigableRegion.isUpToDate(candidate.region, candidate.obstacleRegions))
+               candidate.navigableRegion = cachedNavigableRegion.navigableRegion;
+         }
+
+         if (candidate.navigableRegion == null)
+            candidatesToCreate.add(candidate);
+      }
+
+      if (pool == null)
+         candidatesToCreate.forEach(this::createNavigableRegion);
+      else
+         pool.submit(() -> candidatesToCreate.parallelStream().forEach(this::createNavigableRegion)).join();
+
+      List<NavigableRegion> navigableRegions = new ArrayList<>(candidates.size());
+      Map<Integer, CachedNavigableRegion> updatedCache = new HashMap<>();
+
+      for (NavigableRegionCandidate candidate : candidates)
+      {
+         navigableRegions.add(candidate.navigableRegion);
+
+         if (candidate.isCacheable)
+            updatedCache.put(candidate.region.getRegionId(), new CachedNavigableRegion(candidate.navigableRegion, candidate.obstacleRegions));
+      }
+
+      navigableRegionCache = updatedCache;
+
+      return navigableRegions;
+   }
+
+   private void createNavigableRegion(NavigableRegionCandidate candidate)
+   {
+      candidate.navigableRegion = VisibilityGraphsFactory.createNavigableRegion(candidate.region, candidate.obstacleRegions, parameters);
+      // The map in world is created lazily, this makes the region safe to share between threads.
+      candidate.navigableRegion.getVisibilityMapInWorld();
+   }
+
+   private InterRegionVisibilityMap createInterRegionVisibilityMap(List<NavigableRegion> navigableRegions)
+   {
+      InterRegionConnectionFilter filter = parameters.getInterRegionConnectionFilter();
+      List<Map<NavigableRegion, List<Connection>>> connectionsPerSource = new ArrayList<>(navigableRegions.size());
+      List<Integer> sourcesToUpdate = new ArrayList<>();
+
+      for (int sourceMapIndex = 0; sourceMapIndex < navigableRegions.size(); sourceMapIndex++)
+      {
+         NavigableRegion source = navigableRegions.get(sourceMapIndex);
+         Map<NavigableRegion, List<Connection>> cachedConnections = interRegionConnectionsCache.get(source);
+         Map<NavigableRegion, List<Connection>> updatedConnections = new HashMap<>();
+         connectionsPerSource.add(updatedConnections);
+
+         for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
+         {
+            NavigableRegion target = navigableRegions.get(targetMapIndex);
+            List<Connection> connections = cachedConnections == null ? null : cachedConnections.get(target);
+
+            if (connections != null)
+               updatedConnections.put(target, connections);
+         }
+
+         if (updatedConnections.size() < navigableRegions.size() - sourceMapIndex - 1)
+            sourcesToUpdate.add(sourceMapIndex);
+      }
+
+      // Reusing the map lets the path planner reuse its graph, unless the start or goal added connections to it.
+      if (sourcesToUpdate.isEmpty() && navigableRegions.equals(interRegionVisibilityMapRegions) && interRegionVisibilityMap != null
+            && interRegionVisibilityMap.getVisibilityMapInWorld().getConnections().size() == interRegionVisibilityMapSize)
+         return interRegionVisibilityMap;
+
+      IntConsumer sourceUpdater = sourceMapIndex ->
+      {
+         Map<NavigableRegion, List<Connection>> updatedConnections = connectionsPerSource.get(sourceMapIndex);
+
+         for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
+         {
+            NavigableRegion target = navigableRegions.get(targetMapIndex);
+            if (!updatedConnections.containsKey(target))
+               updatedConnections.put(target, VisibilityGraphsFactory.createInterRegionConnections(navigableRegions.get(sourceMapIndex), target, filter));
+         }
+      };
+
+      if (pool == null)
+      {
+         sourcesToUpdate.forEach(sourceUpdater::accept);
+      }
+      else
+      {
+         // No-op for the regions created on the pool, but cached regions may not have their map in world yet.
+         navigableRegions.forEach(NavigableRegion::getVisibilityMapInWorld);
+         pool.submit(() -> sourcesToUpdate.parallelStream().forEach(sourceUpdater::accept)).join();
+      }
+
+      InterRegionVisibilityMap map = new InterRegionVisibilityMap();
+      Map<NavigableRegion, Map<NavigableRegion, List<Connection>>> updatedCache = new HashMap<>();
+
+      for (int sourceMapIndex = 0; sourceMapIndex < navigableRegions.size(); sourceMapIndex++)
+      {
+         Map<NavigableRegion, List<Connection>> updatedConnections = connectionsPerSource.get(sourceMapIndex);
+         updatedCache.put(navigableRegions.get(sourceMapIndex), updatedConnections);
+
+         // The map is recreated every time as the start and goal can add connections to it
+         for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
+            map.addConnections(updatedConnections.get(navigableRegions.get(targetMapIndex)));
+      }
+
+      interRegionConnectionsCache = updatedCache;
+      interRegionVisibilityMapRegions = navigableRegions;
+      interRegionVisibilityMapSize = map.getVisibilityMapInWorld().getConnections().size();
+
+      return map;
+   }
+
+   private double[] getParameterValues()
+   {
+      return new double[] {parameters.getMaxInterRegionConnectionLength(), parameters.getNormalZThresholdForAccessibleRegions(),
+            parameters.getExtrusionDistance(), parameters.getExtrusionDistanceIfNotTooHighToStep(), parameters.getTooHighToStepDistance(),
+            parameters.getClusterResolution(), parameters.getRegionOrthogonalAngle()};
+   }
+
+   private static class NavigableRegionCandidate
+   {
+      private final PlanarRegion region;
+      private final List<PlanarRegion> obstacleRegions;
+      private boolean isCacheable = false;
+      private NavigableRegion navigableRegion = null;
+
+      NavigableRegionCandidate(PlanarRegion region, List<PlanarRegion> obstacleRegions)
+      {
+         this.region = region;
+         this.obstacleRegions = obstacleRegions;
+      }
+   }
+
+   private static class CachedNavigableRegion
+   {
+      private final NavigableRegion navigableRegion;
+      private final List<PlanarRegion> obstacleRegions;
+
+      CachedNavigableRegion(NavigableRegion navigableRegion, List<PlanarRegion> obstacleRegions)
+      {
+         this.navigableRegion = navigableRegion;
+         this.obstacleRegions = obstacleRegions;
+      }
+
+      boolean isUpToDate(PlanarRegion homeRegion, List<PlanarRegion> currentObstacleRegions)
+      {
+         if (!isSameRegion(navigableRegion.getHomeRegion(), homeRegion))
+            return false;
+
+         if (obstacleRegions.size() != currentObstacleRegions.size())
+            return false;
+
+         for (int i = 0; i < obstacleRegions.size(); i++)
+         {
+            if (!isSameRegion(obstacleRegions.get(i), currentObstacleRegions.get(i)))
+               return false;
+         }
+
+         return true;
+      }
+
+      private static boolean isSameRegion(PlanarRegion cachedRegion, PlanarRegion region)
+      {
+         if (!region.hasARegionId() || cachedRegion.getRegionId() != region.getRegionId())
+            return false;
+
+         return cachedRegion == region || cachedRegion.epsilonEquals(region, REGION_EQUALITY_EPSILON);
+      }
+   }
+
    public List<Point3DReadOnly> calculateBodyPathWithOcclusions(Point3DReadOnly start, Point3DReadOnly goal)
    {
       List<Point3DReadOnly> path = calculateBodyPath(start, goal);
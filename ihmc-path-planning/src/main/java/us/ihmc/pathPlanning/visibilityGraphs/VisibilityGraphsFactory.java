@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 import us.ihmc.pathPlanning.visibilityGraphs.clusterManagement.Cluster;
@@ -302,31 +303,86 @@ public class VisibilityGraphsFactory
 
       for (int sourceMapIndex = 0; sourceMapIndex < navigableRegions.size(); sourceMapIndex++)
       {
-         VisibilityMap sourceMap = navigableRegions.get(sourceMapIndex).getVisibilityMapInWorld();
-         Set<ConnectionPoint3D> sourcePoints = sourceMap.getVertices();
-
-         for (ConnectionPoint3D source : sourcePoints)
+         for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
          {
-            for (int targetMapIndex = sourceMapIndex + 1; targetMapIndex < navigableRegions.size(); targetMapIndex++)
-            {
-               VisibilityMap targetMap = navigableRegions.get(targetMapIndex).getVisibilityMapInWorld();
+            map.addConnections(createInterRegionConnections(navigableRegions.get(sourceMapIndex), navigableRegions.get(targetMapIndex), filter));
+         }
+      }
+
+      return map;
+   }
+
+   /**
+    * Creates the connections between the visibility map vertices of two navigable regions that pass the given filter.
+    * <p>
+    * The bounding boxes of the vertices are used to skip the pairs of regions, and then the source
+    * vertices, that are farther apart than {@link InterRegionConnectionFilter#getMaximumConnectionLength()}
+    * or {@link InterRegionConnectionFilter#getMaximumDeltaHeight()}.
+    * </p>
+    *
+    * @return the connections, from the {@code sourceRegion} to the {@code targetRegion}.
+    */
+   public static List<Connection> createInterRegionConnections(NavigableRegion sourceRegion, NavigableRegion targetRegion,
+                                                               InterRegionConnectionFilter filter)
+   {
+      List<Connection> connections = new ArrayList<>();
+
+      VisibilityMap sourceMap = sourceRegion.getVisibilityMapInWorld();
+      VisibilityMap targetMap = targetRegion.getVisibilityMapInWorld();
+      BoundingBox3D sourceBoundingBox = sourceMap.getVerticesBoundingBox();
+      BoundingBox3D targetBoundingBox = targetMap.getVerticesBoundingBox();
+      double maxLength = filter.getMaximumConnectionLength();
+      double maxDeltaHeight = filter.getMaximumDeltaHeight();
+
+      if (!isWithinConnectionRange(sourceBoundingBox.getMinPoint(), sourceBoundingBox.getMaxPoint(), targetBoundingBox, maxLength, maxDeltaHeight))
+         return connections;
 
-               Set<ConnectionPoint3D> targetPoints = targetMap.getVertices();
+      Set<ConnectionPoint3D> sourcePoints = sourceMap.getVertices();
+      Set<ConnectionPoint3D> targetPoints = targetMap.getVertices();
 
-               for (ConnectionPoint3D target : targetPoints)
-               {
-                  if (source.getRegionId() == target.getRegionId())
-                     continue;
+      for (ConnectionPoint3D source : sourcePoints)
+      {
+         if (!isWithinConnectionRange(source, source, targetBoundingBox, maxLength, maxDeltaHeight))
+            continue;
+
+         for (ConnectionPoint3D target : targetPoints)
+         {
+            if (source.getRegionId() == target.getRegionId())
+               continue;
 
-                  if (filter.isConnectionValid(source, target))
-                  {
-                     map.addConnection(source, target);
-                  }
-               }
+            if (filter.isConnectionValid(source, target))
+            {
+               connections.add(new Connection(source, target));
             }
          }
       }
 
-      return map;
+      return connections;
+   }
+
+   /**
+    * Tests whether the box defined by {@code min} and {@code max} may have a point within range of
+    * a point of the other box. Returns {@code false} when either box is NaN.
+    */
+   private static boolean isWithinConnectionRange(Point3DReadOnly min, Point3DReadOnly max, BoundingBox3D other, double maxLength, double maxDeltaHeight)
+   {
+      double dz = distanceBetweenIntervals(min.getZ(), max.getZ(), other.getMinZ(), other.getMaxZ());
+      if (!(dz <= maxDeltaHeight))
+         return false;
+
+      double dx = distanceBetweenIntervals(min.getX(), max.getX(), other.getMinX(), other.getMaxX());
+      double dy = distanceBetweenIntervals(min.getY(), max.getY(), other.getMinY(), other.getMaxY());
+      return dx * dx + dy * dy + dz * dz <= maxLength * maxLength;
+   }
+
+   private static double distanceBetweenIntervals(double minA, double maxA, double minB, double maxB)
+   {
+      if (maxA < minB)
+         return minB - maxA;
+      if (maxB < minA)
+         return minA - maxB;
+      if (Double.isNaN(minA) || Double.isNaN(minB))
+         return Double.NaN;
+      return 0.0;
    }
 }
@@ -2,13 +2,17 @@ package us.ihmc.pathPlanning.visibilityGraphs.dataStructure;
 
 import java.util.*;
 
+import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.interfaces.Transformable;
 import us.ihmc.euclid.transform.interfaces.Transform;
+import us.ihmc.euclid.tuple3D.Point3D;
 
 public class VisibilityMap implements Transformable, Iterable<Connection>
 {
    private Set<Connection> connections;
    private final HashSet<ConnectionPoint3D> vertices;
+   private final BoundingBox3D verticesBoundingBox = new BoundingBox3D(new Point3D(Double.NaN, Double.NaN, Double.NaN),
+                                                                       new Point3D(Double.NaN, Double.NaN, Double.NaN));
 
    public VisibilityMap()
    {
@@ -71,10 +75,13 @@ public class VisibilityMap implements Transformable, Iterable<Connection>
    public void computeVertices()
    {
       vertices.clear();
+      verticesBoundingBox.set(Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
       for (Connection connection : connections)
       {
          vertices.add(connection.getSourcePoint());
          vertices.add(connection.getTargetPoint());
+         verticesBoundingBox.updateToIncludePoint(connection.getSourcePoint());
+         verticesBoundingBox.updateToIncludePoint(connection.getTargetPoint());
       }
    }
 
@@ -88,6 +95,14 @@ public class VisibilityMap implements Transformable, Iterable<Connection>
       return connections;
    }
 
+   /**
+    * @return the bounding box of the vertices as of the last call to {@link #computeVertices()},
+    *         NaN when there is no vertex.
+    */
+   public BoundingBox3D getVerticesBoundingBox()
+   {
+      return verticesBoundingBox;
+   }
 
 
    public boolean isEmpty()
@@ -0,0 +1,106 @@
+package us.ihmc.pathPlanning.visibilityGraphs.dijkstra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.Connection;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.ConnectionPoint3D;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.VisibilityMap;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityMapHolder;
+
+/**
+ * Adjacency of a set of visibility maps in compressed sparse row format.
+ * <p>
+ * The nodes are the connection points, identified by index. The edges leaving the node {@code i}
+ * are stored in {@code [edgeOffsets[i], edgeOffsets[i + 1])} of {@link #edgeTargets} and
+ * {@link #edgeWeights}. Each connection is stored in both directions.
+ * </p>
+ */
+class CompressedVisibilityGraph
+{
+   private final HashMap<ConnectionPoint3D, Integer> nodeIndices = new HashMap<>();
+   final ConnectionPoint3D[] nodes;
+   final int[] edgeOffsets;
+   final int[] edgeTargets;
+   final double[] edgeWeights;
+
+   CompressedVisibilityGraph(List<VisibilityMapHolder> visibilityMapHolders)
+   {
+      List<ConnectionPoint3D> nodeList = new ArrayList<>();
+      int[] degrees = new int[16];
+      int numberOfEdges = 0;
+
+      for (VisibilityMapHolder visibilityMapHolder : visibilityMapHolders)
+      {
+         for (Connection connection : visibilityMapHolder.getVisibilityMapInWorld())
+         {
+            int sourceIndex = getOrAddNode(connection.getSourcePoint(), nodeList);
+            int targetIndex = getOrAddNode(connection.getTargetPoint(), nodeList);
+
+            if (nodeList.size() > degrees.length)
+               degrees = Arrays.copyOf(degrees, 2 * nodeList.size());
+            degrees[sourceIndex]++;
+            degrees[targetIndex]++;
+            numberOfEdges += 2;
+         }
+      }
+
+      nodes = nodeList.toArray(new ConnectionPoint3D[nodeList.size()]);
+      edgeOffsets = new int[nodes.length + 1];
+      edgeTargets = new int[numberOfEdges];
+      edgeWeights = new double[numberOfEdges];
+
+      for (int i = 0; i < nodes.length; i++)
+         edgeOffsets[i + 1] = edgeOffsets[i] + degrees[i];
+
+      // Reused as the next free slot of each node
+      int[] edgeCursors = Arrays.copyOf(edgeOffsets, nodes.length);
+
+      for (VisibilityMapHolder visibilityMapHolder : visibilityMapHolders)
+      {
+         VisibilityMap visibilityMap = visibilityMapHolder.getVisibilityMapInWorld();
+
+         for (Connection connection : visibilityMap)
+         {
+            int sourceIndex = nodeIndices.get(connection.getSourcePoint());
+            int targetIndex = nodeIndices.get(connection.getTargetPoint());
+            double weight = visibilityMapHolder.getConnectionWeight(connection);
+
+            edgeTargets[edgeCursors[sourceIndex]] = targetIndex;
+            edgeWeights[edgeCursors[sourceIndex]++] = weight;
+            edgeTargets[edgeCursors[targetIndex]] = sourceIndex;
+            edgeWeights[edgeCursors[targetIndex]++] = weight;
+         }
+      }
+   }
+
+   private int getOrAddNode(ConnectionPoint3D point, List<ConnectionPoint3D> nodeList)
+   {
+      Integer index = nodeIndices.get(point);
+
+      if (index == null)
+      {
+         index = nodeList.size();
+         nodeIndices.put(point, index);
+         nodeList.add(point);
+      }
+
+      return index;
+   }
+
+   /**
+    * @return the index of the node equal to the given point, or -1 if there is none.
+    */
+   int getNodeIndex(ConnectionPoint3D point)
+   {
+      Integer index = nodeIndices.get(point);
+      return index == null ? -1 : index;
+   }
+
+   int getNumberOfNodes()
+   {
+      return nodes.length;
+   }
+}
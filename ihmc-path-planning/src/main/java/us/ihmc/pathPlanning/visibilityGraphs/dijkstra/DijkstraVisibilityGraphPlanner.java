@@ -3,45 +3,57 @@ package us.ihmc.pathPlanning.visibilityGraphs.dijkstra;
 import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.Connection;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.ConnectionPoint3D;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.SingleSourceVisibilityMap;
 import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityGraphPathPlanner;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.VisibilityMap;
 import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityMapHolder;
 
 import java.util.*;
 
+/**
+ * Plans over the visibility maps with A*, using the distance to the goal as heuristic.
+ * <p>
+ * The maps other than the {@link SingleSourceVisibilityMap}s, i.e. the navigable regions and the
+ * inter-region connections, are converted to a {@link CompressedVisibilityGraph} which is kept for
+ * the next queries as long as the same holders are given with the same maps in world. The single
+ * source maps, usually the start and goal, are added on top of it for each query.
+ * </p>
+ * <p>
+ * The heuristic requires the connection weights to be at least the length of the connections,
+ * which is the case for the weights of the {@link VisibilityMapHolder}s of this package. Otherwise
+ * {@link #setHeuristicWeight(double)} can be used to reduce it.
+ * </p>
+ */
 public class DijkstraVisibilityGraphPlanner implements VisibilityGraphPathPlanner
 {
-   private final HashMap<ConnectionPoint3D, HashSet<ConnectionData>> visibilityMap = new HashMap<>();
-   private final HashMap<ConnectionPoint3D, Double> nodeCosts = new HashMap<>();
-   private final HashMap<ConnectionPoint3D, ConnectionData> incomingBestEdge = new HashMap<>();
+   private final List<VisibilityMapHolder> graphHolders = new ArrayList<>();
+   private final List<VisibilityMap> graphMaps = new ArrayList<>();
+   private int[] graphMapSizes = new int[0];
+   private CompressedVisibilityGraph graph = null;
 
-   private PriorityQueue<ConnectionPoint3D> stack;
+   private final HashMap<ConnectionPoint3D, Integer> queryNodeIndices = new HashMap<>();
+   private final List<ConnectionPoint3D> queryNodes = new ArrayList<>();
+   // Edges of the query maps, as a linked list per node
+   private int[] queryEdgeHeads = new int[0];
+   private int[] queryEdgeNexts = new int[16];
+   private int[] queryEdgeTargets = new int[16];
+   private double[] queryEdgeWeights = new double[16];
+   private int numberOfQueryEdges = 0;
 
-   private void initialize(ConnectionPoint3D startPoint)
-   {
-      nodeCosts.put(startPoint, 0.0);
-      stack = new PriorityQueue<>(new ConnectionPointComparator(nodeCosts));
-      stack.add(startPoint);
-   }
+   private double[] nodeCosts = new double[0];
+   private int[] parentNodes = new int[0];
+   private boolean[] expandedNodes = new boolean[0];
+   private final IndexedMinHeap heap = new IndexedMinHeap();
 
-   private void buildVisibilityMap(Collection<VisibilityMapHolder> visibilityMapHolders)
-   {
-      visibilityMap.clear();
-      nodeCosts.clear();
+   private double heuristicWeight = 1.0;
 
-      for (VisibilityMapHolder visibilityMapHolder : visibilityMapHolders)
-      {
-         VisibilityMap visibilityMap = visibilityMapHolder.getVisibilityMapInWorld();
-         for (Connection connection : visibilityMap)
-         {
-            ConnectionData connectionData = new ConnectionData();
-            connectionData.connection = connection;
-            connectionData.edgeWeight = visibilityMapHolder.getConnectionWeight(connection);
-
-            this.visibilityMap.computeIfAbsent(connection.getSourcePoint(), (p) -> new HashSet<>()).add(connectionData);
-            this.visibilityMap.computeIfAbsent(connection.getTargetPoint(), (p) -> new HashSet<>()).add(connectionData);
-         }
-      }
+   /**
+    * @param heuristicWeight multiplies the distance to the goal used as heuristic, 0 to use Dijkstra's
+    *           algorithm.
+    */
+   public void setHeuristicWeight(double heuristicWeight)
+   {
+      this.heuristicWeight = heuristicWeight;
    }
 
    /**
@@ -51,76 +63,229 @@ public class DijkstraVisibilityGraphPlanner implements VisibilityGraphPathPlanne
     */
    public List<Point3DReadOnly> calculatePath(ConnectionPoint3D startPoint, ConnectionPoint3D goalPoint, Collection<VisibilityMapHolder> visibilityMapHolders)
    {
-      buildVisibilityMap(visibilityMapHolders);
-      initialize(startPoint);
+      List<VisibilityMapHolder> queryHolders = new ArrayList<>();
+      List<VisibilityMapHolder> staticHolders = new ArrayList<>();
+
+      for (VisibilityMapHolder visibilityMapHolder : visibilityMapHolders)
+      {
+         if (visibilityMapHolder instanceof SingleSourceVisibilityMap)
+            queryHolders.add(visibilityMapHolder);
+         else
+            staticHolders.add(visibilityMapHolder);
+      }
 
-      ConnectionPoint3D closestPointToGoal = startPoint;
+      if (!isGraphUpToDate(staticHolders))
+         buildGraph(staticHolders);
+      buildQueryEdges(queryHolders);
+
+      int startIndex = getOrAddNode(startPoint);
+      int goalIndex = getNodeIndex(goalPoint);
+      int numberOfNodes = graph.getNumberOfNodes() + queryNodes.size();
+      initializeSearch(numberOfNodes);
+
+      nodeCosts[startIndex] = 0.0;
+      heap.insertOrDecreaseKey(startIndex, heuristicWeight * startPoint.distance(goalPoint));
+
+      int closestNodeToGoal = startIndex;
       double closestDistanceToGoalSquared = startPoint.distanceSquared(goalPoint);
 
-      stackLoop:
-      while(!stack.isEmpty())
+      while (!heap.isEmpty())
       {
-         ConnectionPoint3D sourcePoint = stack.poll();
+         int sourceIndex = heap.poll();
+         expandedNodes[sourceIndex] = true;
 
-         HashSet<ConnectionData> connections = visibilityMap.computeIfAbsent(sourcePoint, (p) -> new HashSet<>());
-         double distanceToGoalSquared = sourcePoint.distanceSquared(goalPoint);
-         if(distanceToGoalSquared < closestDistanceToGoalSquared)
+         if (sourceIndex == goalIndex)
+            break;
+
+         double distanceToGoalSquared = getNode(sourceIndex).distanceSquared(goalPoint);
+         if (distanceToGoalSquared < closestDistanceToGoalSquared)
          {
-            closestPointToGoal = sourcePoint;
+            closestNodeToGoal = sourceIndex;
             closestDistanceToGoalSquared = distanceToGoalSquared;
          }
 
-         for (ConnectionData connectionData : connections)
+         if (sourceIndex < graph.getNumberOfNodes())
          {
-            Connection connection = connectionData.connection;
-            ConnectionPoint3D targetPoint = connection.getOppositePoint(sourcePoint);
-
-            double nodeCost = nodeCosts.get(sourcePoint) + connectionData.edgeWeight;
-
-            if(!nodeCosts.containsKey(targetPoint) || nodeCosts.get(targetPoint) > nodeCost)
-            {
-               nodeCosts.put(targetPoint, nodeCost);
-               incomingBestEdge.put(targetPoint, connectionData);
-
-               if(targetPoint.equals(goalPoint))
-               {
-                  break stackLoop;
-               }
-               else
-               {
-                  stack.add(targetPoint);
-               }
-            }
+            for (int edge = graph.edgeOffsets[sourceIndex]; edge < graph.edgeOffsets[sourceIndex + 1]; edge++)
+               relax(sourceIndex, graph.edgeTargets[edge], graph.edgeWeights[edge], goalPoint);
          }
+
+         for (int edge = queryEdgeHeads[sourceIndex]; edge != -1; edge = queryEdgeNexts[edge])
+            relax(sourceIndex, queryEdgeTargets[edge], queryEdgeWeights[edge], goalPoint);
       }
 
-      if(nodeCosts.containsKey(goalPoint))
+      if (goalIndex != -1 && nodeCosts[goalIndex] < Double.POSITIVE_INFINITY)
       {
-         return getPathToPoint(goalPoint);
+         return getPathToNode(goalIndex, goalPoint);
       }
       else
       {
-         return getPathToPoint(closestPointToGoal);
+         return getPathToNode(closestNodeToGoal, getNode(closestNodeToGoal));
       }
    }
 
-   private List<Point3DReadOnly> getPathToPoint(ConnectionPoint3D point)
+   private void relax(int sourceIndex, int targetIndex, double edgeWeight, ConnectionPoint3D goalPoint)
    {
-      List<Point3DReadOnly> path = new ArrayList<Point3DReadOnly>(){{add(point);}};
+      if (expandedNodes[targetIndex])
+         return;
 
-      ConnectionData incomingEdge = incomingBestEdge.get(point);
-      ConnectionPoint3D previousTargetPoint = new ConnectionPoint3D(point);
+      double nodeCost = nodeCosts[sourceIndex] + edgeWeight;
 
-      while(incomingEdge != null)
+      if (nodeCost < nodeCosts[targetIndex])
       {
-         Connection connection = incomingEdge.connection;
-         ConnectionPoint3D targetPoint = connection.getOppositePoint(previousTargetPoint);
-         path.add(targetPoint);
-         incomingEdge = incomingBestEdge.get(targetPoint);
+         nodeCosts[targetIndex] = nodeCost;
+         parentNodes[targetIndex] = sourceIndex;
+         heap.insertOrDecreaseKey(targetIndex, nodeCost + heuristicWeight * getNode(targetIndex).distance(goalPoint));
+      }
+   }
+
+   private boolean isGraphUpToDate(List<VisibilityMapHolder> staticHolders)
+   {
+      if (graph == null || graphHolders.size() != staticHolders.size())
+         return false;
+
+      for (int i = 0; i < staticHolders.size(); i++)
+      {
+         VisibilityMapHolder holder = staticHolders.get(i);
+         VisibilityMap visibilityMap = holder.getVisibilityMapInWorld();
 
-         previousTargetPoint = targetPoint;
+         // Connections are only ever added to a map, e.g. when connecting the start or goal to a fallback map.
+         if (holder != graphHolders.get(i) || visibilityMap != graphMaps.get(i) || visibilityMap.getConnections().size() != graphMapSizes[i])
+            return false;
       }
 
+      return true;
+   }
+
+   private void buildGraph(List<VisibilityMapHolder> staticHolders)
+   {
+      graph = new CompressedVisibilityGraph(staticHolders);
+
+      graphHolders.clear();
+      graphMaps.clear();
+      graphMapSizes = new int[staticHolders.size()];
+
+      for (int i = 0; i < staticHolders.size(); i++)
+      {
+         VisibilityMap visibilityMap = staticHolders.get(i).getVisibilityMapInWorld();
+         graphHolders.add(staticHolders.get(i));
+         graphMaps.add(visibilityMap);
+         graphMapSizes[i] = visibilityMap.getConnections().size();
+      }
+   }
+
+   private void buildQueryEdges(List<VisibilityMapHolder> queryHolders)
+   {
+      queryNodeIndices.clear();
+      queryNodes.clear();
+      numberOfQueryEdges = 0;
+
+      for (VisibilityMapHolder visibilityMapHolder : queryHolders)
+      {
+         for (Connection connection : visibilityMapHolder.getVisibilityMapInWorld())
+         {
+            int sourceIndex = getOrAddNode(connection.getSourcePoint());
+            int targetIndex = getOrAddNode(connection.getTargetPoint());
+            double weight = visibilityMapHolder.getConnectionWeight(connection);
+            addQueryEdge(sourceIndex, targetIndex, weight);
+            addQueryEdge(targetIndex, sourceIndex, weight);
+         }
+      }
+
+      // The heads are only known once all the nodes have been added
+      int numberOfNodes = graph.getNumberOfNodes() + queryNodes.size();
+      if (queryEdgeHeads.length < numberOfNodes)
+         queryEdgeHeads = new int[numberOfNodes];
+      Arrays.fill(queryEdgeHeads, 0, numberOfNodes, -1);
+
+      for (int edge = 0; edge < numberOfQueryEdges; edge++)
+      {
+         int sourceIndex = queryEdgeNexts[edge];
+         queryEdgeNexts[edge] = queryEdgeHeads[sourceIndex];
+         queryEdgeHeads[sourceIndex] = edge;
+      }
+   }
+
+   /**
+    * Stores the source of the edge in {@link #queryEdgeNexts} until the linked lists are built.
+    */
+   private void addQueryEdge(int sourceIndex, int targetIndex, double weight)
+   {
+      if (numberOfQueryEdges == queryEdgeTargets.length)
+      {
+         queryEdgeNexts = Arrays.copyOf(queryEdgeNexts, 2 * numberOfQueryEdges);
+         queryEdgeTargets = Arrays.copyOf(queryEdgeTargets, 2 * numberOfQueryEdges);
+         queryEdgeWeights = Arrays.copyOf(queryEdgeWeights, 2 * numberOfQueryEdges);
+      }
+
+      queryEdgeNexts[numberOfQueryEdges] = sourceIndex;
+      queryEdgeTargets[numberOfQueryEdges] = targetIndex;
+      queryEdgeWeights[numberOfQueryEdges] = weight;
+      numberOfQueryEdges++;
+   }
+
+   /**
+    * Nodes that are not part of the graph are indexed after its nodes.
+    */
+   private int getOrAddNode(ConnectionPoint3D point)
+   {
+      int index = getNodeIndex(point);
+
+      if (index == -1)
+      {
+         index = graph.getNumberOfNodes() + queryNodes.size();
+         queryNodeIndices.put(point, index);
+         queryNodes.add(point);
+
+         if (queryEdgeHeads.length <= index)
+            queryEdgeHeads = Arrays.copyOf(queryEdgeHeads, 2 * index + 1);
+         queryEdgeHeads[index] = -1;
+      }
+
+      return index;
+   }
+
+   private int getNodeIndex(ConnectionPoint3D point)
+   {
+      int index = graph.getNodeIndex(point);
+      if (index != -1)
+         return index;
+
+      Integer queryIndex = queryNodeIndices.get(point);
+      return queryIndex == null ? -1 : queryIndex;
+   }
+
+   private ConnectionPoint3D getNode(int index)
+   {
+      if (index < graph.getNumberOfNodes())
+         return graph.nodes[index];
+      else
+         return queryNodes.get(index - graph.getNumberOfNodes());
+   }
+
+   private void initializeSearch(int numberOfNodes)
+   {
+      if (nodeCosts.length < numberOfNodes)
+      {
+         nodeCosts = new double[numberOfNodes];
+         parentNodes = new int[numberOfNodes];
+         expandedNodes = new boolean[numberOfNodes];
+      }
+
+      Arrays.fill(nodeCosts, 0, numberOfNodes, Double.POSITIVE_INFINITY);
+      Arrays.fill(parentNodes, 0, numberOfNodes, -1);
+      Arrays.fill(expandedNodes, 0, numberOfNodes, false);
+      heap.reset(numberOfNodes);
+   }
+
+   private List<Point3DReadOnly> getPathToNode(int nodeIndex, ConnectionPoint3D point)
+   {
+      List<Point3DReadOnly> path = new ArrayList<>();
+      path.add(point);
+
+      for (int parent = parentNodes[nodeIndex]; parent != -1; parent = parentNodes[parent])
+         path.add(getNode(parent));
+
       Collections.reverse(path);
       return path;
    }
@@ -0,0 +1,124 @@
+package us.ihmc.pathPlanning.visibilityGraphs.dijkstra;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node indices that keeps track of the position of each node, such that the key
+ * of a node already in the heap can be decreased in place instead of adding the node again.
+ */
+class IndexedMinHeap
+{
+   private int[] heap = new int[0];
+   private double[] keys = new double[0];
+   private int[] positions = new int[0];
+   private int size = 0;
+
+   /**
+    * Empties the heap and makes room for the nodes {@code [0, numberOfNodes)}.
+    */
+   void reset(int numberOfNodes)
+   {
+      if (positions.length < numberOfNodes)
+      {
+         heap = new int[numberOfNodes];
+         keys = new double[numberOfNodes];
+         positions = new int[numberOfNodes];
+      }
+
+      Arrays.fill(positions, 0, numberOfNodes, -1);
+      size = 0;
+   }
+
+   boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   /**
+    * Adds the node with the given key or, if it is already in the heap with a larger key, decreases
+    * its key.
+    */
+   void insertOrDecreaseKey(int node, double key)
+   {
+      int position = positions[node];
+
+      if (position == -1)
+      {
+         position = size++;
+         heap[position] = node;
+      }
+      else if (key >= keys[node])
+      {
+         return;
+      }
+
+      keys[node] = key;
+      siftUp(position);
+   }
+
+   /**
+    * Removes and returns the node with the smallest key.
+    */
+   int poll()
+   {
+      int node = heap[0];
+      positions[node] = -1;
+      size--;
+
+      if (size > 0)
+      {
+         heap[0] = heap[size];
+         positions[heap[0]] = 0;
+         siftDown(0);
+      }
+
+      return node;
+   }
+
+   private void siftUp(int position)
+   {
+      int node = heap[position];
+      double key = keys[node];
+
+      while (position > 0)
+      {
+         int parentPosition = (position - 1) >> 1;
+         int parent = heap[parentPosition];
+         if (keys[parent] <= key)
+            break;
+
+         heap[position] = parent;
+         positions[parent] = position;
+         position = parentPosition;
+      }
+
+      heap[position] = node;
+      positions[node] = position;
+   }
+
+   private void siftDown(int position)
+   {
+      int node = heap[position];
+      double key = keys[node];
+
+      while (true)
+      {
+         int childPosition = 2 * position + 1;
+         if (childPosition >= size)
+            break;
+         if (childPosition + 1 < size && keys[heap[childPosition + 1]] < keys[heap[childPosition]])
+            childPosition++;
+
+         int child = heap[childPosition];
+         if (keys[child] >= key)
+            break;
+
+         heap[position] = child;
+         positions[child] = position;
+         position = childPosition;
+      }
+
+      heap[position] = node;
+      positions[node] = position;
+   }
+}
@@ -11,4 +11,28 @@ public interface InterRegionConnectionFilter
    }
 
    boolean isConnectionValid(ConnectionPoint3D source, ConnectionPoint3D target);
+
+   /**
+    * Used to skip the pairs of regions or points that are too far apart before calling
+    * {@link #isConnectionValid(ConnectionPoint3D, ConnectionPoint3D)}. Implementations must not
+    * accept connections longer than this.
+    *
+    * @return the maximum length of a valid connection.
+    */
+   default double getMaximumConnectionLength()
+   {
+      return Double.POSITIVE_INFINITY;
+   }
+
+   /**
+    * Used to skip the pairs of regions or points that are too far apart before calling
+    * {@link #isConnectionValid(ConnectionPoint3D, ConnectionPoint3D)}. Implementations must not
+    * accept connections with a larger difference in height than this.
+    *
+    * @return the maximum difference in height between the two ends of a valid connection.
+    */
+   default double getMaximumDeltaHeight()
+   {
+      return Double.POSITIVE_INFINITY;
+   }
 }
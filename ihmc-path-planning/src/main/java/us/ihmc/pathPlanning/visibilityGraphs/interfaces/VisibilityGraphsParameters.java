@@ -139,6 +139,18 @@ public interface VisibilityGraphsParameters
 
             return true;
          }
+
+         @Override
+         public double getMaximumConnectionLength()
+         {
+            return getMaxInterRegionConnectionLength();
+         }
+
+         @Override
+         public double getMaximumDeltaHeight()
+         {
+            return maxDeltaHeight;
+         }
       };
    }
 
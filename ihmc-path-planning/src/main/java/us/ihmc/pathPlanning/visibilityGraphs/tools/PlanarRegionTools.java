@@ -32,6 +32,7 @@ import us.ihmc.robotEnvironmentAwareness.geometry.ConcaveHullDecomposition;
 import us.ihmc.robotEnvironmentAwareness.geometry.ConcaveHullTools;
 import us.ihmc.robotics.geometry.PlanarRegion;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.geometry.PlanarRegionsSpatialIndex;
 import us.ihmc.commons.lists.ListWrappingIndexTools;
 import us.ihmc.tools.ArrayTools;
 
@@ -113,6 +114,17 @@ public class PlanarRegionTools
       return projectPointToPlanesVertically(pointInWorld, regions.getPlanarRegionsAsList());
    }
 
+   /**
+    * Same as {@link #projectPointToPlanesVertically(Point3DReadOnly, PlanarRegionsList)}, only the
+    * regions of the index that are above or below the point are tested.
+    */
+   public static Point3DReadOnly projectPointToPlanesVertically(Point3DReadOnly pointInWorld, PlanarRegionsSpatialIndex regions)
+   {
+      List<PlanarRegion> candidateRegions = new ArrayList<>();
+      regions.findPlanarRegionsIntersectingBoundingBox(pointInWorld.getX(), pointInWorld.getY(), pointInWorld.getX(), pointInWorld.getY(), candidateRegions);
+      return projectPointToPlanesVertically(pointInWorld, candidateRegions);
+   }
+
    /**
     * Projects the given point onto a planar region from the list. The projection is done along the
     * z axis in world frame and if there is multiple regions that the point can be projected onto,
@@ -441,6 +453,17 @@ public class PlanarRegionTools
       return findPlanarRegionsIntersectingPolygon(convexPolygon, regions.getPlanarRegionsAsList());
    }
 
+   /**
+    * Same as {@link #findPlanarRegionsIntersectingPolygon(ConvexPolygon2DReadOnly, PlanarRegionsList)},
+    * only the regions of the index that overlap with the bounding box of the polygon are tested.
+    */
+   public static List<PlanarRegion> findPlanarRegionsIntersectingPolygon(ConvexPolygon2DReadOnly convexPolygon, PlanarRegionsSpatialIndex regions)
+   {
+      List<PlanarRegion> candidateRegions = new ArrayList<>();
+      regions.findPlanarRegionsIntersectingBoundingBox(convexPolygon.getBoundingBox(), candidateRegions);
+      return findPlanarRegionsIntersectingPolygon(convexPolygon, candidateRegions);
+   }
+
    /**
     * Find all the planar regions that intersect with the given convex polygon. The algorithm is
     * equivalent to projecting all the regions onto the XY-plane and then finding the regions
@@ -575,6 +598,26 @@ public class PlanarRegionTools
       return planarRegions.stream().filter(region -> isPlanarRegionIntersectingWithCircle(circleOrigin, circleRadius, region)).collect(Collectors.toList());
    }
 
+   /**
+    * Same as {@link #filterPlanarRegionsWithBoundingCircle(Point2DReadOnly, double, List)}, only the
+    * regions of the index with a bounding box closer than the radius to the circle origin are
+    * tested. A radius that is not finite or is negative is handled like the list version.
+    */
+   public static List<PlanarRegion> filterPlanarRegionsWithBoundingCircle(Point2DReadOnly circleOrigin, double circleRadius,
+                                                                          PlanarRegionsSpatialIndex planarRegions)
+   {
+      if (!Double.isFinite(circleRadius) || circleRadius < 0.0)
+      {
+         List<PlanarRegion> allRegions = planarRegions.getPlanarRegionsList() == null ? new ArrayList<>()
+               : planarRegions.getPlanarRegionsList().getPlanarRegionsAsList();
+         return filterPlanarRegionsWithBoundingCircle(circleOrigin, circleRadius, allRegions);
+      }
+
+      List<PlanarRegion> candidateRegions = new ArrayList<>();
+      planarRegions.findPlanarRegionsNearPoint(circleOrigin, circleRadius, candidateRegions);
+      return filterPlanarRegionsWithBoundingCircle(circleOrigin, circleRadius, candidateRegions);
+   }
+
    public static List<PlanarRegion> filterPlanarRegionsWithBoundingCapsule(Point3DReadOnly capsuleStartInWorld, Point3DReadOnly capsuleEndInWorld,
                                                                            double capsuleRadius, List<PlanarRegion> planarRegions)
    {
@@ -0,0 +1,147 @@
+package us.ihmc.pathPlanning.visibilityGraphs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.Axis;
+import us.ihmc.euclid.axisAngle.AxisAngle;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.ConnectionPoint3D;
+import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.NavigableRegion;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.InterRegionConnectionFilter;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityGraphsParameters;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.geometry.PlanarRegionsListGenerator;
+
+public class NavigableRegionsManagerTest
+{
+   private static final double EPSILON = 1.0e-10;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testReusingNavigableRegionsOnUpdatedRegions()
+   {
+      PlanarRegionsList planarRegionsList = createEnvironment();
+      Point3D start = new Point3D(-1.5, 0.0, 0.0);
+      Point3D goal = new Point3D(1.5, 0.5, 0.0);
+
+      NavigableRegionsManager manager = new NavigableRegionsManager();
+      manager.setPlanarRegions(planarRegionsList.copy().getPlanarRegionsAsList());
+      List<Point3DReadOnly> firstPath = manager.calculateBodyPath(start, goal);
+      assertNotNull(firstPath);
+      List<NavigableRegion> firstNavigableRegions = manager.getNavigableRegions();
+
+      // Same regions from a new message, nothing is recomputed
+      manager.setPlanarRegions(planarRegionsList.copy().getPlanarRegionsAsList());
+      List<Point3DReadOnly> secondPath = manager.calculateBodyPath(start, goal);
+      assertPathsEqual(firstPath, secondPath);
+
+      List<NavigableRegion> secondNavigableRegions = manager.getNavigableRegions();
+      assertEquals(firstNavigableRegions.size(), secondNavigableRegions.size());
+      for (int i = 0; i < firstNavigableRegions.size(); i++)
+         assertSame(firstNavigableRegions.get(i), secondNavigableRegions.get(i));
+
+      // The box is moved, the path has to match the one of a new manager
+      PlanarRegionsList modifiedRegions = planarRegionsList.copy();
+      for (int i = 1; i < modifiedRegions.getNumberOfPlanarRegions(); i++)
+         modifiedRegions.getPlanarRegion(i).transform(new RigidBodyTransform(new AxisAngle(), new Vector3D(0.0, 0.4, 0.0)));
+
+      manager.setPlanarRegions(modifiedRegions.copy().getPlanarRegionsAsList());
+      List<Point3DReadOnly> updatedPath = manager.calculateBodyPath(start, goal);
+
+      NavigableRegionsManager expectedManager = new NavigableRegionsManager();
+      expectedManager.setPlanarRegions(modifiedRegions.copy().getPlanarRegionsAsList());
+      List<Point3DReadOnly> expectedPath = expectedManager.calculateBodyPath(start, goal);
+
+      assertPathsEqual(expectedPath, updatedPath);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testParallelAndSerialPathsAreEqual()
+   {
+      PlanarRegionsList planarRegionsList = createEnvironment();
+      Point3D start = new Point3D(-1.5, 0.0, 0.0);
+      Point3D goal = new Point3D(1.5, 0.5, 0.0);
+
+      NavigableRegionsManager serialManager = new NavigableRegionsManager();
+      serialManager.setPlanarRegions(planarRegionsList.copy().getPlanarRegionsAsList());
+      List<Point3DReadOnly> serialPath = serialManager.calculateBodyPath(start, goal);
+
+      NavigableRegionsManager parallelManager = new NavigableRegionsManager();
+      parallelManager.setParallelComputation(true);
+      parallelManager.setPlanarRegions(planarRegionsList.copy().getPlanarRegionsAsList());
+      List<Point3DReadOnly> parallelPath = parallelManager.calculateBodyPath(start, goal);
+
+      assertNotNull(serialPath);
+      assertPathsEqual(serialPath, parallelPath);
+      assertEquals(serialManager.getNavigableRegions().size(), parallelManager.getNavigableRegions().size());
+      assertEquals(serialManager.getInterRegionConnections().getVisibilityMapInWorld().getConnections(),
+                   parallelManager.getInterRegionConnections().getVisibilityMapInWorld().getConnections());
+
+      // Every connection that passes the filter is still found with the broad phase
+      VisibilityGraphsParameters parameters = new DefaultVisibilityGraphParameters();
+      InterRegionConnectionFilter filter = parameters.getInterRegionConnectionFilter();
+      List<NavigableRegion> navigableRegions = VisibilityGraphsFactory.createNavigableRegions(planarRegionsList.getPlanarRegionsAsList(), parameters);
+      for (NavigableRegion source : navigableRegions)
+      {
+         for (NavigableRegion target : navigableRegions)
+         {
+            if (source == target)
+               continue;
+
+            int expectedNumberOfConnections = 0;
+            for (ConnectionPoint3D sourcePoint : source.getVisibilityMapInWorld().getVertices())
+            {
+               for (ConnectionPoint3D targetPoint : target.getVisibilityMapInWorld().getVertices())
+               {
+                  if (sourcePoint.getRegionId() != targetPoint.getRegionId() && filter.isConnectionValid(sourcePoint, targetPoint))
+                     expectedNumberOfConnections++;
+               }
+            }
+
+            assertEquals(expectedNumberOfConnections, VisibilityGraphsFactory.createInterRegionConnections(source, target, filter).size());
+         }
+      }
+   }
+
+   private static PlanarRegionsList createEnvironment()
+   {
+      PlanarRegionsListGenerator generator = new PlanarRegionsListGenerator();
+      generator.addRectangle(5.0, 4.0);
+
+      generator.translate(0.0, 0.0, 0.5);
+      generator.addRectangle(0.6, 1.5);
+
+      generator.identity();
+      generator.translate(0.3, 0.0, 0.25);
+      generator.rotate(0.5 * Math.PI, Axis.Y);
+      generator.addRectangle(0.5, 1.5);
+
+      generator.identity();
+      generator.translate(-0.3, 0.0, 0.25);
+      generator.rotate(0.5 * Math.PI, Axis.Y);
+      generator.addRectangle(0.5, 1.5);
+
+      return generator.getPlanarRegionsList();
+   }
+
+   private static void assertPathsEqual(List<Point3DReadOnly> expectedPath, List<Point3DReadOnly> actualPath)
+   {
+      assertNotNull(actualPath);
+      assertEquals(expectedPath.size(), actualPath.size());
+
+      for (int i = 0; i < expectedPath.size(); i++)
+         assertTrue(expectedPath.get(i).epsilonEquals(actualPath.get(i), EPSILON));
+   }
+}
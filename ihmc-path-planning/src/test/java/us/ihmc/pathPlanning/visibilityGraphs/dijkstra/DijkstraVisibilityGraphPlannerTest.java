@@ -7,11 +7,15 @@ import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.Connection;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.ConnectionPoint3D;
 import us.ihmc.pathPlanning.visibilityGraphs.dataStructure.VisibilityMap;
+import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityGraphPathPlanner;
 import us.ihmc.pathPlanning.visibilityGraphs.interfaces.VisibilityMapHolder;
+import us.ihmc.pathPlanning.visibilityGraphs.tools.JGraphTools;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 
 @ContinuousIntegrationAnnotations.ContinuousIntegrationPlan(categories = {IntegrationCategory.FAST})
@@ -66,4 +70,84 @@ public class DijkstraVisibilityGraphPlannerTest
       assertTrue(path.get(2).equals(p4));
       assertTrue(path.get(3).equals(p5));
    }
+
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testRepeatedQueriesAgainstJGraphT()
+   {
+      Random random = new Random(4536L);
+      int numberOfPoints = 200;
+
+      List<ConnectionPoint3D> points = new ArrayList<>();
+      for (int i = 0; i < numberOfPoints; i++)
+         points.add(new ConnectionPoint3D(10.0 * random.nextDouble(), 10.0 * random.nextDouble(), random.nextDouble(), i % 5));
+
+      // A chain to make sure every point is reachable, plus short random connections
+      VisibilityMap visibilityMap = new VisibilityMap();
+      for (int i = 1; i < numberOfPoints; i++)
+         visibilityMap.addConnection(new Connection(points.get(i - 1), points.get(i)));
+      for (int i = 0; i < 5 * numberOfPoints; i++)
+      {
+         ConnectionPoint3D source = points.get(random.nextInt(numberOfPoints));
+         ConnectionPoint3D target = points.get(random.nextInt(numberOfPoints));
+         if (source != target && source.distance(target) < 2.0)
+            visibilityMap.addConnection(new Connection(source, target));
+      }
+
+      List<VisibilityMapHolder> visibilityMapHolders = new ArrayList<>();
+      visibilityMapHolders.add(createHolder(visibilityMap));
+
+      DijkstraVisibilityGraphPlanner planner = new DijkstraVisibilityGraphPlanner();
+      VisibilityGraphPathPlanner expectedPlanner = JGraphTools.getJGraphPlanner();
+
+      for (int i = 0; i < 50; i++)
+      {
+         if (i == 25)
+         { // The planner has to notice that the map changed
+            visibilityMap.addConnection(new Connection(points.get(0), points.get(numberOfPoints - 1)));
+         }
+
+         ConnectionPoint3D start = points.get(random.nextInt(numberOfPoints));
+         ConnectionPoint3D goal = points.get((points.indexOf(start) + 1 + random.nextInt(numberOfPoints - 1)) % numberOfPoints);
+
+         List<Point3DReadOnly> path = planner.calculatePath(start, goal, visibilityMapHolders);
+         List<Point3DReadOnly> expectedPath = expectedPlanner.calculatePath(start, goal, visibilityMapHolders);
+
+         assertTrue(path.get(0).equals(start));
+         assertTrue(path.get(path.size() - 1).equals(goal));
+         assertEquals(computePathLength(expectedPath), computePathLength(path), 1.0e-7);
+      }
+   }
+
+   private static double computePathLength(List<Point3DReadOnly> path)
+   {
+      double length = 0.0;
+      for (int i = 1; i < path.size(); i++)
+         length += path.get(i - 1).distance(path.get(i));
+      return length;
+   }
+
+   private static VisibilityMapHolder createHolder(VisibilityMap visibilityMap)
+   {
+      return new VisibilityMapHolder()
+      {
+         @Override
+         public int getMapId()
+         {
+            return 0;
+         }
+
+         @Override
+         public VisibilityMap getVisibilityMapInLocal()
+         {
+            return null;
+         }
+
+         @Override
+         public VisibilityMap getVisibilityMapInWorld()
+         {
+            return visibilityMap;
+         }
+      };
+   }
 }
@@ -38,6 +38,7 @@ import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 import us.ihmc.robotics.geometry.PlanarRegion;
 import us.ihmc.robotics.geometry.PlanarRegionTest;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.geometry.PlanarRegionsSpatialIndex;
 
 public class PlanarRegionToolsTest
 {
@@ -305,6 +306,14 @@ public class PlanarRegionToolsTest
             assertTrue(regionsWithinDistanceExpected.contains(regionsWithinDistance.get(i)));
             assertFalse(regionsOutsideDistance.contains(regionsWithinDistance.get(i)));
          }
+
+         PlanarRegionsSpatialIndex index = new PlanarRegionsSpatialIndex();
+         index.update(new PlanarRegionsList(allRegions));
+         for (double radius : new double[] {maxRegionDistance, -1.0, Double.NaN, Double.POSITIVE_INFINITY})
+         {
+            assertEquals(PlanarRegionTools.filterPlanarRegionsWithBoundingCircle(new Point2D(randomOrigin), radius, allRegions),
+                         PlanarRegionTools.filterPlanarRegionsWithBoundingCircle(new Point2D(randomOrigin), radius, index));
+         }
       }
    }
 
@@ -18,6 +18,8 @@ public enum LogDataType
       
          VIDEO_PACKET,
       
+         DELTA_DATA_PACKET,
+      
    ;
    public static LogDataType[] values = values();
 
@@ -6,7 +6,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
-public class LogIndex
+public class LogIndex implements LogIndexInterface
 {
    public long[] timestamps;
    public long[] dataOffsets;
@@ -42,7 +42,26 @@ public class LogIndex
 
    }
 
-   public int seek(long inStamp) throws IOException
+   @Override
+   public long getTimestamp(int position)
+   {
+      return timestamps[position];
+   }
+
+   @Override
+   public long getDataOffset(int position)
+   {
+      return dataOffsets[position];
+   }
+
+   @Override
+   public int getCompressedSize(int position)
+   {
+      return compressedSizes[position];
+   }
+
+   @Override
+   public int seek(long inStamp)
    {
       int head = 0;
       int tail = numberOfEntries;
@@ -65,11 +84,13 @@ public class LogIndex
       return position;
    }
 
+   @Override
    public int getNumberOfEntries()
    {
       return dataOffsets.length;
    }
 
+   @Override
    public long getInitialTimestamp()
    {
       return timestamps[0];
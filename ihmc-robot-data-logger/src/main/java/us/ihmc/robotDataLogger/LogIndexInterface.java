@@ -0,0 +1,25 @@
+package us.ihmc.robotDataLogger;
+
+/**
+ * Index of a compressed log, mapping log lines to their timestamp and location in the data file.
+ */
+public interface LogIndexInterface
+{
+   public long getTimestamp(int position);
+
+   public long getDataOffset(int position);
+
+   public int getCompressedSize(int position);
+
+   /**
+    * Find the position of the first entry with a timestamp equal or greater than timestamp.
+    */
+   public int seek(long timestamp);
+
+   public int getNumberOfEntries();
+
+   public default long getInitialTimestamp()
+   {
+      return getTimestamp(0);
+   }
+}
@@ -0,0 +1,102 @@
+package us.ihmc.robotDataLogger;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Releases memory mapped files without waiting for the garbage collector.
+ *
+ * A file stays mapped, and thus open, until its buffer is collected. On Windows an open file cannot be deleted or replaced. There is no public API to
+ * unmap a buffer, so this uses the cleaner of the buffer through reflection: sun.misc.Unsafe.invokeCleaner on Java 9 and later, sun.nio.ch.DirectBuffer
+ * on Java 8. When neither is available the mapping is released by the garbage collector once all references to the buffer are dropped.
+ */
+final class MappedBufferTools
+{
+   private static final Unmapper unmapper = createUnmapper();
+
+   private MappedBufferTools()
+   {
+   }
+
+   /**
+    * Unmaps the buffer. The buffer and all buffers derived from it, duplicates and slices, must not be used afterward. Accessing them is undefined and
+    * can crash the JVM.
+    *
+    * @return true if the buffer was unmapped, false if the mapping is left to the garbage collector
+    */
+   static boolean unmap(MappedByteBuffer buffer)
+   {
+      if (unmapper == null || buffer == null)
+      {
+         return false;
+      }
+
+      try
+      {
+         unmapper.unmap(buffer);
+         return true;
+      }
+      catch (ReflectiveOperationException | RuntimeException e)
+      {
+         return false;
+      }
+   }
+
+   private static Unmapper createUnmapper()
+   {
+      try
+      {
+         Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+         Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", java.nio.ByteBuffer.class);
+         Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+         theUnsafe.setAccessible(true);
+         Object unsafe = theUnsafe.get(null);
+         return buffer -> invoke(invokeCleaner, unsafe, buffer);
+      }
+      catch (ReflectiveOperationException | RuntimeException e)
+      {
+         // Java 8
+      }
+
+      try
+      {
+         Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+         Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+         return buffer ->
+         {
+            Object bufferCleaner = invoke(cleaner, buffer);
+            if (bufferCleaner != null)
+            {
+               invoke(clean, bufferCleaner);
+            }
+         };
+      }
+      catch (ReflectiveOperationException | RuntimeException e)
+      {
+         return null;
+      }
+   }
+
+   private static Object invoke(Method method, Object object, Object... arguments) throws ReflectiveOperationException
+   {
+      try
+      {
+         return method.invoke(object, arguments);
+      }
+      catch (InvocationTargetException e)
+      {
+         if (e.getCause() instanceof RuntimeException)
+         {
+            throw (RuntimeException) e.getCause();
+         }
+         throw e;
+      }
+   }
+
+   private interface Unmapper
+   {
+      void unmap(MappedByteBuffer buffer) throws ReflectiveOperationException;
+   }
+}
@@ -0,0 +1,169 @@
+package us.ihmc.robotDataLogger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Memory maps the compressed data file of a log, robotData.bsz.
+ *
+ * The file is mapped in segments of at most maximumSegmentSize bytes. Segment boundaries are placed on entry boundaries, so every compressed entry is
+ * contiguous in a single segment and can be handed to Snappy without copying.
+ *
+ * The mapping keeps the file open until {@link #close()} is called, on Windows the file cannot be deleted before.
+ */
+public class MappedLogData implements Closeable
+{
+   private static final long DEFAULT_MAXIMUM_SEGMENT_SIZE = 1L << 30;
+
+   private final MappedLogIndex index;
+   private final MappedByteBuffer[] segments;
+   private final long[] segmentOffsets;
+   private final int[] segmentFirstEntries;
+
+   public MappedLogData(File data, MappedLogIndex index) throws IOException
+   {
+      this(data, index, DEFAULT_MAXIMUM_SEGMENT_SIZE);
+   }
+
+   public MappedLogData(File data, MappedLogIndex index, long maximumSegmentSize) throws IOException
+   {
+      this.index = index;
+
+      TIntArrayList firstEntries = new TIntArrayList();
+      int numberOfEntries = index.getNumberOfEntries();
+      int entry = 0;
+      while (entry < numberOfEntries)
+      {
+         firstEntries.add(entry);
+         entry = findLastEntryInSegment(entry, maximumSegmentSize) + 1;
+      }
+
+      segmentFirstEntries = firstEntries.toArray();
+      segments = new MappedByteBuffer[segmentFirstEntries.length];
+      segmentOffsets = new long[segmentFirstEntries.length];
+
+      try (FileInputStream dataStream = new FileInputStream(data); FileChannel dataChannel = dataStream.getChannel())
+      {
+         for (int i = 0; i < segmentFirstEntries.length; i++)
+         {
+            int lastEntry = i + 1 < segmentFirstEntries.length ? segmentFirstEntries[i + 1] - 1 : numberOfEntries - 1;
+            segmentOffsets[i] = index.getDataOffset(segmentFirstEntries[i]);
+            segments[i] = dataChannel.map(MapMode.READ_ONLY, segmentOffsets[i], index.getDataEnd(lastEntry) - segmentOffsets[i]);
+         }
+      }
+   }
+
+   /**
+    * Binary search for the last entry that still fits in a segment starting at firstEntry. A segment contains at least one entry.
+    */
+   private int findLastEntryInSegment(int firstEntry, long maximumSegmentSize)
+   {
+      long segmentEnd = index.getDataOffset(firstEntry) + maximumSegmentSize;
+
+      int head = firstEntry + 1;
+      int tail = index.getNumberOfEntries();
+      while (head < tail)
+      {
+         int position = head + (tail - head) / 2;
+         if (index.getDataEnd(position) <= segmentEnd)
+         {
+            head = position + 1;
+         }
+         else
+         {
+            tail = position;
+         }
+      }
+      return head - 1;
+   }
+
+   private int getSegment(int position)
+   {
+      int head = 0;
+      int tail = segmentFirstEntries.length;
+      while (head < tail)
+      {
+         int middle = head + (tail - head) / 2;
+         if (segmentFirstEntries[middle] <= position)
+         {
+            head = middle + 1;
+         }
+         else
+         {
+            tail = middle;
+         }
+      }
+      return head - 1;
+   }
+
+   /**
+    * Get a view on the compressed data of an entry.
+    *
+    * The returned buffer is shared, its position and limit are only valid until the next call. Use {@link #getCompressedData(int, ByteBuffer[])} when
+    * reading from multiple threads.
+    *
+    * @param position index of the entry
+    * @return direct buffer positioned on the compressed data
+    */
+   public ByteBuffer getCompressedData(int position)
+   {
+      int segment = getSegment(position);
+      return position(segments[segment], segment, position);
+   }
+
+   /**
+    * Get a view on the compressed data of an entry, using a per-thread set of views on the segments.
+    *
+    * @param position index of the entry
+    * @param views array created by {@link #createViews()}, owned by the calling thread
+    * @return direct buffer positioned on the compressed data
+    */
+   public ByteBuffer getCompressedData(int position, ByteBuffer[] views)
+   {
+      int segment = getSegment(position);
+      return position(views[segment], segment, position);
+   }
+
+   /**
+    * @return independent views on all segments, for use with {@link #getCompressedData(int, ByteBuffer[])}
+    */
+   public ByteBuffer[] createViews()
+   {
+      ByteBuffer[] views = new ByteBuffer[segments.length];
+      for (int i = 0; i < segments.length; i++)
+      {
+         views[i] = segments[i].duplicate();
+      }
+      return views;
+   }
+
+   /**
+    * Unmaps the data file. This object, the buffers it returned and the views created by {@link #createViews()} cannot be used afterward.
+    */
+   @Override
+   public void close()
+   {
+      for (int i = 0; i < segments.length; i++)
+      {
+         MappedBufferTools.unmap(segments[i]);
+         segments[i] = null;
+      }
+   }
+
+   private ByteBuffer position(ByteBuffer buffer, int segment, int position)
+   {
+      int start = (int) (index.getDataOffset(position) - segmentOffsets[segment]);
+      int end = (int) (index.getDataEnd(position) - segmentOffsets[segment]);
+      buffer.limit(end);
+      buffer.position(start);
+      return buffer;
+   }
+}
@@ -0,0 +1,138 @@
+package us.ihmc.robotDataLogger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Log index that memory maps robotData.dat instead of copying it to per-entry arrays.
+ *
+ * Opening the index is constant time, entries are paged in by the operating system on first access. Index files larger than 2GB are mapped in segments.
+ * All accessors use absolute reads and are safe to use from multiple threads.
+ *
+ * The mapping keeps the file open until {@link #close()} is called, on Windows the file cannot be deleted before.
+ */
+public class MappedLogIndex implements LogIndexInterface, Closeable
+{
+   private static final int ENTRY_SIZE = 16;
+   private static final int DEFAULT_ENTRIES_PER_SEGMENT = (1 << 30) / ENTRY_SIZE;
+
+   private final MappedByteBuffer[] segments;
+   private final int entriesPerSegment;
+   private final int numberOfEntries;
+   private final long dataSize;
+
+   /**
+    * @param indexData robotData.dat file
+    * @param dataSize size of the compressed data file, used to calculate the size of the last entry
+    */
+   public MappedLogIndex(File indexData, long dataSize) throws IOException
+   {
+      this(indexData, dataSize, DEFAULT_ENTRIES_PER_SEGMENT);
+   }
+
+   public MappedLogIndex(File indexData, long dataSize, int entriesPerSegment) throws IOException
+   {
+      this.dataSize = dataSize;
+      this.entriesPerSegment = entriesPerSegment;
+
+      try (FileInputStream indexStream = new FileInputStream(indexData); FileChannel indexChannel = indexStream.getChannel())
+      {
+         long entries = indexChannel.size() / ENTRY_SIZE;
+         if (entries > Integer.MAX_VALUE)
+         {
+            throw new IOException("Index " + indexData + " has more than " + Integer.MAX_VALUE + " entries");
+         }
+         numberOfEntries = (int) entries;
+
+         int numberOfSegments = (numberOfEntries + entriesPerSegment - 1) / entriesPerSegment;
+         segments = new MappedByteBuffer[numberOfSegments];
+         for (int i = 0; i < numberOfSegments; i++)
+         {
+            long start = (long) i * entriesPerSegment * ENTRY_SIZE;
+            long length = (long) Math.min(entriesPerSegment, numberOfEntries - i * entriesPerSegment) * ENTRY_SIZE;
+            segments[i] = indexChannel.map(MapMode.READ_ONLY, start, length);
+         }
+      }
+   }
+
+   @Override
+   public long getTimestamp(int position)
+   {
+      return segments[position / entriesPerSegment].getLong((position % entriesPerSegment) * ENTRY_SIZE);
+   }
+
+   @Override
+   public long getDataOffset(int position)
+   {
+      return segments[position / entriesPerSegment].getLong((position % entriesPerSegment) * ENTRY_SIZE + 8);
+   }
+
+   /**
+    * @return the offset of the first byte after the entry at position
+    */
+   public long getDataEnd(int position)
+   {
+      if (position + 1 < numberOfEntries)
+      {
+         return getDataOffset(position + 1);
+      }
+      else
+      {
+         return dataSize;
+      }
+   }
+
+   @Override
+   public int getCompressedSize(int position)
+   {
+      return (int) (getDataEnd(position) - getDataOffset(position));
+   }
+
+   @Override
+   public int seek(long inStamp)
+   {
+      int head = 0;
+      int tail = numberOfEntries;
+      int position = -1;
+
+      while (head < tail)
+      {
+         position = head + (tail - head) / 2;
+         long timestamp = getTimestamp(position);
+
+         if (timestamp < inStamp)
+         {
+            head = position + 1;
+         }
+         else
+         {
+            tail = position;
+         }
+      }
+      return position;
+   }
+
+   @Override
+   public int getNumberOfEntries()
+   {
+      return numberOfEntries;
+   }
+
+   /**
+    * Unmaps the index file. The index cannot be used afterward.
+    */
+   @Override
+   public void close()
+   {
+      for (int i = 0; i < segments.length; i++)
+      {
+         MappedBufferTools.unmap(segments[i]);
+         segments[i] = null;
+      }
+   }
+}
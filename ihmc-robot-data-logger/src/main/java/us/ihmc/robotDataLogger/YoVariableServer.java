@@ -55,6 +55,7 @@ public class YoVariableServer implements RobotVisualizer, TickAndUpdatable, Vari
    private YoVariableHandShakeBuilder handshakeBuilder;
 
    private boolean sendKeepAlive = false;
+   private int deltaEncodingKeyframeInterval = 0;
 
    private volatile long latestTimestamp;
    
@@ -157,7 +158,7 @@ public class YoVariableServer implements RobotVisualizer, TickAndUpdatable, Vari
          
          try
          {
-            publishers.put(registry, dataProducerParticipant.createRegistryPublisher(type, schedulerFactory, builder));
+            publishers.put(registry, dataProducerParticipant.createRegistryPublisher(type, schedulerFactory, builder, deltaEncodingKeyframeInterval));
          }
          catch (IOException e)
          {
@@ -200,6 +201,22 @@ public class YoVariableServer implements RobotVisualizer, TickAndUpdatable, Vari
       this.sendKeepAlive = sendKeepAlive;
    }
 
+   /**
+    * Only send the variables that changed since the last full update. Reduces bandwidth for registries where most variables are constant.
+    * 
+    * Call before start().
+    * 
+    * @param deltaEncodingKeyframeInterval Number of ticks between full updates of every variable, 0 to disable delta encoding
+    */
+   public void setDeltaEncodingKeyframeInterval(int deltaEncodingKeyframeInterval)
+   {
+      if (started)
+      {
+         throw new RuntimeException("Server already started");
+      }
+      this.deltaEncodingKeyframeInterval = deltaEncodingKeyframeInterval;
+   }
+
    public synchronized void close()
    {
       if (started && !stopped)
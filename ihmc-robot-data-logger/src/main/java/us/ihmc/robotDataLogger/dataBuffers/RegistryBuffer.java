@@ -37,6 +37,14 @@ public class RegistryBuffer implements Comparable<RegistryBuffer>
       this.type = type;
    }
 
+   /**
+    * @return true if this buffer carries variable data, either a full segment or a delta against a keyframe
+    */
+   public boolean isDataPacket()
+   {
+      return type == LogDataType.DATA_PACKET || type == LogDataType.DELTA_DATA_PACKET;
+   }
+
    public int getOffset()
    {
       return offset;
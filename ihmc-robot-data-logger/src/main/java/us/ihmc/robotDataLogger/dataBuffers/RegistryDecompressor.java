@@ -6,6 +6,8 @@ import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
+import us.ihmc.robotDataLogger.LogDataType;
 import us.ihmc.robotDataLogger.jointState.JointState;
 import us.ihmc.robotDataLogger.rtps.VariableChangedProducer;
 import us.ihmc.tools.compression.CompressionImplementation;
@@ -21,6 +23,10 @@ public class RegistryDecompressor
    private final ByteBuffer decompressBuffer;
    private final CompressionImplementation compressionImplementation;
 
+   /**
+    * Values of the last full segment received, keyed by the variable offset of the segment. Only kept once delta packets are received.
+    */
+   private final TIntObjectHashMap<Keyframe> keyframes = new TIntObjectHashMap<>();
    
    public RegistryDecompressor(List<YoVariable<?>> variables, List<JointState> jointStates)
    {
@@ -53,7 +59,12 @@ public class RegistryDecompressor
       }
    }
    
-   public void decompressSegment(RegistryReceiveBuffer buffer, int registryOffset)
+   /**
+    * Decompress a segment and update the variables.
+    * 
+    * @return false if the segment is a delta against a keyframe that was not received. The variables are not updated.
+    */
+   public boolean decompressSegment(RegistryReceiveBuffer buffer, int registryOffset)
    {
       decompressBuffer.clear();
       compressionImplementation.decompress(buffer.getData(), decompressBuffer, buffer.getNumberOfVariables() * 8);      
@@ -64,14 +75,30 @@ public class RegistryDecompressor
       if(longData.remaining() != buffer.getNumberOfVariables())
       {
          System.err.println("Number of variables in incoming message does not match stated number of variables. Skipping packet.");
-         return;
+         return true;
       }
-      int numberOfVariables = buffer.getNumberOfVariables();
       
       int offset = registryOffset + buffer.getOffset();
-      for(int i = 0; i < numberOfVariables; i++)
+      if (buffer.getType() == LogDataType.DELTA_DATA_PACKET)
       {
-         setAndNotify(variables.get(i + offset), longData.get());
+         if (!applyDelta(longData, offset))
+         {
+            return false;
+         }
+      }
+      else
+      {
+         int numberOfVariables = buffer.getNumberOfVariables();
+         Keyframe keyframe = keyframes.get(offset);
+         if (keyframe != null)
+         {
+            keyframe.update(buffer.getUid(), longData, numberOfVariables);
+         }
+
+         for(int i = 0; i < numberOfVariables; i++)
+         {
+            setAndNotify(variables.get(i + offset), longData.get());
+         }
       }
       
       double[] jointStateArray = buffer.getJointStates();
@@ -84,5 +111,64 @@ public class RegistryDecompressor
          }         
       }
 
+      return true;
+   }
+
+   /**
+    * Reconstruct the segment from the keyframe and the changed values, see {@link RegistryKeyframe} for the layout.
+    */
+   private boolean applyDelta(LongBuffer longData, int offset)
+   {
+      long keyframeUid = longData.get(0);
+      int numberOfVariables = (int) longData.get(1);
+
+      Keyframe keyframe = keyframes.get(offset);
+      if (keyframe == null)
+      {
+         // Start keeping the full segments of this offset, the next keyframe makes the deltas usable
+         keyframes.put(offset, new Keyframe(variables.size() - offset));
+         return false;
+      }
+      if (keyframe.uid != keyframeUid || keyframe.numberOfVariables != numberOfVariables)
+      {
+         return false;
+      }
+
+      int bitmapStart = RegistryKeyframe.HEADER_LENGTH;
+      longData.position(bitmapStart + RegistryKeyframe.getBitmapLength(numberOfVariables));
+      long word = 0;
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         if ((i & 63) == 0)
+         {
+            word = longData.get(bitmapStart + (i >> 6));
+         }
+
+         long value = (word & (1L << (i & 63))) != 0 ? longData.get() : keyframe.values[i];
+         setAndNotify(variables.get(i + offset), value);
+      }
+      return true;
+   }
+
+   private static class Keyframe
+   {
+      private final long[] values;
+      private long uid = -1;
+      private int numberOfVariables = -1;
+
+      private Keyframe(int maximumNumberOfVariables)
+      {
+         values = new long[maximumNumberOfVariables];
+      }
+
+      private void update(long uid, LongBuffer data, int numberOfVariables)
+      {
+         this.uid = uid;
+         this.numberOfVariables = numberOfVariables;
+         for (int i = 0; i < numberOfVariables; i++)
+         {
+            values[i] = data.get(i);
+         }
+      }
    }
 }
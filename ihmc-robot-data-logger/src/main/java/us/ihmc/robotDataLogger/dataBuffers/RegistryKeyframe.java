@@ -0,0 +1,103 @@
+package us.ihmc.robotDataLogger.dataBuffers;
+
+import java.nio.LongBuffer;
+
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Producer side state for delta encoding a single registry segment.
+ * 
+ * Every keyframeInterval ticks the full segment is sent as a regular DATA_PACKET and remembered here. In between, DELTA_DATA_PACKETs only carry the
+ * variables that differ from the last keyframe. Deltas are relative to the keyframe and not to the previous tick, so a lost delta packet does not
+ * corrupt the following ones.
+ * 
+ * Layout of the uncompressed delta payload, in longs:
+ * <pre>
+ * keyframe uid, number of variables in the segment, change bitmap (one bit per variable, ceil(n / 64) longs), changed values
+ * </pre>
+ * The numberOfVariables field of a delta packet holds the length of this payload.
+ */
+public class RegistryKeyframe
+{
+   public static final int HEADER_LENGTH = 2;
+
+   private final int keyframeInterval;
+   private final long[] values;
+
+   private long keyframeUid = -1;
+   private int ticksSinceKeyframe = 0;
+
+   public RegistryKeyframe(int maximumNumberOfVariables, int keyframeInterval)
+   {
+      this.values = new long[maximumNumberOfVariables];
+      this.keyframeInterval = keyframeInterval;
+   }
+
+   public static int getBitmapLength(int numberOfVariables)
+   {
+      return (numberOfVariables + 63) / 64;
+   }
+
+   /**
+    * Try to write a delta against the last keyframe to data.
+    * 
+    * @return false if a keyframe is due or the delta would not be smaller than the full segment. Data is left in an undefined state.
+    */
+   boolean writeDelta(YoVariable<?>[] variables, int offset, int numberOfVariables, LongBuffer data)
+   {
+      if (keyframeUid == -1 || ++ticksSinceKeyframe >= keyframeInterval)
+      {
+         return false;
+      }
+
+      int bitmapLength = getBitmapLength(numberOfVariables);
+      int maximumChangedValues = numberOfVariables - HEADER_LENGTH - bitmapLength;
+      if (maximumChangedValues <= 0)
+      {
+         return false;
+      }
+
+      data.clear();
+      data.put(keyframeUid);
+      data.put(numberOfVariables);
+      data.position(HEADER_LENGTH + bitmapLength);
+
+      int changedValues = 0;
+      long word = 0;
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         long value = variables[offset + i].getValueAsLongBits();
+         if (value != values[i])
+         {
+            if (++changedValues > maximumChangedValues)
+            {
+               return false;
+            }
+            word |= 1L << (i & 63);
+            data.put(value);
+         }
+
+         if ((i & 63) == 63 || i == numberOfVariables - 1)
+         {
+            data.put(HEADER_LENGTH + (i >> 6), word);
+            word = 0;
+         }
+      }
+
+      data.flip();
+      return true;
+   }
+
+   /**
+    * Remember the values of a full segment that is about to be sent.
+    */
+   void storeKeyframe(long uid, LongBuffer data, int numberOfVariables)
+   {
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         values[i] = data.get(i);
+      }
+      keyframeUid = uid;
+      ticksSinceKeyframe = 0;
+   }
+}
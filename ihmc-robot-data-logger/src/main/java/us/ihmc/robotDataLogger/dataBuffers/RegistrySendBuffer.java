@@ -63,19 +63,46 @@ public class RegistrySendBuffer extends RegistryBuffer
     * @param uid
     */
    public void updateBufferFromVariables(long timestamp, long uid, int segment, int offset, int numberOfVariables)
+   {
+      updateBufferFromVariables(timestamp, uid, segment, offset, numberOfVariables, null);
+   }
+
+   /**
+    * Pack the internal buffer with data from the variables, sending only the changes since the last keyframe if possible
+    * 
+    * @param timestamp
+    * @param uid
+    * @param keyframe Delta encoding state of this segment, null to always send the full segment
+    */
+   public void updateBufferFromVariables(long timestamp, long uid, int segment, int offset, int numberOfVariables, RegistryKeyframe keyframe)
    {
       this.uid = uid;
       this.timestamp = timestamp;
       this.transmitTime = System.nanoTime();
       this.offset = offset;
-      this.numberOfVariables = numberOfVariables;
-      this.data.clear();
-      int end = offset + numberOfVariables;
-      for (int i = offset; i < end; i++)
+
+      if (keyframe != null && keyframe.writeDelta(variables, offset, numberOfVariables, this.data))
       {
-         this.data.put(variables[i].getValueAsLongBits());
+         setType(LogDataType.DELTA_DATA_PACKET);
+         this.numberOfVariables = this.data.limit();
+      }
+      else
+      {
+         setType(LogDataType.DATA_PACKET);
+         this.numberOfVariables = numberOfVariables;
+         this.data.clear();
+         int end = offset + numberOfVariables;
+         for (int i = offset; i < end; i++)
+         {
+            this.data.put(variables[i].getValueAsLongBits());
+         }
+         this.data.flip();
+
+         if (keyframe != null)
+         {
+            keyframe.storeKeyframe(uid, this.data, numberOfVariables);
+         }
       }
-      this.data.flip();
       this.buffer.clear();
       this.buffer.limit(this.data.limit() * 8);
 
@@ -0,0 +1,356 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.robotDataLogger.logger.columnar.ColumnarLogWriter;
+import us.ihmc.tools.compression.SnappyUtils;
+import us.ihmc.yoVariables.registry.YoVariableRegistry;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoInteger;
+import us.ihmc.yoVariables.variable.YoLong;
+
+/**
+ * Writer stage for the logger. Decouples the receive thread from compression and disk IO.
+ *
+ * The receive thread copies the uncompressed log line into a preallocated slot taken from a fixed ring. This thread compresses the
+ * committed lines and writes them in groups, with a single gathering write to the data and index channels per group. When flushing aggressively, the
+ * channels are forced once per group instead of once per line.
+ *
+ * If the disk cannot keep up, the ring fills and new lines are dropped and counted instead of blocking the receive thread.
+ *
+ * If a write fails, the files can no longer be trusted to be consistent. The writer then stops writing and drops the new lines until the log is cleared,
+ * and the failure is reported by {@link #finish()}.
+ *
+ * The statistics are only set from the writer thread, except for the number of dropped ticks which is only set from the receive thread.
+ */
+public class LogDataWriter extends Thread
+{
+   public static final int DEFAULT_NUMBER_OF_SLOTS = 256;
+   private static final int MAXIMUM_GROUP_SIZE = 64;
+   private static final int FLUSH_EVERY_N_PACKETS = 250;
+
+   private final FileChannel dataChannel;
+   private final FileChannel indexChannel;
+   private final ColumnarLogWriter columnarWriter;
+   private final boolean flushAggressivelyToDisk;
+
+   private final ArrayBlockingQueue<Slot> freeSlots;
+   private final ArrayBlockingQueue<Slot> committedSlots;
+   private final ArrayList<Slot> group = new ArrayList<>(MAXIMUM_GROUP_SIZE);
+   private final ByteBuffer[] compressedGroup = new ByteBuffer[MAXIMUM_GROUP_SIZE];
+   private final ByteBuffer indexGroup = ByteBuffer.allocate(MAXIMUM_GROUP_SIZE * 16);
+
+   private final Object channelLock = new Object();
+   private volatile boolean running = true;
+   /** Incremented by {@link #clear()}, the slots committed before a clear are dropped instead of written to the truncated files. */
+   private volatile int clearEpoch = 0;
+   private volatile IOException writeFailure = null;
+   private final AtomicInteger maximumCommittedSlots = new AtomicInteger();
+
+   private long dataPosition = 0;
+   private long packetsSinceFlush = 0;
+
+   private final YoVariableRegistry registry = new YoVariableRegistry("LogDataWriter");
+   private final YoInteger queueDepth = new YoInteger("writerQueueDepth", registry);
+   private final YoInteger maximumQueueDepth = new YoInteger("writerMaximumQueueDepth", registry);
+   private final YoInteger droppedTicks = new YoInteger("writerDroppedTicks", registry);
+   private final YoInteger failedWrites = new YoInteger("writerFailedWrites", registry);
+   private final YoLong writtenTicks = new YoLong("writerWrittenTicks", registry);
+   private final YoInteger groupSize = new YoInteger("writerGroupSize", registry);
+   private final YoDouble writeLatency = new YoDouble("writerWriteLatency", registry);
+   private final YoDouble maximumWriteLatency = new YoDouble("writerMaximumWriteLatency", registry);
+   private final YoDouble forceLatency = new YoDouble("writerForceLatency", registry);
+
+   /**
+    * @param dataChannel Channel for the compressed log lines
+    * @param indexChannel Channel for the (timestamp, offset) index
+    * @param columnarWriter Optional columnar writer, can be null
+    * @param bufferSize Size of an uncompressed log line
+    * @param numberOfSlots Number of log lines that can be queued before ticks get dropped
+    * @param flushAggressivelyToDisk Force the channels to disk every FLUSH_EVERY_N_PACKETS lines
+    * @param parentRegistry Registry to attach the writer statistics to
+    */
+   public LogDataWriter(FileChannel dataChannel, FileChannel indexChannel, ColumnarLogWriter columnarWriter, int bufferSize, int numberOfSlots,
+                        boolean flushAggressivelyToDisk, YoVariableRegistry parentRegistry)
+   {
+      super("LogDataWriter");
+      this.dataChannel = dataChannel;
+      this.indexChannel = indexChannel;
+      this.columnarWriter = columnarWriter;
+      this.flushAggressivelyToDisk = flushAggressivelyToDisk;
+
+      freeSlots = new ArrayBlockingQueue<>(numberOfSlots);
+      committedSlots = new ArrayBlockingQueue<>(numberOfSlots);
+      for (int i = 0; i < numberOfSlots; i++)
+      {
+         freeSlots.add(new Slot(bufferSize));
+      }
+
+      if (parentRegistry != null)
+      {
+         parentRegistry.addChild(registry);
+      }
+   }
+
+   /**
+    * Queue an uncompressed log line for writing. Only call from the receive thread.
+    *
+    * @param timestamp timestamp of the log line
+    * @param line uncompressed log line, the remaining bytes are copied
+    * @return false if all slots are in use or if a previous write failed. In that case the tick is dropped.
+    */
+   public boolean write(long timestamp, ByteBuffer line)
+   {
+      Slot slot = writeFailure == null ? freeSlots.poll() : null;
+      if (slot == null)
+      {
+         droppedTicks.increment();
+         return false;
+      }
+
+      slot.data.clear();
+      slot.data.put(line);
+      slot.data.flip();
+      slot.timestamp = timestamp;
+      slot.epoch = clearEpoch;
+      committedSlots.add(slot);
+
+      maximumCommittedSlots.accumulateAndGet(committedSlots.size(), Math::max);
+      return true;
+   }
+
+   @Override
+   public void run()
+   {
+      while (running || !committedSlots.isEmpty())
+      {
+         try
+         {
+            Slot first = committedSlots.poll(100, TimeUnit.MILLISECONDS);
+            if (first == null)
+            {
+               continue;
+            }
+
+            group.add(first);
+            committedSlots.drainTo(group, MAXIMUM_GROUP_SIZE - 1);
+
+            queueDepth.set(committedSlots.size() + group.size());
+            maximumQueueDepth.set(maximumCommittedSlots.get());
+
+            synchronized (channelLock)
+            {
+               writeGroupOrRecordFailure();
+            }
+         }
+         catch (InterruptedException e)
+         {
+            // Check running and try again
+         }
+         finally
+         {
+            freeSlots.addAll(group);
+            group.clear();
+         }
+      }
+   }
+
+   /**
+    * Called holding the channel lock, such that a failure cannot be recorded after the log has been cleared.
+    */
+   private void writeGroupOrRecordFailure()
+   {
+      if (writeFailure != null)
+      {
+         return;
+      }
+
+      try
+      {
+         writeGroup();
+      }
+      catch (IOException e)
+      {
+         failedWrites.increment();
+         System.err.println("LogDataWriter: Cannot write to the log, dropping all new data until the log is cleared.");
+         e.printStackTrace();
+         writeFailure = e;
+      }
+   }
+
+   private void writeGroup() throws IOException
+   {
+      long startTime = System.nanoTime();
+
+      indexGroup.clear();
+      long offset = dataPosition;
+      int numberOfLines = 0;
+      for (int i = 0; i < group.size(); i++)
+      {
+         Slot slot = group.get(i);
+
+         if (slot.epoch != clearEpoch)
+         {
+            // Received before the log was cleared
+            continue;
+         }
+
+         if (columnarWriter != null)
+         {
+            slot.dataAsLong.clear();
+            columnarWriter.write(slot.dataAsLong);
+         }
+
+         slot.compressed.clear();
+         SnappyUtils.compress(slot.data, slot.compressed);
+         slot.compressed.flip();
+         compressedGroup[numberOfLines++] = slot.compressed;
+
+         indexGroup.putLong(slot.timestamp);
+         indexGroup.putLong(offset);
+         offset += slot.compressed.remaining();
+      }
+      indexGroup.flip();
+
+      if (numberOfLines == 0)
+      {
+         return;
+      }
+
+      writeFully(dataChannel, compressedGroup, numberOfLines);
+      while (indexGroup.hasRemaining())
+      {
+         indexChannel.write(indexGroup);
+      }
+      dataPosition = offset;
+
+      writtenTicks.set(writtenTicks.getLongValue() + numberOfLines);
+      groupSize.set(numberOfLines);
+
+      double latency = Conversions.nanosecondsToMilliseconds((double) (System.nanoTime() - startTime));
+      writeLatency.set(latency);
+      if (latency > maximumWriteLatency.getDoubleValue())
+      {
+         maximumWriteLatency.set(latency);
+      }
+
+      if (flushAggressivelyToDisk)
+      {
+         packetsSinceFlush += numberOfLines;
+         if (packetsSinceFlush >= FLUSH_EVERY_N_PACKETS)
+         {
+            long forceStartTime = System.nanoTime();
+            indexChannel.force(false);
+            dataChannel.force(false);
+            forceLatency.set(Conversions.nanosecondsToMilliseconds((double) (System.nanoTime() - forceStartTime)));
+            packetsSinceFlush = 0;
+         }
+      }
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer[] buffers, int length) throws IOException
+   {
+      int offset = 0;
+      while (offset < length)
+      {
+         channel.write(buffers, offset, length - offset);
+         while (offset < length && !buffers[offset].hasRemaining())
+         {
+            offset++;
+         }
+      }
+   }
+
+   /**
+    * Drop all queued lines and truncate the data, index and columnar files. Resumes writing after a failed write.
+    */
+   public void clear() throws IOException
+   {
+      synchronized (channelLock)
+      {
+         clearEpoch++;
+
+         ArrayList<Slot> pending = new ArrayList<>();
+         committedSlots.drainTo(pending);
+         freeSlots.addAll(pending);
+
+         dataChannel.truncate(0);
+         indexChannel.truncate(0);
+         dataPosition = 0;
+         packetsSinceFlush = 0;
+         if (columnarWriter != null)
+         {
+            columnarWriter.restart();
+         }
+         writeFailure = null;
+      }
+   }
+
+   /**
+    * Write all queued lines and stop the writer thread. Does not close the channels.
+    *
+    * @throws IOException if a write failed since the log was started or last cleared. The log is incomplete from that point.
+    */
+   public void finish() throws IOException
+   {
+      running = false;
+      try
+      {
+         join();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      if (columnarWriter != null)
+      {
+         try
+         {
+            columnarWriter.finish();
+         }
+         catch (IOException e)
+         {
+            e.printStackTrace();
+         }
+      }
+
+      if (writeFailure != null)
+      {
+         throw new IOException("Failed to write " + failedWrites.getIntegerValue() + " group(s) of log lines, dropped " + droppedTicks.getIntegerValue()
+               + " ticks", writeFailure);
+      }
+   }
+
+   /**
+    * @return the first write failure since the log was started or last cleared, null if all writes succeeded
+    */
+   public IOException getWriteFailure()
+   {
+      return writeFailure;
+   }
+
+   private static class Slot
+   {
+      private final ByteBuffer data;
+      private final LongBuffer dataAsLong;
+      private final ByteBuffer compressed;
+      private long timestamp;
+      private int epoch;
+
+      private Slot(int bufferSize)
+      {
+         data = ByteBuffer.allocate(bufferSize);
+         dataAsLong = data.asLongBuffer();
+         compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+      }
+   }
+}
@@ -0,0 +1,18 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+
+/**
+ * Receives decompressed log lines from {@link YoVariableLogReader#readData(int, int, java.util.concurrent.ForkJoinPool, LogLineConsumer)}.
+ */
+public interface LogLineConsumer
+{
+   /**
+    * Called on the reading thread, in log order.
+    *
+    * @param position index of the log line
+    * @param line log line starting at index 0 with the timestamp. Only valid for the duration of the call.
+    */
+   public void consume(int position, LongBuffer line) throws IOException;
+}
@@ -0,0 +1,195 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import us.ihmc.robotDataLogger.MappedLogData;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Decompresses a range of a memory mapped log on a fork-join pool and hands the lines to a {@link LogLineConsumer} in log order.
+ *
+ * The range is split in batches of consecutive lines. Each batch is decompressed by a pool worker straight from the mapped file into a preallocated
+ * direct buffer, while the calling thread consumes finished batches in order. The number of batches in flight is bounded, so memory use does not depend
+ * on the size of the log and no garbage is created once all batches are allocated.
+ *
+ * The number of lines in a batch is derived from a memory budget, such that the direct memory used by all batches does not depend on the number of
+ * variables in the log or on the parallelism of the pool.
+ */
+public class ParallelLogDecompressor
+{
+   /** Default bound on the direct memory used by the batches, in bytes. */
+   public static final long DEFAULT_MEMORY_BUDGET = 32L * 1024L * 1024L;
+   /** Number of lines in a batch when the memory budget allows it, enough to amortize the cost of a task. */
+   public static final int MAXIMUM_BATCH_SIZE = 256;
+
+   private final MappedLogData logData;
+   private final int lineLength;
+   private final ForkJoinPool pool;
+   private final int batchSize;
+   private final int maximumBatchesInFlight;
+
+   private final ThreadLocal<ByteBuffer[]> segmentViews;
+   private final ArrayDeque<Batch> availableBatches = new ArrayDeque<>();
+   private final ArrayDeque<ForkJoinTask<Batch>> batchesInFlight = new ArrayDeque<>();
+
+   public ParallelLogDecompressor(MappedLogData logData, int lineLength, ForkJoinPool pool)
+   {
+      this(logData, lineLength, pool, DEFAULT_MEMORY_BUDGET);
+   }
+
+   /**
+    * @param logData memory mapped compressed log data
+    * @param lineLength number of longs in a log line, including the timestamp
+    * @param pool pool to decompress on
+    * @param memoryBudget maximum number of bytes of direct memory used by the batches. A batch holds at least one line, so the budget is exceeded when
+    *           it cannot hold one line per batch in flight.
+    */
+   public ParallelLogDecompressor(MappedLogData logData, int lineLength, ForkJoinPool pool, long memoryBudget)
+   {
+      this.logData = logData;
+      this.lineLength = lineLength;
+      this.pool = pool;
+      this.maximumBatchesInFlight = 2 * pool.getParallelism();
+      this.batchSize = (int) Math.max(1, Math.min(MAXIMUM_BATCH_SIZE, memoryBudget / (maximumBatchesInFlight * lineLength * 8L)));
+
+      segmentViews = ThreadLocal.withInitial(logData::createViews);
+   }
+
+   public ForkJoinPool getPool()
+   {
+      return pool;
+   }
+
+   /**
+    * @return the number of consecutive lines decompressed by a single task
+    */
+   public int getBatchSize()
+   {
+      return batchSize;
+   }
+
+   /**
+    * @return the maximum number of bytes of direct memory allocated for the batches
+    */
+   public long getMaximumMemoryUsage()
+   {
+      return (long) maximumBatchesInFlight * batchSize * lineLength * 8L;
+   }
+
+   /**
+    * Decompress lines [startPosition, endPosition) and pass them to consumer on the calling thread, in order.
+    */
+   public void decompress(int startPosition, int endPosition, LogLineConsumer consumer) throws IOException
+   {
+      int nextPosition = startPosition;
+
+      try
+      {
+         while (nextPosition < endPosition && batchesInFlight.size() < maximumBatchesInFlight)
+         {
+            nextPosition = submit(nextPosition, endPosition);
+         }
+
+         while (!batchesInFlight.isEmpty())
+         {
+            Batch batch = join(batchesInFlight.poll());
+
+            for (int i = 0; i < batch.numberOfLines; i++)
+            {
+               // The line buffers are reused across batches, undo the relative reads of the previous consumer
+               batch.lines[i].clear();
+               consumer.consume(batch.startPosition + i, batch.lines[i]);
+            }
+            availableBatches.add(batch);
+
+            if (nextPosition < endPosition)
+            {
+               nextPosition = submit(nextPosition, endPosition);
+            }
+         }
+      }
+      finally
+      {
+         // Wait for outstanding tasks if the consumer failed, so their batches can be reused safely
+         while (!batchesInFlight.isEmpty())
+         {
+            ForkJoinTask<Batch> task = batchesInFlight.poll();
+            task.quietlyJoin();
+            if (!task.isCompletedAbnormally())
+            {
+               availableBatches.add(task.getRawResult());
+            }
+         }
+      }
+   }
+
+   private int submit(int startPosition, int endPosition)
+   {
+      Batch batch = availableBatches.isEmpty() ? new Batch() : availableBatches.poll();
+      batch.startPosition = startPosition;
+      batch.numberOfLines = Math.min(batchSize, endPosition - startPosition);
+      batchesInFlight.add(pool.submit(() -> decompress(batch)));
+      return startPosition + batch.numberOfLines;
+   }
+
+   private Batch decompress(Batch batch)
+   {
+      ByteBuffer[] views = segmentViews.get();
+      int lineSize = lineLength * 8;
+      try
+      {
+         for (int i = 0; i < batch.numberOfLines; i++)
+         {
+            batch.data.limit((i + 1) * lineSize);
+            batch.data.position(i * lineSize);
+            SnappyUtils.uncompress(logData.getCompressedData(batch.startPosition + i, views), batch.data);
+         }
+      }
+      catch (IOException e)
+      {
+         throw new UncheckedIOException(e);
+      }
+      return batch;
+   }
+
+   private static Batch join(ForkJoinTask<Batch> task) throws IOException
+   {
+      try
+      {
+         return task.join();
+      }
+      catch (UncheckedIOException e)
+      {
+         throw e.getCause();
+      }
+   }
+
+   private class Batch
+   {
+      private final ByteBuffer data;
+      private final LongBuffer[] lines;
+
+      private int startPosition;
+      private int numberOfLines;
+
+      private Batch()
+      {
+         int lineSize = lineLength * 8;
+         data = ByteBuffer.allocateDirect(batchSize * lineSize);
+         lines = new LongBuffer[batchSize];
+         for (int i = 0; i < batchSize; i++)
+         {
+            data.limit((i + 1) * lineSize);
+            data.position(i * lineSize);
+            lines[i] = data.slice().asLongBuffer();
+         }
+         data.clear();
+      }
+   }
+}
@@ -6,11 +6,15 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
 
 import com.google.common.io.Files;
 
 import us.ihmc.robotDataLogger.LogIndex;
+import us.ihmc.robotDataLogger.LogIndexInterface;
 import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.MappedLogData;
+import us.ihmc.robotDataLogger.MappedLogIndex;
 import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
 import us.ihmc.tools.compression.SnappyUtils;
 
@@ -18,6 +22,7 @@ public class YoVariableLogReader
 {
 
    private boolean initialized = false;
+   private final boolean useMemoryMappedFiles;
    protected final File logDirectory;
    protected final LogProperties logProperties;
    
@@ -28,7 +33,9 @@ public class YoVariableLogReader
    
    protected final File handshake;
    private FileChannel logChannel;
-   private LogIndex logIndex;
+   private LogIndexInterface logIndex;
+   private MappedLogData mappedLogData;
+   private ParallelLogDecompressor parallelLogDecompressor;
    private ByteBuffer compressedData;
    private ByteBuffer uncompressedData;
    private FileInputStream logInputStream;
@@ -40,7 +47,16 @@ public class YoVariableLogReader
 
    public YoVariableLogReader(File logDirectory, LogProperties logProperties)
    {
+      this(logDirectory, logProperties, false);
+   }
 
+   /**
+    * @param useMemoryMappedFiles Map the index and data files instead of reading them. Opening is instant and
+    *        compressed data is decompressed straight from the mapped file.
+    */
+   public YoVariableLogReader(File logDirectory, LogProperties logProperties, boolean useMemoryMappedFiles)
+   {
+      this.useMemoryMappedFiles = useMemoryMappedFiles;
       this.logDirectory = logDirectory;
       this.logProperties = logProperties;
 
@@ -109,10 +125,20 @@ public class YoVariableLogReader
             logInputStream = new FileInputStream(logdata);
             logChannel = logInputStream.getChannel();
 
-            logIndex = new LogIndex(index, logChannel.size());
             int bufferSize = logLineLength * 8;
-            compressedData = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
-            uncompressedData = ByteBuffer.allocate(bufferSize);
+            if (useMemoryMappedFiles)
+            {
+               MappedLogIndex mappedLogIndex = new MappedLogIndex(index, logChannel.size());
+               mappedLogData = new MappedLogData(logdata, mappedLogIndex);
+               logIndex = mappedLogIndex;
+               uncompressedData = ByteBuffer.allocateDirect(bufferSize);
+            }
+            else
+            {
+               logIndex = new LogIndex(index, logChannel.size());
+               compressedData = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+               uncompressedData = ByteBuffer.allocate(bufferSize);
+            }
             
             numberOfEntries = logIndex.getNumberOfEntries();
             initialized = true;
@@ -137,6 +163,18 @@ public class YoVariableLogReader
    
    public void close()
    {
+      if (mappedLogData != null)
+      {
+         mappedLogData.close();
+         mappedLogData = null;
+      }
+      if (logIndex instanceof MappedLogIndex)
+      {
+         ((MappedLogIndex) logIndex).close();
+      }
+      logIndex = null;
+      parallelLogDecompressor = null;
+
       try
       {
          logChannel.close();
@@ -155,21 +193,26 @@ public class YoVariableLogReader
    
    protected long getDataOffset(int position)
    {
-      return logIndex.dataOffsets[position];
+      return logIndex.getDataOffset(position);
    }
    
    protected int getCompressedSize(int position)
    {
-      return logIndex.compressedSizes[position];
+      return logIndex.getCompressedSize(position);
    }
    
    protected long getTimestamp(int position)
    {
-      return logIndex.timestamps[position];
+      return logIndex.getTimestamp(position);
    }
    
    protected ByteBuffer readCompressedData(int position) throws IOException
    {
+      if (mappedLogData != null)
+      {
+         return mappedLogData.getCompressedData(position);
+      }
+
       int size = getCompressedSize(position);
       long startOffset = getDataOffset(position);
       logChannel.position(startOffset);
@@ -191,6 +234,33 @@ public class YoVariableLogReader
       return uncompressedData;
    }
 
+   /**
+    * Decompress a range of log lines and pass them to consumer in order.
+    * 
+    * When the reader uses memory mapped files, the lines are decompressed in parallel on pool. Otherwise this falls back to reading the lines one at a time.
+    * 
+    * @param startPosition first line, inclusive
+    * @param endPosition last line, exclusive
+    */
+   protected void readData(int startPosition, int endPosition, ForkJoinPool pool, LogLineConsumer consumer) throws IOException
+   {
+      if (mappedLogData == null)
+      {
+         for (int i = startPosition; i < endPosition; i++)
+         {
+            ByteBuffer data = readData(i);
+            consumer.consume(i, data.asLongBuffer());
+         }
+         return;
+      }
+
+      if (parallelLogDecompressor == null || parallelLogDecompressor.getPool() != pool)
+      {
+         parallelLogDecompressor = new ParallelLogDecompressor(mappedLogData, logLineLength, pool);
+      }
+      parallelLogDecompressor.decompress(startPosition, endPosition, consumer);
+   }
+
    protected void copyMetaData(File destination) throws IOException
    {
       File propertiesDestination = new File(destination, YoVariableLoggerListener.propertyFile);
@@ -1,7 +1,6 @@
 package us.ihmc.robotDataLogger.logger;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -24,14 +23,13 @@ import us.ihmc.robotDataLogger.YoVariablesUpdatedListener;
 import us.ihmc.robotDataLogger.handshake.LogHandshake;
 import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
 import us.ihmc.robotDataLogger.jointState.JointState;
+import us.ihmc.robotDataLogger.logger.columnar.ColumnEncoding;
+import us.ihmc.robotDataLogger.logger.columnar.ColumnarLogWriter;
 import us.ihmc.robotDataLogger.rtps.LogParticipantSettings;
-import us.ihmc.tools.compression.SnappyUtils;
 import us.ihmc.yoVariables.variable.YoVariable;
 
 public class YoVariableLoggerListener implements YoVariablesUpdatedListener
 {
-   private static final int FLUSH_EVERY_N_PACKETS = 250;
-   
    public static final String propertyFile = "robotData.log";
    private static final String handshakeFilename = "handshake.yaml";
    private static final String dataFilename = "robotData.bsz";
@@ -50,9 +48,10 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
    private final YoVariableLoggerOptions options;
    private FileChannel dataChannel;
    private FileChannel indexChannel;
+   private FileChannel columnarChannel;
+   private ColumnarLogWriter columnarWriter;
 
-   private final ByteBuffer indexBuffer = ByteBuffer.allocate(16);
-   private ByteBuffer compressedBuffer;
+   private LogDataWriter logDataWriter;
 
    private volatile boolean connected = false;
 
@@ -63,8 +62,6 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
 
    private boolean clearingLog = false;
    
-   private long currentIndex = 0;
-
    private long lastReceivedTimestamp = Long.MIN_VALUE;
    
    private YoVariableSummarizer yoVariableSummarizer = null;
@@ -178,42 +175,16 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       {
          if (!clearingLog && dataChannel != null)
          {
-            try
+            if(yoVariableSummarizer != null)
             {
-               if(yoVariableSummarizer != null)
-               {
-                  yoVariableSummarizer.setBuffer(buffer);
-               }
-               buffer.clear();
-               compressedBuffer.clear();
-               SnappyUtils.compress(buffer, compressedBuffer);
-               compressedBuffer.flip();
-
-               indexBuffer.clear();
-               indexBuffer.putLong(timestamp);
-               indexBuffer.putLong(dataChannel.position());
-               indexBuffer.flip();
-
-               indexChannel.write(indexBuffer);
-               dataChannel.write(compressedBuffer);
-               
-               if(flushAggressivelyToDisk)
-               {
-                  if(++currentIndex % FLUSH_EVERY_N_PACKETS == 0)
-                  {
-                     indexChannel.force(false);
-                     dataChannel.force(false);
-                  }                  
-               }
-               
-               if(yoVariableSummarizer != null)
-               {
-                  yoVariableSummarizer.update();
-               }
+               yoVariableSummarizer.setBuffer(buffer);
             }
-            catch (IOException e)
+            buffer.clear();
+            logDataWriter.write(timestamp, buffer);
+
+            if(yoVariableSummarizer != null)
             {
-               throw new RuntimeException(e);
+               yoVariableSummarizer.update();
             }
          }
       }
@@ -243,10 +214,24 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
 
    public void disconnected()
    {
+      try
+      {
+         logDataWriter.finish();
+      }
+      catch (IOException e)
+      {
+         System.err.println("The log is incomplete");
+         e.printStackTrace();
+      }
+
       try
       {
          dataChannel.close();
          indexChannel.close();
+         if (columnarChannel != null)
+         {
+            columnarChannel.close();
+         }
       }
       catch (IOException e)
       {
@@ -308,6 +293,13 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
             indexFile.delete();
          }
 
+         File columnarFile = new File(tempDirectory, ColumnarLogWriter.columnarDataFilename);
+         if (columnarFile.exists())
+         {
+            System.out.println("Deleting columnar data file");
+            columnarFile.delete();
+         }
+
          if (tempDirectory.exists())
          {
             System.out.println("Deleting log directory");
@@ -353,8 +345,6 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       
 
       int bufferSize = handshakeParser.getBufferSize();
-      this.compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
-      
       // Initialize disk format variables
       this.dataBuffer = ByteBuffer.allocate(bufferSize);
       this.dataBufferAsLong = dataBuffer.asLongBuffer();
@@ -371,9 +361,19 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
          {
             dataChannel = new FileOutputStream(dataFile, false).getChannel();
             indexChannel = new FileOutputStream(indexFile, false).getChannel();
-            
+
+            if (options.isWriteColumnarData())
+            {
+               File columnarFile = new File(tempDirectory, ColumnarLogWriter.columnarDataFilename);
+               columnarChannel = new FileOutputStream(columnarFile, false).getChannel();
+               columnarWriter = new ColumnarLogWriter(columnarChannel, ColumnEncoding.createEncodings(handshakeParser), ColumnarLogWriter.DEFAULT_TICKS_PER_BLOCK);
+            }
+
+            logDataWriter = new LogDataWriter(dataChannel, indexChannel, columnarWriter, bufferSize, LogDataWriter.DEFAULT_NUMBER_OF_SLOTS,
+                                              flushAggressivelyToDisk, yoVariableClientInterface.getDebugRegistry());
+            logDataWriter.start();
          }
-         catch (FileNotFoundException e)
+         catch (IOException e)
          {
             throw new RuntimeException(e);
          }
@@ -443,8 +443,7 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       try
       {
          System.out.println("Clearing log.");
-         dataChannel.truncate(0);
-         indexChannel.truncate(0);
+         logDataWriter.clear();
          for (VideoDataLoggerInterface videoDataLogger : videoDataLoggers)
          {
             videoDataLogger.restart();
@@ -28,6 +28,8 @@ public class YoVariableLoggerOptions
    
    private boolean flushAggressivelyToDisk = false;
 
+   private boolean writeColumnarData = false;
+
    public static YoVariableLoggerOptions parse(String[] args) throws JSAPException
    {
       SimpleJSAP jsap = new SimpleJSAP("YoVariabeLogger", "Logs YoVariables and video from a robot", new Parameter[] {
@@ -38,7 +40,8 @@ public class YoVariableLoggerOptions
                   "quality", "Video quality for MJPEG"),
             new FlaggedOption("videoCodec", JSAP.STRING_PARSER, String.valueOf(defaultCodec), JSAP.NOT_REQUIRED, 'c', "codec", "Desired video codec. AV_CODEC_ID_H264 or AV_CODEC_ID_MJPEG"),
             new FlaggedOption("crf", JSAP.INTEGER_PARSER, String.valueOf(defaultCRF), JSAP.NOT_REQUIRED, 'r', "crf", "CRF (Constant rate factor) for H264. 0-51, 0 is lossless. Sane values are 18 to 28."),
-            new Switch("flushAggressivelyToDisk", 's', "sync", "Aggressively flush data to disk. Reduces change of data loss but doesn't work on slow platters.") });
+            new Switch("flushAggressivelyToDisk", 's', "sync", "Aggressively flush data to disk. Reduces change of data loss but doesn't work on slow platters."),
+            new Switch("writeColumnarData", 'l', "columnar", "Also write the variable data in a columnar layout for fast plotting of single variables.") });
       JSAPResult config = jsap.parse(args);
       if (jsap.messagePrinted())
       {
@@ -55,6 +58,7 @@ public class YoVariableLoggerOptions
       options.setCrf(config.getInt("crf"));
       
       options.setFlushAggressivelyToDisk(config.getBoolean("flushAggressivelyToDisk"));
+      options.setWriteColumnarData(config.getBoolean("writeColumnarData"));
 
       return options;
    }
@@ -99,6 +103,16 @@ public class YoVariableLoggerOptions
       this.flushAggressivelyToDisk = flushAggressivelyToDisk;
    }
 
+   public boolean isWriteColumnarData()
+   {
+      return writeColumnarData;
+   }
+
+   public void setWriteColumnarData(boolean writeColumnarData)
+   {
+      this.writeColumnarData = writeColumnarData;
+   }
+
    public CodecID getVideoCodec()
    {
       return videoCodec;
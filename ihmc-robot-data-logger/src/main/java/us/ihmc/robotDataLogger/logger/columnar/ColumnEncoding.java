@@ -0,0 +1,86 @@
+package us.ihmc.robotDataLogger.logger.columnar;
+
+import java.util.List;
+
+import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.yoVariables.variable.YoDouble;
+import us.ihmc.yoVariables.variable.YoVariable;
+
+/**
+ * Transform applied to the values of a single column before the chunk is compressed.
+ *
+ * Each chunk is encoded independently, the first value is stored relative to zero. This makes it possible to decode any block without reading the previous ones.
+ */
+public enum ColumnEncoding
+{
+   /**
+    * Store the difference with the previous value. Best for timestamps, counters and enums.
+    */
+   DELTA,
+   /**
+    * Store the bitwise XOR with the previous value. Best for doubles, where consecutive values share sign, exponent and most significant mantissa bits.
+    */
+   XOR;
+
+   public static final ColumnEncoding[] values = values();
+
+   public void encode(long[] values, int offset, int length)
+   {
+      long previous = 0;
+      for (int i = offset; i < offset + length; i++)
+      {
+         long current = values[i];
+         switch (this)
+         {
+         case DELTA:
+            values[i] = current - previous;
+            break;
+         case XOR:
+            values[i] = current ^ previous;
+            break;
+         }
+         previous = current;
+      }
+   }
+
+   public void decode(long[] values, int offset, int length)
+   {
+      long previous = 0;
+      for (int i = offset; i < offset + length; i++)
+      {
+         switch (this)
+         {
+         case DELTA:
+            previous = values[i] + previous;
+            break;
+         case XOR:
+            previous = values[i] ^ previous;
+            break;
+         }
+         values[i] = previous;
+      }
+   }
+
+   /**
+    * Selects the encoding of every column in a log line: the timestamp, the variables and the joint states.
+    *
+    * @param handshakeParser parsed handshake of the log
+    * @return encoding for each of the {@link YoVariableHandshakeParser#getNumberOfStates()} columns
+    */
+   public static ColumnEncoding[] createEncodings(YoVariableHandshakeParser handshakeParser)
+   {
+      ColumnEncoding[] encodings = new ColumnEncoding[handshakeParser.getNumberOfStates()];
+      List<YoVariable<?>> variables = handshakeParser.getYoVariablesList();
+
+      encodings[0] = DELTA;
+      for (int i = 0; i < variables.size(); i++)
+      {
+         encodings[i + 1] = variables.get(i) instanceof YoDouble ? XOR : DELTA;
+      }
+      for (int i = variables.size() + 1; i < encodings.length; i++)
+      {
+         encodings[i] = XOR; // Joint states are all doubles
+      }
+      return encodings;
+   }
+}
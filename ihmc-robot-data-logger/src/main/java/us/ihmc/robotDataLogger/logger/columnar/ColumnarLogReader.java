@@ -0,0 +1,266 @@
+package us.ihmc.robotDataLogger.logger.columnar;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Reads files written by {@link ColumnarLogWriter}.
+ *
+ * Reading a column only touches the chunks of that column and the block chunk tables, independent of the total number of columns in the log.
+ */
+public class ColumnarLogReader
+{
+   private final FileInputStream inputStream;
+   private final FileChannel channel;
+
+   private final int numberOfColumns;
+   private final int ticksPerBlock;
+   private final ColumnEncoding[] encodings;
+
+   private final int numberOfBlocks;
+   private final long[] blockOffsets;
+   private final long[] chunkTableOffsets;
+   private final long[] firstTimestamps;
+   private final int[] firstTicks;
+   private final int numberOfTicks;
+
+   private final ByteBuffer chunkOffsetBuffer = ByteBuffer.allocate(8);
+   private final ByteBuffer compressedBuffer;
+   private final ByteBuffer chunkBuffer;
+   private final LongBuffer chunkBufferAsLong;
+
+   public ColumnarLogReader(File file) throws IOException
+   {
+      inputStream = new FileInputStream(file);
+      channel = inputStream.getChannel();
+
+      ByteBuffer header = read(0, ColumnarLogWriter.HEADER_FIXED_SIZE);
+      if (header.getInt() != ColumnarLogWriter.MAGIC)
+      {
+         close();
+         throw new IOException(file + " is not a columnar log file");
+      }
+      int version = header.getInt();
+      if (version != ColumnarLogWriter.VERSION)
+      {
+         close();
+         throw new IOException("Unsupported columnar log version " + version);
+      }
+      numberOfColumns = header.getInt();
+      ticksPerBlock = header.getInt();
+
+      ByteBuffer encodingBuffer = read(ColumnarLogWriter.HEADER_FIXED_SIZE, numberOfColumns);
+      encodings = new ColumnEncoding[numberOfColumns];
+      for (int i = 0; i < numberOfColumns; i++)
+      {
+         encodings[i] = ColumnEncoding.values[encodingBuffer.get()];
+      }
+
+      ByteBuffer footer = read(channel.size() - ColumnarLogWriter.FOOTER_SIZE, ColumnarLogWriter.FOOTER_SIZE);
+      long tableOffset = footer.getLong();
+      numberOfBlocks = footer.getInt();
+      if (footer.getInt() != ColumnarLogWriter.MAGIC)
+      {
+         close();
+         throw new IOException(file + " is incomplete, the block table is missing");
+      }
+
+      blockOffsets = new long[numberOfBlocks];
+      chunkTableOffsets = new long[numberOfBlocks];
+      firstTimestamps = new long[numberOfBlocks];
+      firstTicks = new int[numberOfBlocks + 1];
+
+      ByteBuffer table = read(tableOffset, numberOfBlocks * ColumnarLogWriter.BLOCK_TABLE_ENTRY_SIZE);
+      for (int i = 0; i < numberOfBlocks; i++)
+      {
+         blockOffsets[i] = table.getLong();
+         chunkTableOffsets[i] = table.getLong();
+         firstTimestamps[i] = table.getLong();
+         firstTicks[i + 1] = firstTicks[i] + table.getInt();
+      }
+      numberOfTicks = firstTicks[numberOfBlocks];
+
+      chunkBuffer = ByteBuffer.allocate(ticksPerBlock * 8);
+      chunkBufferAsLong = chunkBuffer.asLongBuffer();
+      compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(ticksPerBlock * 8));
+   }
+
+   private ByteBuffer read(long offset, int length) throws IOException
+   {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      readFully(buffer, offset);
+      buffer.flip();
+      return buffer;
+   }
+
+   private void readFully(ByteBuffer buffer, long offset) throws IOException
+   {
+      while (buffer.hasRemaining())
+      {
+         int read = channel.read(buffer, offset);
+         if (read < 0)
+         {
+            throw new IOException("Unexpected end of columnar log file");
+         }
+         offset += read;
+      }
+   }
+
+   public int getNumberOfColumns()
+   {
+      return numberOfColumns;
+   }
+
+   public int getNumberOfTicks()
+   {
+      return numberOfTicks;
+   }
+
+   public int getNumberOfBlocks()
+   {
+      return numberOfBlocks;
+   }
+
+   /**
+    * Find the first tick with a timestamp equal or greater than timestamp, using only the block table and the timestamp chunk of a single block.
+    *
+    * @return tick index, or getNumberOfTicks() if all ticks are before timestamp
+    */
+   public int seek(long timestamp) throws IOException
+   {
+      if (numberOfBlocks == 0)
+      {
+         return 0;
+      }
+
+      int head = 0;
+      int tail = numberOfBlocks;
+      while (head < tail)
+      {
+         int middle = head + (tail - head) / 2;
+         if (firstTimestamps[middle] <= timestamp)
+         {
+            head = middle + 1;
+         }
+         else
+         {
+            tail = middle;
+         }
+      }
+
+      int block = Math.max(head - 1, 0);
+      long[] timestamps = new long[ticksPerBlock];
+      int ticks = readBlock(0, block, timestamps, 0);
+      for (int i = 0; i < ticks; i++)
+      {
+         if (timestamps[i] >= timestamp)
+         {
+            return firstTicks[block] + i;
+         }
+      }
+      return firstTicks[block + 1];
+   }
+
+   /**
+    * Read all values of a single column.
+    *
+    * @param column index of the column, 0 is the timestamp and variable i is column i + 1
+    * @return raw long bits of every tick in the log
+    */
+   public long[] readColumn(int column) throws IOException
+   {
+      return readColumn(column, 0, numberOfTicks);
+   }
+
+   /**
+    * Read a range of values of a single column. Only the blocks overlapping the range are decompressed.
+    *
+    * @param column index of the column, 0 is the timestamp and variable i is column i + 1
+    * @param startTick first tick to read, inclusive
+    * @param endTick last tick to read, exclusive
+    * @return raw long bits of the requested ticks
+    */
+   public long[] readColumn(int column, int startTick, int endTick) throws IOException
+   {
+      if (column < 0 || column >= numberOfColumns)
+      {
+         throw new IndexOutOfBoundsException("Column " + column + " out of range [0, " + numberOfColumns + ")");
+      }
+      if (startTick < 0 || endTick > numberOfTicks || startTick > endTick)
+      {
+         throw new IndexOutOfBoundsException("Invalid tick range [" + startTick + ", " + endTick + ") for " + numberOfTicks + " ticks");
+      }
+
+      long[] result = new long[endTick - startTick];
+      if (result.length == 0)
+      {
+         return result;
+      }
+
+      long[] blockValues = new long[ticksPerBlock];
+      int block = startTick / ticksPerBlock;
+      while (block < numberOfBlocks && firstTicks[block] < endTick)
+      {
+         int ticks = readBlock(column, block, blockValues, 0);
+         int from = Math.max(startTick - firstTicks[block], 0);
+         int to = Math.min(endTick - firstTicks[block], ticks);
+         System.arraycopy(blockValues, from, result, firstTicks[block] + from - startTick, to - from);
+         block++;
+      }
+
+      return result;
+   }
+
+   /**
+    * Read all values of a column and interpret them as doubles.
+    */
+   public double[] readDoubleColumn(int column) throws IOException
+   {
+      long[] bits = readColumn(column);
+      double[] values = new double[bits.length];
+      for (int i = 0; i < bits.length; i++)
+      {
+         values[i] = Double.longBitsToDouble(bits[i]);
+      }
+      return values;
+   }
+
+   /**
+    * Decode a single chunk.
+    *
+    * @return number of ticks in the block
+    */
+   public int readBlock(int column, int block, long[] values, int offset) throws IOException
+   {
+      chunkOffsetBuffer.clear();
+      readFully(chunkOffsetBuffer, chunkTableOffsets[block] + column * 4);
+      int chunkStart = chunkOffsetBuffer.getInt(0);
+      int chunkEnd = chunkOffsetBuffer.getInt(4);
+
+      compressedBuffer.clear();
+      compressedBuffer.limit(chunkEnd - chunkStart);
+      readFully(compressedBuffer, blockOffsets[block] + chunkStart);
+      compressedBuffer.flip();
+
+      chunkBuffer.clear();
+      SnappyUtils.uncompress(compressedBuffer, chunkBuffer);
+      int ticks = firstTicks[block + 1] - firstTicks[block];
+
+      chunkBufferAsLong.clear();
+      chunkBufferAsLong.get(values, offset, ticks);
+      encodings[column].decode(values, offset, ticks);
+      return ticks;
+   }
+
+   public void close() throws IOException
+   {
+      channel.close();
+      inputStream.close();
+   }
+}
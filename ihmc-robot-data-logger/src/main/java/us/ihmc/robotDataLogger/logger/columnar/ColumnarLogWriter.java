@@ -0,0 +1,197 @@
+package us.ihmc.robotDataLogger.logger.columnar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Writes log lines in a column oriented layout, so a single variable can be read back without decompressing every line of the log.
+ *
+ * The lines are grouped in blocks of ticksPerBlock lines. Inside a block, every column is encoded with its {@link ColumnEncoding} and Snappy compressed
+ * into a separate chunk.
+ *
+ * File layout, all values big endian:
+ * <pre>
+ * header:  int MAGIC, int VERSION, int numberOfColumns, int ticksPerBlock, byte[numberOfColumns] encodings
+ * block:   chunk[numberOfColumns], int[numberOfColumns + 1] chunk offsets relative to the start of the block
+ * ...
+ * table:   per block: long blockOffset, long chunkTableOffset, long firstTimestamp, int ticks
+ * footer:  long tableOffset, int numberOfBlocks, int MAGIC
+ * </pre>
+ *
+ * The first column is expected to be the timestamp.
+ */
+public class ColumnarLogWriter
+{
+   public static final String columnarDataFilename = "robotData.col";
+
+   public static final int MAGIC = 0x434f4c31; // "COL1"
+   public static final int VERSION = 1;
+   public static final int DEFAULT_TICKS_PER_BLOCK = 1024;
+
+   static final int HEADER_FIXED_SIZE = 16;
+   static final int BLOCK_TABLE_ENTRY_SIZE = 28;
+   static final int FOOTER_SIZE = 16;
+
+   private final FileChannel channel;
+   private final ColumnEncoding[] encodings;
+   private final int numberOfColumns;
+   private final int ticksPerBlock;
+
+   private final long[] blockData;
+   private int ticksInBlock = 0;
+
+   private final ByteBuffer chunkBuffer;
+   private final LongBuffer chunkBufferAsLong;
+   private final ByteBuffer compressedBuffer;
+   private final ByteBuffer chunkTableBuffer;
+
+   private final TLongArrayList blockOffsets = new TLongArrayList();
+   private final TLongArrayList chunkTableOffsets = new TLongArrayList();
+   private final TLongArrayList firstTimestamps = new TLongArrayList();
+   private final TIntArrayList ticksPerBlockList = new TIntArrayList();
+
+   private long position;
+
+   /**
+    * @param channel Empty channel to write to
+    * @param encodings Encoding for each column, the first column is the timestamp
+    * @param ticksPerBlock Number of lines grouped in a block. Memory use is numberOfColumns * ticksPerBlock * 8 bytes.
+    */
+   public ColumnarLogWriter(FileChannel channel, ColumnEncoding[] encodings, int ticksPerBlock) throws IOException
+   {
+      this.channel = channel;
+      this.encodings = encodings;
+      this.numberOfColumns = encodings.length;
+      this.ticksPerBlock = ticksPerBlock;
+
+      blockData = new long[numberOfColumns * ticksPerBlock];
+      chunkBuffer = ByteBuffer.allocate(ticksPerBlock * 8);
+      chunkBufferAsLong = chunkBuffer.asLongBuffer();
+      compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(ticksPerBlock * 8));
+      chunkTableBuffer = ByteBuffer.allocate((numberOfColumns + 1) * 4);
+
+      writeHeader();
+   }
+
+   private void writeHeader() throws IOException
+   {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_FIXED_SIZE + numberOfColumns);
+      header.putInt(MAGIC);
+      header.putInt(VERSION);
+      header.putInt(numberOfColumns);
+      header.putInt(ticksPerBlock);
+      for (int i = 0; i < numberOfColumns; i++)
+      {
+         header.put((byte) encodings[i].ordinal());
+      }
+      header.flip();
+      write(header);
+   }
+
+   /**
+    * Add a log line. Reads numberOfColumns longs from the current position of line.
+    */
+   public void write(LongBuffer line) throws IOException
+   {
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         blockData[column * ticksPerBlock + ticksInBlock] = line.get();
+      }
+
+      if (++ticksInBlock == ticksPerBlock)
+      {
+         flushBlock();
+      }
+   }
+
+   private void flushBlock() throws IOException
+   {
+      if (ticksInBlock == 0)
+      {
+         return;
+      }
+
+      long blockOffset = position;
+      blockOffsets.add(blockOffset);
+      firstTimestamps.add(blockData[0]);
+      ticksPerBlockList.add(ticksInBlock);
+
+      chunkTableBuffer.clear();
+      chunkTableBuffer.putInt(0);
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         int offset = column * ticksPerBlock;
+         encodings[column].encode(blockData, offset, ticksInBlock);
+
+         chunkBufferAsLong.clear();
+         chunkBufferAsLong.put(blockData, offset, ticksInBlock);
+         chunkBuffer.clear();
+         chunkBuffer.limit(ticksInBlock * 8);
+
+         compressedBuffer.clear();
+         SnappyUtils.compress(chunkBuffer, compressedBuffer);
+         compressedBuffer.flip();
+         write(compressedBuffer);
+
+         chunkTableBuffer.putInt((int) (position - blockOffset));
+      }
+      chunkTableBuffer.flip();
+      chunkTableOffsets.add(position);
+      write(chunkTableBuffer);
+
+      ticksInBlock = 0;
+   }
+
+   private void write(ByteBuffer buffer) throws IOException
+   {
+      while (buffer.hasRemaining())
+      {
+         position += channel.write(buffer);
+      }
+   }
+
+   /**
+    * Discard everything written so far and start over with an empty file.
+    */
+   public void restart() throws IOException
+   {
+      channel.truncate(0);
+      channel.position(0);
+      position = 0;
+      ticksInBlock = 0;
+      blockOffsets.reset();
+      chunkTableOffsets.reset();
+      firstTimestamps.reset();
+      ticksPerBlockList.reset();
+      writeHeader();
+   }
+
+   /**
+    * Write the last partial block, the block table and the footer. Does not close the channel.
+    */
+   public void finish() throws IOException
+   {
+      flushBlock();
+
+      long tableOffset = position;
+      ByteBuffer table = ByteBuffer.allocate(blockOffsets.size() * BLOCK_TABLE_ENTRY_SIZE + FOOTER_SIZE);
+      for (int i = 0; i < blockOffsets.size(); i++)
+      {
+         table.putLong(blockOffsets.get(i));
+         table.putLong(chunkTableOffsets.get(i));
+         table.putLong(firstTimestamps.get(i));
+         table.putInt(ticksPerBlockList.get(i));
+      }
+      table.putLong(tableOffset);
+      table.putInt(blockOffsets.size());
+      table.putInt(MAGIC);
+      table.flip();
+      write(table);
+   }
+}
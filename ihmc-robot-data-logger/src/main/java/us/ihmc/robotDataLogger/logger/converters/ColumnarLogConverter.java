@@ -0,0 +1,158 @@
+package us.ihmc.robotDataLogger.logger.converters;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLoggerListener;
+import us.ihmc.robotDataLogger.logger.columnar.ColumnEncoding;
+import us.ihmc.robotDataLogger.logger.columnar.ColumnarLogWriter;
+
+/**
+ * Writes a columnar copy (robotData.col) next to the row oriented data of compressed logs.
+ */
+public class ColumnarLogConverter extends SimpleFileVisitor<Path>
+{
+   private final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:robotData.log");
+
+   public static void main(String[] args) throws IOException
+   {
+      Path root;
+      if (args.length < 1)
+      {
+         System.out.println("Enter directory to convert");
+         BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
+         String path = br.readLine();
+         br.close();
+         root = Paths.get(path);
+      }
+      else
+      {
+         root = Paths.get(args[0]);
+      }
+
+      if (!Files.exists(root) || !Files.isDirectory(root))
+      {
+         throw new RuntimeException(root + " is not a directory");
+      }
+      Files.walkFileTree(root, new ColumnarLogConverter());
+   }
+
+   @Override
+   public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+   {
+      if (matcher.matches(file.getFileName()))
+      {
+         try
+         {
+            File directory = file.getParent().toFile();
+            File log = new File(directory, YoVariableLoggerListener.propertyFile);
+            LogProperties properties = new LogPropertiesReader(log);
+            convert(directory, properties, ColumnarLogWriter.DEFAULT_TICKS_PER_BLOCK);
+         }
+         catch (IOException e)
+         {
+            e.printStackTrace();
+         }
+      }
+      return FileVisitResult.CONTINUE;
+   }
+
+   @Override
+   public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException
+   {
+      System.err.println(exc.getMessage());
+      return FileVisitResult.CONTINUE;
+   }
+
+   public static void convert(File directory, LogProperties properties, int ticksPerBlock) throws IOException
+   {
+      if (!properties.getVariables().getCompressed())
+      {
+         System.err.println("Log is not compressed, run LogCompressor first: " + directory);
+         return;
+      }
+
+      File columnarData = new File(directory, ColumnarLogWriter.columnarDataFilename);
+      if (columnarData.exists())
+      {
+         System.err.println("Log already has columnar data: " + directory);
+         return;
+      }
+
+      System.out.println("Converting " + directory);
+
+      YoVariableHandshakeParser handshake = ConverterUtil.getHandshake(properties.getVariables().getHandshakeFileType(),
+                                                                        new File(directory, properties.getVariables().getHandshakeAsString()));
+
+      LineReader reader = new LineReader(directory, properties);
+      if (!reader.initialize())
+      {
+         throw new IOException("Cannot read log data in " + directory);
+      }
+
+      try (FileOutputStream columnarStream = new FileOutputStream(columnarData))
+      {
+         FileChannel columnarChannel = columnarStream.getChannel();
+         ColumnarLogWriter writer = new ColumnarLogWriter(columnarChannel, ColumnEncoding.createEncodings(handshake), ticksPerBlock);
+
+         int elements = reader.getNumberOfEntries();
+         for (int i = 0; i < elements; i++)
+         {
+            if (elements >= 100 && i % (elements / 10) == 0)
+            {
+               System.out.print((i / (elements / 100)) + "%");
+            }
+
+            ByteBuffer line = reader.readData(i);
+            writer.write(line.asLongBuffer());
+         }
+         System.out.println();
+
+         writer.finish();
+         columnarChannel.force(true);
+      }
+      finally
+      {
+         reader.close();
+      }
+
+      System.out.println("Converted " + directory);
+   }
+
+   private static class LineReader extends YoVariableLogReader
+   {
+      public LineReader(File logDirectory, LogProperties logProperties)
+      {
+         super(logDirectory, logProperties);
+      }
+
+      @Override
+      protected boolean initialize()
+      {
+         return super.initialize();
+      }
+
+      @Override
+      protected ByteBuffer readData(int position) throws IOException
+      {
+         return super.readData(position);
+      }
+   }
+}
@@ -7,7 +7,6 @@ import us.ihmc.idl.CDR;
 import us.ihmc.idl.InterchangeSerializer;
 import us.ihmc.pubsub.TopicDataType;
 import us.ihmc.pubsub.common.SerializedPayload;
-import us.ihmc.robotDataLogger.LogDataType;
 import us.ihmc.robotDataLogger.dataBuffers.RegistrySendBuffer;
 import us.ihmc.tools.compression.CompressionImplementation;
 import us.ihmc.tools.compression.CompressionImplementationFactory;
@@ -101,7 +100,7 @@ public class CustomLogDataPublisherType implements TopicDataType<RegistrySendBuf
       serializeCDR.write_type_2(data.getNumberOfVariables());
 
 
-      if(data.getType() == LogDataType.DATA_PACKET)
+      if(data.isDataPacket())
       {
          if (compressor.supportsDirectOutput())
          {
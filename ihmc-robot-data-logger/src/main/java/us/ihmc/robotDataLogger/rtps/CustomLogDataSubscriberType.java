@@ -7,7 +7,6 @@ import us.ihmc.idl.CDR;
 import us.ihmc.idl.InterchangeSerializer;
 import us.ihmc.pubsub.TopicDataType;
 import us.ihmc.pubsub.common.SerializedPayload;
-import us.ihmc.robotDataLogger.LogDataType;
 import us.ihmc.robotDataLogger.dataBuffers.RegistryReceiveBuffer;
 import us.ihmc.tools.compression.CompressionImplementation;
 import us.ihmc.tools.compression.CompressionImplementationFactory;
@@ -64,7 +63,7 @@ public class CustomLogDataSubscriberType implements TopicDataType<RegistryReceiv
       
       data.setNumberOfVariables(deserializeCDR.read_type_2());
       
-      if(data.getType() == LogDataType.DATA_PACKET)
+      if(data.isDataPacket())
       {
          int dataLength = deserializeCDR.read_type_2();
          ByteBuffer buffer = data.allocateBuffer(dataLength);
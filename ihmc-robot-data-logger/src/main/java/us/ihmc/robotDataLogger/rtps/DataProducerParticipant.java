@@ -314,6 +314,16 @@ public class DataProducerParticipant
    public RegistryPublisher createRegistryPublisher(CustomLogDataPublisherType type, PeriodicThreadSchedulerFactory schedulerFactory,
                                                     RegistrySendBufferBuilder builder)
          throws IOException
+   {
+      return createRegistryPublisher(type, schedulerFactory, builder, 0);
+   }
+
+   /**
+    * @param keyframeInterval Interval between full segments when delta encoding variables, 0 to always send full segments
+    */
+   public RegistryPublisher createRegistryPublisher(CustomLogDataPublisherType type, PeriodicThreadSchedulerFactory schedulerFactory,
+                                                    RegistrySendBufferBuilder builder, int keyframeInterval)
+         throws IOException
    {
       PublisherAttributes attr = domain.createPublisherAttributes(participant, type, LogParticipantSettings.data.getKey(),
                                                                   LogParticipantSettings.data.getValue(), partition);
@@ -322,7 +332,7 @@ public class DataProducerParticipant
 
       
       
-      return new RegistryPublisher(schedulerFactory, builder, publisher);
+      return new RegistryPublisher(schedulerFactory, builder, publisher, keyframeInterval);
    }
    public void sendKeepAlive(PeriodicThreadSchedulerFactory schedulerFactory) throws IOException
    {
@@ -13,6 +13,8 @@ public class RTPSDebugRegistry
    private final YoInteger totalPackets;
    private final YoInteger skippedPacketDueToFullBuffer;
    private final YoInteger firstSegmentsMissing;
+   private final YoInteger deltaPacketsWithoutKeyframe;
+   private final YoInteger incompleteTicksSkipped;
 
    private final YoVariableRegistry loggerDebugRegistry = new YoVariableRegistry("loggerStatus");
    
@@ -27,6 +29,8 @@ public class RTPSDebugRegistry
       this.totalPackets = new YoInteger("totalPackets", loggerDebugRegistry);
       this.skippedPacketDueToFullBuffer = new YoInteger("skippedPacketDueToFullBuffer", loggerDebugRegistry);
       this.firstSegmentsMissing = new YoInteger("firstSegmentsMissing", loggerDebugRegistry);
+      this.deltaPacketsWithoutKeyframe = new YoInteger("deltaPacketsWithoutKeyframe", loggerDebugRegistry);
+      this.incompleteTicksSkipped = new YoInteger("incompleteTicksSkipped", loggerDebugRegistry);
    }
 
    public YoInteger getSkippedPackets()
@@ -69,6 +73,16 @@ public class RTPSDebugRegistry
       return firstSegmentsMissing;
    }
    
+   public YoInteger getDeltaPacketsWithoutKeyframe()
+   {
+      return deltaPacketsWithoutKeyframe;
+   }
+
+   public YoInteger getIncompleteTicksSkipped()
+   {
+      return incompleteTicksSkipped;
+   }
+
    public YoVariableRegistry getYoVariableRegistry()
    {
       return loggerDebugRegistry;
@@ -12,7 +12,6 @@ import us.ihmc.pubsub.common.MatchingInfo;
 import us.ihmc.pubsub.common.SampleInfo;
 import us.ihmc.pubsub.subscriber.Subscriber;
 import us.ihmc.pubsub.subscriber.SubscriberListener;
-import us.ihmc.robotDataLogger.LogDataType;
 import us.ihmc.robotDataLogger.YoVariableClientImplementation;
 import us.ihmc.robotDataLogger.dataBuffers.RegistryDecompressor;
 import us.ihmc.robotDataLogger.dataBuffers.RegistryReceiveBuffer;
@@ -119,15 +118,22 @@ public class RegistryConsumer extends Thread implements SubscriberListener
    
 
    
-   private void decompressBuffer(RegistryReceiveBuffer buffer)
+   /**
+    * @return false if the segment could not be decoded, the variables of the segment then still hold the values of a previous tick
+    */
+   private boolean decompressBuffer(RegistryReceiveBuffer buffer)
    {
       long previousUid = lastRegistryUid.put(buffer.getRegistryID(), buffer.getUid());
       
       updateDebugVariables(buffer, previousUid);
       
-      registryDecompressor.decompressSegment(buffer, parser.getVariableOffset(buffer.getRegistryID()));
-      
+      if (!registryDecompressor.decompressSegment(buffer, parser.getVariableOffset(buffer.getRegistryID())))
+      {
+         debugRegistry.getDeltaPacketsWithoutKeyframe().increment();
+         return false;
+      }
       
+      return true;
    }
 
    void updateDebugVariables(RegistryReceiveBuffer buffer, long previousUid)
@@ -152,12 +158,12 @@ public class RegistryConsumer extends Thread implements SubscriberListener
    private void handlePackets() throws InterruptedException
    {
       RegistryReceiveBuffer buffer = orderedBuffers.take();
-      if(buffer.getType() == LogDataType.DATA_PACKET)
+      if(buffer.isDataPacket())
       {
       
          long timestamp = buffer.getTimestamp();
          
-         decompressBuffer(buffer);
+         boolean complete = decompressBuffer(buffer);
          
          if(buffer.getOffset() > 0)
          {
@@ -167,7 +173,7 @@ public class RegistryConsumer extends Thread implements SubscriberListener
          while(!orderedBuffers.isEmpty() && orderedBuffers.peek().getTimestamp() == timestamp)
          {
             RegistryReceiveBuffer next = orderedBuffers.take();
-            decompressBuffer(next);
+            complete &= decompressBuffer(next);
             debugRegistry.getMergedPackets().increment();
          }
          
@@ -182,10 +188,15 @@ public class RegistryConsumer extends Thread implements SubscriberListener
             listener.connected();
             firstSample = false;
          }
-         else
+         else if (complete)
          {
             listener.receivedTimestampAndData(timestamp);
          }
+         else
+         {
+            // Do not hand stale values to the listeners under a new timestamp
+            debugRegistry.getIncompleteTicksSkipped().increment();
+         }
       }
       else
       {
@@ -7,6 +7,7 @@ import us.ihmc.concurrent.ConcurrentRingBuffer;
 import us.ihmc.pubsub.publisher.Publisher;
 import us.ihmc.robotDataLogger.dataBuffers.LoggerDebugRegistry;
 import us.ihmc.robotDataLogger.dataBuffers.RegistryBuffer;
+import us.ihmc.robotDataLogger.dataBuffers.RegistryKeyframe;
 import us.ihmc.robotDataLogger.dataBuffers.RegistrySendBuffer;
 import us.ihmc.robotDataLogger.dataBuffers.RegistrySendBufferBuilder;
 import us.ihmc.util.PeriodicThreadScheduler;
@@ -29,13 +30,36 @@ public class RegistryPublisher
    
    private final int[] segmentSizes;
    private final int[] segmentOffsets;
+   private final RegistryKeyframe[] keyframes;
 
 
    public RegistryPublisher(PeriodicThreadSchedulerFactory schedulerFactory, RegistrySendBufferBuilder builder, Publisher publisher) throws IOException
+   {
+      this(schedulerFactory, builder, publisher, 0);
+   }
+
+   /**
+    * @param keyframeInterval Send a full segment every keyframeInterval ticks and only the changed variables in between. 0 or 1 disables delta encoding.
+    */
+   public RegistryPublisher(PeriodicThreadSchedulerFactory schedulerFactory, RegistrySendBufferBuilder builder, Publisher publisher, int keyframeInterval)
+         throws IOException
    {
       this.segmentSizes = LogParticipantTools.calculateLogSegmentSizes(builder.getNumberOfVariables(), builder.getNumberOfJointStates());
       this.segmentOffsets = LogParticipantTools.calculateOffsets(this.segmentSizes);
 
+      if (keyframeInterval > 1)
+      {
+         this.keyframes = new RegistryKeyframe[segmentSizes.length];
+         for (int segment = 0; segment < segmentSizes.length; segment++)
+         {
+            this.keyframes[segment] = new RegistryKeyframe(segmentSizes[segment], keyframeInterval);
+         }
+      }
+      else
+      {
+         this.keyframes = null;
+      }
+
       this.ringBuffer = new ConcurrentRingBuffer<>(builder, BUFFER_CAPACITY * segmentSizes.length);
       this.scheduler = schedulerFactory.createPeriodicThreadScheduler("Registry-" + builder.getRegistryID() + "-Publisher");
       this.publisher = publisher;
@@ -68,7 +92,8 @@ public class RegistryPublisher
          RegistrySendBuffer buffer = ringBuffer.next();
          if (buffer != null)
          {
-            buffer.updateBufferFromVariables(timestamp, uid, segment, segmentOffsets[segment], segmentSizes[segment]);
+            buffer.updateBufferFromVariables(timestamp, uid, segment, segmentOffsets[segment], segmentSizes[segment],
+                                             keyframes == null ? null : keyframes[segment]);
             ringBuffer.commit();
          }
          else
@@ -1,6 +1,7 @@
 package us.ihmc.tools.compression;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.xerial.snappy.Snappy;
 
@@ -24,4 +25,14 @@ public class SnappyLibrary
    {
       return Snappy.uncompress(input, inputOffset, inputLength, output, outputOffset);
    }
+
+   /**
+    * Uncompress between two direct buffers without copying to the heap.
+    * 
+    * @return size of the uncompressed data
+    */
+   public int uncompress(ByteBuffer directInput, ByteBuffer directOutput) throws IOException
+   {
+      return Snappy.uncompress(directInput, directOutput);
+   }
 }
@@ -72,13 +72,24 @@ public class SnappyUtils
    /**
     * Uncompress Snappy compressed data packet. 
     * 
-    * @param input Snappy compressed data, faster if HeapByteBuffer
-    * @param output Decompressed data, faster if HeapByteBuffer
+    * @param input Snappy compressed data, faster if HeapByteBuffer or if both input and output are direct
+    * @param output Decompressed data, faster if HeapByteBuffer or if both input and output are direct
     * @throws IllegalArgumentException
     * @throws IOException 
     */
    public static void uncompress(ByteBuffer input, ByteBuffer output) throws IllegalArgumentException, IOException
    {
+      if (input.isDirect() && output.isDirect())
+      {
+         // Zero-copy path, used for memory mapped logs. Snappy leaves the positions untouched and moves the output limit.
+         int outputLimit = output.limit();
+         int uncompressedSize = snappyLibrary.uncompress(input, output);
+         input.position(input.limit());
+         output.limit(outputLimit);
+         output.position(output.position() + uncompressedSize);
+         return;
+      }
+
       byte[] in;
       int inOffset, inLength;
       if (!input.hasArray())
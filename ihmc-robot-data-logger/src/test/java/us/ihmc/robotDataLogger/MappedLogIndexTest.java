@@ -0,0 +1,133 @@
+package us.ihmc.robotDataLogger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class MappedLogIndexTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testSegmentedMapping() throws IOException
+   {
+      Random random = new Random(4598723L);
+      int numberOfEntries = 1000;
+
+      File indexFile = File.createTempFile("robotData", ".dat");
+      File dataFile = File.createTempFile("robotData", ".bsz");
+      indexFile.deleteOnExit();
+      dataFile.deleteOnExit();
+
+      long[] timestamps = new long[numberOfEntries];
+      int[] sizes = new int[numberOfEntries];
+      ByteBuffer index = ByteBuffer.allocate(numberOfEntries * 16);
+      ByteBuffer data = ByteBuffer.allocate(numberOfEntries * 64);
+      long timestamp = random.nextInt(1000);
+      for (int i = 0; i < numberOfEntries; i++)
+      {
+         timestamp += 1 + random.nextInt(10);
+         timestamps[i] = timestamp;
+         sizes[i] = 1 + random.nextInt(63);
+
+         index.putLong(timestamp);
+         index.putLong(data.position());
+         for (int b = 0; b < sizes[i]; b++)
+         {
+            data.put((byte) i);
+         }
+      }
+      index.flip();
+      data.flip();
+
+      try (FileOutputStream indexStream = new FileOutputStream(indexFile); FileOutputStream dataStream = new FileOutputStream(dataFile))
+      {
+         indexStream.getChannel().write(index);
+         dataStream.getChannel().write(data);
+      }
+
+      LogIndex logIndex = new LogIndex(indexFile, dataFile.length());
+      MappedLogIndex mappedLogIndex = new MappedLogIndex(indexFile, dataFile.length(), 7);
+      MappedLogData mappedLogData = new MappedLogData(dataFile, mappedLogIndex, 200);
+
+      assertEquals(numberOfEntries, mappedLogIndex.getNumberOfEntries());
+      assertEquals(logIndex.getInitialTimestamp(), mappedLogIndex.getInitialTimestamp());
+
+      for (int i = 0; i < numberOfEntries; i++)
+      {
+         assertEquals(logIndex.getTimestamp(i), mappedLogIndex.getTimestamp(i));
+         assertEquals(logIndex.getDataOffset(i), mappedLogIndex.getDataOffset(i));
+         assertEquals(logIndex.getCompressedSize(i), mappedLogIndex.getCompressedSize(i));
+         assertEquals(logIndex.seek(timestamps[i]), mappedLogIndex.seek(timestamps[i]));
+
+         ByteBuffer compressedData = mappedLogData.getCompressedData(i);
+         assertEquals(sizes[i], compressedData.remaining());
+         while (compressedData.hasRemaining())
+         {
+            assertEquals((byte) i, compressedData.get());
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testCloseReleasesTheFiles() throws IOException
+   {
+      File indexFile = File.createTempFile("robotData", ".dat");
+      File dataFile = File.createTempFile("robotData", ".bsz");
+      indexFile.deleteOnExit();
+      dataFile.deleteOnExit();
+
+      try (FileOutputStream indexStream = new FileOutputStream(indexFile); FileOutputStream dataStream = new FileOutputStream(dataFile))
+      {
+         ByteBuffer index = ByteBuffer.allocate(16);
+         index.putLong(0, 42L);
+         index.putLong(8, 0L);
+         indexStream.getChannel().write(index);
+         dataStream.getChannel().write(ByteBuffer.allocate(8));
+      }
+
+      try (RandomAccessFile file = new RandomAccessFile(dataFile, "r"); FileChannel channel = file.getChannel())
+      {
+         MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+         assertTrue("The mapped buffers cannot be released on this JVM", MappedBufferTools.unmap(buffer));
+      }
+
+      MappedLogIndex mappedLogIndex = new MappedLogIndex(indexFile, dataFile.length());
+      MappedLogData mappedLogData = new MappedLogData(dataFile, mappedLogIndex);
+      assertEquals(42L, mappedLogIndex.getInitialTimestamp());
+      assertEquals(8, mappedLogData.getCompressedData(0).remaining());
+
+      mappedLogData.close();
+      mappedLogIndex.close();
+      // Closing twice does nothing
+      mappedLogData.close();
+      mappedLogIndex.close();
+
+      try
+      {
+         mappedLogIndex.getTimestamp(0);
+         fail("The index can be read after it was closed");
+      }
+      catch (NullPointerException e)
+      {
+         // The segments are released
+      }
+
+      assertTrue(indexFile.delete());
+      assertTrue(dataFile.delete());
+   }
+}
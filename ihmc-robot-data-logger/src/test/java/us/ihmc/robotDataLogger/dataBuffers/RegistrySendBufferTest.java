@@ -1,6 +1,7 @@
 package us.ihmc.robotDataLogger.dataBuffers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -19,6 +20,7 @@ import us.ihmc.mecano.multiBodySystem.RigidBody;
 import us.ihmc.mecano.multiBodySystem.interfaces.OneDoFJointBasics;
 import us.ihmc.mecano.multiBodySystem.interfaces.RigidBodyBasics;
 import us.ihmc.pubsub.common.SerializedPayload;
+import us.ihmc.robotDataLogger.LogDataType;
 import us.ihmc.robotDataLogger.jointState.JointHolder;
 import us.ihmc.robotDataLogger.jointState.JointState;
 import us.ihmc.robotDataLogger.jointState.OneDoFJointHolder;
@@ -124,4 +126,74 @@ public class RegistrySendBufferTest
          
       }
    }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testDeltaEncoding() throws IOException
+   {
+      Random random = new Random(98234719l);
+      SerializedPayload payload = new SerializedPayload(DataProducerParticipant.getMaximumSynchronousPacketSize());
+
+      int numberOfVariables = 5000;
+      int keyframeInterval = 10;
+      ArrayList<JointHolder> sendJointHolders = new ArrayList<>();
+      ArrayList<JointState> receiveJointStates = new ArrayList<>();
+
+      CustomLogDataPublisherType publisherType = new CustomLogDataPublisherType(numberOfVariables, 0);
+      CustomLogDataSubscriberType subscriberType = new CustomLogDataSubscriberType(numberOfVariables, 0);
+
+      YoVariableRegistry sendRegistry = new YoVariableRegistry("sendRegistry");
+      YoVariableRegistry receiveRegistry = new YoVariableRegistry("receiveRegistry");
+      for (int v = 0; v < numberOfVariables; v++)
+      {
+         new YoLong("var" + v, sendRegistry).set(random.nextLong());
+         new YoLong("var" + v, receiveRegistry);
+      }
+      List<YoVariable<?>> sendVariables = sendRegistry.getAllVariables();
+      List<YoVariable<?>> receiveVariables = receiveRegistry.getAllVariables();
+
+      RegistrySendBuffer sendBuffer = new RegistrySendBuffer(1, sendVariables, sendJointHolders);
+      RegistryKeyframe keyframe = new RegistryKeyframe(numberOfVariables, keyframeInterval);
+      RegistryDecompressor registryDecompressor = new RegistryDecompressor(receiveVariables, receiveJointStates);
+
+      for (int tick = 0; tick < 5 * keyframeInterval; tick++)
+      {
+         int changes = tick % 7 == 6 ? numberOfVariables : random.nextInt(50);
+         for (int c = 0; c < changes; c++)
+         {
+            ((YoLong) sendVariables.get(random.nextInt(numberOfVariables))).set(random.nextLong());
+         }
+
+         sendBuffer.updateBufferFromVariables(tick, tick, 0, 0, numberOfVariables, keyframe);
+         payload.getData().clear();
+         publisherType.serialize(sendBuffer, payload);
+
+         RegistryReceiveBuffer receiveBuffer = new RegistryReceiveBuffer(sendBuffer.getTimestamp());
+         subscriberType.deserialize(payload, receiveBuffer);
+         boolean updated = registryDecompressor.decompressSegment(receiveBuffer, 0);
+
+         if (receiveBuffer.getType() == LogDataType.DATA_PACKET)
+         {
+            assertTrue(updated);
+         }
+         else
+         {
+            assertTrue(receiveBuffer.getNumberOfVariables() < numberOfVariables);
+         }
+
+         if (tick >= 2 * keyframeInterval)
+         {
+            // The decompressor keeps keyframes from the first full segment after a delta packet
+            assertTrue(updated);
+         }
+
+         if (updated)
+         {
+            for (int v = 0; v < numberOfVariables; v++)
+            {
+               assertEquals(sendVariables.get(v).getValueAsLongBits(), receiveVariables.get(v).getValueAsLongBits());
+            }
+         }
+      }
+   }
 }
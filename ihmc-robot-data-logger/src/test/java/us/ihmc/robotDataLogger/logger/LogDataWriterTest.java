@@ -0,0 +1,119 @@
+package us.ihmc.robotDataLogger.logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class LogDataWriterTest
+{
+   private static final int LINE_LENGTH = 4;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testClearDropsQueuedLines() throws IOException
+   {
+      File dataFile = File.createTempFile("robotData", ".bsz");
+      File indexFile = File.createTempFile("robotData", ".dat");
+      dataFile.deleteOnExit();
+      indexFile.deleteOnExit();
+
+      try (FileChannel dataChannel = new FileOutputStream(dataFile).getChannel(); FileChannel indexChannel = new FileOutputStream(indexFile).getChannel())
+      {
+         LogDataWriter writer = new LogDataWriter(dataChannel, indexChannel, null, LINE_LENGTH * 8, 1000, false, null);
+
+         // Not started yet, all the lines before the clear are still queued
+         for (int i = 0; i < 500; i++)
+         {
+            writer.write(i, createLine(i));
+         }
+         writer.clear();
+
+         writer.start();
+         for (int i = 1000; i < 1200; i++)
+         {
+            writer.write(i, createLine(i));
+         }
+         writer.clear();
+
+         for (int i = 2000; i < 2100; i++)
+         {
+            writer.write(i, createLine(i));
+         }
+         writer.finish();
+         assertNull(writer.getWriteFailure());
+      }
+
+      try (RandomAccessFile index = new RandomAccessFile(indexFile, "r"))
+      {
+         assertEquals(100 * 16, index.length());
+         long previousOffset = -1;
+         for (int i = 0; i < 100; i++)
+         {
+            assertEquals(2000 + i, index.readLong());
+            long offset = index.readLong();
+            assertEquals(i == 0, offset == 0);
+            assertFalse(offset <= previousOffset);
+            previousOffset = offset;
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testWriteFailureIsReported() throws IOException
+   {
+      File dataFile = File.createTempFile("robotData", ".bsz");
+      File indexFile = File.createTempFile("robotData", ".dat");
+      dataFile.deleteOnExit();
+      indexFile.deleteOnExit();
+
+      FileChannel dataChannel = new FileOutputStream(dataFile).getChannel();
+      FileChannel indexChannel = new FileOutputStream(indexFile).getChannel();
+      dataChannel.close();
+
+      LogDataWriter writer = new LogDataWriter(dataChannel, indexChannel, null, LINE_LENGTH * 8, 16, false, null);
+      writer.start();
+      writer.write(0, createLine(0));
+
+      while (writer.getWriteFailure() == null)
+      {
+         Thread.yield();
+      }
+      assertFalse(writer.write(1, createLine(1)));
+
+      try
+      {
+         writer.finish();
+         fail("The failure was not reported");
+      }
+      catch (IOException e)
+      {
+         assertNotNull(e.getCause());
+      }
+      indexChannel.close();
+   }
+
+   private static ByteBuffer createLine(long timestamp)
+   {
+      ByteBuffer line = ByteBuffer.allocate(LINE_LENGTH * 8);
+      for (int i = 0; i < LINE_LENGTH; i++)
+      {
+         line.putLong(timestamp + i);
+      }
+      line.flip();
+      return line;
+   }
+}
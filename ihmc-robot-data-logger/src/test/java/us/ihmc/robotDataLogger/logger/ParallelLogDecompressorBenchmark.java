@@ -0,0 +1,75 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import us.ihmc.commons.Conversions;
+
+/**
+ * Measures the throughput of {@link ParallelLogDecompressor} on an existing log for an increasing number of worker threads.
+ * 
+ * Usage: ParallelLogDecompressorBenchmark [log directory]
+ */
+public class ParallelLogDecompressorBenchmark extends YoVariableLogReader
+{
+   private static final int ITERATIONS = 3;
+
+   private long checksum = 0;
+
+   public ParallelLogDecompressorBenchmark(File directory) throws IOException
+   {
+      super(directory, new LogPropertiesReader(new File(directory, YoVariableLoggerListener.propertyFile)), true);
+
+      if (!initialize())
+      {
+         throw new IOException("Cannot open log " + directory);
+      }
+
+      long totalBytes = (long) getNumberOfEntries() * getNumberOfVariables() * 8;
+      System.out.println("Decompressing " + getNumberOfEntries() + " lines with " + getNumberOfVariables() + " variables, " + (totalBytes / (1024 * 1024))
+            + "MB per pass.");
+
+      int maximumThreads = Runtime.getRuntime().availableProcessors();
+      for (int threads = 1; threads <= maximumThreads; threads *= 2)
+      {
+         benchmark(threads, totalBytes);
+      }
+      if (Integer.bitCount(maximumThreads) != 1)
+      {
+         benchmark(maximumThreads, totalBytes);
+      }
+
+      System.out.println("Checksum " + checksum);
+      close();
+   }
+
+   private void benchmark(int threads, long totalBytes) throws IOException
+   {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+
+      // JIT warmup
+      readData(0, Math.min(getNumberOfEntries(), 10000), pool, (position, line) -> checksum += line.get(0));
+
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         readData(0, getNumberOfEntries(), pool, (position, line) -> checksum += line.get(0));
+      }
+      double seconds = Conversions.nanosecondsToSeconds(System.nanoTime() - start) / ITERATIONS;
+
+      System.out.println(String.format("%2d threads: %8.3fs, %12.0f lines/s, %8.1f MB/s", threads, seconds, getNumberOfEntries() / seconds,
+                                       totalBytes / seconds / (1024 * 1024)));
+      pool.shutdown();
+   }
+
+   public static void main(String[] args) throws IOException
+   {
+      if (args.length < 1)
+      {
+         System.err.println("Usage: ParallelLogDecompressorBenchmark [log directory]");
+         return;
+      }
+      new ParallelLogDecompressorBenchmark(new File(args[0]));
+   }
+}
@@ -0,0 +1,124 @@
+package us.ihmc.robotDataLogger.logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotDataLogger.MappedLogData;
+import us.ihmc.robotDataLogger.MappedLogIndex;
+import us.ihmc.tools.compression.SnappyUtils;
+
+public class ParallelLogDecompressorTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testRelativeReadsAcrossBatches() throws IOException
+   {
+      Random random = new Random(1398237L);
+      int numberOfEntries = 500;
+      int lineLength = 11;
+
+      File indexFile = File.createTempFile("robotData", ".dat");
+      File dataFile = File.createTempFile("robotData", ".bsz");
+      indexFile.deleteOnExit();
+      dataFile.deleteOnExit();
+
+      long[][] lines = new long[numberOfEntries][lineLength];
+      ByteBuffer index = ByteBuffer.allocate(numberOfEntries * 16);
+      ByteBuffer data = ByteBuffer.allocate(numberOfEntries * SnappyUtils.maxCompressedLength(lineLength * 8));
+      ByteBuffer line = ByteBuffer.allocate(lineLength * 8);
+
+      for (int i = 0; i < numberOfEntries; i++)
+      {
+         line.clear();
+         for (int j = 0; j < lineLength; j++)
+         {
+            lines[i][j] = j == 0 ? i : random.nextLong();
+            line.putLong(lines[i][j]);
+         }
+         line.flip();
+
+         index.putLong(i);
+         index.putLong(data.position());
+         SnappyUtils.compress(line, data);
+      }
+      index.flip();
+      data.flip();
+
+      try (FileOutputStream indexStream = new FileOutputStream(indexFile); FileOutputStream dataStream = new FileOutputStream(dataFile))
+      {
+         indexStream.getChannel().write(index);
+         dataStream.getChannel().write(data);
+      }
+
+      MappedLogIndex mappedLogIndex = new MappedLogIndex(indexFile, dataFile.length());
+      MappedLogData mappedLogData = new MappedLogData(dataFile, mappedLogIndex);
+      ForkJoinPool pool = new ForkJoinPool(2);
+      // 4 batches in flight of 7 lines
+      ParallelLogDecompressor decompressor = new ParallelLogDecompressor(mappedLogData, lineLength, pool, 4 * 7 * lineLength * 8 + 10);
+      assertEquals(7, decompressor.getBatchSize());
+
+      for (int pass = 0; pass < 2; pass++)
+      {
+         int[] expectedPosition = {0};
+         decompressor.decompress(0, numberOfEntries, (position, decompressedLine) ->
+         {
+            assertEquals(expectedPosition[0]++, position);
+
+            // Relative reads, the buffers of the previous batches were consumed the same way
+            for (int j = 0; j < lineLength; j++)
+            {
+               assertEquals(lines[position][j], decompressedLine.get());
+            }
+            assertFalse(decompressedLine.hasRemaining());
+         });
+         assertEquals(numberOfEntries, expectedPosition[0]);
+      }
+
+      pool.shutdown();
+      mappedLogData.close();
+      mappedLogIndex.close();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testBatchSizeFromMemoryBudget() throws IOException
+   {
+      File indexFile = File.createTempFile("robotData", ".dat");
+      File dataFile = File.createTempFile("robotData", ".bsz");
+      indexFile.deleteOnExit();
+      dataFile.deleteOnExit();
+
+      MappedLogIndex mappedLogIndex = new MappedLogIndex(indexFile, dataFile.length());
+      MappedLogData mappedLogData = new MappedLogData(dataFile, mappedLogIndex);
+      ForkJoinPool pool = new ForkJoinPool(16);
+      long memoryBudget = 1024L * 1024L;
+
+      // Small lines, the batches are full
+      ParallelLogDecompressor decompressor = new ParallelLogDecompressor(mappedLogData, 10, pool, memoryBudget);
+      assertEquals(ParallelLogDecompressor.MAXIMUM_BATCH_SIZE, decompressor.getBatchSize());
+
+      // Many variables and many workers, the budget is kept
+      decompressor = new ParallelLogDecompressor(mappedLogData, 500, pool, memoryBudget);
+      assertTrue(decompressor.getBatchSize() < ParallelLogDecompressor.MAXIMUM_BATCH_SIZE);
+      assertTrue(decompressor.getMaximumMemoryUsage() <= memoryBudget);
+
+      // A batch holds at least one line
+      decompressor = new ParallelLogDecompressor(mappedLogData, 100000, pool, memoryBudget);
+      assertEquals(1, decompressor.getBatchSize());
+
+      pool.shutdown();
+      mappedLogData.close();
+      mappedLogIndex.close();
+   }
+}
@@ -0,0 +1,92 @@
+package us.ihmc.robotDataLogger.logger.columnar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class ColumnarLogWriterTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testWriteAndReadColumns() throws IOException
+   {
+      Random random = new Random(1897234L);
+
+      int numberOfColumns = 1 + random.nextInt(200);
+      int ticksPerBlock = 64;
+      int numberOfTicks = 10 * ticksPerBlock + random.nextInt(ticksPerBlock - 1) + 1;
+
+      ColumnEncoding[] encodings = new ColumnEncoding[numberOfColumns];
+      encodings[0] = ColumnEncoding.DELTA;
+      for (int i = 1; i < numberOfColumns; i++)
+      {
+         encodings[i] = ColumnEncoding.values[random.nextInt(ColumnEncoding.values.length)];
+      }
+
+      long[][] expected = new long[numberOfColumns][numberOfTicks];
+      long timestamp = random.nextLong();
+      for (int tick = 0; tick < numberOfTicks; tick++)
+      {
+         timestamp += 1000000 + random.nextInt(100);
+         expected[0][tick] = timestamp;
+         for (int column = 1; column < numberOfColumns; column++)
+         {
+            expected[column][tick] = random.nextBoolean() ? Double.doubleToLongBits(random.nextDouble()) : random.nextLong();
+         }
+      }
+
+      File file = File.createTempFile("robotData", ".col");
+      file.deleteOnExit();
+
+      try (FileOutputStream outputStream = new FileOutputStream(file))
+      {
+         ColumnarLogWriter writer = new ColumnarLogWriter(outputStream.getChannel(), encodings, ticksPerBlock);
+         LongBuffer line = LongBuffer.allocate(numberOfColumns);
+         for (int tick = 0; tick < numberOfTicks; tick++)
+         {
+            line.clear();
+            for (int column = 0; column < numberOfColumns; column++)
+            {
+               line.put(expected[column][tick]);
+            }
+            line.flip();
+            writer.write(line);
+         }
+         writer.finish();
+      }
+
+      ColumnarLogReader reader = new ColumnarLogReader(file);
+      assertEquals(numberOfColumns, reader.getNumberOfColumns());
+      assertEquals(numberOfTicks, reader.getNumberOfTicks());
+      assertEquals(11, reader.getNumberOfBlocks());
+
+      for (int column = 0; column < numberOfColumns; column++)
+      {
+         assertArrayEquals(expected[column], reader.readColumn(column));
+      }
+
+      int start = random.nextInt(numberOfTicks);
+      int end = start + random.nextInt(numberOfTicks - start);
+      int column = random.nextInt(numberOfColumns);
+      long[] range = reader.readColumn(column, start, end);
+      for (int i = 0; i < range.length; i++)
+      {
+         assertEquals(expected[column][start + i], range[i]);
+      }
+
+      int tick = random.nextInt(numberOfTicks);
+      assertEquals(tick, reader.seek(expected[0][tick]));
+      assertEquals(tick, reader.seek(expected[0][tick] - 1));
+
+      reader.close();
+   }
+}
@@ -2,10 +2,10 @@ package us.ihmc.robotDataVisualizer.logger;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import com.jmatio.io.MatFileWriter;
 import com.jmatio.types.MLArray;
@@ -34,7 +34,7 @@ public class YoVariableExporter extends YoVariableLogReader
 
    public YoVariableExporter(SimulationConstructionSet scs, File logDirectory, LogProperties logProperties, List<YoVariable<?>> variables)
    {
-      super(logDirectory, logProperties);
+      super(logDirectory, logProperties, true);
       this.gui = scs.getGUI();
       this.variables = variables;
    }
@@ -98,27 +98,18 @@ public class YoVariableExporter extends YoVariableLogReader
          
          
          
-         int step = elements / 90;
-         
-         long firstTimestamp = -1;
-         for (int i = startPosition; i <= endPosition; i++)
+         int step = Math.max(elements / 90, 1);
+         long firstTimestamp = getTimestamp(startPosition);
+
+         readData(startPosition, endPosition + 1, ForkJoinPool.commonPool(), (i, dataAsLong) ->
          {
             if((i - startPosition) % step == 0) 
             {
                monitor.setProgress((i - startPosition) / step);
             }
-            
-            ByteBuffer data = readData(i);
-            LongBuffer dataAsLong = data.asLongBuffer();
 
-            
-            long entryTimestamp = dataAsLong.get();
-            
-            if(firstTimestamp == -1)
-            {
-               firstTimestamp = entryTimestamp;
-            }
-            
+            long entryTimestamp = dataAsLong.get(0);
+
             timestamp.setReal(entryTimestamp, i - startPosition);
             robotTime.setReal(Conversions.nanosecondsToSeconds(entryTimestamp - firstTimestamp), i - startPosition);
             
@@ -127,7 +118,7 @@ public class YoVariableExporter extends YoVariableLogReader
                DataHolder<?> dataHolder = dataHolders.get(dh);
                dataHolder.addEntry(dataAsLong);
             }
-         }
+         });
          
          monitor.setNote("Writing data to disk");
          ArrayList<MLArray>  matlabData = new ArrayList<>();
@@ -10,7 +10,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import us.ihmc.commons.Conversions;
-import us.ihmc.robotDataLogger.LogIndex;
+import us.ihmc.robotDataLogger.MappedLogData;
+import us.ihmc.robotDataLogger.MappedLogIndex;
 import us.ihmc.robotDataLogger.jointState.JointState;
 import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
 import us.ihmc.robotDataVisualizer.VisualizerRobot;
@@ -36,8 +37,8 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
 
    // Compressed data helpers
    private final boolean compressed;
-   private final LogIndex logIndex;
-   private final ByteBuffer compressedBuffer;
+   private final MappedLogIndex logIndex;
+   private final MappedLogData logData;
    private int index = 0;
 
    private final List<JointState> jointStates;
@@ -90,20 +91,22 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
          {
             throw new RuntimeException("Cannot find " + logProperties.getVariables().getIndexAsString());
          }
-         logIndex = new LogIndex(indexData, logChannel.size());
-         compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+         // Map the log so scrubbing only costs the decompression of the requested line
+         logIndex = new MappedLogIndex(indexData, logChannel.size());
+         logData = new MappedLogData(logdata, logIndex);
          numberOfEntries = logIndex.getNumberOfEntries();
+         logLine = ByteBuffer.allocateDirect(bufferSize);
       }
       else
       {
          numberOfEntries = (int) (logChannel.size() / bufferSize) - 1;
          logIndex = null;
-         compressedBuffer = null;
+         logData = null;
+         logLine = ByteBuffer.allocate(bufferSize);
       }
 
       JointUpdater.getJointUpdaterList(getRootJoints(), jointStates, jointUpdaters);
 
-      logLine = ByteBuffer.allocate(bufferSize);
       logLongArray = logLine.asLongBuffer();
 
       currentRecordTick = new YoInteger("currentRecordTick", getRobotsYoVariableRegistry());
@@ -241,10 +244,6 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       if (compressed)
       {
          index = position;
-         if(index < logIndex.dataOffsets.length)
-         {
-            logChannel.position(logIndex.dataOffsets[position]);
-         }
       }
       else
       {
@@ -259,7 +258,7 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
          throw new RuntimeException("Cannot get timestamp for non-compressed logs");
       }
 
-      return logIndex.timestamps[position];
+      return logIndex.getTimestamp(position);
    }
 
    private boolean readLogLine() throws IOException
@@ -273,19 +272,7 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
          {
             return false;
          }
-         int size = logIndex.compressedSizes[index];
-         compressedBuffer.clear();
-         compressedBuffer.limit(size);
-
-         int read = logChannel.read(compressedBuffer);
-
-         if(read != size)
-         {
-            throw new RuntimeException("Expected read of " + size + ", got " + read + ". TODO: Implement loop for reading the full log line.");
-         }
-         compressedBuffer.flip();
-
-         SnappyUtils.uncompress(compressedBuffer, logLine);
+         SnappyUtils.uncompress(logData.getCompressedData(index), logLine);
          ++index;
 
          return true;
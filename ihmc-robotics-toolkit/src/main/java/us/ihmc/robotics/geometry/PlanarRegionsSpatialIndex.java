@@ -0,0 +1,418 @@
+package us.ihmc.robotics.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.geometry.LineSegment2D;
+import us.ihmc.euclid.geometry.interfaces.BoundingBox2DReadOnly;
+import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
+
+/**
+ * Uniform grid over the bounding boxes of planar regions in the world XY-plane. It is used to
+ * find the few regions close to a query without testing every region of a
+ * {@link PlanarRegionsList}.
+ * <p>
+ * Every region is registered in all grid cells its bounding box overlaps. Queries only visit the
+ * cells overlapping the query bounding box and return the candidate regions in the order of the
+ * planar regions list, so the results are the same as the ones of a linear scan.
+ * </p>
+ * <p>
+ * {@link #update(PlanarRegionsList)} can be called with every new list. Regions that are the same
+ * object as before, or that have the same region id and are equal to the previous region with that
+ * id, keep their grid cells. Only added, removed and changed regions are moved in the grid, and they
+ * are available from {@link #getRegionsChangedByLastUpdate()}.
+ * </p>
+ * <p>
+ * Queries can be performed from several threads at the same time, but not while the index is
+ * being updated.
+ * </p>
+ */
+public class PlanarRegionsSpatialIndex
+{
+   public static final double DEFAULT_CELL_SIZE = 1.0;
+   private static final double REGION_EQUALITY_EPSILON = 1.0e-7;
+
+   private static final Comparator<RegionEntry> listOrder = (entry1, entry2) -> Integer.compare(entry1.listIndex, entry2.listIndex);
+
+   private final double cellSize;
+
+   private final TLongObjectHashMap<ArrayList<RegionEntry>> cells = new TLongObjectHashMap<>();
+   private final ArrayList<RegionEntry> entries = new ArrayList<>();
+   private final IdentityHashMap<PlanarRegion, RegionEntry> entriesByRegion = new IdentityHashMap<>();
+   private final TIntObjectHashMap<RegionEntry> entriesById = new TIntObjectHashMap<>();
+   private final ArrayList<PlanarRegion> changedRegions = new ArrayList<>();
+
+   private PlanarRegionsList planarRegionsList;
+   private int updateCount = 0;
+
+   public PlanarRegionsSpatialIndex()
+   {
+      this(DEFAULT_CELL_SIZE);
+   }
+
+   public PlanarRegionsSpatialIndex(double cellSize)
+   {
+      if (!(cellSize > 0.0))
+         throw new IllegalArgumentException("The cell size must be positive, got " + cellSize);
+      this.cellSize = cellSize;
+   }
+
+   /**
+    * Makes the index reflect the given list. Passing {@code null} clears the index.
+    *
+    * @param planarRegionsList the regions to index. The list and its regions must not be modified
+    *           without calling this method again.
+    */
+   public void update(PlanarRegionsList planarRegionsList)
+   {
+      this.planarRegionsList = planarRegionsList;
+      changedRegions.clear();
+      updateCount++;
+
+      int numberOfRegions = planarRegionsList == null ? 0 : planarRegionsList.getNumberOfPlanarRegions();
+      for (int i = 0; i < numberOfRegions; i++)
+      {
+         PlanarRegion region = planarRegionsList.getPlanarRegion(i);
+
+         RegionEntry entry = entriesByRegion.get(region);
+         if (entry != null && entry.updateCount != updateCount)
+         {
+            entry.updateCount = updateCount;
+            entry.listIndex = i;
+            if (!entry.hasSameBounds(region))
+            {
+               removeFromCells(entry);
+               entry.setBounds(region);
+               addToCells(entry);
+               changedRegions.add(region);
+            }
+            continue;
+         }
+
+         if (region.hasARegionId())
+         {
+            entry = entriesById.get(region.getRegionId());
+            if (entry != null && entry.updateCount != updateCount && entry.hasSameBounds(region)
+                  && entry.region.epsilonEquals(region, REGION_EQUALITY_EPSILON))
+            {
+               entriesByRegion.remove(entry.region);
+               entry.region = region;
+               entriesByRegion.put(region, entry);
+               entry.updateCount = updateCount;
+               entry.listIndex = i;
+               continue;
+            }
+         }
+
+         entry = new RegionEntry(region);
+         entry.updateCount = updateCount;
+         entry.listIndex = i;
+         entries.add(entry);
+         entriesByRegion.put(region, entry);
+         if (region.hasARegionId())
+            entriesById.put(region.getRegionId(), entry);
+         addToCells(entry);
+         changedRegions.add(region);
+      }
+
+      removeStaleEntries();
+   }
+
+   private void removeStaleEntries()
+   {
+      int numberOfEntriesToKeep = 0;
+      for (int i = 0; i < entries.size(); i++)
+      {
+         RegionEntry entry = entries.get(i);
+         if (entry.updateCount == updateCount)
+         {
+            entries.set(numberOfEntriesToKeep++, entry);
+            continue;
+         }
+
+         removeFromCells(entry);
+         if (entriesByRegion.get(entry.region) == entry)
+            entriesByRegion.remove(entry.region);
+         if (entry.region.hasARegionId() && entriesById.get(entry.region.getRegionId()) == entry)
+            entriesById.remove(entry.region.getRegionId());
+         changedRegions.add(entry.region);
+      }
+
+      while (entries.size() > numberOfEntriesToKeep)
+         entries.remove(entries.size() - 1);
+   }
+
+   /**
+    * Regions that were added, removed or modified by the last call to
+    * {@link #update(PlanarRegionsList)}. Removed and modified regions are reported with the instance
+    * that was indexed before the update, added and modified regions with the new instance. A region
+    * that is modified in place is only reported if its bounding box changed.
+    */
+   public List<PlanarRegion> getRegionsChangedByLastUpdate()
+   {
+      return changedRegions;
+   }
+
+   public PlanarRegionsList getPlanarRegionsList()
+   {
+      return planarRegionsList;
+   }
+
+   public boolean isEmpty()
+   {
+      return entries.isEmpty();
+   }
+
+   /**
+    * Packs the regions whose bounding box intersects the given axis-aligned box in the XY-plane.
+    * Regions without vertices are never returned.
+    *
+    * @param regionsToPack the list the regions are added to. Not cleared.
+    */
+   public void findPlanarRegionsIntersectingBoundingBox(double minX, double minY, double maxX, double maxY, List<PlanarRegion> regionsToPack)
+   {
+      if (entries.isEmpty() || !(minX <= maxX) || !(minY <= maxY))
+         return;
+
+      int minCellX = toCellIndex(minX);
+      int minCellY = toCellIndex(minY);
+      int maxCellX = toCellIndex(maxX);
+      int maxCellY = toCellIndex(maxY);
+
+      ArrayList<RegionEntry> candidates = new ArrayList<>();
+
+      // Large queries would mostly visit empty cells, testing every region is cheaper then
+      double numberOfQueryCells = ((double) maxCellX - minCellX + 1.0) * ((double) maxCellY - minCellY + 1.0);
+      if (numberOfQueryCells > cells.size())
+      {
+         for (int i = 0; i < entries.size(); i++)
+         {
+            RegionEntry entry = entries.get(i);
+            if (!entry.isEmpty() && entry.intersects(minX, minY, maxX, maxY))
+               candidates.add(entry);
+         }
+      }
+      else
+      {
+         findCandidatesInCells(minX, minY, maxX, maxY, minCellX, minCellY, maxCellX, maxCellY, candidates);
+      }
+
+      Collections.sort(candidates, listOrder);
+      for (int i = 0; i < candidates.size(); i++)
+         regionsToPack.add(candidates.get(i).region);
+   }
+
+   private void findCandidatesInCells(double minX, double minY, double maxX, double maxY, int minCellX, int minCellY, int maxCellX, int maxCellY,
+                                      List<RegionEntry> candidatesToPack)
+   {
+      // The cell indices saturate far away from the origin, long counters cannot overflow at the last cell
+      for (long cellX = minCellX; cellX <= maxCellX; cellX++)
+      {
+         for (long cellY = minCellY; cellY <= maxCellY; cellY++)
+         {
+            ArrayList<RegionEntry> cell = cells.get(toCellKey(cellX, cellY));
+            if (cell == null)
+               continue;
+
+            for (int i = 0; i < cell.size(); i++)
+            {
+               RegionEntry entry = cell.get(i);
+
+               // A region spanning several cells is only reported from the first cell the query and the region have in common
+               if (cellX != Math.max(minCellX, entry.minCellX) || cellY != Math.max(minCellY, entry.minCellY))
+                  continue;
+
+               if (entry.intersects(minX, minY, maxX, maxY))
+                  candidatesToPack.add(entry);
+            }
+         }
+      }
+   }
+
+   public void findPlanarRegionsIntersectingBoundingBox(BoundingBox2DReadOnly boundingBox, List<PlanarRegion> regionsToPack)
+   {
+      findPlanarRegionsIntersectingBoundingBox(boundingBox.getMinX(), boundingBox.getMinY(), boundingBox.getMaxX(), boundingBox.getMaxY(), regionsToPack);
+   }
+
+   /**
+    * Packs the regions whose bounding box is closer than {@code radius} to the given point along
+    * the world x and y axes.
+    *
+    * @param regionsToPack the list the regions are added to. Not cleared.
+    */
+   public void findPlanarRegionsNearPoint(double x, double y, double radius, List<PlanarRegion> regionsToPack)
+   {
+      findPlanarRegionsIntersectingBoundingBox(x - radius, y - radius, x + radius, y + radius, regionsToPack);
+   }
+
+   public void findPlanarRegionsNearPoint(Point2DReadOnly point, double radius, List<PlanarRegion> regionsToPack)
+   {
+      findPlanarRegionsNearPoint(point.getX(), point.getY(), radius, regionsToPack);
+   }
+
+   /**
+    * Same as {@link PlanarRegionsList#findPlanarRegionsIntersectingLineSegment(LineSegment2D, ArrayList)}
+    * but only tests the regions close to the line segment.
+    */
+   public void findPlanarRegionsIntersectingLineSegment(LineSegment2D lineSegmentInWorld, ArrayList<PlanarRegion> intersectingRegionsToPack)
+   {
+      Point2DReadOnly firstEndpoint = lineSegmentInWorld.getFirstEndpoint();
+      Point2DReadOnly secondEndpoint = lineSegmentInWorld.getSecondEndpoint();
+
+      ArrayList<PlanarRegion> candidates = new ArrayList<>();
+      findPlanarRegionsIntersectingBoundingBox(Math.min(firstEndpoint.getX(), secondEndpoint.getX()), Math.min(firstEndpoint.getY(), secondEndpoint.getY()),
+                                               Math.max(firstEndpoint.getX(), secondEndpoint.getX()), Math.max(firstEndpoint.getY(), secondEndpoint.getY()),
+                                               candidates);
+
+      for (int i = 0; i < candidates.size(); i++)
+      {
+         PlanarRegion candidateRegion = candidates.get(i);
+         if (candidateRegion.isVertical())
+            continue;
+
+         if (candidateRegion.isLineSegmentIntersecting(lineSegmentInWorld))
+            intersectingRegionsToPack.add(candidateRegion);
+      }
+   }
+
+   /**
+    * Same as {@link PlanarRegionsList#findPlanarRegionsContainingPointByProjectionOntoXYPlane(double, double)}
+    * but only tests the regions close to the point.
+    *
+    * @return the list of planar regions containing the query. Returns null when no region contains
+    *         the query.
+    */
+   public List<PlanarRegion> findPlanarRegionsContainingPointByProjectionOntoXYPlane(double x, double y)
+   {
+      ArrayList<PlanarRegion> candidates = new ArrayList<>();
+      findPlanarRegionsIntersectingBoundingBox(x, y, x, y, candidates);
+
+      List<PlanarRegion> containers = null;
+      for (int i = 0; i < candidates.size(); i++)
+      {
+         PlanarRegion candidateRegion = candidates.get(i);
+         if (candidateRegion.isPointInsideByProjectionOntoXYPlane(x, y))
+         {
+            if (containers == null)
+               containers = new ArrayList<>();
+            containers.add(candidateRegion);
+         }
+      }
+
+      return containers;
+   }
+
+   public List<PlanarRegion> findPlanarRegionsContainingPointByProjectionOntoXYPlane(Point2DReadOnly point)
+   {
+      return findPlanarRegionsContainingPointByProjectionOntoXYPlane(point.getX(), point.getY());
+   }
+
+   private void addToCells(RegionEntry entry)
+   {
+      if (entry.isEmpty())
+         return;
+
+      for (long cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++)
+      {
+         for (long cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++)
+         {
+            long key = toCellKey(cellX, cellY);
+            ArrayList<RegionEntry> cell = cells.get(key);
+            if (cell == null)
+            {
+               cell = new ArrayList<>(4);
+               cells.put(key, cell);
+            }
+            cell.add(entry);
+         }
+      }
+   }
+
+   private void removeFromCells(RegionEntry entry)
+   {
+      if (entry.isEmpty())
+         return;
+
+      for (long cellX = entry.minCellX; cellX <= entry.maxCellX; cellX++)
+      {
+         for (long cellY = entry.minCellY; cellY <= entry.maxCellY; cellY++)
+         {
+            long key = toCellKey(cellX, cellY);
+            ArrayList<RegionEntry> cell = cells.get(key);
+            if (cell == null)
+               continue;
+
+            cell.remove(entry);
+            if (cell.isEmpty())
+               cells.remove(key);
+         }
+      }
+   }
+
+   private int toCellIndex(double coordinate)
+   {
+      return (int) Math.floor(coordinate / cellSize);
+   }
+
+   private static long toCellKey(long cellX, long cellY)
+   {
+      return (cellX << 32) | (cellY & 0xFFFFFFFFL);
+   }
+
+   private class RegionEntry
+   {
+      private PlanarRegion region;
+      private int updateCount;
+      private int listIndex;
+
+      private double minX, minY, maxX, maxY;
+      private int minCellX, minCellY, maxCellX, maxCellY;
+
+      private RegionEntry(PlanarRegion region)
+      {
+         this.region = region;
+         setBounds(region);
+      }
+
+      private void setBounds(PlanarRegion region)
+      {
+         BoundingBox3D boundingBox = region.getBoundingBox3dInWorld();
+         minX = boundingBox.getMinX();
+         minY = boundingBox.getMinY();
+         maxX = boundingBox.getMaxX();
+         maxY = boundingBox.getMaxY();
+
+         if (isEmpty())
+            return;
+
+         minCellX = toCellIndex(minX);
+         minCellY = toCellIndex(minY);
+         maxCellX = toCellIndex(maxX);
+         maxCellY = toCellIndex(maxY);
+      }
+
+      private boolean hasSameBounds(PlanarRegion region)
+      {
+         BoundingBox3D boundingBox = region.getBoundingBox3dInWorld();
+         return Double.compare(minX, boundingBox.getMinX()) == 0 && Double.compare(minY, boundingBox.getMinY()) == 0
+               && Double.compare(maxX, boundingBox.getMaxX()) == 0 && Double.compare(maxY, boundingBox.getMaxY()) == 0;
+      }
+
+      private boolean isEmpty()
+      {
+         // A region without vertices has a NaN bounding box
+         return !(minX <= maxX) || !(minY <= maxY);
+      }
+
+      private boolean intersects(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY)
+      {
+         return minX <= queryMaxX && maxX >= queryMinX && minY <= queryMaxY && maxY >= queryMinY;
+      }
+   }
+}
@@ -0,0 +1,136 @@
+package us.ihmc.robotics.geometry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.euclid.axisAngle.AxisAngle;
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.euclid.geometry.LineSegment2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Vector3D;
+
+@ContinuousIntegrationPlan(categories = {IntegrationCategory.FAST})
+public class PlanarRegionsSpatialIndexTest
+{
+   private static final int ITERATIONS = 500;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testQueriesMatchLinearScan()
+   {
+      Random random = new Random(4298L);
+      PlanarRegionsList planarRegionsList = PlanarRegionsList.generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(random, 3, 10.0, 6, 60);
+      PlanarRegionsSpatialIndex index = new PlanarRegionsSpatialIndex(0.7);
+      index.update(planarRegionsList);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         double x = 30.0 * (random.nextDouble() - 0.5);
+         double y = 30.0 * (random.nextDouble() - 0.5);
+         double radius = 3.0 * random.nextDouble();
+
+         List<PlanarRegion> expected = new ArrayList<>();
+         for (PlanarRegion region : planarRegionsList.getPlanarRegionsAsList())
+         {
+            BoundingBox3D boundingBox = region.getBoundingBox3dInWorld();
+            if (boundingBox.getMinX() <= x + radius && boundingBox.getMaxX() >= x - radius && boundingBox.getMinY() <= y + radius
+                  && boundingBox.getMaxY() >= y - radius)
+               expected.add(region);
+         }
+
+         List<PlanarRegion> actual = new ArrayList<>();
+         index.findPlanarRegionsNearPoint(x, y, radius, actual);
+         assertEquals(expected, actual);
+
+         LineSegment2D lineSegment = new LineSegment2D(x, y, x + radius * random.nextGaussian(), y + radius * random.nextGaussian());
+         ArrayList<PlanarRegion> expectedIntersecting = new ArrayList<>();
+         ArrayList<PlanarRegion> actualIntersecting = new ArrayList<>();
+         planarRegionsList.findPlanarRegionsIntersectingLineSegment(lineSegment, expectedIntersecting);
+         index.findPlanarRegionsIntersectingLineSegment(lineSegment, actualIntersecting);
+         assertEquals(expectedIntersecting, actualIntersecting);
+
+         assertEquals(planarRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y),
+                      index.findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y));
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testIncrementalUpdate()
+   {
+      Random random = new Random(9813L);
+      PlanarRegionsList planarRegionsList = PlanarRegionsList.generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(random, 3, 10.0, 6, 20);
+      for (int i = 0; i < planarRegionsList.getNumberOfPlanarRegions(); i++)
+         planarRegionsList.getPlanarRegion(i).setRegionId(i);
+
+      PlanarRegionsSpatialIndex index = new PlanarRegionsSpatialIndex();
+      index.update(planarRegionsList);
+      assertEquals(planarRegionsList.getNumberOfPlanarRegions(), index.getRegionsChangedByLastUpdate().size());
+
+      // Same regions received again as copies, e.g. from a new message
+      PlanarRegionsList copy = planarRegionsList.copy();
+      index.update(copy);
+      assertTrue(index.getRegionsChangedByLastUpdate().isEmpty());
+
+      // One region removed, one moved and one added
+      PlanarRegion removedRegion = copy.pollLastPlanarRegion();
+      PlanarRegion movedRegion = copy.getPlanarRegion(0).copy();
+      movedRegion.transform(new RigidBodyTransform(new AxisAngle(), new Vector3D(50.0, 0.0, 0.0)));
+      PlanarRegion previousRegion = copy.getPlanarRegionsAsList().set(0, movedRegion);
+      PlanarRegion addedRegion = PlanarRegion.generatePlanarRegionFromRandomPolygonsWithRandomTransform(random, 3, 10.0, 6);
+      addedRegion.setRegionId(1000);
+      copy.addPlanarRegion(addedRegion);
+
+      index.update(copy);
+      List<PlanarRegion> changedRegions = index.getRegionsChangedByLastUpdate();
+      assertEquals(4, changedRegions.size());
+      assertTrue(changedRegions.contains(removedRegion));
+      assertTrue(changedRegions.contains(movedRegion));
+      assertTrue(changedRegions.contains(previousRegion));
+      assertTrue(changedRegions.contains(addedRegion));
+
+      BoundingBox3D boundingBox = movedRegion.getBoundingBox3dInWorld();
+      List<PlanarRegion> regions = new ArrayList<>();
+      index.findPlanarRegionsIntersectingBoundingBox(boundingBox.getMinX(), boundingBox.getMinY(), boundingBox.getMaxX(), boundingBox.getMaxY(), regions);
+      assertEquals(1, regions.size());
+      assertTrue(regions.get(0) == movedRegion);
+
+      index.update(null);
+      assertTrue(index.isEmpty());
+      regions.clear();
+      index.findPlanarRegionsNearPoint(0.0, 0.0, 100.0, regions);
+      assertTrue(regions.isEmpty());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testLargeQueries()
+   {
+      Random random = new Random(6509L);
+      PlanarRegionsList planarRegionsList = PlanarRegionsList.generatePlanarRegionsListFromRandomPolygonsWithRandomTransform(random, 3, 10.0, 6, 20);
+      PlanarRegionsSpatialIndex index = new PlanarRegionsSpatialIndex(0.1);
+      index.update(planarRegionsList);
+
+      // The cell indices of these queries saturate, they must fall back to testing every region
+      List<PlanarRegion> regions = new ArrayList<>();
+      index.findPlanarRegionsNearPoint(0.0, 0.0, 1.0e300, regions);
+      assertEquals(planarRegionsList.getPlanarRegionsAsList(), regions);
+
+      regions.clear();
+      index.findPlanarRegionsIntersectingBoundingBox(-1.0e15, -1.0e15, Double.MAX_VALUE, Double.MAX_VALUE, regions);
+      assertEquals(planarRegionsList.getPlanarRegionsAsList(), regions);
+
+      regions.clear();
+      index.findPlanarRegionsIntersectingBoundingBox(1.0e300, 1.0e300, Double.MAX_VALUE, Double.MAX_VALUE, regions);
+      assertTrue(regions.isEmpty());
+   }
+}
@@ -0,0 +1,165 @@
+package us.ihmc.robotics.time;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Records the duration and the number of bytes allocated by the current thread for a fixed number of ticks of a real-time loop,
+ * and reports latency percentiles and the average allocation per tick.
+ *
+ * Recording is allocation free so it can wrap the code under test without polluting the allocation count. The allocation count
+ * relies on {@code com.sun.management.ThreadMXBean} and is reported as NaN on JVMs that don't support it.
+ */
+public class TickStatistics
+{
+   private static final double[] percentiles = {50.0, 90.0, 99.0, 99.9};
+
+   private final String name;
+   private final long[] durations;
+   private final long[] allocatedBytes;
+   private int numberOfTicks = 0;
+   private boolean allocationsMeasured = true;
+
+   private final com.sun.management.ThreadMXBean threadBean;
+   private final long threadId = Thread.currentThread().getId();
+   private final long allocationMeasurementOverhead;
+
+   private long startTime;
+   private long startAllocatedBytes;
+
+   /**
+    * Must be created on the thread that calls {@link #startTick()} and {@link #stopTick()}.
+    *
+    * @param name printed with the report
+    * @param maximumNumberOfTicks ticks after this are ignored
+    */
+   public TickStatistics(String name, int maximumNumberOfTicks)
+   {
+      this.name = name;
+      durations = new long[maximumNumberOfTicks];
+      allocatedBytes = new long[maximumNumberOfTicks];
+
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported())
+      {
+         threadBean = (com.sun.management.ThreadMXBean) bean;
+         threadBean.setThreadAllocatedMemoryEnabled(true);
+         allocationMeasurementOverhead = measureAllocationOverhead();
+      }
+      else
+      {
+         threadBean = null;
+         allocationMeasurementOverhead = 0;
+      }
+   }
+
+   private long measureAllocationOverhead()
+   {
+      long overhead = Long.MAX_VALUE;
+      for (int i = 0; i < 100; i++)
+      {
+         long start = threadBean.getThreadAllocatedBytes(threadId);
+         overhead = Math.min(overhead, threadBean.getThreadAllocatedBytes(threadId) - start);
+      }
+      return overhead;
+   }
+
+   public void startTick()
+   {
+      if (threadBean != null)
+         startAllocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+      startTime = System.nanoTime();
+   }
+
+   public void stopTick()
+   {
+      long duration = System.nanoTime() - startTime;
+      if (numberOfTicks >= durations.length)
+         return;
+
+      durations[numberOfTicks] = duration;
+      if (threadBean != null)
+         allocatedBytes[numberOfTicks] = Math.max(threadBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes - allocationMeasurementOverhead, 0);
+      numberOfTicks++;
+   }
+
+   /**
+    * Adds a tick that was measured elsewhere, e.g. by an {@link ExecutionTimer}. Allocations are not reported once this is used.
+    */
+   public void addTick(long durationInNanoseconds)
+   {
+      if (numberOfTicks >= durations.length)
+         return;
+
+      durations[numberOfTicks] = durationInNanoseconds;
+      numberOfTicks++;
+      allocationsMeasured = false;
+   }
+
+   public int getNumberOfTicks()
+   {
+      return numberOfTicks;
+   }
+
+   public void clear()
+   {
+      numberOfTicks = 0;
+      allocationsMeasured = true;
+   }
+
+   /**
+    * @param percentile in [0, 100]
+    * @return the duration of the given percentile in nanoseconds
+    */
+   public long getDurationPercentile(double percentile)
+   {
+      if (numberOfTicks == 0)
+         return 0;
+
+      long[] sortedDurations = Arrays.copyOf(durations, numberOfTicks);
+      Arrays.sort(sortedDurations);
+      return getPercentile(sortedDurations, percentile);
+   }
+
+   public double getAverageAllocatedBytes()
+   {
+      if (threadBean == null || !allocationsMeasured)
+         return Double.NaN;
+      if (numberOfTicks == 0)
+         return 0.0;
+
+      double sum = 0.0;
+      for (int i = 0; i < numberOfTicks; i++)
+         sum += allocatedBytes[i];
+      return sum / numberOfTicks;
+   }
+
+   private static long getPercentile(long[] sortedValues, double percentile)
+   {
+      int index = (int) Math.ceil(percentile / 100.0 * sortedValues.length) - 1;
+      return sortedValues[Math.max(0, Math.min(index, sortedValues.length - 1))];
+   }
+
+   public String getReport()
+   {
+      long[] sortedDurations = Arrays.copyOf(durations, numberOfTicks);
+      Arrays.sort(sortedDurations);
+
+      StringBuilder report = new StringBuilder(String.format("%-40s %7d ticks:", name, numberOfTicks));
+      if (numberOfTicks == 0)
+         return report.toString();
+
+      for (double percentile : percentiles)
+         report.append(String.format("  p%-4s %8.1f us", String.valueOf(percentile).replace(".0", ""), 1.0e-3 * getPercentile(sortedDurations, percentile)));
+      report.append(String.format("  max %8.1f us", 1.0e-3 * sortedDurations[numberOfTicks - 1]));
+      if (!Double.isNaN(getAverageAllocatedBytes()))
+         report.append(String.format("  %8.1f B/tick", getAverageAllocatedBytes()));
+      return report.toString();
+   }
+
+   @Override
+   public String toString()
+   {
+      return getReport();
+   }
+}
@@ -4,6 +4,8 @@ import java.awt.Color;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
 import us.ihmc.euclid.tuple3D.Point3D;
 
 import sensor_msgs.PointCloud2;
@@ -197,6 +199,57 @@ public abstract class RosPointCloudSubscriber extends AbstractRosTopicSubscriber
       return packet;
    }
 
+   /**
+    * Unpacks the points into flat lists instead of creating an object per point, such that the lists can be reused from one cloud to
+    * the next.
+    *
+    * @param pointCloud the cloud to unpack.
+    * @param pointsToPack the coordinates of the points as x, y, z. Modified.
+    * @param colorsToPack the colors of the points packed as {@link Color#getRGB()}, only filled for {@link PointType#XYZRGB} clouds.
+    *           Can be {@code null}. Modified.
+    * @return the number of points.
+    */
+   public static int unpackPoints(PointCloud2 pointCloud, TFloatArrayList pointsToPack, TIntArrayList colorsToPack)
+   {
+      int numberOfPoints = pointCloud.getWidth() * pointCloud.getHeight();
+      PointType pointType = PointType.fromFromFieldNames(pointCloud.getFields());
+      boolean unpackColors = colorsToPack != null && pointType == PointType.XYZRGB;
+
+      pointsToPack.resetQuick();
+      pointsToPack.ensureCapacity(3 * numberOfPoints);
+
+      if (colorsToPack != null)
+      {
+         colorsToPack.resetQuick();
+         if (unpackColors)
+            colorsToPack.ensureCapacity(numberOfPoints);
+      }
+
+      int offset = pointCloud.getData().arrayOffset();
+      int pointStep = pointCloud.getPointStep();
+      ByteBuffer byteBuffer = ByteBuffer.wrap(pointCloud.getData().array());
+      byteBuffer.order(pointCloud.getIsBigendian() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         int pointIndex = i * pointStep + offset;
+         pointsToPack.add(byteBuffer.getFloat(pointIndex));
+         pointsToPack.add(byteBuffer.getFloat(pointIndex + 4));
+         pointsToPack.add(byteBuffer.getFloat(pointIndex + 8));
+
+         if (unpackColors)
+         {
+            int b = byteToUnsignedInt(byteBuffer.get(pointIndex + 12));
+            int g = byteToUnsignedInt(byteBuffer.get(pointIndex + 13));
+            int r = byteToUnsignedInt(byteBuffer.get(pointIndex + 14));
+            // Same as new Color(r, g, b).getRGB()
+            colorsToPack.add(0xFF000000 | (r << 16) | (g << 8) | b);
+         }
+      }
+
+      return numberOfPoints;
+   }
+
    private static int byteToUnsignedInt(byte b)
    {
       return ((int) b) & 0xff;
@@ -2,12 +2,11 @@ package us.ihmc.trajectoryOptimization;
 
 import gnu.trove.list.array.TIntArrayList;
 import org.ejml.data.DenseMatrix64F;
-import org.ejml.factory.DecompositionFactory;
-import org.ejml.interfaces.decomposition.SingularValueDecomposition;
+import org.ejml.factory.LinearSolverFactory;
+import org.ejml.interfaces.linsol.LinearSolver;
 import org.ejml.ops.CommonOps;
 import us.ihmc.commons.MathTools;
 import us.ihmc.commons.PrintTools;
-import us.ihmc.robotics.linearAlgebra.DiagonalMatrixTools;
 import us.ihmc.robotics.linearAlgebra.MatrixTools;
 import us.ihmc.commons.lists.RecyclingArrayList;
 
@@ -40,7 +39,7 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
    protected final DenseMatrix64F hamiltonianControlHessian;
    protected final DenseMatrix64F hamiltonianStateControlHessian;
    protected final DenseMatrix64F hamiltonianControlStateHessian;
-   protected final DenseMatrix64F invQuu;
+   protected final DenseMatrix64F regularizedHamiltonianControlHessian;
 
    protected final RecyclingArrayList<DenseMatrix64F> dynamicsStateGradientSequence;
    protected final RecyclingArrayList<DenseMatrix64F> dynamicsControlGradientSequence;
@@ -57,7 +56,7 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
 
    private final DenseMatrix64F tempMatrix = new DenseMatrix64F(0, 0);
 
-   private final SingularValueDecomposition<DenseMatrix64F> decomposer = DecompositionFactory.svd(0, 0, true, true, true);
+   private final LinearSolver<DenseMatrix64F> choleskySolver = LinearSolverFactory.symmPosDef(0);
    protected final boolean debug;
 
    private static final double minimumModificationFactor = 2;
@@ -102,7 +101,7 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
       hamiltonianControlHessian = new DenseMatrix64F(controlSize, controlSize);
       hamiltonianStateControlHessian = new DenseMatrix64F(stateSize, controlSize);
       hamiltonianControlStateHessian = new DenseMatrix64F(controlSize, stateSize);
-      invQuu = new DenseMatrix64F(controlSize, controlSize);
+      regularizedHamiltonianControlHessian = new DenseMatrix64F(controlSize, controlSize);
 
       dynamicsStateGradientSequence = new RecyclingArrayList<>(1000, new VariableVectorBuilder(stateSize, stateSize));
       dynamicsControlGradientSequence = new RecyclingArrayList<>(1000, new VariableVectorBuilder(stateSize, controlSize));
@@ -235,45 +234,32 @@ public abstract class AbstractDDPSolver<E extends Enum> implements DDPSolverInte
    }
 
 
-   private final DenseMatrix64F U = new DenseMatrix64F(0, 0);
-   private final DenseMatrix64F W = new DenseMatrix64F(0, 0);
-   private final DenseMatrix64F V = new DenseMatrix64F(0, 0);
+   /**
+    * Computes the gains using a Cholesky decomposition of Quu + lambda I.
+    *
+    * @return false if the regularized hessian is not positive definite, in which case lambda should be increased.
+    */
    boolean computeFeedbackGainAndFeedForwardTerms(DenseMatrix64F hamiltonianControlGradient, DenseMatrix64F hamiltonianControlHessian,
                                                   DenseMatrix64F hamiltonianControlStateHessian, DenseMatrix64F feedbackGainToPack,
                                                   DenseMatrix64F feedForwardControlToPack)
    {
-      // insure that the hessian is positive definite
-      int controlSize = hamiltonianControlHessian.numCols;
-      U.reshape(controlSize, controlSize);
-      W.reshape(controlSize, controlSize);
-      V.reshape(controlSize, controlSize);
-      tempMatrix.reshape(controlSize, controlSize);
-
-      decomposer.decompose(hamiltonianControlHessian);
-      decomposer.getU(U, true);
-      decomposer.getW(W);
-      decomposer.getV(V, false);
-
-      MatrixTools.addDiagonal(W, lambda);
-      for (int i = 0; i < W.getNumRows(); i++)
+      // the decomposition is done in place
+      regularizedHamiltonianControlHessian.set(hamiltonianControlHessian);
+      MatrixTools.addDiagonal(regularizedHamiltonianControlHessian, lambda);
+
+      if (!choleskySolver.setA(regularizedHamiltonianControlHessian))
       {
-         if (W.get(i, i) <= 0.0)
-         {
-            if (debug) PrintTools.info("Hessian is not positive definite, aborting backward pass.");
-            return false;
-         }
+         if (debug) PrintTools.info("Hessian is not positive definite, aborting backward pass.");
+         return false;
       }
 
-      DiagonalMatrixTools.invertDiagonalMatrix(W);
-      CommonOps.mult(V, W, tempMatrix);
-      invQuu.reshape(controlSize, controlSize);
-      CommonOps.mult(tempMatrix, U, invQuu);
-
       // K = -inv(Quu) Qux
-      CommonOps.mult(-1.0, invQuu, hamiltonianControlStateHessian, feedbackGainToPack);
+      choleskySolver.solve(hamiltonianControlStateHessian, feedbackGainToPack);
+      CommonOps.scale(-1.0, feedbackGainToPack);
 
       // du = -inv(Quu) Qu
-      CommonOps.mult(-1.0, invQuu, hamiltonianControlGradient, feedForwardControlToPack);
+      choleskySolver.solve(hamiltonianControlGradient, feedForwardControlToPack);
+      CommonOps.scale(-1.0, feedForwardControlToPack);
 
       return true;
    }
@@ -3,7 +3,6 @@ package us.ihmc.trajectoryOptimization;
 import org.ejml.data.DenseMatrix64F;
 import us.ihmc.commons.MathTools;
 import us.ihmc.commons.PrintTools;
-import us.ihmc.commons.lists.RecyclingArrayList;
 
 public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements DDPSolverInterface<E>
 {
@@ -11,7 +10,7 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
    private static final double lineSearchStartGain = 1.0;
    private static final double lineSearchGainMinimum = 0.0;
 
-   private final DiscreteOptimizationData previousSequence;
+   private final DiscreteOptimizationData rolloutSequence;
 
    public DDPSolver(DiscreteHybridDynamics<E> dynamics)
    {
@@ -22,10 +21,7 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
    {
       super(dynamics, debug);
 
-      int stateSize = dynamics.getStateVectorSize();
-      int controlSize = dynamics.getControlVectorSize();
-
-      previousSequence = new DiscreteOptimizationSequence(stateSize, controlSize);
+      rolloutSequence = new DiscreteOptimizationSequence(dynamics.getStateVectorSize(), dynamics.getControlVectorSize());
    }
 
    @Override
@@ -33,9 +29,9 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
                                          DiscreteOptimizationData desiredSequence, DiscreteSequence constantsSequence,
                                          DiscreteSequence feedbackGainSequence, DiscreteSequence feedForwardSequence)
    {
-      super.initializeFromLQRSolution(dynamicsState, costFunction, optimalSequence, desiredSequence, constantsSequence, feedBackGainSequence, feedForwardSequence);
+      rolloutSequence.setZero(optimalSequence);
 
-      previousSequence.setZero(optimalSequence);
+      super.initializeFromLQRSolution(dynamicsState, costFunction, optimalSequence, desiredSequence, constantsSequence, feedBackGainSequence, feedForwardSequence);
    }
 
    @Override
@@ -43,7 +39,7 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
    {
       super.initializeSequencesFromDesireds(initialState, desiredSequence, constantsSequence);
 
-      previousSequence.setZero(desiredSequence);
+      rolloutSequence.setZero(desiredSequence);
    }
 
 
@@ -107,58 +103,63 @@ public class DDPSolver<E extends Enum> extends AbstractDDPSolver<E> implements D
                              DiscreteOptimizationData updatedSequence)
    {
       lineSearchGain = lineSearchStartGain;
-      boolean iterate = true;
-      boolean lastIteration = false;
-      double updatedCost = 0.0;
-      while(iterate)
+      while (true)
       {
-         updatedCost = solveForwardDDPPassInternal(dynamicsState, startIndex, endIndex, costFunction, initialState, previousSequence);
-
-         if (Double.isInfinite(updatedCost))
-         {
-            if (lastIteration)
-               break;
-
-            lineSearchGain = Math.max(lineSearchGain - lineSearchScaling, lineSearchGainMinimum);
-            PrintTools.info("Solution diverged, decrease line search gain to " + lineSearchGain + " and trying again.");
-         }
-         else
+         if (rollout(dynamicsState, startIndex, endIndex, initialState))
          {
-            updatedSequence.set(previousSequence);
-            iterate = false;
+            for (int t = startIndex; t <= endIndex; t++)
+            {
+               updatedSequence.setState(t, rolloutSequence.getState(t));
+               updatedSequence.setControl(t, rolloutSequence.getControl(t));
+            }
+            return computeCost(dynamicsState, startIndex, endIndex, costFunction, updatedSequence);
          }
 
          if (lineSearchGain == lineSearchGainMinimum)
-            lastIteration = true;
-      }
+            return Double.POSITIVE_INFINITY;
 
-      return updatedCost;
+         lineSearchGain = Math.max(lineSearchGain - lineSearchScaling, lineSearchGainMinimum);
+         if (debug)
+            PrintTools.info("Solution diverged, decrease line search gain to " + lineSearchGain + " and trying again.");
+      }
    }
 
-   private double solveForwardDDPPassInternal(E dynamicsState, int startIndex, int endIndex, LQTrackingCostFunction<E> costFunction, DenseMatrix64F initialState,
-                                              DiscreteOptimizationData updatedSequence)
+   /**
+    * Forward rollout of the dynamics with the current line search gain, in a preallocated sequence that is only copied to the
+    * updated sequence when the rollout does not diverge.
+    *
+    * @return false if the rollout diverged
+    */
+   private boolean rollout(E dynamicsState, int startIndex, int endIndex, DenseMatrix64F initialState)
    {
-      updatedSequence.setState(startIndex, initialState);
-
-      double cost = 0.0;
+      rolloutSequence.setState(startIndex, initialState);
 
       for (int t = startIndex; t < endIndex; t++)
       {
          DenseMatrix64F state = optimalSequence.getState(t);
-         DenseMatrix64F updatedState = updatedSequence.getState(t);
-         DenseMatrix64F updatedControl = updatedSequence.getControl(t);
-         DenseMatrix64F constants = constantsSequence.get(t);
+         DenseMatrix64F updatedState = rolloutSequence.getState(t);
+         DenseMatrix64F updatedControl = rolloutSequence.getControl(t);
 
          if (isStateDiverging(updatedState, state))
-            return Double.POSITIVE_INFINITY;
+            return false;
 
          computeUpdatedControl(state, updatedState, feedBackGainSequence.get(t), feedForwardSequence.get(t), optimalSequence.getControl(t), updatedControl);
 
          if (t < desiredSequence.size() - 1)
-            dynamics.getNextState(dynamicsState, updatedState, updatedControl, constants, updatedSequence.getState(t + 1));
+            dynamics.getNextState(dynamicsState, updatedState, updatedControl, constantsSequence.get(t), rolloutSequence.getState(t + 1));
+      }
+
+      return true;
+   }
 
-         // compute cost
-         cost += costFunction.getCost(dynamicsState, updatedControl, updatedState, desiredSequence.getControl(t), desiredSequence.getState(t), constants);
+   private double computeCost(E dynamicsState, int startIndex, int endIndex, LQTrackingCostFunction<E> costFunction, DiscreteOptimizationData sequence)
+   {
+      double cost = 0.0;
+
+      for (int t = startIndex; t < endIndex; t++)
+      {
+         cost += costFunction.getCost(dynamicsState, sequence.getControl(t), sequence.getState(t), desiredSequence.getControl(t), desiredSequence.getState(t),
+                                      constantsSequence.get(t));
       }
 
       return cost;
@@ -12,6 +12,8 @@ import us.ihmc.robotics.testing.JUnitTools;
 
 import java.util.Random;
 
+import static org.junit.Assert.assertFalse;
+
 public class DDPSolverTest
 {
    @ContinuousIntegrationTest(estimatedDuration = 0.0)
@@ -430,6 +432,26 @@ public class DDPSolverTest
       JUnitTools.assertMatrixEquals(feedforwardExpected, feedforwardMatrix, 1e-6);
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testComputeFeedbackGainAndFeedForwardTermWithIndefiniteHessian()
+   {
+      TestDynamics dynamics = new TestDynamics();
+      DDPSolver<DefaultDiscreteState> calculator = new DDPSolver<>(dynamics);
+
+      DenseMatrix64F Q_UU = CommonOps.diag(1.0, -2.0, 3.0);
+      DenseMatrix64F Q_UX = new DenseMatrix64F(3, 6);
+      DenseMatrix64F Q_U = new DenseMatrix64F(3, 1);
+
+      DenseMatrix64F gainMatrix = new DenseMatrix64F(3, 6);
+      DenseMatrix64F feedforwardMatrix = new DenseMatrix64F(3, 1);
+
+      assertFalse(calculator.computeFeedbackGainAndFeedForwardTerms(Q_U, Q_UU, Q_UX, gainMatrix, feedforwardMatrix));
+
+      // Quu is not modified by the decomposition
+      JUnitTools.assertMatrixEquals(CommonOps.diag(1.0, -2.0, 3.0), Q_UU, 0.0);
+   }
+
    @ContinuousIntegrationTest(estimatedDuration = 0.0)
    @Test(timeout = 30000)
    public void testAddMultQuad()
@@ -39,6 +39,9 @@ public class REAModuleAPI
    private static final CategoryTheme ConcaveHull = apiFactory.createCategoryTheme("ConcaveHull");
    private static final CategoryTheme Polygonizer = apiFactory.createCategoryTheme("Polygonizer");
    private static final CategoryTheme Buffer = apiFactory.createCategoryTheme("Buffer");
+   private static final CategoryTheme Insertion = apiFactory.createCategoryTheme("Insertion");
+   private static final CategoryTheme Downsampling = apiFactory.createCategoryTheme("Downsampling");
+   private static final CategoryTheme Time = apiFactory.createCategoryTheme("Time");
    private static final CategoryTheme Range = apiFactory.createCategoryTheme("Range");
    private static final CategoryTheme Node = apiFactory.createCategoryTheme("Node");
    private static final CategoryTheme Request = apiFactory.createCategoryTheme("Request");
@@ -71,6 +74,9 @@ public class REAModuleAPI
    public static final Topic<Boolean> OcTreeEnable = OcTreeCategory.topic(Enable);
    public static final Topic<Boolean> OcTreeClear = OcTreeCategory.topic(Clear);
    public static final Topic<Integer> OcTreeBufferSize = OcTreeCategory.child(Buffer).topic(Size);
+   public static final Topic<Boolean> OcTreeBufferDownsamplingEnable = OcTreeCategory.child(Buffer).child(Downsampling).topic(Enable);
+   public static final Topic<Integer> OcTreeInsertionChunkSize = OcTreeCategory.child(Insertion).topic(Size);
+   public static final Topic<Double> OcTreeInsertionMaxTime = OcTreeCategory.child(Insertion).child(Time).topic(Max);
    public static final Topic<Boolean> OcTreeBoundingBoxEnable = OcTreeCategory.child(BoundingBox).topic(Enable);
    public static final Topic<BoundingBoxParametersMessage> OcTreeBoundingBoxParameters = OcTreeCategory.child(BoundingBox).topic(Parameters);
 
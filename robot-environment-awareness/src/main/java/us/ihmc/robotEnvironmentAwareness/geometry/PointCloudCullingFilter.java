@@ -0,0 +1,131 @@
+package us.ihmc.robotEnvironmentAwareness.geometry;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+
+/**
+ * Removes the points of a point cloud that are outside the range of a sensor and, optionally,
+ * outside its field of view.
+ * <p>
+ * The field of view is a frustum centered on the x-axis of the sensor, the y-axis being to the left
+ * and the z-axis up. By default, all the points are kept. This class is not thread-safe.
+ * </p>
+ */
+public class PointCloudCullingFilter
+{
+   private double minRangeSquared = 0.0;
+   private double maxRangeSquared = Double.POSITIVE_INFINITY;
+   private boolean isFrustumEnabled = false;
+   private double tanHalfHorizontalFieldOfView;
+   private double tanHalfVerticalFieldOfView;
+
+   private final RigidBodyTransform sensorPose = new RigidBodyTransform();
+   private final Point3D pointInSensorFrame = new Point3D();
+
+   /**
+    * @param sensorPose the transform from the sensor frame to the frame of the points.
+    */
+   public void setSensorPose(RigidBodyTransform sensorPose)
+   {
+      this.sensorPose.set(sensorPose);
+   }
+
+   public void setRange(double minRange, double maxRange)
+   {
+      minRangeSquared = minRange * minRange;
+      maxRangeSquared = maxRange * maxRange;
+   }
+
+   /**
+    * Enables the frustum culling.
+    *
+    * @param horizontalFieldOfView the full horizontal angle of the frustum, in ]0, pi[.
+    * @param verticalFieldOfView the full vertical angle of the frustum, in ]0, pi[.
+    */
+   public void setFieldOfView(double horizontalFieldOfView, double verticalFieldOfView)
+   {
+      if (!(horizontalFieldOfView > 0.0 && horizontalFieldOfView < Math.PI) || !(verticalFieldOfView > 0.0 && verticalFieldOfView < Math.PI))
+         throw new IllegalArgumentException("Invalid field of view, horizontal: " + horizontalFieldOfView + ", vertical: " + verticalFieldOfView);
+
+      isFrustumEnabled = true;
+      tanHalfHorizontalFieldOfView = Math.tan(0.5 * horizontalFieldOfView);
+      tanHalfVerticalFieldOfView = Math.tan(0.5 * verticalFieldOfView);
+   }
+
+   public void disableFrustum()
+   {
+      isFrustumEnabled = false;
+   }
+
+   public boolean isInside(double x, double y, double z)
+   {
+      pointInSensorFrame.set(x, y, z);
+      sensorPose.inverseTransform(pointInSensorFrame);
+
+      double xLocal = pointInSensorFrame.getX();
+      double yLocal = pointInSensorFrame.getY();
+      double zLocal = pointInSensorFrame.getZ();
+
+      double rangeSquared = xLocal * xLocal + yLocal * yLocal + zLocal * zLocal;
+      if (rangeSquared < minRangeSquared || rangeSquared > maxRangeSquared)
+         return false;
+
+      if (isFrustumEnabled)
+      {
+         if (xLocal <= 0.0)
+            return false;
+         if (Math.abs(yLocal) > xLocal * tanHalfHorizontalFieldOfView)
+            return false;
+         if (Math.abs(zLocal) > xLocal * tanHalfVerticalFieldOfView)
+            return false;
+      }
+
+      return true;
+   }
+
+   /**
+    * Removes in place the points that are outside the range or field of view.
+    *
+    * @param points the coordinates of the points as x, y, z. Modified.
+    * @param colors the color of each point, can be {@code null}. Modified such that the colors
+    *           remain aligned with the points.
+    * @return the number of points remaining.
+    */
+   public int filter(TFloatArrayList points, TIntArrayList colors)
+   {
+      int numberOfPoints = points.size() / 3;
+      int numberOfPointsInside = 0;
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         float x = points.getQuick(3 * i);
+         float y = points.getQuick(3 * i + 1);
+         float z = points.getQuick(3 * i + 2);
+
+         if (!isInside(x, y, z))
+            continue;
+
+         if (numberOfPointsInside != i)
+         {
+            points.setQuick(3 * numberOfPointsInside, x);
+            points.setQuick(3 * numberOfPointsInside + 1, y);
+            points.setQuick(3 * numberOfPointsInside + 2, z);
+            if (colors != null)
+               colors.setQuick(numberOfPointsInside, colors.getQuick(i));
+         }
+
+         numberOfPointsInside++;
+      }
+
+      if (numberOfPointsInside < numberOfPoints)
+      {
+         points.remove(3 * numberOfPointsInside, points.size() - 3 * numberOfPointsInside);
+         if (colors != null)
+            colors.remove(numberOfPointsInside, colors.size() - numberOfPointsInside);
+      }
+
+      return numberOfPointsInside;
+   }
+}
@@ -0,0 +1,193 @@
+package us.ihmc.robotEnvironmentAwareness.geometry;
+
+import java.util.Arrays;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Downsamples a point cloud by keeping a single point per voxel of a uniform grid.
+ * <p>
+ * The point cloud is given as a flat list of coordinates x, y, z and is downsampled in place, the
+ * voxels are found with an open addressing hash table such that the cost is linear in the number
+ * of points. The internal buffers are only reallocated when a larger cloud is given, a downsampler
+ * can be reused for every cloud without allocating. This class is not thread-safe.
+ * </p>
+ */
+public class VoxelGridDownsampler
+{
+   public enum Mode
+   {
+      /** The point kept for a voxel is the average of the points in the voxel. */
+      CENTROID,
+      /** The point kept for a voxel is the first point that fell in the voxel. */
+      FIRST_HIT
+   }
+
+   private static final int KEY_BITS = 21;
+   private static final long KEY_MASK = (1L << KEY_BITS) - 1L;
+   private static final int EMPTY_SLOT = -1;
+
+   private double resolution;
+   private Mode mode = Mode.CENTROID;
+
+   /** Hash table from the key of a voxel to its index, the capacity in use is {@code tableMask + 1}. */
+   private long[] tableKeys = new long[0];
+   private int[] tableVoxels = new int[0];
+   private int tableMask;
+
+   /** The sum of the coordinates of the points in each voxel as x, y, z. */
+   private double[] voxelSums = new double[0];
+   private int[] voxelCounts = new int[0];
+
+   public VoxelGridDownsampler(double resolution)
+   {
+      setResolution(resolution);
+   }
+
+   public void setResolution(double resolution)
+   {
+      if (!(resolution > 0.0))
+         throw new IllegalArgumentException("The resolution has to be positive, was: " + resolution);
+      this.resolution = resolution;
+   }
+
+   public double getResolution()
+   {
+      return resolution;
+   }
+
+   public void setMode(Mode mode)
+   {
+      this.mode = mode;
+   }
+
+   public Mode getMode()
+   {
+      return mode;
+   }
+
+   /**
+    * Downsamples the given point cloud in place, the points that are not finite are removed.
+    *
+    * @param points the coordinates of the points as x, y, z. Modified.
+    * @param colors the color of each point, can be {@code null}. When provided, it is modified
+    *           such that the colors remain aligned with the points and the color of the first point
+    *           of each voxel is kept.
+    * @return the number of points remaining, i.e. the number of occupied voxels.
+    */
+   public int downsample(TFloatArrayList points, TIntArrayList colors)
+   {
+      int numberOfPoints = points.size() / 3;
+
+      if (colors != null && colors.size() != numberOfPoints)
+         throw new IllegalArgumentException("Inconsistent number of colors: " + colors.size() + ", expected: " + numberOfPoints);
+
+      prepare(numberOfPoints);
+
+      double inverseResolution = 1.0 / resolution;
+      boolean computeCentroids = mode == Mode.CENTROID;
+      int numberOfVoxels = 0;
+
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         float x = points.getQuick(3 * i);
+         float y = points.getQuick(3 * i + 1);
+         float z = points.getQuick(3 * i + 2);
+
+         if (!Float.isFinite(x) || !Float.isFinite(y) || !Float.isFinite(z))
+            continue;
+
+         long key = computeKey(x * inverseResolution, y * inverseResolution, z * inverseResolution);
+         int slot = hash(key) & tableMask;
+         int voxel;
+
+         while ((voxel = tableVoxels[slot]) != EMPTY_SLOT && tableKeys[slot] != key)
+            slot = (slot + 1) & tableMask;
+
+         if (voxel == EMPTY_SLOT)
+         {
+            voxel = numberOfVoxels++;
+            tableKeys[slot] = key;
+            tableVoxels[slot] = voxel;
+
+            // voxel <= i, the points that are not processed yet cannot be overwritten.
+            points.setQuick(3 * voxel, x);
+            points.setQuick(3 * voxel + 1, y);
+            points.setQuick(3 * voxel + 2, z);
+            if (colors != null)
+               colors.setQuick(voxel, colors.getQuick(i));
+
+            if (computeCentroids)
+            {
+               voxelSums[3 * voxel] = 0.0;
+               voxelSums[3 * voxel + 1] = 0.0;
+               voxelSums[3 * voxel + 2] = 0.0;
+               voxelCounts[voxel] = 0;
+            }
+         }
+
+         if (computeCentroids)
+         {
+            voxelSums[3 * voxel] += x;
+            voxelSums[3 * voxel + 1] += y;
+            voxelSums[3 * voxel + 2] += z;
+            voxelCounts[voxel]++;
+         }
+      }
+
+      if (computeCentroids)
+      {
+         for (int voxel = 0; voxel < numberOfVoxels; voxel++)
+         {
+            double inverseCount = 1.0 / voxelCounts[voxel];
+            points.setQuick(3 * voxel, (float) (voxelSums[3 * voxel] * inverseCount));
+            points.setQuick(3 * voxel + 1, (float) (voxelSums[3 * voxel + 1] * inverseCount));
+            points.setQuick(3 * voxel + 2, (float) (voxelSums[3 * voxel + 2] * inverseCount));
+         }
+      }
+
+      if (numberOfVoxels < numberOfPoints)
+      {
+         points.remove(3 * numberOfVoxels, points.size() - 3 * numberOfVoxels);
+         if (colors != null)
+            colors.remove(numberOfVoxels, colors.size() - numberOfVoxels);
+      }
+
+      return numberOfVoxels;
+   }
+
+   private void prepare(int numberOfPoints)
+   {
+      // Keeps the load factor of the table at most 0.5.
+      int tableCapacity = Integer.highestOneBit(Math.max(16, 2 * numberOfPoints - 1)) << 1;
+
+      if (tableKeys.length < tableCapacity)
+      {
+         tableKeys = new long[tableCapacity];
+         tableVoxels = new int[tableCapacity];
+      }
+
+      tableMask = tableCapacity - 1;
+      Arrays.fill(tableVoxels, 0, tableCapacity, EMPTY_SLOT);
+
+      if (mode == Mode.CENTROID && voxelCounts.length < numberOfPoints)
+      {
+         voxelSums = new double[3 * numberOfPoints];
+         voxelCounts = new int[numberOfPoints];
+      }
+   }
+
+   private static long computeKey(double x, double y, double z)
+   {
+      long xIndex = (long) Math.floor(x);
+      long yIndex = (long) Math.floor(y);
+      long zIndex = (long) Math.floor(z);
+      return ((xIndex & KEY_MASK) << (2 * KEY_BITS)) | ((yIndex & KEY_MASK) << KEY_BITS) | (zIndex & KEY_MASK);
+   }
+
+   private static int hash(long key)
+   {
+      return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+   }
+}
@@ -1,8 +1,12 @@
 package us.ihmc.robotEnvironmentAwareness.planarRegion;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.geometry.LineSegment2D;
@@ -19,40 +23,97 @@ import us.ihmc.robotEnvironmentAwareness.ui.io.PlanarRegionSegmentationDataExpor
 import us.ihmc.robotics.geometry.PlanarRegion;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 
+/**
+ * Creates the planar regions from the segmentation raw data by computing the concave hull of each region and decomposing it into
+ * convex polygons.
+ * <p>
+ * The regions are polygonized concurrently, each region being a separate task of the current {@link java.util.concurrent.ForkJoinPool},
+ * or of the common pool when called from outside a fork-join pool. Running the polygonizer from a task submitted to a given pool
+ * limits the number of threads used.
+ * </p>
+ */
 public abstract class PlanarRegionPolygonizer
 {
    public static PlanarRegionsList createPlanarRegionsList(List<PlanarRegionSegmentationRawData> rawData,
                                                            ConcaveHullFactoryParameters concaveHullFactoryParameters,
                                                            PolygonizerParameters polygonizerParameters)
    {
-      return createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, null);
+      return createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, null, null);
    }
 
    public static PlanarRegionsList createPlanarRegionsList(List<PlanarRegionSegmentationRawData> rawData,
                                                            ConcaveHullFactoryParameters concaveHullFactoryParameters,
                                                            PolygonizerParameters polygonizerParameters, PlanarRegionSegmentationDataExporter dataExporter)
    {
-      return new PlanarRegionsList(createPlanarRegions(rawData, concaveHullFactoryParameters, polygonizerParameters, dataExporter));
+      return createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, null, dataExporter);
+   }
+
+   /**
+    * @param cache when not {@code null}, the regions which nodes did not change since their last polygonization reuse it.
+    */
+   public static PlanarRegionsList createPlanarRegionsList(List<PlanarRegionSegmentationRawData> rawData,
+                                                           ConcaveHullFactoryParameters concaveHullFactoryParameters,
+                                                           PolygonizerParameters polygonizerParameters, PlanarRegionPolygonizerCache cache,
+                                                           PlanarRegionSegmentationDataExporter dataExporter)
+   {
+      return new PlanarRegionsList(createPlanarRegions(rawData, concaveHullFactoryParameters, polygonizerParameters, cache, dataExporter));
    }
 
    private static List<PlanarRegion> createPlanarRegions(List<PlanarRegionSegmentationRawData> rawData,
                                                          ConcaveHullFactoryParameters concaveHullFactoryParameters, PolygonizerParameters polygonizerParameters,
-                                                         PlanarRegionSegmentationDataExporter dataExporter)
+                                                         PlanarRegionPolygonizerCache cache, PlanarRegionSegmentationDataExporter dataExporter)
    {
-      List<List<PlanarRegion>> regions = rawData.parallelStream()
-                                                .filter(data -> data.size() >= polygonizerParameters.getMinNumberOfNodes())
-                                                .map(data -> createPlanarRegion(data, concaveHullFactoryParameters, polygonizerParameters, dataExporter))
-                                                .filter(region -> region != null)
-                                                .collect(Collectors.toList());
+      if (cache != null)
+         cache.retainRegions(rawData);
+
+      List<PlanarRegionSegmentationRawData> filteredRawData = rawData.stream()
+                                                                     .filter(data -> data.size() >= polygonizerParameters.getMinNumberOfNodes())
+                                                                     .collect(Collectors.toList());
+
+      // One task per region such that idle threads can steal the remaining regions one at a time.
+      // The largest regions, which take the longest, are started first.
+      List<ForkJoinTask<List<PlanarRegion>>> tasks = new ArrayList<>();
+      for (PlanarRegionSegmentationRawData data : filteredRawData)
+      {
+         Callable<List<PlanarRegion>> task = () -> createPlanarRegion(data, concaveHullFactoryParameters, polygonizerParameters, cache, dataExporter);
+         tasks.add(ForkJoinTask.adapt(task));
+      }
+
+      List<ForkJoinTask<List<PlanarRegion>>> tasksToInvoke = IntStream.range(0, tasks.size()).boxed()
+                                                                     .sorted(Comparator.comparingInt(index -> -filteredRawData.get(index).size()))
+                                                                     .map(tasks::get)
+                                                                     .collect(Collectors.toList());
+      ForkJoinTask.invokeAll(tasksToInvoke);
 
       List<PlanarRegion> flattenedRegions = new ArrayList<>();
-      for (List<PlanarRegion> regionsSublist : regions)
+      for (ForkJoinTask<List<PlanarRegion>> task : tasks)
       {
-         regionsSublist.forEach(flattenedRegions::add);
+         List<PlanarRegion> regionsSublist = task.join();
+         if (regionsSublist != null)
+            regionsSublist.forEach(flattenedRegions::add);
       }
       return flattenedRegions;
    }
 
+   private static List<PlanarRegion> createPlanarRegion(PlanarRegionSegmentationRawData rawData, ConcaveHullFactoryParameters concaveHullFactoryParameters,
+                                                        PolygonizerParameters polygonizerParameters, PlanarRegionPolygonizerCache cache,
+                                                        PlanarRegionSegmentationDataExporter dataExporter)
+   {
+      if (cache == null)
+         return createPlanarRegion(rawData, concaveHullFactoryParameters, polygonizerParameters, dataExporter);
+
+      List<PlanarRegion> planarRegions = cache.get(rawData, concaveHullFactoryParameters, polygonizerParameters);
+
+      if (planarRegions == null)
+      {
+         planarRegions = createPlanarRegion(rawData, concaveHullFactoryParameters, polygonizerParameters, dataExporter);
+         if (planarRegions != null)
+            cache.put(rawData, concaveHullFactoryParameters, polygonizerParameters, planarRegions);
+      }
+
+      return planarRegions;
+   }
+
    private static List<PlanarRegion> createPlanarRegion(PlanarRegionSegmentationRawData rawData, ConcaveHullFactoryParameters concaveHullFactoryParameters,
                                                         PolygonizerParameters polygonizerParameters, PlanarRegionSegmentationDataExporter dataExporter)
    {
@@ -0,0 +1,185 @@
+package us.ihmc.robotEnvironmentAwareness.planarRegion;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.set.hash.TLongHashSet;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.robotEnvironmentAwareness.geometry.ConcaveHullFactoryParameters;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+/**
+ * Keeps the polygonization of each region, identified by its id, such that a region which point set did not change since its last
+ * polygonization can reuse it instead of computing its concave hull again.
+ * <p>
+ * The point set of a region is identified by the cells of a uniform grid that its points fall in. With the cell size set to the
+ * resolution of the octree, each node of the region has its own cell and the key of a cell identifies the node. A region reuses its
+ * polygonization when the number of nodes added to or removed from it is at most the given ratio of its number of nodes, anywhere in the
+ * region, and its plane moved by less than the given tolerances. The hit locations of the nodes can move within their cells, which is
+ * not considered a change. The comparison is always made with the point set that was polygonized, such that small changes cannot
+ * accumulate.
+ * </p>
+ * <p>
+ * The regions with intersections are never cached, and changing the parameters of the polygonizer, including modifying them in place,
+ * invalidates the cache. This class is thread-safe such that the regions can be polygonized concurrently.
+ * </p>
+ */
+public class PlanarRegionPolygonizerCache
+{
+   private static final int KEY_BITS = 21;
+   private static final long KEY_MASK = (1L << KEY_BITS) - 1L;
+
+   private double cellSize = 0.02;
+   private double maxChangedNodesRatio = 0.0;
+   private double maxOriginDistance = 0.01;
+   private double maxNormalAngle = Math.toRadians(1.0);
+
+   private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+   /**
+    * Sets the size of the cells used to identify the points of a region, should be the resolution of the octree. Clears the cache.
+    */
+   public void setCellSize(double cellSize)
+   {
+      if (!(cellSize > 0.0))
+         throw new IllegalArgumentException("The cell size has to be positive, was: " + cellSize);
+      this.cellSize = cellSize;
+      entries.clear();
+   }
+
+   /**
+    * Sets the number of nodes that can be added to or removed from a region, as a ratio of its number of nodes when it was polygonized,
+    * before it is polygonized again. Zero, the default, reuses a polygonization only when the region has exactly the same nodes.
+    */
+   public void setMaxChangedNodesRatio(double maxChangedNodesRatio)
+   {
+      this.maxChangedNodesRatio = maxChangedNodesRatio;
+   }
+
+   public void setMaxOriginDistance(double maxOriginDistance)
+   {
+      this.maxOriginDistance = maxOriginDistance;
+   }
+
+   public void setMaxNormalAngle(double maxNormalAngle)
+   {
+      this.maxNormalAngle = maxNormalAngle;
+   }
+
+   public void clear()
+   {
+      entries.clear();
+   }
+
+   /**
+    * Removes the regions that are not part of the given data.
+    */
+   public void retainRegions(Collection<PlanarRegionSegmentationRawData> rawData)
+   {
+      Set<Integer> regionIds = rawData.stream().map(PlanarRegionSegmentationRawData::getRegionId).collect(Collectors.toSet());
+      entries.keySet().retainAll(regionIds);
+   }
+
+   /**
+    * @return a copy of the planar regions previously created for this region if its nodes did not change since, {@code null}
+    *         otherwise.
+    */
+   public List<PlanarRegion> get(PlanarRegionSegmentationRawData rawData, ConcaveHullFactoryParameters concaveHullFactoryParameters,
+                                 PolygonizerParameters polygonizerParameters)
+   {
+      Entry entry = entries.get(rawData.getRegionId());
+
+      if (entry == null || entry.cellSize != cellSize)
+         return null;
+      if (!entry.concaveHullFactoryParameters.equals(concaveHullFactoryParameters.toString())
+            || !entry.polygonizerParameters.equals(polygonizerParameters.toString()))
+         return null;
+      if (!rawData.getIntersections().isEmpty())
+         return null;
+      if (rawData.getOrigin().distance(entry.origin) > maxOriginDistance)
+         return null;
+      if (rawData.getNormal().angle(entry.normal) > maxNormalAngle)
+         return null;
+
+      if (countChangedNodes(computeNodeKeys(rawData, entry.cellSize), entry.nodeKeys) > maxChangedNodesRatio * entry.nodeKeys.size())
+         return null;
+
+      return entry.planarRegions.stream().map(PlanarRegion::copy).collect(Collectors.toList());
+   }
+
+   /**
+    * Stores the planar regions created for this region, the given list should not be modified afterward.
+    */
+   public void put(PlanarRegionSegmentationRawData rawData, ConcaveHullFactoryParameters concaveHullFactoryParameters,
+                   PolygonizerParameters polygonizerParameters, List<PlanarRegion> planarRegions)
+   {
+      if (!rawData.getIntersections().isEmpty())
+      {
+         entries.remove(rawData.getRegionId());
+         return;
+      }
+
+      Entry entry = new Entry();
+      entry.cellSize = cellSize;
+      entry.concaveHullFactoryParameters = concaveHullFactoryParameters.toString();
+      entry.polygonizerParameters = polygonizerParameters.toString();
+      entry.nodeKeys = computeNodeKeys(rawData, entry.cellSize);
+      entry.origin.set(rawData.getOrigin());
+      entry.normal.set(rawData.getNormal());
+      entry.planarRegions = planarRegions.stream().map(PlanarRegion::copy).collect(Collectors.toList());
+      entries.put(rawData.getRegionId(), entry);
+   }
+
+   /**
+    * @return the size of the symmetric difference between the two sets.
+    */
+   private static int countChangedNodes(TLongHashSet nodeKeys, TLongHashSet previousNodeKeys)
+   {
+      int numberOfAddedNodes = 0;
+      int numberOfRemainingNodes = 0;
+
+      for (TLongIterator iterator = nodeKeys.iterator(); iterator.hasNext();)
+      {
+         if (previousNodeKeys.contains(iterator.next()))
+            numberOfRemainingNodes++;
+         else
+            numberOfAddedNodes++;
+      }
+
+      return numberOfAddedNodes + previousNodeKeys.size() - numberOfRemainingNodes;
+   }
+
+   private static TLongHashSet computeNodeKeys(PlanarRegionSegmentationRawData rawData, double cellSize)
+   {
+      List<Point3D> pointCloud = rawData.getPointCloudInWorld();
+      TLongHashSet nodeKeys = new TLongHashSet(pointCloud.size());
+
+      for (int i = 0; i < pointCloud.size(); i++)
+      {
+         Point3D point = pointCloud.get(i);
+         long xIndex = (long) Math.floor(point.getX() / cellSize);
+         long yIndex = (long) Math.floor(point.getY() / cellSize);
+         long zIndex = (long) Math.floor(point.getZ() / cellSize);
+         nodeKeys.add(((xIndex & KEY_MASK) << (2 * KEY_BITS)) | ((yIndex & KEY_MASK) << KEY_BITS) | (zIndex & KEY_MASK));
+      }
+
+      return nodeKeys;
+   }
+
+   private static class Entry
+   {
+      private double cellSize;
+      private String concaveHullFactoryParameters;
+      private String polygonizerParameters;
+      private TLongHashSet nodeKeys;
+      private final Point3D origin = new Point3D();
+      private final Vector3D normal = new Vector3D();
+      private List<PlanarRegion> planarRegions;
+   }
+}
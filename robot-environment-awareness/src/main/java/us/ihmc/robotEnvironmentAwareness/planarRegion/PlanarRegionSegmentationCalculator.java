@@ -2,14 +2,18 @@ package us.ihmc.robotEnvironmentAwareness.planarRegion;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
 
@@ -31,10 +35,18 @@ public class PlanarRegionSegmentationCalculator
    private final Set<NormalOcTreeNode> allRegionNodes = new HashSet<>();
    private List<PlanarRegionSegmentationNodeData> regionsNodeData = new ArrayList<>();
    private final List<NormalOcTreeNode> nodesWithoutRegion = new ArrayList<>();
+   private final PlanarRegionSegmentationSpatialIndex regionIndex = new PlanarRegionSegmentationSpatialIndex();
 
    private PlanarRegionSegmentationParameters parameters;
    private OcTreeBoundingBoxInterface boundingBox;
 
+   /** Parameters used for the current segmentation, changing them requires to segment the entire octree again. */
+   private PlanarRegionSegmentationParameters segmentationParameters = null;
+   private boolean isSegmentationUpToDate = false;
+
+   /**
+    * Segments the entire octree, starting from the regions of the previous segmentation.
+    */
    public void compute(NormalOcTreeNode root)
    {
       allRegionNodes.clear();
@@ -59,6 +71,191 @@ public class PlanarRegionSegmentationCalculator
       regionsNodeData = regionsNodeData.parallelStream().filter(region -> !isRegionSparse(region)).collect(Collectors.toList());
 
       regionsNodeData = mergePlanarRegionsIfPossible(root, regionsNodeData, parameters);
+
+      allRegionNodes.clear();
+      regionsNodeData.forEach(region -> region.nodeStream().forEach(allRegionNodes::add));
+      regionIndex.clear();
+      regionsNodeData.forEach(regionIndex::add);
+      segmentationParameters = parameters;
+      isSegmentationUpToDate = true;
+   }
+
+   /**
+    * Updates the segmentation only where the octree has changed.
+    * <p>
+    * Only the regions which bounding box is within the search radius of a changed node are cleaned up and grown again, and the
+    * growth only starts from their nodes near the changed nodes. New regions are only searched from the changed nodes and the nodes
+    * released by the other regions, and the merge is only attempted between a changed region and the regions near it. The cost of
+    * an update is then proportional to the size of the change instead of the size of the map.
+    * </p>
+    * <p>
+    * Falls back to {@link #compute(NormalOcTreeNode)} when the changes are unknown, the parameters have changed, or the segmentation
+    * has been modified by {@link #clear()} or {@link #removeDeadNodes()}.
+    * </p>
+    *
+    * @param root the root of the octree.
+    * @param changedNodes the nodes updated or deleted since the last call, their normals being up-to-date, or {@code null} if
+    *           unknown.
+    */
+   public void compute(NormalOcTreeNode root, Collection<NormalOcTreeNode> changedNodes)
+   {
+      if (changedNodes == null || !isSegmentationUpToDate || parameters != segmentationParameters)
+      {
+         compute(root);
+         return;
+      }
+
+      if (changedNodes.isEmpty())
+         return;
+
+      double searchRadius = parameters.getSearchRadius();
+      List<PlanarRegionSegmentationNodeData> regions = new ArrayList<>(regionsNodeData);
+
+      // The leaves deleted from the octree leave their region and are neither grown from nor searched from.
+      Set<NormalOcTreeNode> deletedNodes = changedNodes.stream().filter(node -> !isNodeInOcTree(root, node)).collect(Collectors.toSet());
+      Set<NormalOcTreeNode> updatedNodes = new HashSet<>(changedNodes);
+      updatedNodes.removeAll(deletedNodes);
+
+      // Only the regions near a change can lose or gain nodes.
+      Set<PlanarRegionSegmentationNodeData> touchedRegions = new HashSet<>();
+      updatedNodes.forEach(node -> touchedRegions.addAll(regionIndex.findRegionsNearNode(node, searchRadius)));
+
+      if (!deletedNodes.isEmpty())
+      {
+         for (PlanarRegionSegmentationNodeData region : regions)
+         {
+            List<NormalOcTreeNode> deletedRegionNodes = deletedNodes.stream().filter(region::contains).collect(Collectors.toList());
+            if (deletedRegionNodes.isEmpty())
+               continue;
+            region.removeNodesAndUpdate(deletedRegionNodes);
+            touchedRegions.add(region);
+         }
+         allRegionNodes.removeAll(deletedNodes);
+      }
+
+      Set<NormalOcTreeNode> releasedNodes = touchedRegions.parallelStream()
+                                                          .flatMap(region -> removeBadNodesFromRegion(boundingBox, parameters, region).stream())
+                                                          .collect(Collectors.toSet());
+      allRegionNodes.removeAll(releasedNodes);
+      releasedNodes.forEach(node -> touchedRegions.addAll(regionIndex.findRegionsNearNode(node, searchRadius)));
+
+      Set<NormalOcTreeNode> affectedNodes = new HashSet<>(updatedNodes);
+      affectedNodes.addAll(releasedNodes);
+
+      // The nodes of the regions from which the growth may reach an affected node.
+      Set<NormalOcTreeNode> nodesToGrowFrom = new HashSet<>();
+      NeighborActionRule<NormalOcTreeNode> growFromRule = neighborNode ->
+      {
+         if (allRegionNodes.contains(neighborNode))
+            nodesToGrowFrom.add(neighborNode);
+      };
+      affectedNodes.forEach(node -> OcTreeNearestNeighborTools.findRadiusNeighbors(root, node, searchRadius, growFromRule));
+
+      List<PlanarRegionSegmentationNodeData> changedRegions = new ArrayList<>();
+
+      for (PlanarRegionSegmentationNodeData region : regions)
+      {
+         if (!touchedRegions.contains(region))
+            continue;
+
+         if (!region.isEmpty())
+            growPlanarRegion(root, region, nodesToGrowFrom.stream().filter(region::contains), boundingBox, parameters);
+
+         if (region.getNumberOfNodes() > parameters.getMinRegionSize())
+         {
+            changedRegions.add(region);
+         }
+         else
+         {
+            region.nodeStream().forEach(allRegionNodes::remove);
+            region.nodeStream().forEach(affectedNodes::add);
+            regionIndex.remove(region);
+         }
+      }
+
+      regions.removeIf(region -> touchedRegions.contains(region) && region.getNumberOfNodes() <= parameters.getMinRegionSize());
+
+      nodesWithoutRegion.clear();
+      affectedNodes.stream()
+                   .filter(node -> node.isNormalSet() && isNodeInBoundingBox(node, boundingBox) && !allRegionNodes.contains(node))
+                   .forEach(nodesWithoutRegion::add);
+
+      List<PlanarRegionSegmentationNodeData> rejectedRegions = new ArrayList<>();
+      List<PlanarRegionSegmentationNodeData> newRegions = searchNewPlanarRegions(root, boundingBox, parameters, random, rejectedRegions);
+      // The nodes grown by the rejected regions are free again, the seeds are never added to allRegionNodes by the growth.
+      rejectedRegions.forEach(region -> region.nodeStream().forEach(allRegionNodes::remove));
+      newRegions.forEach(region -> region.nodeStream().forEach(allRegionNodes::add));
+      changedRegions.addAll(newRegions);
+      regions.addAll(newRegions);
+
+      changedRegions.parallelStream().forEach(PlanarRegionSegmentationNodeData::recomputeNormalAndOrigin);
+      changedRegions.parallelStream().forEach(PlanarRegionSegmentationCalculator::flipNormalOfOutliers);
+
+      Set<PlanarRegionSegmentationNodeData> sparseRegions = changedRegions.parallelStream().filter(this::isRegionSparse).collect(Collectors.toSet());
+      sparseRegions.forEach(region -> region.nodeStream().forEach(allRegionNodes::remove));
+      changedRegions.removeAll(sparseRegions);
+      regions.removeAll(sparseRegions);
+
+      sparseRegions.forEach(regionIndex::remove);
+      changedRegions.forEach(regionIndex::update);
+
+      mergeChangedRegionsIfPossible(root, regions, changedRegions);
+      regionsNodeData = regions;
+   }
+
+   /**
+    * Merges each changed region with the regions near it, as {@link #mergePlanarRegionsIfPossible(NormalOcTreeNode, List, PlanarRegionSegmentationParameters)}
+    * does for all the regions: the region that comes first in the list absorbs the other one.
+    */
+   private void mergeChangedRegionsIfPossible(NormalOcTreeNode root, List<PlanarRegionSegmentationNodeData> regions,
+         List<PlanarRegionSegmentationNodeData> changedRegions)
+   {
+      Map<PlanarRegionSegmentationNodeData, Integer> regionOrder = new HashMap<>();
+      for (int i = 0; i < regions.size(); i++)
+         regionOrder.put(regions.get(i), i);
+      Comparator<PlanarRegionSegmentationNodeData> orderComparator = Comparator.comparingInt(regionOrder::get);
+
+      double searchRadius = parameters.getSearchRadius();
+      Set<PlanarRegionSegmentationNodeData> mergedRegions = new HashSet<>();
+      Deque<PlanarRegionSegmentationNodeData> regionsToCheck = new ArrayDeque<>(changedRegions);
+
+      while (!regionsToCheck.isEmpty())
+      {
+         PlanarRegionSegmentationNodeData region = regionsToCheck.poll();
+         if (mergedRegions.contains(region))
+            continue;
+
+         // Sequential, areRegionsMergeable uses a temporary vector of the first region.
+         List<PlanarRegionSegmentationNodeData> regionsToMerge = regionIndex.findRegionsNearRegion(region, searchRadius).stream().filter(other ->
+         {
+            if (orderComparator.compare(region, other) < 0)
+               return areRegionsMergeable(root, region, other, parameters);
+            else
+               return areRegionsMergeable(root, other, region, parameters);
+         }).collect(Collectors.toList());
+
+         if (regionsToMerge.isEmpty())
+            continue;
+
+         regionsToMerge.add(region);
+         regionsToMerge.sort(orderComparator);
+         PlanarRegionSegmentationNodeData mergedRegion = regionsToMerge.get(0);
+
+         for (int i = 1; i < regionsToMerge.size(); i++)
+         {
+            PlanarRegionSegmentationNodeData otherRegion = regionsToMerge.get(i);
+            mergedRegion.addNodesFromOtherRegion(otherRegion);
+            regionIndex.remove(otherRegion);
+            mergedRegions.add(otherRegion);
+         }
+
+         regionIndex.update(mergedRegion);
+         // The merged region may now reach other regions.
+         regionsToCheck.add(mergedRegion);
+      }
+
+      if (!mergedRegions.isEmpty())
+         regions.removeIf(mergedRegions::contains);
    }
 
    public boolean isRegionSparse(PlanarRegionSegmentationNodeData region)
@@ -72,6 +269,7 @@ public class PlanarRegionSegmentationCalculator
 
    public void removeDeadNodes()
    {
+      isSegmentationUpToDate = false;
       regionsNodeData.stream().forEach(region -> removeDeadNodesFromRegion(region));
    }
 
@@ -90,6 +288,9 @@ public class PlanarRegionSegmentationCalculator
    public void clear()
    {
       regionsNodeData.clear();
+      allRegionNodes.clear();
+      regionIndex.clear();
+      isSegmentationUpToDate = false;
    }
 
    private IteratorSelectionRule<NormalOcTreeNode> leafInBoundingBoxWithNormalSetRule(OcTreeBoundingBoxInterface boundingBox)
@@ -205,6 +406,12 @@ public class PlanarRegionSegmentationCalculator
    }
 
    public List<PlanarRegionSegmentationNodeData> searchNewPlanarRegions(NormalOcTreeNode root, OcTreeBoundingBoxInterface boundingBox, PlanarRegionSegmentationParameters parameters, Random random)
+   {
+      return searchNewPlanarRegions(root, boundingBox, parameters, random, null);
+   }
+
+   private List<PlanarRegionSegmentationNodeData> searchNewPlanarRegions(NormalOcTreeNode root, OcTreeBoundingBoxInterface boundingBox,
+         PlanarRegionSegmentationParameters parameters, Random random, List<PlanarRegionSegmentationNodeData> rejectedRegionsToPack)
    {
       List<PlanarRegionSegmentationNodeData> newRegions = new ArrayList<>();
 
@@ -222,6 +429,8 @@ public class PlanarRegionSegmentationCalculator
 
          if (region.getNumberOfNodes() > parameters.getMinRegionSize())
             newRegions.add(region);
+         else if (rejectedRegionsToPack != null)
+            rejectedRegionsToPack.add(region);
       }
 
       return newRegions;
@@ -238,6 +447,15 @@ public class PlanarRegionSegmentationCalculator
 
    public void growPlanarRegion(NormalOcTreeNode root, PlanarRegionSegmentationNodeData ocTreeNodePlanarRegion, OcTreeBoundingBoxInterface boundingBox,
          PlanarRegionSegmentationParameters parameters)
+   {
+      growPlanarRegion(root, ocTreeNodePlanarRegion, ocTreeNodePlanarRegion.nodeStream(), boundingBox, parameters);
+   }
+
+   /**
+    * Grows the region starting from the neighborhood of the given nodes of the region only.
+    */
+   private void growPlanarRegion(NormalOcTreeNode root, PlanarRegionSegmentationNodeData ocTreeNodePlanarRegion, Stream<NormalOcTreeNode> nodesToGrowFrom,
+         OcTreeBoundingBoxInterface boundingBox, PlanarRegionSegmentationParameters parameters)
    {
       double searchRadius = parameters.getSearchRadius();
       
@@ -245,7 +463,7 @@ public class PlanarRegionSegmentationCalculator
       Set<NormalOcTreeNode> newSetToExplore = new HashSet<>();
 
       NeighborActionRule<NormalOcTreeNode> extendSearchRule = neighborNode -> recordCandidatesForRegion(neighborNode, ocTreeNodePlanarRegion, newSetToExplore, boundingBox, parameters);
-      ocTreeNodePlanarRegion.nodeStream() // TODO This should be in parallel, but the previous lambda makes threads share data which is no good.
+      nodesToGrowFrom // TODO This should be in parallel, but the previous lambda makes threads share data which is no good.
                   .filter(node -> isNodeInBoundingBox(node, boundingBox))
                   .forEach(regionNode -> OcTreeNearestNeighborTools.findRadiusNeighbors(root, regionNode, searchRadius, extendSearchRule));
       nodesToExplore.addAll(newSetToExplore);
@@ -276,7 +494,7 @@ public class PlanarRegionSegmentationCalculator
       newSetToExplore.add(neighborNode);
    }
 
-   private static void removeBadNodesFromRegion(OcTreeBoundingBoxInterface boundingBox, PlanarRegionSegmentationParameters parameters,
+   private static List<NormalOcTreeNode> removeBadNodesFromRegion(OcTreeBoundingBoxInterface boundingBox, PlanarRegionSegmentationParameters parameters,
          PlanarRegionSegmentationNodeData region)
    {
       List<NormalOcTreeNode> nodesToRemove = region.nodeStream()
@@ -284,6 +502,7 @@ public class PlanarRegionSegmentationCalculator
             .getOrDefault(true, Collections.emptyList());
 
       region.removeNodesAndUpdate(nodesToRemove);
+      return nodesToRemove;
    }
 
    private static void removeDeadNodesFromRegion(PlanarRegionSegmentationNodeData region)
@@ -295,6 +514,33 @@ public class PlanarRegionSegmentationCalculator
       region.removeNodesAndUpdate(nodesToRemove);
    }
 
+   /**
+    * Whether the node is still a leaf of the octree, i.e. it can be found around its own position.
+    */
+   private static boolean isNodeInOcTree(NormalOcTreeNode root, NormalOcTreeNode node)
+   {
+      MutableBoolean foundNode = new MutableBoolean(false);
+
+      NeighborActionRule<NormalOcTreeNode> actionRule = new NeighborActionRule<NormalOcTreeNode>()
+      {
+         @Override
+         public void doActionOnNeighbor(NormalOcTreeNode neighborNode)
+         {
+            if (neighborNode == node)
+               foundNode.setTrue();
+         }
+
+         @Override
+         public boolean earlyAbort()
+         {
+            return foundNode.booleanValue();
+         }
+      };
+
+      OcTreeNearestNeighborTools.findRadiusNeighbors(root, node, 0.5 * node.getSize(), actionRule);
+      return foundNode.booleanValue();
+   }
+
    private static boolean isNodeInBoundingBox(NormalOcTreeNode node, OcTreeBoundingBoxInterface boundingBox)
    {
       return boundingBox == null || boundingBox.isInBoundingBox(node.getX(), node.getY(), node.getZ());
@@ -180,19 +180,19 @@ public class PlanarRegionSegmentationNodeData implements Iterable<NormalOcTreeNo
       double nodeX = newNode.getX();
       if (nodeX < min.getX())
          min.setX(nodeX);
-      else if (nodeX > max.getX())
+      if (nodeX > max.getX())
          max.setX(nodeX);
 
       double nodeY = newNode.getY();
       if (nodeY < min.getY())
          min.setY(nodeY);
-      else if (nodeY > max.getY()) 
+      if (nodeY > max.getY()) 
          max.setY(nodeY);
 
       double nodeZ = newNode.getZ();
       if (nodeZ < min.getZ())
          min.setZ(nodeZ);
-      else if (nodeZ > max.getZ()) 
+      if (nodeZ > max.getZ()) 
          max.setZ(nodeZ);
    }
 
@@ -329,6 +329,16 @@ public class PlanarRegionSegmentationNodeData implements Iterable<NormalOcTreeNo
       return standardDeviationPrincipalValues;
    }
 
+   public Point3D getBoundingBoxMin()
+   {
+      return min;
+   }
+
+   public Point3D getBoundingBoxMax()
+   {
+      return max;
+   }
+
    public boolean isEmpty()
    {
       return nodes.isEmpty();
@@ -0,0 +1,161 @@
+package us.ihmc.robotEnvironmentAwareness.planarRegion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.jOctoMap.node.NormalOcTreeNode;
+
+/**
+ * Uniform grid over the bounding boxes of the planar regions, used to find the regions near a node or near another region without
+ * going through all the regions.
+ * <p>
+ * A region is registered in every cell its bounding box overlaps. The bounding box of a region that has grown has to be registered
+ * again with {@link #update(PlanarRegionSegmentationNodeData)}, a region that has only lost nodes can be left as is.
+ * </p>
+ */
+class PlanarRegionSegmentationSpatialIndex
+{
+   private static final double CELL_SIZE = 1.0;
+   private static final int KEY_BITS = 21;
+   private static final long KEY_MASK = (1L << KEY_BITS) - 1L;
+
+   private final TLongObjectHashMap<List<PlanarRegionSegmentationNodeData>> cells = new TLongObjectHashMap<>();
+   /** The range of cells of each registered region as: minX, minY, minZ, maxX, maxY, maxZ. */
+   private final Map<PlanarRegionSegmentationNodeData, int[]> regionCellRanges = new HashMap<>();
+
+   void clear()
+   {
+      cells.clear();
+      regionCellRanges.clear();
+   }
+
+   void add(PlanarRegionSegmentationNodeData region)
+   {
+      Point3D min = region.getBoundingBoxMin();
+      Point3D max = region.getBoundingBoxMax();
+
+      if (region.isEmpty() || Double.isInfinite(min.getX()) || Double.isInfinite(max.getX()))
+         return;
+
+      int[] cellRange = computeCellRange(min, max, 0.0);
+      regionCellRanges.put(region, cellRange);
+
+      for (int x = cellRange[0]; x <= cellRange[3]; x++)
+      {
+         for (int y = cellRange[1]; y <= cellRange[4]; y++)
+         {
+            for (int z = cellRange[2]; z <= cellRange[5]; z++)
+            {
+               long key = computeKey(x, y, z);
+               List<PlanarRegionSegmentationNodeData> cell = cells.get(key);
+               if (cell == null)
+               {
+                  cell = new ArrayList<>(2);
+                  cells.put(key, cell);
+               }
+               cell.add(region);
+            }
+         }
+      }
+   }
+
+   void remove(PlanarRegionSegmentationNodeData region)
+   {
+      int[] cellRange = regionCellRanges.remove(region);
+
+      if (cellRange == null)
+         return;
+
+      for (int x = cellRange[0]; x <= cellRange[3]; x++)
+      {
+         for (int y = cellRange[1]; y <= cellRange[4]; y++)
+         {
+            for (int z = cellRange[2]; z <= cellRange[5]; z++)
+            {
+               long key = computeKey(x, y, z);
+               List<PlanarRegionSegmentationNodeData> cell = cells.get(key);
+               cell.remove(region);
+               if (cell.isEmpty())
+                  cells.remove(key);
+            }
+         }
+      }
+   }
+
+   void update(PlanarRegionSegmentationNodeData region)
+   {
+      remove(region);
+      add(region);
+   }
+
+   /**
+    * @return the regions which bounding box is within {@code radius} of the node.
+    */
+   Set<PlanarRegionSegmentationNodeData> findRegionsNearNode(NormalOcTreeNode node, double radius)
+   {
+      Point3D nodePosition = new Point3D(node.getX(), node.getY(), node.getZ());
+      Set<PlanarRegionSegmentationNodeData> candidates = findCandidates(nodePosition, nodePosition, radius);
+      double radiusSquared = radius * radius;
+      candidates.removeIf(region -> region.distanceSquaredFromBoundingBox(node) > radiusSquared);
+      return candidates;
+   }
+
+   /**
+    * @return the regions other than the given one which bounding box is within {@code radius} of its bounding box.
+    */
+   Set<PlanarRegionSegmentationNodeData> findRegionsNearRegion(PlanarRegionSegmentationNodeData region, double radius)
+   {
+      Set<PlanarRegionSegmentationNodeData> candidates = findCandidates(region.getBoundingBoxMin(), region.getBoundingBoxMax(), radius);
+      double radiusSquared = radius * radius;
+      candidates.remove(region);
+      candidates.removeIf(other -> region.distanceSquaredFromOtherRegionBoundingBox(other) > radiusSquared);
+      return candidates;
+   }
+
+   private Set<PlanarRegionSegmentationNodeData> findCandidates(Point3D min, Point3D max, double radius)
+   {
+      Set<PlanarRegionSegmentationNodeData> candidates = new HashSet<>();
+
+      if (Double.isInfinite(min.getX()) || Double.isInfinite(max.getX()))
+         return candidates;
+
+      int[] cellRange = computeCellRange(min, max, radius);
+
+      for (int x = cellRange[0]; x <= cellRange[3]; x++)
+      {
+         for (int y = cellRange[1]; y <= cellRange[4]; y++)
+         {
+            for (int z = cellRange[2]; z <= cellRange[5]; z++)
+            {
+               List<PlanarRegionSegmentationNodeData> cell = cells.get(computeKey(x, y, z));
+               if (cell != null)
+                  candidates.addAll(cell);
+            }
+         }
+      }
+
+      return candidates;
+   }
+
+   private static int[] computeCellRange(Point3D min, Point3D max, double margin)
+   {
+      return new int[] {toCell(min.getX() - margin), toCell(min.getY() - margin), toCell(min.getZ() - margin), toCell(max.getX() + margin),
+            toCell(max.getY() + margin), toCell(max.getZ() + margin)};
+   }
+
+   private static int toCell(double coordinate)
+   {
+      return (int) Math.floor(coordinate / CELL_SIZE);
+   }
+
+   private static long computeKey(int x, int y, int z)
+   {
+      return ((x & KEY_MASK) << (2 * KEY_BITS)) | ((y & KEY_MASK) << KEY_BITS) | (z & KEY_MASK);
+   }
+}
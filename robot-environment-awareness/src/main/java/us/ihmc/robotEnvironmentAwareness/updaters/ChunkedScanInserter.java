@@ -0,0 +1,159 @@
+package us.ihmc.robotEnvironmentAwareness.updaters;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+import us.ihmc.euclid.tuple3D.interfaces.Vector3DReadOnly;
+import us.ihmc.jOctoMap.boundingBox.OcTreeBoundingBoxInterface;
+import us.ihmc.jOctoMap.key.OcTreeKey;
+import us.ihmc.jOctoMap.node.NormalOcTreeNode;
+import us.ihmc.jOctoMap.ocTree.NormalOcTree;
+import us.ihmc.jOctoMap.ocTree.NormalOcTree.RayMissProbabilityUpdater;
+import us.ihmc.jOctoMap.occupancy.OccupancyParameters;
+import us.ihmc.jOctoMap.pointCloud.PointCloud;
+import us.ihmc.jOctoMap.pointCloud.Scan;
+import us.ihmc.jOctoMap.tools.OcTreeKeyConversionTools;
+
+/**
+ * Inserts a scan in an octree over several calls, by chunks of points, with the same result as inserting the entire scan at once.
+ * <p>
+ * A single scan gives hits precedence over misses and misses a cell only once however many rays cross it. The inserter keeps
+ * the keys of the cells hit by the points of the scan as they are added, and is set as the ray miss probability updater of the
+ * octree: a ray of a chunk does not change a cell hit by any point of the scan, nor a cell already missed by an earlier chunk.
+ * Other misses are computed by the given updater.
+ * </p>
+ */
+class ChunkedScanInserter implements RayMissProbabilityUpdater
+{
+   private static final double NO_UPDATE_PROBABILITY = 0.5;
+
+   private final NormalOcTree octree;
+   private final RayMissProbabilityUpdater missProbabilityUpdater;
+
+   /** Points of the scan that are not inserted yet, stored as x, y, z. */
+   private final TDoubleArrayList points = new TDoubleArrayList();
+   private int numberOfInsertedPoints = 0;
+   private Scan chunkScan = null;
+   private final Point3D sensorOrigin = new Point3D();
+   private double minRange;
+   private double maxRange;
+
+   private final Set<OcTreeKey> hitKeys = new HashSet<>();
+   /** Rays are cast concurrently when the octree inserts its misses in parallel. */
+   private final Set<OcTreeKey> missedKeys = ConcurrentHashMap.newKeySet();
+
+   private final Set<NormalOcTreeNode> updatedNodes = new HashSet<>();
+   private final Set<NormalOcTreeNode> deletedNodes = new HashSet<>();
+   private final Point3D point = new Point3D();
+
+   ChunkedScanInserter(NormalOcTree octree, RayMissProbabilityUpdater missProbabilityUpdater)
+   {
+      this.octree = octree;
+      this.missProbabilityUpdater = missProbabilityUpdater;
+      octree.setCustomRayMissProbabilityUpdater(this);
+   }
+
+   /**
+    * Starts a new scan, discarding the points of the previous one that are not inserted yet. The points of the scan are then
+    * given with {@link #addPoint(double, double, double)}.
+    *
+    * @param minRange the minimum insertion range of the octree, non-positive if none.
+    * @param maxRange the maximum insertion range of the octree, non-positive if none.
+    */
+   void startScan(Point3DReadOnly sensorOrigin, double minRange, double maxRange)
+   {
+      clear();
+      chunkScan = new Scan(sensorOrigin, new PointCloud());
+      this.sensorOrigin.set(sensorOrigin);
+      this.minRange = minRange;
+      this.maxRange = maxRange;
+   }
+
+   void addPoint(double x, double y, double z)
+   {
+      points.add(x);
+      points.add(y);
+      points.add(z);
+
+      // Points out of range or out of the bounding box do not hit their cell
+      point.set(x, y, z);
+      double distance = point.distance(sensorOrigin);
+      if (minRange > 0.0 && distance < minRange || maxRange > 0.0 && distance > maxRange)
+         return;
+      OcTreeBoundingBoxInterface boundingBox = octree.getBoundingBox();
+      if (boundingBox != null && !boundingBox.isInBoundingBox(x, y, z))
+         return;
+
+      OcTreeKey key = OcTreeKeyConversionTools.coordinateToKey(point, octree.getTreeDepth(), octree.getResolution(), octree.getTreeDepth());
+      if (key != null)
+         hitKeys.add(key);
+   }
+
+   boolean hasPendingPoints()
+   {
+      return numberOfInsertedPoints < points.size() / 3;
+   }
+
+   /**
+    * Inserts chunks of the pending points until the time budget is exceeded, at least one chunk.
+    *
+    * @param updatedNodesToPack the nodes updated or deleted by the inserted chunks are added to this set.
+    * @return whether any point was inserted.
+    */
+   boolean insertChunks(int chunkSize, double maxTime, Set<NormalOcTreeNode> updatedNodesToPack)
+   {
+      if (!hasPendingPoints())
+         return false;
+
+      long startTime = System.nanoTime();
+      long maxDuration = (long) (1.0e9 * maxTime);
+      chunkSize = Math.max(1, chunkSize);
+      int numberOfPoints = points.size() / 3;
+      PointCloud chunkPointCloud = chunkScan.getPointCloud();
+
+      do
+      {
+         int chunkEnd = Math.min(numberOfInsertedPoints + chunkSize, numberOfPoints);
+         chunkPointCloud.clear();
+
+         for (int i = numberOfInsertedPoints; i < chunkEnd; i++)
+            chunkPointCloud.add(points.getQuick(3 * i), points.getQuick(3 * i + 1), points.getQuick(3 * i + 2));
+
+         updatedNodes.clear();
+         deletedNodes.clear();
+         octree.insertScan(chunkScan, updatedNodes, deletedNodes);
+         updatedNodesToPack.addAll(updatedNodes);
+         // The segmentation has to remove the deleted leaves from their region
+         updatedNodesToPack.addAll(deletedNodes);
+         numberOfInsertedPoints = chunkEnd;
+      }
+      while (hasPendingPoints() && System.nanoTime() - startTime < maxDuration);
+
+      return true;
+   }
+
+   void clear()
+   {
+      points.resetQuick();
+      numberOfInsertedPoints = 0;
+      hitKeys.clear();
+      missedKeys.clear();
+      chunkScan = null;
+   }
+
+   @Override
+   public double computeRayMissProbability(Point3DReadOnly rayOrigin, Point3DReadOnly rayEnd, Vector3DReadOnly rayDirection, NormalOcTreeNode node,
+                                           OccupancyParameters parameters)
+   {
+      OcTreeKey key = node.getKeyCopy();
+
+      if (hitKeys.contains(key) || !missedKeys.add(key))
+         return NO_UPDATE_PROBABILITY;
+      else
+         return missProbabilityUpdater.computeRayMissProbability(rayOrigin, rayEnd, rayDirection, node, parameters);
+   }
+}
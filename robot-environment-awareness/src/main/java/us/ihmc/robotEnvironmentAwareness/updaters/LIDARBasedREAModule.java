@@ -125,7 +125,7 @@ public class LIDARBasedREAModule
             if (isThreadInterrupted())
                return;
 
-            timeReporter.run(planarRegionFeatureUpdater::update, planarRegionsTimeReport);
+            timeReporter.run(() -> planarRegionFeatureUpdater.update(mainUpdater.pollChangedNodes()), planarRegionsTimeReport);
             timeReporter.run(() -> moduleStateReporter.reportPlanarRegionsState(planarRegionFeatureUpdater), reportPlanarRegionsStateTimeReport);
 
             planarRegionNetworkProvider.update(ocTreeUpdateSuccess);
@@ -4,12 +4,24 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import controller_msgs.msg.dds.LidarScanMessage;
+import gnu.trove.list.array.TFloatArrayList;
 import us.ihmc.jOctoMap.ocTree.NormalOcTree;
+import us.ihmc.jOctoMap.pointCloud.PointCloud;
 import us.ihmc.jOctoMap.pointCloud.ScanCollection;
 import us.ihmc.messager.Messager;
 import us.ihmc.robotEnvironmentAwareness.communication.REAModuleAPI;
+import us.ihmc.robotEnvironmentAwareness.geometry.VoxelGridDownsampler;
 import us.ihmc.robotEnvironmentAwareness.io.FilePropertyHelper;
 
+/**
+ * Accumulates the lidar scans in a buffer octree that is handed over to the {@link REAOcTreeUpdater} when requested.
+ * <p>
+ * When {@link REAModuleAPI#OcTreeBufferDownsamplingEnable} is enabled, the default, each scan is first reduced to the centroid of
+ * its points in each octree cell. A cell of the buffer is then hit once per scan, at the average of the points that fell in it,
+ * instead of once per point, such that the insertion cost depends on the number of occupied cells. Disabling it inserts every
+ * point of the scans.
+ * </p>
+ */
 public class REAOcTreeBuffer
 {
    private static final int NUMBER_OF_SAMPLES = 100000;
@@ -19,6 +31,7 @@ public class REAOcTreeBuffer
 
    private final AtomicReference<Boolean> enable;
    private final AtomicReference<Integer> bufferSize;
+   private final AtomicReference<Boolean> enableDownsampling;
 
    private final AtomicBoolean clearBuffer = new AtomicBoolean(false);
    private final AtomicBoolean isBufferFull = new AtomicBoolean(false);
@@ -26,6 +39,9 @@ public class REAOcTreeBuffer
    private final AtomicReference<NormalOcTree> newBuffer = new AtomicReference<>(null);
 
    private final double octreeResolution;
+   private final VoxelGridDownsampler downsampler;
+   private final TFloatArrayList scanPoints = new TFloatArrayList();
+   private final PointCloud scanPointCloud = new PointCloud();
 
    private final REAModuleStateReporter moduleStateReporter;
 
@@ -34,11 +50,13 @@ public class REAOcTreeBuffer
    public REAOcTreeBuffer(double octreeResolution, Messager reaMessager, REAModuleStateReporter moduleStateReporter)
    {
       this.octreeResolution = octreeResolution;
+      downsampler = new VoxelGridDownsampler(octreeResolution);
       this.reaMessager = reaMessager;
       this.moduleStateReporter = moduleStateReporter;
 
       enable = reaMessager.createInput(REAModuleAPI.OcTreeEnable, true);
       bufferSize = reaMessager.createInput(REAModuleAPI.OcTreeBufferSize, 10000);
+      enableDownsampling = reaMessager.createInput(REAModuleAPI.OcTreeBufferDownsamplingEnable, true);
 
       reaMessager.registerTopicListener(REAModuleAPI.RequestEntireModuleState, (messageContent) -> sendCurrentState());
    }
@@ -46,6 +64,7 @@ public class REAOcTreeBuffer
    private void sendCurrentState()
    {
       reaMessager.submitMessage(REAModuleAPI.OcTreeBufferSize, bufferSize.get());
+      reaMessager.submitMessage(REAModuleAPI.OcTreeBufferDownsamplingEnable, enableDownsampling.get());
    }
 
    public void loadConfiguration(FilePropertyHelper filePropertyHelper)
@@ -56,11 +75,15 @@ public class REAOcTreeBuffer
       Integer bufferSizeFile = filePropertyHelper.loadIntegerProperty(REAModuleAPI.OcTreeBufferSize.getName());
       if (bufferSizeFile != null)
          bufferSize.set(bufferSizeFile);
+      Boolean enableDownsamplingFile = filePropertyHelper.loadBooleanProperty(REAModuleAPI.OcTreeBufferDownsamplingEnable.getName());
+      if (enableDownsamplingFile != null)
+         enableDownsampling.set(enableDownsamplingFile);
    }
 
    public void saveConfiguration(FilePropertyHelper filePropertyHelper)
    {
       filePropertyHelper.saveProperty(REAModuleAPI.OcTreeBufferSize.getName(), bufferSize.get());
+      filePropertyHelper.saveProperty(REAModuleAPI.OcTreeBufferDownsamplingEnable.getName(), enableDownsampling.get());
    }
 
    public Runnable createBufferThread()
@@ -130,10 +153,20 @@ public class REAOcTreeBuffer
       if (!enable.get() || lidarScanMessage == null)
          return;
 
+      scanPoints.resetQuick();
+      scanPoints.addAll(lidarScanMessage.getScan());
+      if (enableDownsampling.get())
+         downsampler.downsample(scanPoints, null);
+
+      // The scan is inserted in the buffer by the same thread before the next scan is processed
+      scanPointCloud.clear();
+      for (int i = 0; i < scanPoints.size(); i += 3)
+         scanPointCloud.add(scanPoints.getQuick(i), scanPoints.getQuick(i + 1), scanPoints.getQuick(i + 2));
+
       ScanCollection scanCollection = new ScanCollection();
-      newFullScanReference.set(scanCollection);
       scanCollection.setSubSampleSize(NUMBER_OF_SAMPLES);
-      scanCollection.addScan(lidarScanMessage.getScan().toArray(), lidarScanMessage.getLidarPosition());
+      scanCollection.addScan(scanPointCloud, lidarScanMessage.getLidarPosition());
+      newFullScanReference.set(scanCollection);
    }
 
    public void handleLidarScanMessage(LidarScanMessage message)
@@ -7,20 +7,33 @@ import java.util.concurrent.atomic.AtomicReference;
 import controller_msgs.msg.dds.LidarScanMessage;
 import us.ihmc.euclid.geometry.Pose3D;
 import us.ihmc.euclid.tuple3D.Point3D;
-import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 import us.ihmc.euclid.tuple4D.Quaternion;
 import us.ihmc.jOctoMap.boundingBox.OcTreeBoundingBoxWithCenterAndYaw;
 import us.ihmc.jOctoMap.node.NormalOcTreeNode;
 import us.ihmc.jOctoMap.normalEstimation.NormalEstimationParameters;
 import us.ihmc.jOctoMap.ocTree.NormalOcTree;
-import us.ihmc.jOctoMap.pointCloud.PointCloud;
-import us.ihmc.jOctoMap.pointCloud.Scan;
 import us.ihmc.messager.Messager;
 import us.ihmc.robotEnvironmentAwareness.communication.REAModuleAPI;
 import us.ihmc.robotEnvironmentAwareness.communication.converters.BoundingBoxMessageConverter;
 import us.ihmc.robotEnvironmentAwareness.communication.packets.BoundingBoxParametersMessage;
 import us.ihmc.robotEnvironmentAwareness.io.FilePropertyHelper;
 
+/**
+ * Inserts the buffered lidar points in the main octree and updates its normals.
+ * <p>
+ * The points of a new buffer are inserted by chunks of at most {@link REAModuleAPI#OcTreeInsertionChunkSize} points. Each call to
+ * {@link #update()} inserts chunks until {@link REAModuleAPI#OcTreeInsertionMaxTime} is exceeded, at least one chunk, and the
+ * remaining points are inserted on the next calls before a new buffer is requested. This bounds the time spent per update such that
+ * a large buffer does not delay the planar region update. The normals are updated once all the points of a buffer are inserted.
+ * </p>
+ * <p>
+ * The occupancy of the octree is the same as when the buffer is inserted as a single scan, see {@link ChunkedScanInserter}.
+ * </p>
+ * <p>
+ * The nodes updated or deleted by a buffer are handed over to the planar region segmentation with {@link #pollChangedNodes()} once their normals
+ * are updated, such that the segmentation only has to be updated where the octree has changed.
+ * </p>
+ */
 public class REAOcTreeUpdater
 {
    private final Messager reaMessager;
@@ -41,6 +54,16 @@ public class REAOcTreeUpdater
    private final AtomicReference<Boolean> useBoundingBox;
    private final AtomicReference<BoundingBoxParametersMessage> atomicBoundingBoxParameters;
 
+   private final AtomicReference<Integer> insertionChunkSize;
+   private final AtomicReference<Double> insertionMaxTime;
+
+   private final ChunkedScanInserter scanInserter;
+   /** Nodes updated or deleted by the chunks of the current buffer, their normals are not updated yet. */
+   private final Set<NormalOcTreeNode> nodesUpdatedByBuffer = new HashSet<>();
+   /** Nodes updated since the last call to {@link #pollChangedNodes()}, {@code null} when the changes are unknown. */
+   private Set<NormalOcTreeNode> changedNodes = null;
+   private NormalEstimationParameters lastNormalEstimationParameters = null;
+
    public REAOcTreeUpdater(NormalOcTree octree, REAOcTreeBuffer buffer, Messager reaMessager)
    {
       this.referenceOctree = octree;
@@ -57,10 +80,12 @@ public class REAOcTreeUpdater
       useBoundingBox = reaMessager.createInput(REAModuleAPI.OcTreeBoundingBoxEnable, true);
       atomicBoundingBoxParameters = reaMessager.createInput(REAModuleAPI.OcTreeBoundingBoxParameters, BoundingBoxMessageConverter.createBoundingBoxParametersMessage(0.0f, -2.0f, -3.0f, 5.0f, 2.0f, 0.5f));
       normalEstimationParameters = reaMessager.createInput(REAModuleAPI.NormalEstimationParameters, new NormalEstimationParameters());
+      insertionChunkSize = reaMessager.createInput(REAModuleAPI.OcTreeInsertionChunkSize, 5000);
+      insertionMaxTime = reaMessager.createInput(REAModuleAPI.OcTreeInsertionMaxTime, 0.1);
 
       reaMessager.registerTopicListener(REAModuleAPI.RequestEntireModuleState, messageContent -> sendCurrentState());
 
-      referenceOctree.setCustomRayMissProbabilityUpdater(new AdaptiveRayMissProbabilityUpdater());
+      scanInserter = new ChunkedScanInserter(referenceOctree, new AdaptiveRayMissProbabilityUpdater());
    }
 
    private void sendCurrentState()
@@ -73,6 +98,8 @@ public class REAOcTreeUpdater
 
       reaMessager.submitMessage(REAModuleAPI.OcTreeBoundingBoxParameters, atomicBoundingBoxParameters.get());
       reaMessager.submitMessage(REAModuleAPI.NormalEstimationParameters, normalEstimationParameters.get());
+      reaMessager.submitMessage(REAModuleAPI.OcTreeInsertionChunkSize, insertionChunkSize.get());
+      reaMessager.submitMessage(REAModuleAPI.OcTreeInsertionMaxTime, insertionMaxTime.get());
    }
 
    public void loadConfiguration(FilePropertyHelper filePropertyHelper)
@@ -98,6 +125,12 @@ public class REAOcTreeUpdater
       Double maxRangeFile = filePropertyHelper.loadDoubleProperty(REAModuleAPI.LidarMaxRange.getName());
       if (maxRangeFile != null)
          maxRange.set(maxRangeFile);
+      Integer insertionChunkSizeFile = filePropertyHelper.loadIntegerProperty(REAModuleAPI.OcTreeInsertionChunkSize.getName());
+      if (insertionChunkSizeFile != null)
+         insertionChunkSize.set(insertionChunkSizeFile);
+      Double insertionMaxTimeFile = filePropertyHelper.loadDoubleProperty(REAModuleAPI.OcTreeInsertionMaxTime.getName());
+      if (insertionMaxTimeFile != null)
+         insertionMaxTime.set(insertionMaxTimeFile);
    }
 
    public void saveConfiguration(FilePropertyHelper filePropertyHelper)
@@ -110,6 +143,8 @@ public class REAOcTreeUpdater
       filePropertyHelper.saveProperty(REAModuleAPI.OcTreeBoundingBoxParameters.getName(), atomicBoundingBoxParameters.get().toString());
       filePropertyHelper.saveProperty(REAModuleAPI.LidarMinRange.getName(), minRange.get());
       filePropertyHelper.saveProperty(REAModuleAPI.LidarMaxRange.getName(), maxRange.get());
+      filePropertyHelper.saveProperty(REAModuleAPI.OcTreeInsertionChunkSize.getName(), insertionChunkSize.get());
+      filePropertyHelper.saveProperty(REAModuleAPI.OcTreeInsertionMaxTime.getName(), insertionMaxTime.get());
    }
 
    public void update()
@@ -124,43 +159,74 @@ public class REAOcTreeUpdater
          referenceOctree.setBoundsInsertRange(minRange.get(), maxRange.get());
       }
 
+      if (normalEstimationParameters.get() != lastNormalEstimationParameters)
+      {
+         // All the normals may change
+         lastNormalEstimationParameters = normalEstimationParameters.get();
+         changedNodes = null;
+      }
       referenceOctree.setNormalEstimationParameters(normalEstimationParameters.get());
 
       if (latestLidarPoseReference.get() == null)
          return;
 
-      Point3DReadOnly sensorOrigin = latestLidarPoseReference.get().getPosition();
-
-      boolean isBufferFull = reaOcTreeBuffer.isBufferFull();
-      if (isBufferFull)
-         reaOcTreeBuffer.submitBufferRequest();
-
-      NormalOcTree bufferOctree = reaOcTreeBuffer.pollNewBuffer();
-
-      if (bufferOctree != null)
+      if (!scanInserter.hasPendingPoints())
       {
-         PointCloud pointCloud = new PointCloud();
-         bufferOctree.forEach(node -> pointCloud.add(node.getHitLocationX(), node.getHitLocationY(), node.getHitLocationZ()));
-         Scan scan = new Scan(sensorOrigin, pointCloud);
-         Set<NormalOcTreeNode> updatedNodes = new HashSet<>();
-         referenceOctree.insertScan(scan, updatedNodes, null);
+         if (reaOcTreeBuffer.isBufferFull())
+            reaOcTreeBuffer.submitBufferRequest();
+
+         NormalOcTree bufferOctree = reaOcTreeBuffer.pollNewBuffer();
+
+         if (bufferOctree != null)
+         {
+            double minInsertRange = minRange.get() == null ? -1.0 : minRange.get();
+            double maxInsertRange = maxRange.get() == null ? -1.0 : maxRange.get();
+            scanInserter.startScan(latestLidarPoseReference.get().getPosition(), minInsertRange, maxInsertRange);
+            bufferOctree.forEach(node -> scanInserter.addPoint(node.getHitLocationX(), node.getHitLocationY(), node.getHitLocationZ()));
+         }
       }
 
+      boolean hasInsertedPoints = scanInserter.insertChunks(insertionChunkSize.get(), insertionMaxTime.get(), nodesUpdatedByBuffer);
+
       if (clearNormals.getAndSet(false))
       {
          referenceOctree.clearNormals();
+         nodesUpdatedByBuffer.clear();
+         changedNodes = null;
          return;
       }
 
-      if (bufferOctree == null || !enableNormalEstimation.get())
+      // The normals are updated once per buffer, when its last chunk is inserted
+      if (!hasInsertedPoints || scanInserter.hasPendingPoints())
          return;
 
-      referenceOctree.updateNormals();
+      if (enableNormalEstimation.get())
+         referenceOctree.updateNormals();
+
+      if (changedNodes != null)
+         changedNodes.addAll(nodesUpdatedByBuffer);
+      nodesUpdatedByBuffer.clear();
+   }
+
+   /**
+    * Gets the nodes that have been updated or deleted since the last call, once the normals of all of them are updated.
+    *
+    * @return the changed nodes, or {@code null} if they are unknown, e.g. after the octree or its normals have been cleared, in which
+    *         case the entire octree has to be considered.
+    */
+   public Set<NormalOcTreeNode> pollChangedNodes()
+   {
+      Set<NormalOcTreeNode> polledNodes = changedNodes;
+      changedNodes = new HashSet<>();
+      return polledNodes;
    }
 
    public void clearOcTree()
    {
       referenceOctree.clear();
+      scanInserter.clear();
+      nodesUpdatedByBuffer.clear();
+      changedNodes = null;
    }
 
    private void handleBoundingBox()
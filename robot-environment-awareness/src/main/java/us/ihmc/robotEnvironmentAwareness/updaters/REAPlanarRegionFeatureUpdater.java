@@ -1,10 +1,12 @@
 package us.ihmc.robotEnvironmentAwareness.updaters;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import us.ihmc.euclid.geometry.LineSegment3D;
+import us.ihmc.jOctoMap.node.NormalOcTreeNode;
 import us.ihmc.jOctoMap.ocTree.NormalOcTree;
 import us.ihmc.messager.Messager;
 import us.ihmc.robotEnvironmentAwareness.communication.REAModuleAPI;
@@ -13,6 +15,7 @@ import us.ihmc.robotEnvironmentAwareness.io.FilePropertyHelper;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.IntersectionEstimationParameters;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionIntersectionCalculator;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionPolygonizer;
+import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionPolygonizerCache;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationCalculator;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationNodeData;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationParameters;
@@ -34,6 +37,7 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
    private final NormalOcTree octree;
 
    private final PlanarRegionSegmentationCalculator segmentationCalculator = new PlanarRegionSegmentationCalculator();
+   private final PlanarRegionPolygonizerCache polygonizerCache = new PlanarRegionPolygonizerCache();
 
    private PlanarRegionsList planarRegionsList = null;
    private List<LineSegment3D> planarRegionsIntersections = null;
@@ -54,6 +58,7 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
    {
       this.octree = octree;
       this.reaMessager = reaMessager;
+      polygonizerCache.setCellSize(octree.getResolution());
 
       isOcTreeEnabled = reaMessager.createInput(REAModuleAPI.OcTreeEnable, true);
       enableSegmentation = reaMessager.createInput(REAModuleAPI.PlanarRegionsSegmentationEnable, true);
@@ -125,7 +130,10 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
       filePropertyHelper.saveProperty(REAModuleAPI.PlanarRegionsIntersectionParameters.getName(), intersectionEstimationParameters.get().toString());
    }
 
-   public void update()
+   /**
+    * @param changedNodes the nodes of the octree updated since the last call, or {@code null} to segment the entire octree.
+    */
+   public void update(Collection<NormalOcTreeNode> changedNodes)
    {
       if (!isOcTreeEnabled.get())
          return;
@@ -133,6 +141,7 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
       if (clearSegmentation.getAndSet(false))
       {
          segmentationCalculator.clear();
+         polygonizerCache.clear();
          return;
       }
 
@@ -145,7 +154,7 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
       segmentationCalculator.setBoundingBox(octree.getBoundingBox());
       segmentationCalculator.setParameters(planarRegionSegmentationParameters.get());
 
-      timeReporter.run(() -> segmentationCalculator.compute(octree.getRoot()), segmentationTimeReport);
+      timeReporter.run(() -> segmentationCalculator.compute(octree.getRoot(), changedNodes), segmentationTimeReport);
 
       List<PlanarRegionSegmentationRawData> rawData = segmentationCalculator.getSegmentationRawData();
 
@@ -155,6 +164,7 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
       if (clearPolygonizer.getAndSet(false))
       {
          planarRegionsList = null;
+         polygonizerCache.clear();
       }
       else if (enablePolygonizer.get())
       {
@@ -165,6 +175,7 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
    public void clearOcTree()
    {
       segmentationCalculator.clear();
+      polygonizerCache.clear();
    }
 
    private void updatePolygons(List<PlanarRegionSegmentationRawData> rawData)
@@ -173,9 +184,11 @@ public class REAPlanarRegionFeatureUpdater implements RegionFeaturesProvider
       PolygonizerParameters polygonizerParameters = this.polygonizerParameters.get();
 
       if (EXPORT_SEGMENTATION_ON_EXCEPTION)
-         planarRegionsList = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, dataExporter);
+         planarRegionsList = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, polygonizerCache,
+                                                                             dataExporter);
       else
-         planarRegionsList = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters);
+         planarRegionsList = PlanarRegionPolygonizer.createPlanarRegionsList(rawData, concaveHullFactoryParameters, polygonizerParameters, polygonizerCache,
+                                                                             null);
    }
    
    private void updateIntersections(List<PlanarRegionSegmentationRawData> rawData)
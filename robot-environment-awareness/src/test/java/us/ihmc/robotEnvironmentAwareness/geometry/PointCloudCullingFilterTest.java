@@ -0,0 +1,146 @@
+package us.ihmc.robotEnvironmentAwareness.geometry;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+
+public class PointCloudCullingFilterTest
+{
+   private static final int NUMBER_OF_ITERATIONS = 100;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRange() throws Exception
+   {
+      PointCloudCullingFilter filter = new PointCloudCullingFilter();
+      RigidBodyTransform sensorPose = new RigidBodyTransform();
+      sensorPose.setTranslation(1.0, 0.0, 1.0);
+      filter.setSensorPose(sensorPose);
+
+      // All points are kept by default
+      assertTrue(filter.isInside(1.0, 0.0, 1.0));
+      assertTrue(filter.isInside(-100.0, 50.0, 1.0));
+
+      filter.setRange(0.5, 2.0);
+      assertFalse(filter.isInside(1.0, 0.0, 1.0));
+      assertFalse(filter.isInside(1.4, 0.0, 1.0));
+      assertTrue(filter.isInside(1.6, 0.0, 1.0));
+      assertTrue(filter.isInside(1.0, -1.9, 1.0));
+      // Behind the sensor, there is no frustum
+      assertTrue(filter.isInside(1.0, 0.0, -0.9));
+      assertFalse(filter.isInside(1.0, 0.0, -1.1));
+      assertFalse(filter.isInside(3.5, 0.0, 1.0));
+
+      TFloatArrayList points = new TFloatArrayList(new float[] {1.0f, 0.0f, 1.0f, 2.0f, 0.0f, 1.0f, 5.0f, 0.0f, 1.0f, 1.0f, 1.0f, 1.0f});
+      TIntArrayList colors = new TIntArrayList(new int[] {1, 2, 3, 4});
+
+      assertEquals(2, filter.filter(points, colors));
+      assertEquals(6, points.size());
+      assertEquals(2, colors.size());
+      assertEquals(2.0f, points.get(0), 0.0f);
+      assertEquals(1.0f, points.get(4), 0.0f);
+      assertEquals(2, colors.get(0));
+      assertEquals(4, colors.get(1));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testFrustum() throws Exception
+   {
+      PointCloudCullingFilter filter = new PointCloudCullingFilter();
+      RigidBodyTransform sensorPose = new RigidBodyTransform();
+      // Looking along the y-axis of the world
+      sensorPose.setRotationYawAndZeroTranslation(0.5 * Math.PI);
+      sensorPose.setTranslation(0.0, 0.0, 1.0);
+      filter.setSensorPose(sensorPose);
+      filter.setFieldOfView(0.5 * Math.PI, 0.25 * Math.PI);
+
+      assertTrue(filter.isInside(0.0, 1.0, 1.0));
+      assertTrue(filter.isInside(0.9, 1.0, 1.0));
+      assertTrue(filter.isInside(-0.9, 1.0, 1.0));
+      assertFalse(filter.isInside(1.1, 1.0, 1.0));
+      assertFalse(filter.isInside(-1.1, 1.0, 1.0));
+      assertTrue(filter.isInside(0.0, 1.0, 1.4));
+      assertFalse(filter.isInside(0.0, 1.0, 1.5));
+      assertFalse(filter.isInside(0.0, 1.0, 0.5));
+      assertFalse(filter.isInside(0.0, -1.0, 1.0));
+      assertFalse(filter.isInside(0.0, 0.0, 1.0));
+
+      filter.disableFrustum();
+      assertTrue(filter.isInside(0.0, -1.0, 1.0));
+
+      try
+      {
+         filter.setFieldOfView(Math.PI, 0.5);
+         fail("Should have thrown an exception");
+      }
+      catch (IllegalArgumentException e)
+      {
+         // Expected
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testRandomPointClouds() throws Exception
+   {
+      Random random = new Random(2341L);
+      PointCloudCullingFilter filter = new PointCloudCullingFilter();
+
+      for (int i = 0; i < NUMBER_OF_ITERATIONS; i++)
+      {
+         RigidBodyTransform sensorPose = new RigidBodyTransform();
+         sensorPose.setRotationYawPitchRoll(2.0 * Math.PI * random.nextDouble(), random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+         sensorPose.setTranslation(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble());
+         filter.setSensorPose(sensorPose);
+         double minRange = 0.5 * random.nextDouble();
+         double maxRange = minRange + 3.0 * random.nextDouble();
+         filter.setRange(minRange, maxRange);
+         double horizontalFieldOfView = 0.1 + 2.9 * random.nextDouble();
+         double verticalFieldOfView = 0.1 + 2.9 * random.nextDouble();
+         filter.setFieldOfView(horizontalFieldOfView, verticalFieldOfView);
+
+         int numberOfPoints = random.nextInt(2000);
+         TFloatArrayList points = new TFloatArrayList();
+         TIntArrayList colors = new TIntArrayList();
+         TFloatArrayList expectedPoints = new TFloatArrayList();
+         TIntArrayList expectedColors = new TIntArrayList();
+
+         for (int j = 0; j < numberOfPoints; j++)
+         {
+            float x = (float) (8.0 * random.nextDouble() - 4.0);
+            float y = (float) (8.0 * random.nextDouble() - 4.0);
+            float z = (float) (4.0 * random.nextDouble() - 2.0);
+            points.add(new float[] {x, y, z});
+            colors.add(j);
+
+            // The point in the sensor frame, in spherical coordinates
+            Point3D pointInSensorFrame = new Point3D(x, y, z);
+            sensorPose.inverseTransform(pointInSensorFrame);
+            double range = pointInSensorFrame.distanceFromOrigin();
+            double azimuth = Math.atan2(pointInSensorFrame.getY(), pointInSensorFrame.getX());
+            double elevation = Math.atan2(pointInSensorFrame.getZ(), pointInSensorFrame.getX());
+
+            if (range < minRange || range > maxRange || pointInSensorFrame.getX() <= 0.0)
+               continue;
+            if (Math.abs(azimuth) > 0.5 * horizontalFieldOfView || Math.abs(elevation) > 0.5 * verticalFieldOfView)
+               continue;
+
+            expectedPoints.add(new float[] {x, y, z});
+            expectedColors.add(j);
+         }
+
+         assertEquals(expectedColors.size(), filter.filter(points, colors));
+         assertEquals(expectedPoints, points);
+         assertEquals(expectedColors, colors);
+      }
+   }
+}
@@ -0,0 +1,112 @@
+package us.ihmc.robotEnvironmentAwareness.geometry;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.robotEnvironmentAwareness.geometry.VoxelGridDownsampler.Mode;
+
+public class VoxelGridDownsamplerTest
+{
+   private static final int NUMBER_OF_ITERATIONS = 100;
+   private static final double EPS = 1.0e-5;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testCentroidAndFirstHit() throws Exception
+   {
+      VoxelGridDownsampler downsampler = new VoxelGridDownsampler(0.1);
+
+      for (Mode mode : Mode.values())
+      {
+         downsampler.setMode(mode);
+         TFloatArrayList points = new TFloatArrayList(new float[] {0.01f, 0.01f, 0.01f, 0.5f, 0.5f, 0.5f, 0.03f, 0.05f, 0.07f, Float.NaN, 0.0f, 0.0f});
+         TIntArrayList colors = new TIntArrayList(new int[] {1, 2, 3, 4});
+
+         assertEquals(2, downsampler.downsample(points, colors));
+         assertEquals(6, points.size());
+         assertEquals(2, colors.size());
+
+         if (mode == Mode.CENTROID)
+         {
+            assertEquals(0.02, points.get(0), EPS);
+            assertEquals(0.03, points.get(1), EPS);
+            assertEquals(0.04, points.get(2), EPS);
+         }
+         else
+         {
+            assertEquals(0.01, points.get(0), EPS);
+            assertEquals(0.01, points.get(1), EPS);
+            assertEquals(0.01, points.get(2), EPS);
+         }
+         assertEquals(0.5, points.get(3), EPS);
+         assertEquals(0.5, points.get(4), EPS);
+         assertEquals(0.5, points.get(5), EPS);
+         assertEquals(1, colors.get(0));
+         assertEquals(2, colors.get(1));
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testRandomPointClouds() throws Exception
+   {
+      Random random = new Random(5643L);
+      VoxelGridDownsampler downsampler = new VoxelGridDownsampler(0.05);
+
+      for (int i = 0; i < NUMBER_OF_ITERATIONS; i++)
+      {
+         double resolution = 0.01 + 0.2 * random.nextDouble();
+         downsampler.setResolution(resolution);
+         downsampler.setMode(random.nextBoolean() ? Mode.CENTROID : Mode.FIRST_HIT);
+
+         int numberOfPoints = random.nextInt(5000);
+         TFloatArrayList points = new TFloatArrayList();
+         TIntArrayList colors = new TIntArrayList();
+         Set<Point3D> occupiedVoxels = new HashSet<>();
+
+         for (int j = 0; j < numberOfPoints; j++)
+         {
+            float x = (float) (4.0 * random.nextDouble() - 2.0);
+            float y = (float) (4.0 * random.nextDouble() - 2.0);
+            float z = (float) (random.nextDouble() - 0.5);
+            points.add(new float[] {x, y, z});
+            colors.add(j);
+            occupiedVoxels.add(toVoxel(x, y, z, resolution));
+         }
+
+         TFloatArrayList originalPoints = new TFloatArrayList(points);
+         int numberOfVoxels = downsampler.downsample(points, colors);
+
+         assertEquals(occupiedVoxels.size(), numberOfVoxels);
+         assertEquals(3 * numberOfVoxels, points.size());
+         assertEquals(numberOfVoxels, colors.size());
+
+         Set<Point3D> remainingVoxels = new HashSet<>();
+
+         for (int voxel = 0; voxel < numberOfVoxels; voxel++)
+         {
+            Point3D voxelKey = toVoxel(points.get(3 * voxel), points.get(3 * voxel + 1), points.get(3 * voxel + 2), resolution);
+            assertTrue(remainingVoxels.add(voxelKey));
+
+            // The color is the one of the first point of the voxel
+            int firstPointIndex = colors.get(voxel);
+            assertEquals(voxelKey, toVoxel(originalPoints.get(3 * firstPointIndex), originalPoints.get(3 * firstPointIndex + 1),
+                                           originalPoints.get(3 * firstPointIndex + 2), resolution));
+         }
+      }
+   }
+
+   private static Point3D toVoxel(double x, double y, double z, double resolution)
+   {
+      return new Point3D(Math.floor(x / resolution), Math.floor(y / resolution), Math.floor(z / resolution));
+   }
+}
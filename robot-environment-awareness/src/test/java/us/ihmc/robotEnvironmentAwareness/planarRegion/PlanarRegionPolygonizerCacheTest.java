@@ -0,0 +1,185 @@
+package us.ihmc.robotEnvironmentAwareness.planarRegion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.geometry.LineSegment2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.robotEnvironmentAwareness.geometry.ConcaveHullFactoryParameters;
+import us.ihmc.robotics.geometry.PlanarRegion;
+
+public class PlanarRegionPolygonizerCacheTest
+{
+   private static final double CELL_SIZE = 0.02;
+   private static final int GRID_SIZE = 20;
+   private static final int REGION_ID = 3;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testHitWhenNodesAreUnchanged()
+   {
+      Random random = new Random(4587L);
+      ConcaveHullFactoryParameters concaveHullFactoryParameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
+      PlanarRegionPolygonizerCache cache = createCache();
+
+      cache.put(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters, createPlanarRegions());
+
+      // The hit locations moved within their nodes
+      List<PlanarRegion> planarRegions = cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters);
+      assertNotNull(planarRegions);
+      assertEquals(1, planarRegions.size());
+
+      // Parameters that are equal but not the same instance
+      planarRegions = cache.get(createRawData(createGrid(random), new Point3D()), new ConcaveHullFactoryParameters(concaveHullFactoryParameters),
+                                new PolygonizerParameters(polygonizerParameters));
+      assertNotNull(planarRegions);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testMissWhenNodesChange()
+   {
+      Random random = new Random(4587L);
+      ConcaveHullFactoryParameters concaveHullFactoryParameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
+      PlanarRegionPolygonizerCache cache = createCache();
+
+      cache.put(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters, createPlanarRegions());
+
+      // A hole in the middle of the region, the number of points and the bounding box barely change
+      List<Point3D> pointsWithHole = createGrid(random);
+      pointsWithHole.remove(GRID_SIZE * GRID_SIZE / 2 + GRID_SIZE / 2);
+      assertNull(cache.get(createRawData(pointsWithHole, new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+
+      // A node moved to a neighboring cell, the number of points does not change
+      List<Point3D> pointsWithMovedNode = createGrid(random);
+      pointsWithMovedNode.get(GRID_SIZE * GRID_SIZE / 2 + GRID_SIZE / 2).add(0.0, 0.0, CELL_SIZE);
+      assertNull(cache.get(createRawData(pointsWithMovedNode, new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+
+      // A node added along the boundary
+      List<Point3D> pointsWithAddedNode = createGrid(random);
+      pointsWithAddedNode.add(new Point3D(-0.5 * CELL_SIZE, 0.5 * CELL_SIZE, 0.5 * CELL_SIZE));
+      assertNull(cache.get(createRawData(pointsWithAddedNode, new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+
+      // The plane moved
+      assertNull(cache.get(createRawData(createGrid(random), new Point3D(0.0, 0.0, 0.05)), concaveHullFactoryParameters, polygonizerParameters));
+
+      // The comparison is made with the nodes that were polygonized, the changes above did not replace them
+      assertNotNull(cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+
+      // A tolerance on the number of changed nodes allows the hole
+      cache.setMaxChangedNodesRatio(0.01);
+      assertNotNull(cache.get(createRawData(pointsWithHole, new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testParametersInvalidateTheCache()
+   {
+      Random random = new Random(4587L);
+      ConcaveHullFactoryParameters concaveHullFactoryParameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
+      PlanarRegionPolygonizerCache cache = createCache();
+
+      cache.put(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters, createPlanarRegions());
+
+      ConcaveHullFactoryParameters otherConcaveHullFactoryParameters = new ConcaveHullFactoryParameters(concaveHullFactoryParameters);
+      otherConcaveHullFactoryParameters.setEdgeLengthThreshold(2.0 * concaveHullFactoryParameters.getEdgeLengthThreshold());
+      assertNull(cache.get(createRawData(createGrid(random), new Point3D()), otherConcaveHullFactoryParameters, polygonizerParameters));
+
+      PolygonizerParameters otherPolygonizerParameters = new PolygonizerParameters(polygonizerParameters);
+      otherPolygonizerParameters.setDepthThreshold(2.0 * polygonizerParameters.getDepthThreshold());
+      assertNull(cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, otherPolygonizerParameters));
+
+      assertNotNull(cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+
+      // The parameters used to polygonize are modified in place
+      polygonizerParameters.setShallowAngleThreshold(2.0 * polygonizerParameters.getShallowAngleThreshold());
+      assertNull(cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+
+      cache.put(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters, createPlanarRegions());
+      assertNotNull(cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+
+      // The key of a node depends on the cell size
+      cache.setCellSize(2.0 * CELL_SIZE);
+      assertNull(cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testRegionsWithIntersectionsAreNotCached()
+   {
+      Random random = new Random(4587L);
+      ConcaveHullFactoryParameters concaveHullFactoryParameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
+      PlanarRegionPolygonizerCache cache = createCache();
+
+      PlanarRegionSegmentationRawData rawData = createRawData(createGrid(random), new Point3D());
+      rawData.addIntersection(new LineSegment2D(0.0, 0.0, 0.1, 0.1));
+      cache.put(rawData, concaveHullFactoryParameters, polygonizerParameters, createPlanarRegions());
+      assertNull(cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+
+      cache.put(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters, createPlanarRegions());
+      assertNull(cache.get(rawData, concaveHullFactoryParameters, polygonizerParameters));
+
+      cache.retainRegions(Collections.emptyList());
+      assertNull(cache.get(createRawData(createGrid(random), new Point3D()), concaveHullFactoryParameters, polygonizerParameters));
+   }
+
+   private static PlanarRegionPolygonizerCache createCache()
+   {
+      PlanarRegionPolygonizerCache cache = new PlanarRegionPolygonizerCache();
+      cache.setCellSize(CELL_SIZE);
+      return cache;
+   }
+
+   /**
+    * One point per cell of the horizontal plane z = 0, at a random location in the cell.
+    */
+   private static List<Point3D> createGrid(Random random)
+   {
+      List<Point3D> points = new ArrayList<>();
+      for (int i = 0; i < GRID_SIZE; i++)
+      {
+         for (int j = 0; j < GRID_SIZE; j++)
+         {
+            double x = (i + 0.1 + 0.8 * random.nextDouble()) * CELL_SIZE;
+            double y = (j + 0.1 + 0.8 * random.nextDouble()) * CELL_SIZE;
+            double z = (0.1 + 0.8 * random.nextDouble()) * CELL_SIZE;
+            points.add(new Point3D(x, y, z));
+         }
+      }
+      return points;
+   }
+
+   private static PlanarRegionSegmentationRawData createRawData(List<Point3D> points, Point3D origin)
+   {
+      return new PlanarRegionSegmentationRawData(REGION_ID, new Vector3D(0.0, 0.0, 1.0), origin, points);
+   }
+
+   private static List<PlanarRegion> createPlanarRegions()
+   {
+      ConvexPolygon2D polygon = new ConvexPolygon2D();
+      polygon.addVertex(0.0, 0.0);
+      polygon.addVertex(GRID_SIZE * CELL_SIZE, 0.0);
+      polygon.addVertex(GRID_SIZE * CELL_SIZE, GRID_SIZE * CELL_SIZE);
+      polygon.addVertex(0.0, GRID_SIZE * CELL_SIZE);
+      polygon.update();
+      List<PlanarRegion> planarRegions = new ArrayList<>();
+      planarRegions.add(new PlanarRegion(new RigidBodyTransform(), polygon));
+      return planarRegions;
+   }
+}
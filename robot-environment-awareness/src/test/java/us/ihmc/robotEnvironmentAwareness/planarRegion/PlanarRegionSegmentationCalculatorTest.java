@@ -0,0 +1,137 @@
+package us.ihmc.robotEnvironmentAwareness.planarRegion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.jOctoMap.node.NormalOcTreeNode;
+import us.ihmc.jOctoMap.ocTree.NormalOcTree;
+import us.ihmc.jOctoMap.pointCloud.PointCloud;
+import us.ihmc.jOctoMap.pointCloud.Scan;
+
+public class PlanarRegionSegmentationCalculatorTest
+{
+   private static final double RESOLUTION = 0.05;
+   private static final double NORMAL_EPSILON = 1.0e-5;
+   private static final int NUMBER_OF_INSERTIONS_PER_UPDATE = 3;
+
+   @ContinuousIntegrationTest(estimatedDuration = 5.0)
+   @Test(timeout = 60000)
+   public void testIncrementalSegmentationMatchesFullSegmentation()
+   {
+      NormalOcTree octree = new NormalOcTree(RESOLUTION);
+      Set<NormalOcTreeNode> changedNodes = new HashSet<>();
+
+      PlanarRegionSegmentationParameters parameters = new PlanarRegionSegmentationParameters();
+      PlanarRegionSegmentationCalculator incrementalCalculator = new PlanarRegionSegmentationCalculator();
+      PlanarRegionSegmentationCalculator fullCalculator = new PlanarRegionSegmentationCalculator();
+      incrementalCalculator.setParameters(parameters);
+      fullCalculator.setParameters(parameters);
+
+      Point3D sensorAboveFloor = new Point3D(-0.4, -0.4, 2.0);
+      Point3D sensorAboveTable = new Point3D(0.35, 0.35, 2.0);
+      Point3D sensorInFrontOfWall = new Point3D(0.0, 0.0, 0.6);
+
+      // The floor without the area under the table top
+      PointCloud floor = new PointCloud();
+      addHorizontalSquare(floor, -0.75, -0.75, 0.0, 0.6);
+      addHorizontalSquare(floor, -0.75, 0.15, 0.0, 0.6);
+      PointCloud wall = new PointCloud();
+      addWall(wall, 1.0, -0.5, 0.5, 0.2, 1.0);
+      PointCloud tableTop = new PointCloud();
+      addHorizontalSquare(tableTop, 0.2, 0.2, 0.3, 0.3);
+      PointCloud floorExtension = new PointCloud();
+      addHorizontalSquare(floorExtension, 0.15, -0.75, 0.0, 0.6);
+      // Seen through the table top once it has been removed, the rays clear the cells of the table top
+      PointCloud floorUnderTable = new PointCloud();
+      addHorizontalSquare(floorUnderTable, 0.2, 0.2, 0.0, 0.3);
+
+      insert(octree, floor, sensorAboveFloor, changedNodes);
+      insert(octree, wall, sensorInFrontOfWall, changedNodes);
+      updateAndCompare(octree, changedNodes, incrementalCalculator, fullCalculator);
+
+      insert(octree, tableTop, sensorAboveTable, changedNodes);
+      updateAndCompare(octree, changedNodes, incrementalCalculator, fullCalculator);
+
+      insert(octree, floorExtension, sensorAboveFloor, changedNodes);
+      updateAndCompare(octree, changedNodes, incrementalCalculator, fullCalculator);
+
+      // No change
+      updateAndCompare(octree, changedNodes, incrementalCalculator, fullCalculator);
+
+      for (int i = 0; i < 5; i++)
+         insert(octree, floorUnderTable, sensorAboveTable, changedNodes);
+      updateAndCompare(octree, changedNodes, incrementalCalculator, fullCalculator);
+   }
+
+   private static void updateAndCompare(NormalOcTree octree, Set<NormalOcTreeNode> changedNodes, PlanarRegionSegmentationCalculator incrementalCalculator,
+                                        PlanarRegionSegmentationCalculator fullCalculator)
+   {
+      octree.updateNormals();
+
+      incrementalCalculator.compute(octree.getRoot(), changedNodes);
+      fullCalculator.compute(octree.getRoot());
+      changedNodes.clear();
+
+      List<PlanarRegionSegmentationNodeData> expectedRegions = fullCalculator.getSegmentationNodeData();
+      List<PlanarRegionSegmentationNodeData> actualRegions = incrementalCalculator.getSegmentationNodeData();
+      assertFalse(expectedRegions.isEmpty());
+      assertEquals(expectedRegions.size(), actualRegions.size());
+
+      Map<Set<NormalOcTreeNode>, PlanarRegionSegmentationNodeData> actualRegionsByNodes = new HashMap<>();
+      for (PlanarRegionSegmentationNodeData actualRegion : actualRegions)
+         actualRegionsByNodes.put(actualRegion.nodeStream().collect(Collectors.toSet()), actualRegion);
+
+      for (PlanarRegionSegmentationNodeData expectedRegion : expectedRegions)
+      {
+         PlanarRegionSegmentationNodeData actualRegion = actualRegionsByNodes.get(expectedRegion.nodeStream().collect(Collectors.toSet()));
+         assertNotNull("No region with the same nodes as " + expectedRegion, actualRegion);
+         assertTrue(Math.abs(expectedRegion.absoluteDot(actualRegion) - 1.0) < NORMAL_EPSILON);
+      }
+   }
+
+   private static void insert(NormalOcTree octree, PointCloud pointCloud, Point3D sensorOrigin, Set<NormalOcTreeNode> changedNodesToPack)
+   {
+      Set<NormalOcTreeNode> updatedNodes = new HashSet<>();
+      Set<NormalOcTreeNode> deletedNodes = new HashSet<>();
+
+      for (int i = 0; i < NUMBER_OF_INSERTIONS_PER_UPDATE; i++)
+      {
+         octree.insertScan(new Scan(sensorOrigin, pointCloud), updatedNodes, deletedNodes);
+         changedNodesToPack.addAll(updatedNodes);
+         changedNodesToPack.addAll(deletedNodes);
+         updatedNodes.clear();
+         deletedNodes.clear();
+      }
+   }
+
+   private static void addHorizontalSquare(PointCloud pointCloud, double minX, double minY, double z, double size)
+   {
+      for (double x = minX; x < minX + size; x += 0.7 * RESOLUTION)
+      {
+         for (double y = minY; y < minY + size; y += 0.7 * RESOLUTION)
+            pointCloud.add(x, y, z);
+      }
+   }
+
+   private static void addWall(PointCloud pointCloud, double x, double minY, double maxY, double minZ, double maxZ)
+   {
+      for (double y = minY; y < maxY; y += 0.7 * RESOLUTION)
+      {
+         for (double z = minZ; z < maxZ; z += 0.7 * RESOLUTION)
+            pointCloud.add(x, y, z);
+      }
+   }
+}
@@ -0,0 +1,114 @@
+package us.ihmc.robotEnvironmentAwareness.updaters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.jOctoMap.key.OcTreeKey;
+import us.ihmc.jOctoMap.node.NormalOcTreeNode;
+import us.ihmc.jOctoMap.ocTree.NormalOcTree;
+import us.ihmc.jOctoMap.pointCloud.PointCloud;
+import us.ihmc.jOctoMap.pointCloud.Scan;
+
+public class ChunkedScanInserterTest
+{
+   private static final double RESOLUTION = 0.05;
+   private static final double EPSILON = 1.0e-7;
+
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testChunkedInsertionMatchesSingleScanInsertion()
+   {
+      NormalOcTree expectedOctree = new NormalOcTree(RESOLUTION);
+      expectedOctree.setCustomRayMissProbabilityUpdater(new AdaptiveRayMissProbabilityUpdater());
+      NormalOcTree actualOctree = new NormalOcTree(RESOLUTION);
+      ChunkedScanInserter inserter = new ChunkedScanInserter(actualOctree, new AdaptiveRayMissProbabilityUpdater());
+
+      Point3D sensorAboveFloor = new Point3D(0.0, 0.0, 2.0);
+      List<Point3D> floor = new ArrayList<>();
+      addHorizontalSquare(floor, -0.5, -0.5, 0.0, 1.5);
+      insert(expectedOctree, floor, sensorAboveFloor);
+      insert(inserter, floor, sensorAboveFloor, Integer.MAX_VALUE);
+
+      // Seen at a grazing angle, the rays to the far points cross the cells of the near points
+      Point3D sensorCloseToFloor = new Point3D(-1.0, 0.0, 0.3);
+      List<Point3D> floorAndWall = new ArrayList<>();
+      addHorizontalSquare(floorAndWall, -0.5, -0.5, 0.0, 1.5);
+      addWall(floorAndWall, 1.0, -0.5, 0.5, 0.0, 1.0);
+      insert(expectedOctree, floorAndWall, sensorCloseToFloor);
+      insert(inserter, floorAndWall, sensorCloseToFloor, 7);
+
+      Map<OcTreeKey, NormalOcTreeNode> expectedLeaves = collectLeaves(expectedOctree);
+      Map<OcTreeKey, NormalOcTreeNode> actualLeaves = collectLeaves(actualOctree);
+      assertFalse(expectedLeaves.isEmpty());
+      assertEquals(expectedLeaves.size(), actualLeaves.size());
+
+      for (Map.Entry<OcTreeKey, NormalOcTreeNode> entry : expectedLeaves.entrySet())
+      {
+         NormalOcTreeNode expectedNode = entry.getValue();
+         NormalOcTreeNode actualNode = actualLeaves.get(entry.getKey());
+         assertNotNull("No leaf at " + entry.getKey(), actualNode);
+         assertEquals(expectedNode.getLogOdds(), actualNode.getLogOdds(), EPSILON);
+         assertEquals(expectedOctree.isNodeOccupied(expectedNode), actualOctree.isNodeOccupied(actualNode));
+         assertEquals(expectedNode.getHitLocationX(), actualNode.getHitLocationX(), EPSILON);
+         assertEquals(expectedNode.getHitLocationY(), actualNode.getHitLocationY(), EPSILON);
+         assertEquals(expectedNode.getHitLocationZ(), actualNode.getHitLocationZ(), EPSILON);
+      }
+   }
+
+   private static void insert(NormalOcTree octree, List<Point3D> points, Point3D sensorOrigin)
+   {
+      PointCloud pointCloud = new PointCloud();
+      for (Point3D point : points)
+         pointCloud.add(point.getX(), point.getY(), point.getZ());
+      octree.insertScan(new Scan(sensorOrigin, pointCloud), new HashSet<>(), new HashSet<>());
+   }
+
+   private static void insert(ChunkedScanInserter inserter, List<Point3D> points, Point3D sensorOrigin, int chunkSize)
+   {
+      inserter.startScan(sensorOrigin, -1.0, -1.0);
+      for (Point3D point : points)
+         inserter.addPoint(point.getX(), point.getY(), point.getZ());
+
+      Set<NormalOcTreeNode> updatedNodes = new HashSet<>();
+      while (inserter.hasPendingPoints())
+         inserter.insertChunks(chunkSize, 0.0, updatedNodes);
+      assertFalse(updatedNodes.isEmpty());
+   }
+
+   private static Map<OcTreeKey, NormalOcTreeNode> collectLeaves(NormalOcTree octree)
+   {
+      Map<OcTreeKey, NormalOcTreeNode> leaves = new HashMap<>();
+      octree.forEach(node -> leaves.put(node.getKeyCopy(), node));
+      return leaves;
+   }
+
+   private static void addHorizontalSquare(List<Point3D> points, double minX, double minY, double z, double size)
+   {
+      for (double x = minX; x < minX + size; x += 0.7 * RESOLUTION)
+      {
+         for (double y = minY; y < minY + size; y += 0.7 * RESOLUTION)
+            points.add(new Point3D(x, y, z));
+      }
+   }
+
+   private static void addWall(List<Point3D> points, double x, double minY, double maxY, double minZ, double maxZ)
+   {
+      for (double y = minY; y < maxY; y += 0.7 * RESOLUTION)
+      {
+         for (double z = minZ; z < maxZ; z += 0.7 * RESOLUTION)
+            points.add(new Point3D(x, y, z));
+      }
+   }
+}
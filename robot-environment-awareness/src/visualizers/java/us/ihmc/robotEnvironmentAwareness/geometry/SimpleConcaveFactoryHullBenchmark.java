@@ -2,33 +2,125 @@ package us.ihmc.robotEnvironmentAwareness.geometry;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import us.ihmc.euclid.tuple2D.Point2D;
+import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionPolygonizer;
 import us.ihmc.robotEnvironmentAwareness.planarRegion.PlanarRegionSegmentationRawData;
+import us.ihmc.robotEnvironmentAwareness.planarRegion.PolygonizerParameters;
 import us.ihmc.robotEnvironmentAwareness.ui.io.PlanarRegionSegmentationRawDataImporter;
 
 /**
- * Simple infinite loop on the {@link SimpleConcaveHullFactory} for convenience for profiling the algorithm.
- * @author Sylvain Bertrand
+ * Benchmark of the {@link SimpleConcaveHullFactory} on recorded segmentation data.
+ * <p>
+ * For each number of threads, from 1 to the number of available processors, the concave hulls of all the regions are computed
+ * concurrently several times and the following are printed:
+ * <ul>
+ * <li>the latency per region, i.e. the time spent computing the concave hull of a single region,
+ * <li>the throughput, i.e. the number of regions processed per second,
+ * <li>the time taken by {@link PlanarRegionPolygonizer} to create all the planar regions.
+ * </ul>
+ * The data folder can be given as first argument.
+ * </p>
  *
+ * @author Sylvain Bertrand
  */
 public class SimpleConcaveFactoryHullBenchmark
 {
+   private static final int NUMBER_OF_WARMUP_RUNS = 5;
+   private static final int NUMBER_OF_RUNS = 20;
+
    public static void main(String[] args) throws IOException
    {
-      PlanarRegionSegmentationRawDataImporter dataImporter = new PlanarRegionSegmentationRawDataImporter(new File("../../Data/20161210_185643_PlanarRegionSegmentation_Atlas_CB"));
+      File dataFolder = new File(args.length > 0 ? args[0] : "../../Data/20161210_185643_PlanarRegionSegmentation_Atlas_CB");
+      PlanarRegionSegmentationRawDataImporter dataImporter = new PlanarRegionSegmentationRawDataImporter(dataFolder);
       dataImporter.loadPlanarRegionSegmentationData();
       List<PlanarRegionSegmentationRawData> regionsRawData = dataImporter.getPlanarRegionSegmentationRawData();
+      List<List<Point2D>> regionsPointsInPlane = new ArrayList<>();
+      regionsRawData.forEach(rawData -> regionsPointsInPlane.add(rawData.getPointCloudInPlane()));
+
       ConcaveHullFactoryParameters parameters = new ConcaveHullFactoryParameters();
+      PolygonizerParameters polygonizerParameters = new PolygonizerParameters();
 
-      while (true)
+      System.out.println("Number of regions: " + regionsRawData.size() + ", number of points: " + regionsRawData.stream().mapToInt(PlanarRegionSegmentationRawData::size).sum());
+
+      int maxNumberOfThreads = Runtime.getRuntime().availableProcessors();
+
+      for (int numberOfThreads = 1; numberOfThreads <= maxNumberOfThreads; numberOfThreads = nextNumberOfThreads(numberOfThreads, maxNumberOfThreads))
       {
-         for (PlanarRegionSegmentationRawData rawData : regionsRawData)
+         ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+
+         for (int run = 0; run < NUMBER_OF_WARMUP_RUNS; run++)
+            computeConcaveHulls(pool, regionsPointsInPlane, parameters);
+
+         double[] latencies = new double[NUMBER_OF_RUNS * regionsRawData.size()];
+         long startTime = System.nanoTime();
+
+         for (int run = 0; run < NUMBER_OF_RUNS; run++)
          {
-            List<Point2D> pointsInPlane = rawData.getPointCloudInPlane();
-            SimpleConcaveHullFactory.createConcaveHull(pointsInPlane, parameters);
+            double[] runLatencies = computeConcaveHulls(pool, regionsPointsInPlane, parameters);
+            System.arraycopy(runLatencies, 0, latencies, run * runLatencies.length, runLatencies.length);
          }
+
+         double totalTime = toSeconds(System.nanoTime() - startTime);
+
+         for (int run = 0; run < NUMBER_OF_WARMUP_RUNS; run++)
+            pool.submit(() -> PlanarRegionPolygonizer.createPlanarRegionsList(regionsRawData, parameters, polygonizerParameters)).join();
+
+         long polygonizerStartTime = System.nanoTime();
+         for (int run = 0; run < NUMBER_OF_RUNS; run++)
+            pool.submit(() -> PlanarRegionPolygonizer.createPlanarRegionsList(regionsRawData, parameters, polygonizerParameters)).join();
+         double polygonizerTime = toSeconds(System.nanoTime() - polygonizerStartTime) / NUMBER_OF_RUNS;
+
+         pool.shutdown();
+
+         Arrays.sort(latencies);
+         System.out.println(String.format("%2d threads: region latency (ms) average %.2f, median %.2f, 95th percentile %.2f, max %.2f, throughput %.1f regions/s, polygonizer %.1f ms",
+                                          numberOfThreads, 1.0e3 * Arrays.stream(latencies).average().orElse(Double.NaN), 1.0e3 * percentile(latencies, 0.5),
+                                          1.0e3 * percentile(latencies, 0.95), 1.0e3 * percentile(latencies, 1.0), latencies.length / totalTime,
+                                          1.0e3 * polygonizerTime));
       }
    }
+
+   /**
+    * @return the time in seconds spent on each region.
+    */
+   private static double[] computeConcaveHulls(ForkJoinPool pool, List<List<Point2D>> regionsPointsInPlane, ConcaveHullFactoryParameters parameters)
+   {
+      double[] latencies = new double[regionsPointsInPlane.size()];
+
+      pool.submit(() -> IntStream.range(0, regionsPointsInPlane.size()).parallel().forEach(regionIndex ->
+      {
+         long startTime = System.nanoTime();
+         SimpleConcaveHullFactory.createConcaveHull(regionsPointsInPlane.get(regionIndex), parameters);
+         latencies[regionIndex] = toSeconds(System.nanoTime() - startTime);
+      })).join();
+
+      return latencies;
+   }
+
+   private static int nextNumberOfThreads(int numberOfThreads, int maxNumberOfThreads)
+   {
+      if (numberOfThreads < maxNumberOfThreads && 2 * numberOfThreads > maxNumberOfThreads)
+         return maxNumberOfThreads;
+      else
+         return 2 * numberOfThreads;
+   }
+
+   private static double percentile(double[] sortedValues, double percentile)
+   {
+      if (sortedValues.length == 0)
+         return Double.NaN;
+      int index = (int) Math.ceil(percentile * sortedValues.length) - 1;
+      return sortedValues[Math.max(0, Math.min(index, sortedValues.length - 1))];
+   }
+
+   private static double toSeconds(long nanoseconds)
+   {
+      return nanoseconds * 1.0e-9;
+   }
 }
@@ -67,6 +67,30 @@ public class ValkyrieWholeBodyTrajectoryToolboxControllerTest extends AvatarWhol
       super.testOneBigCircle();
    }
 
+   @Override
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 10.6)
+   @Test(timeout = 53000)
+   public void testOneBigCircleWithOneCandidatePerUpdate() throws Exception, UnreasonableAccelerationException
+   {
+      super.testOneBigCircleWithOneCandidatePerUpdate();
+   }
+
+   @Override
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 10.6)
+   @Test(timeout = 53000)
+   public void testOneBigCircleWithSeveralCandidatesPerUpdate() throws Exception, UnreasonableAccelerationException
+   {
+      super.testOneBigCircleWithSeveralCandidatesPerUpdate();
+   }
+
+   @Override
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 21.2)
+   @Test(timeout = 106000)
+   public void testNumberOfCandidateValidationWorkersDoesNotChangeTheSolution() throws Exception, UnreasonableAccelerationException
+   {
+      super.testNumberOfCandidateValidationWorkersDoesNotChangeTheSolution();
+   }
+
    @Override
    @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.0)
    @Test(timeout = 120000)
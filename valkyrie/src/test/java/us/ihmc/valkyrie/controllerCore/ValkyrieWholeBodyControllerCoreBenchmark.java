@@ -0,0 +1,18 @@
+package us.ihmc.valkyrie.controllerCore;
+
+import us.ihmc.avatar.controllerCore.AvatarWholeBodyControllerCoreBenchmark;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.valkyrie.ValkyrieRobotModel;
+
+public class ValkyrieWholeBodyControllerCoreBenchmark extends AvatarWholeBodyControllerCoreBenchmark
+{
+   public ValkyrieWholeBodyControllerCoreBenchmark()
+   {
+      super(new ValkyrieRobotModel(RobotTarget.SCS, true));
+   }
+
+   public static void main(String[] args)
+   {
+      new ValkyrieWholeBodyControllerCoreBenchmark().runBenchmark();
+   }
+}
@@ -0,0 +1,64 @@
+package us.ihmc.valkyrie.controllerCore;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import us.ihmc.avatar.controllerCore.WholeBodyControllerCoreBenchmarkFixture;
+import us.ihmc.avatar.drcRobot.RobotTarget;
+import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.QPInput;
+import us.ihmc.valkyrie.ValkyrieRobotModel;
+
+/**
+ * JMH benchmarks of a single controller core tick and of the QP assembly by the {@code MotionQPInputCalculator} for Valkyrie, on a
+ * frozen mid-step state. See {@link ValkyrieWholeBodyControllerCoreBenchmark} for the latency distribution over a closed-loop scenario.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ValkyrieWholeBodyControllerCoreJMHBenchmark
+{
+   private WholeBodyControllerCoreBenchmarkFixture fixture;
+
+   @Setup
+   public void setup()
+   {
+      fixture = new WholeBodyControllerCoreBenchmarkFixture(new ValkyrieRobotModel(RobotTarget.SCS, true));
+      fixture.setup();
+   }
+
+   @Benchmark
+   public WholeBodyControllerCore controllerCoreTick()
+   {
+      return fixture.computeControllerCore();
+   }
+
+   @Benchmark
+   public QPInput motionQPInputCalculator()
+   {
+      return fixture.convertSpatialAccelerationCommands();
+   }
+
+   public static void main(String[] args) throws RunnerException
+   {
+      Options options = new OptionsBuilder().include(ValkyrieWholeBodyControllerCoreJMHBenchmark.class.getSimpleName()).build();
+      new Runner(options).run();
+   }
+}